@@ -11,4 +11,12 @@ export function createPost(url, payload, destination) {
     .catch(error => {
       window.alert(`ERROR: ${error.response.data}`)
     })
-}
\ No newline at end of file
+}
+// Resolves to the attachment_path and file_type to create the post with
+export function uploadAttachment(file) {
+  const form = new FormData()
+  form.append("file", file)
+  return api
+    .post("/attachments", form)
+    .then(response => response.data)
+}
@@ -1,3 +1,5 @@
+import api from "../api/axios.config.js"
+
 export function parseDate(localDateTimeString) {
   const date = new Date(localDateTimeString);
 
@@ -12,4 +14,19 @@ export function parseDate(localDateTimeString) {
 
 export function formatHandle(username) {
     return `@${username.toLowerCase().split(" ").join("_")}`
-  }
\ No newline at end of file
+  }
+
+// The json the server inlined in the page, or null if it didn't
+export function initialData() {
+  const element = document.getElementById("initial-data")
+  return element ? JSON.parse(element.textContent) : null
+}
+
+// The url of an attachment, of the narrowest copy of an image that is at least width pixels wide if one is given
+export function attachmentUrl(path, width) {
+  const url = new URL(path, api.defaults.baseURL)
+  if (width) {
+    url.searchParams.set("width", width)
+  }
+  return url.href
+}
@@ -1,7 +1,7 @@
 import { useRef } from "react"
 import { navigateTo } from "../api/utils.js"
 import NavBar from "../common/NavBar.jsx"
-import { createPost } from "../api/posts.js"
+import { createPost, uploadAttachment } from "../api/posts.js"
 
 const HOME_URL = "/"
 const CREATE_POST_URL = "/create-post"
@@ -19,8 +19,9 @@ function CreatePostBox() {
   const topicRef = useRef(null)
   const titleRef = useRef(null)
   const contentRef = useRef(null)
+  const attachmentRef = useRef(null)
 
-  const sumbitPost = (e) => {
+  const sumbitPost = async (e) => {
     e.preventDefault();
 
     const title = titleRef.current.value
@@ -36,12 +37,23 @@ function CreatePostBox() {
       topic = "general"
     }
 
+    let attachment = { attachment_path: "", file_type: "" }
+    const file = attachmentRef.current.files[0]
+    if (file) {
+      try {
+        attachment = await uploadAttachment(file)
+      } catch (error) {
+        window.alert(`ERROR: ${error.response?.data?.error ?? "Could not upload the attachment"}`)
+        return
+      }
+    }
+
     const postData = {
       "post_title": title,
       "content": content,
       "category": topic,
-      "attachment_path": "",
-      "file_type": "",
+      "attachment_path": attachment.attachment_path,
+      "file_type": attachment.file_type,
     }
 
     createPost(CREATE_POST_URL, postData, HOME_URL)
@@ -66,6 +78,11 @@ function CreatePostBox() {
             <textarea name="content-text" id="post-content-input" ref={contentRef} />
         </div>
 
+        <div id="attachment-input" className="input-group">
+            <label>Attachment: </label>
+            <input type="file" name="attachment" ref={attachmentRef} />
+        </div>
+
         <div id="sumbit-post-container">
           <button onClick={() => navigateTo(HOME_URL)}>Cancel</button>
           <button onClick={sumbitPost}>Post</button>
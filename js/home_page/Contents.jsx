@@ -1,22 +1,43 @@
 import api from "../api/axios.config.js"
 import { navigateTo, REQ_HEADER } from "../api/utils"
 import { useEffect, useState } from "react"
-import { parseDate } from "../common/utils.js"
+import { attachmentUrl, parseDate } from "../common/utils.js"
 
 const CREATE_POST_URL = "/create-post"
-const GET_USER_URL = "/user-info"
+const GET_USERS_URL = "/users"
+const PREVIEW_WIDTH = 320
 
 export default function Contents(props) {
   const [displayedPosts, setDisplayedPosts] = useState([])
+  const [authors, setAuthors] = useState(new Map())
+  // Kept across updates, so a post pushed by the server doesn't shuffle the page
+  const [offset] = useState(() => Math.random())
 
   useEffect(() => {
     // TODO Temporary solution, should make posts paginable
+    const start = Math.floor(offset * (props.posts.length - perPage + 1))
     const slicedPosts = props.posts.length < perPage
       ? props.posts
-      : props.posts.slice(getRandomInt(props.posts.length - perPage), perPage)
+      : props.posts.slice(start, start + perPage)
 
     setDisplayedPosts(slicedPosts)
-  }, [props.posts])
+  }, [props.posts, offset])
+
+  // The authors of every displayed post are looked up in a single request
+  useEffect(() => {
+    const authorIds = [...new Set(displayedPosts.map(post => post.author))]
+    if (authorIds.length === 0) {
+      return
+    }
+
+    api
+      .get(`${GET_USERS_URL}?ids=${authorIds.map(encodeURIComponent).join(",")}`)
+      .then(response => {
+        setAuthors(new Map(response.data.map(user => [user.userID, user.username])))
+      })
+      .catch(error => {
+      })
+  }, [displayedPosts])
 
   const perPage = 20
 
@@ -29,15 +50,16 @@ export default function Contents(props) {
 
       <div id="post-box-container">
         {displayedPosts.map((post, index) => {
-          // TODO make the post entity to return a User entity and use that instead of fetching for user
           return <PostBox
             key={index}
             postId={post.entryID}
             authorPfp={""}
-            author={post.author}
+            author={authors.get(post.author)}
             timeStamp={parseDate(post.postedDate)}
             title={post.postTitle}
             content={post.content.body}
+            attachmentPath={post.content.attachmentPath}
+            fileType={post.content.fileType}
             topic={post.category}
           />
         })}
@@ -47,29 +69,24 @@ export default function Contents(props) {
 }
 
 function PostBox(props) {
-  // see the todo on top
-  const [author, setAuthor] = useState(null)
-
-  useEffect(() => {
-    api
-      .get(`${GET_USER_URL}?user_id=${props.author}`)
-      .then(response => {
-        setAuthor(response.data.username)
-      })
-      .catch(error => {
-      })
-  }, [])
-
   return (
     <div className="post-box preserve-line-breaks" onClick={() => navigateTo(`/post/${props.postId}`)}>
       <div className="post-box-info">
         <img className="pfp" src={props.authorPfp} alt=" " />
-        <div className="post-box-author">{author}</div>
+        <div className="post-box-author">{props.author}</div>
         <div className="post-box-timestamp">{props.timeStamp}</div>
       </div>
 
       <div className="post-box-title">{props.title}</div>
       <div className="post-box-content">{props.content}</div>
+      {props.attachmentPath && props.fileType?.startsWith("image/") &&
+        <img
+          className="post-box-preview"
+          src={attachmentUrl(props.attachmentPath, PREVIEW_WIDTH)}
+          srcSet={`${attachmentUrl(props.attachmentPath, PREVIEW_WIDTH)} 1x, ${attachmentUrl(props.attachmentPath, PREVIEW_WIDTH * 2)} 2x`}
+          alt=""
+          loading="lazy"
+        />}
       <div className="post-box-topic">{props.topic}</div>
     </div>
   )
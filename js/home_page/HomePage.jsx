@@ -4,6 +4,7 @@ import Contents from "./Contents.jsx"
 import RecentActivities from "./RecentActivities.jsx"
 import { useEffect, useState } from "react"
 import api from '../api/axios.config.js'
+import { initialData } from "../common/utils.js"
 
 export default function HomePage() {
   return (
@@ -14,27 +15,60 @@ export default function HomePage() {
   )
 }
 
+const FEED_EVENTS_URL = "/feed-events"
+const MAX_ACTIVITIES = 10
+
 function HomeContent() {
-  const [posts, setPosts] = useState([])
+  // The newest posts are inlined by the server so they show right away, the whole
+  // feed the topics are counted from replaces them once it is fetched
+  const [posts, setPosts] = useState(() => initialData() ?? [])
+  const [activities, setActivities] = useState([])
 
   useEffect(() => {
-    api
-    .get("/all-posts")
-    .then(response => {
-      setPosts([...response.data].reverse())
+    const fetchPosts = () => api
+      .get("/all-posts")
+      .then(response => {
+        setPosts([...response.data].reverse())
+      })
+      .catch(() => {
+        window.alert("Error fetching posts")
+      })
+    fetchPosts()
+
+    // The server pushes every change to the posts, so the feed is patched instead of fetched again
+    const addActivity = (action, post) => {
+      setActivities(activities => [
+        { id: `${post.entryID}-${post.lastModifiedDate}`, action, post },
+        ...activities
+      ].slice(0, MAX_ACTIVITIES))
+    }
+    const events = new EventSource(`${api.defaults.baseURL}${FEED_EVENTS_URL}`)
+    events.addEventListener("created", event => {
+      const { post } = JSON.parse(event.data)
+      setPosts(posts => [post, ...posts.filter(other => other.entryID !== post.entryID)])
+      addActivity("posted", post)
     })
-    .catch(() => {
-      window.alert("Error fetching posts")
+    events.addEventListener("edited", event => {
+      const { post } = JSON.parse(event.data)
+      setPosts(posts => posts.map(other => other.entryID === post.entryID ? post : other))
+      addActivity("edited", post)
     })
-  }, [])
+    events.addEventListener("deleted", event => {
+      const { postID } = JSON.parse(event.data)
+      setPosts(posts => posts.filter(post => post.entryID !== postID))
+      setActivities(activities => activities.filter(activity => activity.post.entryID !== postID))
+    })
+    // Sent when changes were missed, e.g. after reconnecting, the feed is fetched again
+    events.addEventListener("reset", fetchPosts)
 
-  useEffect(() => {}, [posts])
+    return () => events.close()
+  }, [])
 
   return (
     <div id="home-page-container">
       <Topics posts={posts} />
       <Contents posts={posts} />
-      <RecentActivities />
+      <RecentActivities activities={activities} />
     </div>
   )
 }
@@ -1,9 +1,18 @@
+import { parseDate } from "../common/utils.js"
+
 export default function RecentActivities(props) {
   return (
     <div id="recent-activity-container">
       <div id="activities-title">RECENT ACTIVITIES</div>
       <div id="activities-container">
-
+        {props.activities.map(activity => {
+          return <Activity
+            key={activity.id}
+            timestamp={parseDate(activity.post.lastModifiedDate ?? activity.post.postedDate)}
+            action={`${activity.action} in ${activity.post.category}`}
+            content={activity.post.postTitle}
+          />
+        })}
       </div>
     </div>
   )
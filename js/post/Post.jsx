@@ -1,50 +1,67 @@
 import { useEffect, useState } from "react"
 import api from "../api/axios.config.js"
 import NavBar from "../common/NavBar.jsx"
-import { formatHandle, parseDate } from "../common/utils.js"
+import { attachmentUrl, formatHandle, initialData, parseDate } from "../common/utils.js"
 
 
+// The server sends the narrowest copy of an image at least this wide
+const POST_IMAGE_WIDTH = 1280
+
+const EMPTY_POST = {
+  author: "",
+  authorId: "",
+  handle: "",
+  postTitle: "",
+  postBody: "",
+  attachmentPath: "",
+  fileType: "",
+  topic: "",
+  likes: 0,
+  dislikes: 0,
+  createdDate: "",
+  editedDate: "",
+  comments: [],
+}
+
+function toPostData(page) {
+  const post = page.post
+  const author = page.author ?? { username: "[deleted]", userID: "" }
+
+  return {
+    author: author.username,
+    authorId: author.userID,
+    handle: formatHandle(author.username),
+    postTitle: post.postTitle,
+    postBody: post.content.body,
+    attachmentPath: post.content.attachmentPath,
+    fileType: post.content.fileType,
+    topic: post.category,
+    likes: post.likes,
+    dislikes: post.dislikes,
+    createdDate: parseDate(post.postedDate),
+    editedDate: parseDate(post.lastModifiedData),
+    comments: page.comments,
+  }
+}
+
 export default function Post() {
-  const [postData, setPostData] = useState({
-    author: "",
-    authorId: "",
-    handle: "",
-    postTitle: "",
-    postBody: "",
-    topic: "",
-    likes: 0,
-    dislikes: 0,
-    createdDate: "",
-    editedDate: "",
-    comments: [],
-  })
+  // The server inlines the page's data, it is only fetched when it didn't
+  const [inlinedPage] = useState(initialData)
+  const [postData, setPostData] = useState(inlinedPage ? toPostData(inlinedPage) : EMPTY_POST)
 
   useEffect(() => {
+    if (inlinedPage) {
+      return
+    }
+
     const fetchData = async () => {
-      // TODO there should be a better way to do this without making another request to the backend
-      // and also utilizing path param. Not gonna worry about this now lol
-      const post = await api.get(`/post?post_id=${window.location.href.split("/").slice(-1)[0]}`)
+      const page = await api.get(`/post-page?post_id=${window.location.href.split("/").slice(-1)[0]}`)
 
-      if (post.data === "") {
+      if (page.data === "") {
         window.alert("Post doesn't exist")
         return
       }
-      // TODO again, the backend should return a user entity instead of author id string
-      const userData = await api.get(`/user-info?user_id=${post.data.author}`)
-
-      setPostData({
-        author: userData.data.username,
-        authorId: userData.data.userID,
-        handle: formatHandle(userData.data.username),
-        postTitle: post.data.postTitle,
-        postBody: post.data.content.body,
-        topic: post.data.category,
-        likes: post.data.likes,
-        dislikes: post.data.dislikes,
-        createdDate: parseDate(post.data.postedDate),
-        editedDate: parseDate(post.data.lastModifiedData),
-        comments: post.data.comments,
-      })
+      setPostData(toPostData(page.data))
     }
 
     fetchData().catch(() => {})
@@ -69,6 +86,7 @@ export default function Post() {
         <div id="post-title">{postData.postTitle}</div>
         <div id="post-topic">{postData.topic}</div>
         <div id="post-body" className="preserve-line-breaks">{postData.postBody}</div>
+        <Attachment path={postData.attachmentPath} fileType={postData.fileType} />
       </div>
       <div id="post-interaction">
         <button id="like-post">{postData.likes}</button>
@@ -80,6 +98,24 @@ export default function Post() {
   )
 }
 
+function Attachment({ path, fileType }) {
+  if (!path) {
+    return null
+  }
+
+  const src = attachmentUrl(path)
+  if (fileType?.startsWith("image/")) {
+    return <img id="post-attachment" src={attachmentUrl(path, POST_IMAGE_WIDTH)} alt="" loading="lazy" />
+  }
+  if (fileType?.startsWith("video/")) {
+    return <video id="post-attachment" src={src} controls preload="metadata" />
+  }
+  if (fileType?.startsWith("audio/")) {
+    return <audio id="post-attachment" src={src} controls preload="metadata" />
+  }
+  return <a id="post-attachment" href={src}>Attachment</a>
+}
+
 function Comments(props) {
   return (
     <div>Comments</div>
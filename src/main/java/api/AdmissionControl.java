@@ -0,0 +1,132 @@
+package api;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Decides whether a request to an endpoint that writes to MongoDB, signing up,
+ * logging in or creating a post, is served or answered with a 429.
+ * <p/>
+ * Each client address gets a token bucket, and only so many of these requests run
+ * at once. While MongoDB answers slower than the latency threshold that number
+ * drops to overloadedMaxInFlight, so a flood of writes sheds load instead of
+ * taking the connections reads need. Reads never go through here.
+ * <p/>
+ * Addresses can be exempt from their bucket, e.g. the one the load harness in
+ * loadtest runs from, since it sends every request from a single address. The in
+ * flight limit still applies to them.
+ */
+public class AdmissionControl {
+    public static final String REJECTED_COUNTER = "connecthub.admission.rejected";
+    public static final String IN_FLIGHT_GAUGE = "connecthub.admission.in_flight";
+
+    // How long a client shed because of load is asked to wait
+    private static final long OVERLOADED_RETRY_AFTER_SECONDS = 1;
+    private static final String REJECTED_MESSAGE = "Too many requests, try again later";
+
+    private final TokenBucketRateLimiter addressLimiter;
+    private final Set<String> exemptAddresses;
+    private final int maxInFlight;
+    private final int overloadedMaxInFlight;
+    private final long latencyThresholdNanos;
+    private final LongSupplier databaseLatencyNanos;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final Counter rateLimited;
+    private final Counter overloaded;
+
+    /**
+     * @param addressLimiter - the bucket of each client address.
+     * @param exemptAddresses - the client addresses that skip their bucket.
+     * @param maxInFlight - the most requests admitted at once while MongoDB keeps up.
+     * @param overloadedMaxInFlight - the most requests admitted at once while it doesn't.
+     * @param latencyThresholdNanos - the database latency above which MongoDB is considered overloaded.
+     * @param databaseLatencyNanos - the current database latency, e.g. MongoCommandLatency's average.
+     */
+    public AdmissionControl(TokenBucketRateLimiter addressLimiter,
+                            Set<String> exemptAddresses,
+                            int maxInFlight,
+                            int overloadedMaxInFlight,
+                            long latencyThresholdNanos,
+                            LongSupplier databaseLatencyNanos,
+                            MeterRegistry registry) {
+        this.addressLimiter = addressLimiter;
+        this.exemptAddresses = Set.copyOf(exemptAddresses);
+        this.maxInFlight = maxInFlight;
+        this.overloadedMaxInFlight = overloadedMaxInFlight;
+        this.latencyThresholdNanos = latencyThresholdNanos;
+        this.databaseLatencyNanos = databaseLatencyNanos;
+        this.rateLimited = Counter.builder(REJECTED_COUNTER).tag("reason", "rate_limited").register(registry);
+        this.overloaded = Counter.builder(REJECTED_COUNTER).tag("reason", "overloaded").register(registry);
+        Gauge.builder(IN_FLIGHT_GAUGE, this.inFlight, AtomicInteger::get).register(registry);
+    }
+
+    /**
+     * Admits a request from the address if its bucket has a token and there is room
+     * for it. An admitted request must call release once it is done.
+     * @return 0 if the request was admitted, otherwise how many seconds the client should wait.
+     */
+    public long admit(String address) {
+        final long waitNanos = this.exemptAddresses.contains(address)
+            ? 0
+            : this.addressLimiter.tryAcquire(address);
+        if (waitNanos > 0) {
+            this.rateLimited.increment();
+            return retryAfterSeconds(waitNanos);
+        }
+
+        final int limit = this.databaseLatencyNanos.getAsLong() > this.latencyThresholdNanos
+            ? this.overloadedMaxInFlight
+            : this.maxInFlight;
+        while (true) {
+            final int current = this.inFlight.get();
+            if (current >= limit) {
+                this.overloaded.increment();
+                return OVERLOADED_RETRY_AFTER_SECONDS;
+            }
+            if (this.inFlight.compareAndSet(current, current + 1)) {
+                return 0;
+            }
+        }
+    }
+
+    public void release() {
+        this.inFlight.decrementAndGet();
+    }
+
+    /**
+     * Checks a per account bucket, for limits that need the request body to know who is asking.
+     * @return null if the request may go on, otherwise the 429 to answer it with.
+     */
+    static ResponseEntity<String> checkAccount(TokenBucketRateLimiter accountLimiter, String account) {
+        if (account == null) {
+            return null;
+        }
+        final long waitNanos = accountLimiter.tryAcquire(account);
+        return waitNanos == 0 ? null : tooManyRequests(retryAfterSeconds(waitNanos));
+    }
+
+    static ResponseEntity<String> tooManyRequests(long retryAfterSeconds) {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+            .header(HttpHeaders.RETRY_AFTER, Long.toString(retryAfterSeconds))
+            .body(REJECTED_MESSAGE);
+    }
+
+    static String rejectedMessage() {
+        return REJECTED_MESSAGE;
+    }
+
+    // Retry-After is in whole seconds, rounding down could ask for a retry that is rejected again
+    private static long retryAfterSeconds(long waitNanos) {
+        return Math.max(1, (waitNanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1));
+    }
+}
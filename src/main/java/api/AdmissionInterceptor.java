@@ -0,0 +1,46 @@
+package api;
+
+import java.nio.charset.StandardCharsets;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Puts the requests of the paths it is registered for through AdmissionControl,
+ * before their body is even read.
+ */
+public class AdmissionInterceptor implements HandlerInterceptor {
+    private final AdmissionControl admissionControl;
+
+    public AdmissionInterceptor(AdmissionControl admissionControl) {
+        this.admissionControl = admissionControl;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler)
+            throws Exception {
+        final long retryAfterSeconds = this.admissionControl.admit(request.getRemoteAddr());
+        if (retryAfterSeconds == 0) {
+            return true;
+        }
+
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(retryAfterSeconds));
+        response.setContentType(MediaType.TEXT_PLAIN_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        response.getWriter().write(AdmissionControl.rejectedMessage());
+        return false;
+    }
+
+    // Only called for requests preHandle admitted
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+                                Exception ex) {
+        this.admissionControl.release();
+    }
+}
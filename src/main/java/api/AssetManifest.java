@@ -0,0 +1,88 @@
+package api;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.Resource;
+
+/**
+ * Maps the bundles' logical paths, e.g. "/js/home_page/app.js", to the content
+ * hashed files the production webpack build emitted for them, as listed in its
+ * manifest.json.
+ * <p/>
+ * A hashed file never changes, so it can be cached by browsers for good. Without a
+ * manifest, e.g. when the front end was built with webpack.dev.js, the logical paths
+ * are served as they are.
+ */
+public class AssetManifest {
+    public static final String MANIFEST_LOCATION = "static/manifest.json";
+    private static final Logger LOGGER = LoggerFactory.getLogger(AssetManifest.class);
+
+    private final Map<String, String> assets;
+
+    /**
+     * @param assets - the emitted path of each logical path, both starting with "/".
+     */
+    public AssetManifest(Map<String, String> assets) {
+        this.assets = Map.copyOf(assets);
+    }
+
+    /**
+     * Reads the manifest from the classpath, where the front end build is packaged.
+     * @return the manifest, empty if the build didn't write one.
+     */
+    public static AssetManifest load() {
+        return load(new ClassPathResource(MANIFEST_LOCATION));
+    }
+
+    static AssetManifest load(Resource manifest) {
+        if (!manifest.exists()) {
+            LOGGER.info("No asset manifest at {}, serving bundles under their logical paths", manifest);
+            return new AssetManifest(Collections.emptyMap());
+        }
+
+        try (InputStream in = manifest.getInputStream()) {
+            final JSONObject entries = new JSONObject(new String(in.readAllBytes(), StandardCharsets.UTF_8));
+            final Map<String, String> assets = new HashMap<>();
+            // keys() rather than keySet(), older org.json implementations lack the latter
+            final Iterator<String> logicalPaths = entries.keys();
+            while (logicalPaths.hasNext()) {
+                final String logicalPath = logicalPaths.next();
+                assets.put("/" + logicalPath, "/" + entries.getString(logicalPath));
+            }
+            return new AssetManifest(assets);
+        } catch (IOException | JSONException ex) {
+            throw new IllegalStateException("Could not read the asset manifest " + manifest, ex);
+        }
+    }
+
+    /**
+     * @param logicalPath - the path the bundle has without a content hash, e.g. "/js/post/app.js".
+     * @return the path of the file to load, or logicalPath if the manifest doesn't list it.
+     */
+    public String resolve(String logicalPath) {
+        return this.assets.getOrDefault(logicalPath, logicalPath);
+    }
+
+    /**
+     * @return the paths whose file name carries a content hash, these can be cached as immutable.
+     */
+    public Set<String> getFingerprintedPaths() {
+        return this.assets.entrySet().stream()
+            .filter(asset -> !asset.getKey().equals(asset.getValue()))
+            .map(Map.Entry::getValue)
+            .collect(Collectors.toUnmodifiableSet());
+    }
+}
@@ -0,0 +1,305 @@
+package api;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.http.CacheControl;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.multipart.MultipartFile;
+
+import daos.AttachmentStore;
+import daos.AttachmentVariants;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Uploads and serves the attachments of posts, see AttachmentStore.
+ * <p/>
+ * An upload is answered with the attachment_path and file_type to create the post
+ * with. The path is the attachment's hash and the extension of the uploaded file,
+ * which picks the type it is served as. Only types browsers show without running
+ * anything are served inline, the rest are sent as downloads.
+ * <p/>
+ * Images are also made smaller copies of, see AttachmentVariants, and a download
+ * asking for a width is sent the narrowest one that fits. Downloads honour single
+ * byte ranges, so videos can be sought and broken downloads resumed. Tomcat sends
+ * the file with FileChannel.transferTo straight to the socket, it doesn't pass
+ * through the heap.
+ */
+@RestController
+@RequestMapping("/api/v1")
+public class AttachmentController {
+    static final String ATTACHMENTS_PATH = "/api/v1/attachments/";
+    static final String FILE_PART = "file";
+    // Attachments never change, browsers and proxies can keep them for good
+    static final CacheControl CACHE_POLICY = CacheControl.maxAge(Duration.ofDays(365)).cachePublic().immutable();
+    static final Set<MediaType> INLINE_TYPES = Set.of(
+        MediaType.IMAGE_PNG, MediaType.IMAGE_JPEG, MediaType.IMAGE_GIF, MediaType.parseMediaType("image/webp"),
+        MediaType.parseMediaType("video/mp4"), MediaType.parseMediaType("video/webm"),
+        MediaType.parseMediaType("audio/mpeg"), MediaType.parseMediaType("audio/ogg"), MediaType.APPLICATION_PDF);
+
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    private final AttachmentStore attachmentStore;
+    private final AttachmentVariants attachmentVariants;
+
+    public AttachmentController(AttachmentStore attachmentStore, AttachmentVariants attachmentVariants) {
+        this.attachmentStore = attachmentStore;
+        this.attachmentVariants = attachmentVariants;
+    }
+
+    /**
+     * Tomcat spools the part to disk as it arrives, it is copied into the store from there.
+     */
+    @PostMapping(path = "/attachments", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<Map<String, Object>> upload(@RequestParam(FILE_PART) MultipartFile file) {
+        try (AttachmentStore.Upload upload = this.attachmentStore.begin();
+             InputStream content = file.getInputStream()) {
+            upload.write(content);
+            return ResponseEntity.status(HttpStatus.CREATED)
+                .body(uploaded(upload.commit(), file.getOriginalFilename(), this.attachmentVariants));
+        } catch (AttachmentStore.AttachmentTooLargeException ex) {
+            return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).body(Map.of("error", ex.getMessage()));
+        } catch (IOException ex) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body(Map.of("error", "Could not store the attachment"));
+        }
+    }
+
+    /**
+     * @param width - the width an image is shown at, in device pixels, to be sent the narrowest copy that fits.
+     */
+    @GetMapping("/attachments/{name}")
+    public void download(@PathVariable("name") String name,
+                         @RequestParam(value = "width", required = false) String width,
+                         HttpServletRequest request, HttpServletResponse response) throws IOException {
+        final Download download = downloadOf(this.attachmentStore, this.attachmentVariants, name, widthOf(width));
+        if (download == null) {
+            response.setStatus(HttpStatus.NOT_FOUND.value());
+            return;
+        }
+        final Path file = download.file();
+        final String tag = download.tag();
+        download.headers().forEach((header, values) -> values.forEach(value -> response.addHeader(header, value)));
+        if (ContentVersions.matches(request.getHeader(HttpHeaders.IF_NONE_MATCH), tag)) {
+            response.setStatus(HttpStatus.NOT_MODIFIED.value());
+            return;
+        }
+
+        final long length = Files.size(file);
+        final Region region = regionOf(request.getHeader(HttpHeaders.RANGE), request.getHeader(HttpHeaders.IF_RANGE),
+                                       tag, length);
+        if (region == null) {
+            response.setStatus(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE.value());
+            response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+            return;
+        }
+        if (region.partial()) {
+            response.setStatus(HttpStatus.PARTIAL_CONTENT.value());
+            response.setHeader(HttpHeaders.CONTENT_RANGE, region.contentRange(length));
+        }
+        response.setContentLengthLong(region.count());
+        if ("HEAD".equals(request.getMethod())) {
+            return;
+        }
+
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            // Tomcat transfers the file to the socket once the request returns
+            request.setAttribute(SENDFILE_FILENAME, file.toAbsolutePath().toString());
+            request.setAttribute(SENDFILE_START, region.start());
+            request.setAttribute(SENDFILE_END, region.end());
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(file);
+             WritableByteChannel out = Channels.newChannel(response.getOutputStream())) {
+            long position = region.start();
+            while (position < region.end()) {
+                position += channel.transferTo(position, region.end() - position, out);
+            }
+        }
+    }
+
+    /**
+     * Queues making the copies of an uploaded image.
+     * @param filename - the name of the uploaded file, its extension picks the type it is served as.
+     * @return the response to an upload.
+     */
+    static Map<String, Object> uploaded(AttachmentStore.StoredAttachment stored, String filename,
+                                        AttachmentVariants attachmentVariants) {
+        final String extension = extensionOf(filename);
+        final String name = extension.isEmpty() ? stored.id() : stored.id() + "." + extension;
+        if (isImage(name)) {
+            attachmentVariants.generate(stored.id());
+        }
+        return Map.of("attachment_path", ATTACHMENTS_PATH + name,
+                      "file_type", servedTypeOf(name).toString(),
+                      "size", stored.size());
+    }
+
+    /**
+     * @param name - the last segment of an attachment's path.
+     */
+    static String idOf(String name) {
+        final int dot = name.indexOf('.');
+        return dot < 0 ? name : name.substring(0, dot);
+    }
+
+    /**
+     * @return the width asked for, or null if none or one that makes no sense was.
+     */
+    static Integer widthOf(String width) {
+        try {
+            final int parsed = width == null ? 0 : Integer.parseInt(width);
+            return parsed > 0 ? parsed : null;
+        } catch (NumberFormatException ex) {
+            return null;
+        }
+    }
+
+    /**
+     * What a download sends, the attachment or a smaller copy of it.
+     * @param headers - the headers of every answer but a 404.
+     */
+    record Download(Path file, String tag, HttpHeaders headers) {}
+
+    /**
+     * Looks on disk, the reactive handler calls it off the event loop. Copies that
+     * weren't made yet are queued, and the original is sent meanwhile with a policy
+     * that has the client ask again, so it gets the copy once there is one.
+     * @param width - the width an image is shown at, null to send the original.
+     * @return null if there is no such attachment.
+     */
+    static Download downloadOf(AttachmentStore attachmentStore, AttachmentVariants attachmentVariants, String name,
+                               Integer width) {
+        final String id = idOf(name);
+        final Path file = attachmentStore.find(id);
+        if (file == null) {
+            return null;
+        }
+        final HttpHeaders headers = headersFor(name);
+        headers.setCacheControl(CACHE_POLICY);
+        final String tag = "\"" + id + "\"";
+        if (width == null || !isImage(name)) {
+            headers.setETag(tag);
+            return new Download(file, tag, headers);
+        }
+
+        final AttachmentVariants.Manifest manifest = attachmentVariants.manifestOf(id);
+        if (manifest == null) {
+            attachmentVariants.generate(id);
+            headers.setCacheControl(CacheControl.noCache());
+            headers.setETag(tag);
+            return new Download(file, tag, headers);
+        }
+        final AttachmentVariants.Variant variant = manifest.fitting(width);
+        if (variant == null) {
+            // The original is the narrowest that fits
+            headers.setETag(tag);
+            return new Download(file, tag, headers);
+        }
+        final String variantTag = "\"" + id + "-" + variant.width() + "\"";
+        headers.setETag(variantTag);
+        headers.setContentType(MediaType.parseMediaType(variant.mediaType()));
+        return new Download(variant.file(), variantTag, headers);
+    }
+
+    /**
+     * Whether the attachment is served as an image, which copies are made of.
+     */
+    static boolean isImage(String name) {
+        return "image".equals(servedTypeOf(name).getType());
+    }
+
+    private static HttpHeaders headersFor(String name) {
+        final MediaType mediaType = servedTypeOf(name);
+        final HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.ACCEPT_RANGES, "bytes");
+        headers.set("X-Content-Type-Options", "nosniff");
+        headers.setContentType(mediaType);
+        if (!INLINE_TYPES.contains(mediaType)) {
+            headers.setContentDisposition(ContentDisposition.attachment().filename(name).build());
+        }
+        return headers;
+    }
+
+    /**
+     * The bytes of an attachment to send.
+     * @param end - exclusive.
+     * @param partial - whether a range was asked for.
+     */
+    record Region(long start, long end, boolean partial) {
+        long count() {
+            return this.end - this.start;
+        }
+
+        String contentRange(long length) {
+            return "bytes " + this.start + "-" + (this.end - 1) + "/" + length;
+        }
+    }
+
+    /**
+     * Only a single range is sent, the whole attachment is when several were asked
+     * for, the range is malformed or the client's copy isn't the attachment's.
+     * @return null if the range asked for is past the end.
+     */
+    static Region regionOf(String rangeHeader, String ifRange, String tag, long length) {
+        if (rangeHeader == null || (ifRange != null && !ifRange.equals(tag))) {
+            return new Region(0, length, false);
+        }
+        final List<HttpRange> ranges;
+        try {
+            ranges = HttpRange.parseRanges(rangeHeader);
+        } catch (IllegalArgumentException ex) {
+            return new Region(0, length, false);
+        }
+        if (ranges.size() != 1) {
+            return new Region(0, length, false);
+        }
+        try {
+            final long start = ranges.get(0).getRangeStart(length);
+            final long end = ranges.get(0).getRangeEnd(length) + 1;
+            return length > 0 && start < end ? new Region(start, end, true) : null;
+        } catch (IllegalArgumentException ex) {
+            return null;
+        }
+    }
+
+    private static MediaType servedTypeOf(String name) {
+        final MediaType mediaType = MediaTypeFactory.getMediaType(name).orElse(MediaType.APPLICATION_OCTET_STREAM);
+        return INLINE_TYPES.contains(mediaType) ? mediaType : MediaType.APPLICATION_OCTET_STREAM;
+    }
+
+    private static String extensionOf(String filename) {
+        if (filename == null) {
+            return "";
+        }
+        final int dot = filename.lastIndexOf('.');
+        final String extension = dot < 0 ? "" : filename.substring(dot + 1).toLowerCase(Locale.ROOT);
+        return extension.matches("[a-z0-9]{1,8}") ? extension : "";
+    }
+}
@@ -1,5 +1,6 @@
 package api;
 
+import java.util.Locale;
 import java.util.Map;
 
 import org.springframework.http.HttpStatus;
@@ -25,13 +26,17 @@ public class AuthentificationController {
     private SignupInputBoundary signUpInteractor;
     private LoginInputBoundary loginInteractor;
     private LogoutInputBoundary logoutInteractor;
+    // Per email, so guessing one account's password from many addresses is limited too
+    private final TokenBucketRateLimiter loginAttempts;
 
     public AuthentificationController(SignupInputBoundary signUpInteractor,
                                       LoginInputBoundary loginInteractor,
-                                      LogoutInputBoundary logoutInteractor) {
+                                      LogoutInputBoundary logoutInteractor,
+                                      TokenBucketRateLimiter loginAttempts) {
         this.signUpInteractor = signUpInteractor;
         this.loginInteractor = loginInteractor;
         this.logoutInteractor = logoutInteractor;
+        this.loginAttempts = loginAttempts;
     }
 
     @PostMapping("/signup")
@@ -57,8 +62,15 @@ public class AuthentificationController {
 
     @PostMapping("/login")
     public ResponseEntity<String> logInUser(@RequestBody Map<String, String> requestBody) {
+        final String email = requestBody.get("email");
+        final ResponseEntity<String> rejected = AdmissionControl.checkAccount(
+            this.loginAttempts, email == null ? null : email.trim().toLowerCase(Locale.ROOT));
+        if (rejected != null) {
+            return rejected;
+        }
+
         final LoginInputData loginInputData = new LoginInputData(
-            requestBody.get("email"),
+            email,
             requestBody.get("password")
         );
 
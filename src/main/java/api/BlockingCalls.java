@@ -0,0 +1,29 @@
+package api;
+
+import java.util.concurrent.Callable;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.reactive.function.server.ServerResponse;
+
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Runs a blocking controller method for the reactive handlers. The call is moved
+ * to the bounded elastic scheduler so it never blocks an event loop thread, and
+ * its ResponseEntity, headers included, is turned into the equivalent ServerResponse.
+ */
+final class BlockingCalls {
+
+    private BlockingCalls() {}
+
+    static <T> Mono<ServerResponse> offload(Callable<ResponseEntity<T>> call) {
+        return Mono.fromCallable(call)
+            .subscribeOn(Schedulers.boundedElastic())
+            .flatMap(entity -> entity.getBody() == null
+                ? ServerResponse.status(entity.getStatusCode())
+                    .headers(headers -> headers.addAll(entity.getHeaders())).build()
+                : ServerResponse.status(entity.getStatusCode())
+                    .headers(headers -> headers.addAll(entity.getHeaders())).bodyValue(entity.getBody()));
+    }
+}
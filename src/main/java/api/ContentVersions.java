@@ -0,0 +1,219 @@
+package api;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+import daos.PostWriteListener;
+import entity.Comment;
+import entity.Post;
+import use_case.get_user.PublicUserProfile;
+import use_case.getpost.PostVersion;
+import use_case.post_page.PostPageOutputData;
+
+/**
+ * Entity tags of the post endpoints, and the tags this server handed out recently.
+ * <p/>
+ * A post's tag is derived from its post_id and last_modified, the feed's and the
+ * post page's from the tags of everything they contain, so the same content always
+ * gets the same tag. Remembering the last tag of each response lets a conditional
+ * GET be answered with a 304 without reading MongoDB.
+ * <p/>
+ * Every write through DBPostDataAccessObject bumps the write generation and forgets
+ * the tags it affects, and so does every write daos.InvalidationBus sees another
+ * instance or the Swing app make. The bus can lag or miss writes while MongoDB is
+ * unreachable, so a remembered tag is still only trusted for a short while.
+ */
+public class ContentVersions implements PostWriteListener {
+    static final String FEED_KEY = "feed";
+    static final String FEED_PAGE_KEY = "feed-page";
+
+    private final long trustNanos;
+    private final int maxEntries;
+    private final LongSupplier nanoClock;
+    private final AtomicLong writeGeneration = new AtomicLong();
+    private final ConcurrentHashMap<String, Version> versions = new ConcurrentHashMap<>();
+
+    /**
+     * @param trustFor - how long a remembered tag is used without reading MongoDB.
+     * @param maxEntries - the most tags remembered at once.
+     */
+    public ContentVersions(Duration trustFor, int maxEntries) {
+        this(trustFor, maxEntries, System::nanoTime);
+    }
+
+    /**
+     * @param nanoClock - the time in nanoseconds, like System.nanoTime.
+     */
+    ContentVersions(Duration trustFor, int maxEntries, LongSupplier nanoClock) {
+        this.trustNanos = trustFor.toNanos();
+        this.maxEntries = maxEntries;
+        this.nanoClock = nanoClock;
+    }
+
+    static String postKey(String postID) {
+        return "post:" + postID;
+    }
+
+    static String postPageKey(String postID) {
+        return "post-page:" + postID;
+    }
+
+    /**
+     * Read before loading a response, and passed to record once its tag is known.
+     * @return the number of post writes seen so far.
+     */
+    long generation() {
+        return this.writeGeneration.get();
+    }
+
+    /**
+     * @return the tag last recorded for the key, or null if there is none or it is too old to trust.
+     */
+    String knownTag(String key) {
+        final Version version = this.versions.get(key);
+        if (version == null || this.nanoClock.getAsLong() - version.recordedAt > this.trustNanos) {
+            return null;
+        }
+        return version.tag;
+    }
+
+    /**
+     * Remembers the tag of a response, unless a post was written since it started loading.
+     * @param generation - the generation read before the response was loaded.
+     */
+    void record(String key, String tag, long generation) {
+        if (generation != this.writeGeneration.get()) {
+            return;
+        }
+        if (this.versions.size() >= this.maxEntries) {
+            final long now = this.nanoClock.getAsLong();
+            this.versions.values().removeIf(stale -> now - stale.recordedAt > this.trustNanos);
+            if (this.versions.size() >= this.maxEntries) {
+                return;
+            }
+        }
+
+        final Version version = new Version(tag, this.nanoClock.getAsLong());
+        this.versions.put(key, version);
+        // A write that landed while this was being put must not leave it behind
+        if (generation != this.writeGeneration.get()) {
+            this.versions.remove(key, version);
+        }
+    }
+
+    @Override
+    public void postWritten(String postID) {
+        this.writeGeneration.incrementAndGet();
+        this.versions.remove(postKey(postID));
+        this.versions.remove(postPageKey(postID));
+        this.versions.remove(FEED_KEY);
+        this.versions.remove(FEED_PAGE_KEY);
+    }
+
+    @Override
+    public void postsWritten() {
+        this.writeGeneration.incrementAndGet();
+        this.versions.clear();
+    }
+
+    /**
+     * Checks an If-None-Match header against a tag, weak comparison as RFC 9110 asks for.
+     * @param ifNoneMatch - the header value, may be null.
+     */
+    static boolean matches(String ifNoneMatch, String tag) {
+        if (ifNoneMatch == null || tag == null) {
+            return false;
+        }
+
+        for (String candidate : ifNoneMatch.split(",")) {
+            String trimmed = candidate.trim();
+            if (trimmed.startsWith("W/")) {
+                trimmed = trimmed.substring(2);
+            }
+            if (trimmed.equals("*") || trimmed.equals(tag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    static String postTag(Post post) {
+        return versionTag(post.getEntryID(), lastModified(post.getLastModifiedDate(), post.getPostedDate()));
+    }
+
+    /**
+     * The feed's tag is computed from the versions of its posts, so it can be sent
+     * before the posts themselves are read.
+     */
+    static String feedTag(List<PostVersion> versions) {
+        final StringBuilder content = new StringBuilder();
+        for (PostVersion version : versions) {
+            content.append(versionTag(version.getEntryID(), version.getLastModified()));
+        }
+        return "\"feed-" + digest(content.toString()) + "\"";
+    }
+
+    /**
+     * The tag of the first page of the feed, which the home page is rendered with.
+     */
+    static String feedPageTag(List<Post> posts) {
+        final StringBuilder content = new StringBuilder();
+        for (Post post : posts) {
+            content.append(postTag(post));
+        }
+        return "\"feed-page-" + digest(content.toString()) + "\"";
+    }
+
+    private static String versionTag(String postID, LocalDateTime lastModified) {
+        return "\"" + postID + "-" + lastModified + "\"";
+    }
+
+    static String postPageTag(PostPageOutputData page) {
+        final StringBuilder content = new StringBuilder(postTag(page.getPost()));
+        final PublicUserProfile author = page.getAuthor();
+        if (author != null) {
+            // Every field the page shows of its author, a rename or new post changes the page
+            content.append(author.getUserID()).append('\0')
+                .append(author.getUsername()).append('\0')
+                .append(author.getFullName()).append('\0')
+                .append(author.getPostCount()).append('\0');
+        }
+        for (Comment comment : page.getComments()) {
+            content.append(comment.getEntryID())
+                .append(lastModified(comment.getLastModifiedDate(), comment.getPostedDate()));
+        }
+        return "\"page-" + digest(content.toString()) + "\"";
+    }
+
+    private static LocalDateTime lastModified(LocalDateTime lastModified, LocalDateTime posted) {
+        return lastModified == null ? posted : lastModified;
+    }
+
+    private static String digest(String content) {
+        try {
+            final byte[] hash = MessageDigest.getInstance("SHA-256").digest(content.getBytes(StandardCharsets.UTF_8));
+            // 128 bits is plenty to tell versions apart
+            return HexFormat.of().formatHex(hash, 0, 16);
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("SHA-256 is always available", ex);
+        }
+    }
+
+    private static final class Version {
+        private final String tag;
+        private final long recordedAt;
+
+        private Version(String tag, long recordedAt) {
+            this.tag = tag;
+            this.recordedAt = recordedAt;
+        }
+    }
+}
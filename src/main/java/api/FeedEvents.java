@@ -0,0 +1,366 @@
+package api;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import entity.Post;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Metrics;
+import use_case.post_events.PostEventListener;
+
+/**
+ * Pushes every post created, edited or deleted to the home pages subscribed to the
+ * feed, so they patch what they show instead of fetching the whole feed again.
+ * <p/>
+ * Each subscriber has its own queue, keyed by post, so a post that changes again
+ * before its last change was sent is sent once, as it is now. A subscriber whose
+ * queue fills up anyway, a client reading slower than posts change, has its queue
+ * dropped and is sent a reset instead, asking it to fetch the feed again. Events
+ * are sent from a small pool of threads, so a slow client never holds up the
+ * interactor that published them. Nor does it hold up those threads: a sink that
+ * can't write right away says it isn't ready, and is left alone until it is. One
+ * that stays that way for longer than the send timeout, while it has anything to
+ * send, is dropped.
+ * <p/>
+ * Subscribers can ask for some categories only. A delete doesn't say which category
+ * the post was in, so it goes to every subscriber.
+ */
+public class FeedEvents implements PostEventListener, Closeable {
+    public static final String SUBSCRIBERS_GAUGE = "connecthub.feed.subscribers";
+    public static final String RESETS_COUNTER = "connecthub.feed.resets";
+
+    static final String CREATED = "created";
+    static final String EDITED = "edited";
+    static final String DELETED = "deleted";
+    static final String RESET = "reset";
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(FeedEvents.class);
+
+    /**
+     * Where the events of a subscriber are written, e.g. a server-sent event stream.
+     */
+    interface Sink {
+
+        /**
+         * @return false while the client can't take more events, they are queued meanwhile.
+         */
+        boolean isReady();
+
+        /**
+         * May only queue the event, until flush.
+         * @param data - the event as json.
+         */
+        void send(String id, String type, String data) throws IOException;
+
+        /**
+         * Sends nothing the client acts on, so connections that are idle stay open and dead ones are found.
+         */
+        void heartbeat() throws IOException;
+
+        /**
+         * Writes what send and heartbeat queued, the sink isn't ready until it has.
+         */
+        default void flush() throws IOException {}
+
+        void close();
+    }
+
+    private final ObjectMapper objectMapper;
+    private final int maxPending;
+    private final int maxSubscribers;
+    private final long sendTimeoutNanos;
+    private final ThreadPoolExecutor senders;
+    private final ScheduledExecutorService heartbeats;
+    private final Set<Subscription> subscriptions = ConcurrentHashMap.newKeySet();
+    private final AtomicLong sequence = new AtomicLong();
+
+    /**
+     * @param senderThreads - how many subscribers are sent events at once.
+     * @param maxPending - the most events queued for a subscriber before it is reset.
+     * @param maxSubscribers - the most subscribers at once.
+     * @param heartbeatInterval - how long a subscriber goes without hearing anything.
+     * @param sendTimeout - how long a subscriber with events to send may not be ready before it is dropped.
+     */
+    public FeedEvents(ObjectMapper objectMapper, int senderThreads, int maxPending, int maxSubscribers,
+                      Duration heartbeatInterval, Duration sendTimeout) {
+        this.objectMapper = objectMapper;
+        this.maxPending = maxPending;
+        this.maxSubscribers = maxSubscribers;
+        this.sendTimeoutNanos = sendTimeout.toNanos();
+        final AtomicInteger threadCount = new AtomicInteger();
+        // Sinks don't block these, they say they aren't ready instead
+        this.senders = new ThreadPoolExecutor(senderThreads, senderThreads, 0L, TimeUnit.MILLISECONDS,
+                                              new LinkedBlockingQueue<>(), runnable -> {
+            final Thread thread = new Thread(runnable, "feed-events-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.heartbeats = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            final Thread thread = new Thread(runnable, "feed-events-heartbeat");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.heartbeats.scheduleWithFixedDelay(this::sendHeartbeats, heartbeatInterval.toNanos(),
+                                               heartbeatInterval.toNanos(), TimeUnit.NANOSECONDS);
+        Gauge.builder(SUBSCRIBERS_GAUGE, this.subscriptions, Set::size).register(Metrics.globalRegistry);
+    }
+
+    /**
+     * @return the most subscribers there can be at once.
+     */
+    int maxSubscribers() {
+        return this.maxSubscribers;
+    }
+
+    /**
+     * @return false if there are as many subscribers as there can be.
+     */
+    boolean hasRoom() {
+        return this.subscriptions.size() < this.maxSubscribers;
+    }
+
+    /**
+     * @param categories - the categories the subscriber is sent posts of, all of them if empty.
+     * @param missedEvents - whether the client may have missed events, e.g. it reconnected. It is sent a reset first.
+     * @return the subscription, or null if there are as many subscribers as there can be.
+     */
+    Subscription subscribe(Set<String> categories, Sink sink, boolean missedEvents) {
+        if (!this.hasRoom()) {
+            return null;
+        }
+        final Subscription subscription = new Subscription(categories, sink);
+        subscription.reset = missedEvents;
+        this.subscriptions.add(subscription);
+        this.schedule(subscription);
+        return subscription;
+    }
+
+    @Override
+    public void postCreated(Post post) {
+        this.publish(CREATED, post.getEntryID(), post.getCategory(), post);
+    }
+
+    @Override
+    public void postEdited(Post post) {
+        this.publish(EDITED, post.getEntryID(), post.getCategory(), post);
+    }
+
+    @Override
+    public void postDeleted(String postID) {
+        this.publish(DELETED, postID, null, null);
+    }
+
+    @Override
+    public void close() {
+        this.heartbeats.shutdownNow();
+        this.senders.shutdownNow();
+        for (Subscription subscription : this.subscriptions) {
+            subscription.cancel();
+        }
+    }
+
+    private void publish(String type, String postID, String category, Post post) {
+        if (this.subscriptions.isEmpty()) {
+            return;
+        }
+
+        // Serialized once, whatever the number of subscribers
+        final ObjectNode data = this.objectMapper.createObjectNode().put("postID", postID);
+        if (post != null) {
+            data.set("post", this.objectMapper.valueToTree(post));
+        }
+        final String json;
+        try {
+            json = this.objectMapper.writeValueAsString(data);
+        } catch (JsonProcessingException ex) {
+            LOGGER.warn("Could not serialize the {} event of post {}", type, postID, ex);
+            return;
+        }
+
+        final Event event = new Event(this.sequence.incrementAndGet(), type, postID, json);
+        for (Subscription subscription : this.subscriptions) {
+            if (category == null || subscription.categories.isEmpty()
+                    || subscription.categories.contains(category)) {
+                subscription.offer(event);
+                this.schedule(subscription);
+            }
+        }
+    }
+
+    private void sendHeartbeats() {
+        final long now = System.nanoTime();
+        for (Subscription subscription : this.subscriptions) {
+            final boolean stalled;
+            synchronized (subscription) {
+                subscription.heartbeatDue = true;
+                stalled = subscription.notReadySince != 0 && now - subscription.notReadySince > this.sendTimeoutNanos;
+            }
+            if (stalled) {
+                LOGGER.debug("Dropping a feed subscriber that stopped reading");
+                subscription.cancel();
+                continue;
+            }
+            this.schedule(subscription);
+        }
+    }
+
+    /**
+     * Has a sender drain the subscriber's queue, unless one is at it already.
+     */
+    private void schedule(Subscription subscription) {
+        synchronized (subscription) {
+            if (subscription.sending || !subscription.hasWork() || !subscription.isReady()) {
+                return;
+            }
+            subscription.sending = true;
+        }
+        try {
+            this.senders.execute(() -> this.drain(subscription));
+        } catch (RejectedExecutionException ex) {
+            // Closing
+            subscription.cancel();
+        }
+    }
+
+    private void drain(Subscription subscription) {
+        while (true) {
+            final boolean reset;
+            final boolean heartbeat;
+            final List<Event> events;
+            synchronized (subscription) {
+                if (!subscription.hasWork() || !subscription.isReady()) {
+                    subscription.sending = false;
+                    return;
+                }
+                reset = subscription.reset;
+                heartbeat = subscription.heartbeatDue;
+                events = new ArrayList<>(subscription.pending.values());
+                subscription.reset = false;
+                subscription.heartbeatDue = false;
+                subscription.pending.clear();
+            }
+
+            try {
+                if (reset) {
+                    subscription.sink.send(Long.toString(this.sequence.get()), RESET, "{}");
+                }
+                for (Event event : events) {
+                    subscription.sink.send(Long.toString(event.id), event.type, event.data);
+                }
+                if (heartbeat && !reset && events.isEmpty()) {
+                    subscription.sink.heartbeat();
+                }
+                subscription.sink.flush();
+            } catch (IOException | RuntimeException ex) {
+                // The client went away
+                LOGGER.debug("Dropping a feed subscriber", ex);
+                subscription.cancel();
+                return;
+            }
+        }
+    }
+
+    private record Event(long id, String type, String postID, String data) {}
+
+    /**
+     * A subscriber to the feed, cancelled once its client goes away.
+     */
+    final class Subscription {
+        private final Set<String> categories;
+        private final Sink sink;
+        // The rest is guarded by the subscription
+        private final Map<String, Event> pending = new LinkedHashMap<>();
+        private boolean reset;
+        private boolean heartbeatDue;
+        private boolean sending;
+        private boolean cancelled;
+        // When the sink was first found not ready with events to send, 0 if it is ready
+        private long notReadySince;
+
+        private Subscription(Set<String> categories, Sink sink) {
+            this.categories = categories;
+            this.sink = sink;
+        }
+
+        /**
+         * Sends what was queued while the sink wasn't ready, once it is.
+         */
+        void resume() {
+            FeedEvents.this.schedule(this);
+        }
+
+        void cancel() {
+            synchronized (this) {
+                if (this.cancelled) {
+                    return;
+                }
+                this.cancelled = true;
+                this.pending.clear();
+            }
+            FeedEvents.this.subscriptions.remove(this);
+            this.sink.close();
+        }
+
+        private synchronized boolean isReady() {
+            if (this.sink.isReady()) {
+                this.notReadySince = 0;
+                return true;
+            }
+            if (this.notReadySince == 0) {
+                this.notReadySince = System.nanoTime() | 1;
+            }
+            return false;
+        }
+
+        private synchronized boolean hasWork() {
+            return !this.cancelled && (this.reset || this.heartbeatDue || !this.pending.isEmpty());
+        }
+
+        private synchronized void offer(Event event) {
+            if (this.cancelled || this.reset) {
+                // A reset has the client fetch everything, including this
+                return;
+            }
+
+            final Event queued = this.pending.get(event.postID);
+            if (queued != null && CREATED.equals(queued.type)) {
+                if (DELETED.equals(event.type)) {
+                    // The client never heard of the post
+                    this.pending.remove(event.postID);
+                    return;
+                }
+                event = new Event(event.id, CREATED, event.postID, event.data);
+            }
+            this.pending.put(event.postID, event);
+
+            if (this.pending.size() > FeedEvents.this.maxPending) {
+                this.pending.clear();
+                this.reset = true;
+                Counter.builder(RESETS_COUNTER).register(Metrics.globalRegistry).increment();
+            }
+        }
+    }
+}
@@ -0,0 +1,175 @@
+package api;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/**
+ * Streams the changes to posts as server-sent events, see FeedEvents. An event is
+ * named created, edited, deleted or reset, its data is json with the postID and,
+ * unless it was deleted, the post.
+ * <p/>
+ * Writing to a client blocks until it takes what is written, so it is done on a
+ * thread of its own rather than on one of the few FeedEvents send from. The
+ * stream isn't ready meanwhile, and events keep being coalesced in FeedEvents.
+ * A subscriber has at most one write going at once, so the writer threads are
+ * capped at the most subscribers FeedEvents accepts. Only while writes to clients
+ * that already went away still block can there be none left, and a subscriber
+ * that gets none is dropped as if its client went away.
+ */
+@RestController
+@RequestMapping("/api/v1")
+public class FeedEventsController {
+    // Browsers reconnect on their own once the stream ends
+    private final long STREAM_TIMEOUT_MILLIS = 30 * 60 * 1000L;
+    private final String RETRY_AFTER_SECONDS = "30";
+    private final long WRITER_KEEP_ALIVE_SECONDS = 60;
+    static final String LAST_EVENT_ID = "Last-Event-ID";
+
+    private final FeedEvents feedEvents;
+    private final ExecutorService writers;
+
+    public FeedEventsController(FeedEvents feedEvents) {
+        this.feedEvents = feedEvents;
+        final AtomicInteger threadCount = new AtomicInteger();
+        // Platform threads, sending to an SseEmitter holds its monitor and would pin a virtual one.
+        // Idle threads are reused like in a cached pool, but there is never more than one per subscriber
+        this.writers = new ThreadPoolExecutor(0, feedEvents.maxSubscribers(),
+                                              WRITER_KEEP_ALIVE_SECONDS, TimeUnit.SECONDS, new SynchronousQueue<>(),
+                                              runnable -> {
+            final Thread thread = new Thread(runnable, "feed-events-writer-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * @param categories - the categories to be told about, all of them if there are none.
+     * @param lastEventID - sent by a browser reconnecting, which is sent a reset first.
+     */
+    @GetMapping(path = "/feed-events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> feedEvents(@RequestParam(value = "category", required = false)
+                                                 List<String> categories,
+                                                 @RequestHeader(value = LAST_EVENT_ID, required = false)
+                                                 String lastEventID) {
+        final SseEmitter emitter = new SseEmitter(STREAM_TIMEOUT_MILLIS);
+        final EmitterSink sink = new EmitterSink(emitter, this.writers);
+        final FeedEvents.Subscription subscription = this.feedEvents.subscribe(
+            categories == null ? Set.of() : Set.copyOf(categories), sink, lastEventID != null);
+        if (subscription == null) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, RETRY_AFTER_SECONDS)
+                .build();
+        }
+        sink.attach(subscription);
+
+        emitter.onCompletion(subscription::cancel);
+        emitter.onTimeout(subscription::cancel);
+        emitter.onError(error -> subscription.cancel());
+        return ResponseEntity.ok()
+            .cacheControl(CacheControl.noStore())
+            .body(emitter);
+    }
+
+    private static final class EmitterSink implements FeedEvents.Sink {
+        private final SseEmitter emitter;
+        private final ExecutorService writers;
+        // Only touched while FeedEvents sends to the subscription, by one thread at a time
+        private List<SseEmitter.SseEventBuilder> queued = new ArrayList<>();
+        private volatile boolean writing;
+        private volatile FeedEvents.Subscription subscription;
+
+        private EmitterSink(SseEmitter emitter, ExecutorService writers) {
+            this.emitter = emitter;
+            this.writers = writers;
+        }
+
+        /**
+         * Lets the sink resume its subscription once a write is done, or cancel it if the write failed.
+         */
+        private void attach(FeedEvents.Subscription subscription) {
+            this.subscription = subscription;
+            // A write may have been done before it could be told
+            subscription.resume();
+        }
+
+        @Override
+        public boolean isReady() {
+            return !this.writing;
+        }
+
+        @Override
+        public void send(String id, String type, String data) {
+            this.queued.add(SseEmitter.event().id(id).name(type).data(data));
+        }
+
+        @Override
+        public void heartbeat() {
+            this.queued.add(SseEmitter.event().comment("keep-alive"));
+        }
+
+        @Override
+        public void flush() {
+            if (this.queued.isEmpty()) {
+                return;
+            }
+            final List<SseEmitter.SseEventBuilder> events = this.queued;
+            this.queued = new ArrayList<>();
+            this.writing = true;
+            try {
+                this.writers.execute(() -> this.write(events));
+            } catch (RejectedExecutionException ex) {
+                this.drop();
+            }
+        }
+
+        private void write(List<SseEmitter.SseEventBuilder> events) {
+            try {
+                for (SseEmitter.SseEventBuilder event : events) {
+                    this.emitter.send(event);
+                }
+            } catch (IOException | RuntimeException ex) {
+                // The client went away
+                this.drop();
+                return;
+            }
+            this.writing = false;
+            final FeedEvents.Subscription subscription = this.subscription;
+            if (subscription != null) {
+                subscription.resume();
+            }
+        }
+
+        private void drop() {
+            this.writing = false;
+            final FeedEvents.Subscription subscription = this.subscription;
+            if (subscription != null) {
+                subscription.cancel();
+            }
+        }
+
+        @Override
+        public void close() {
+            this.emitter.complete();
+        }
+    }
+}
@@ -1,13 +1,43 @@
 package api;
 
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
-import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import entity.Post;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import use_case.getpost.GetPostInputBoundary;
+import use_case.post_page.PostPageInputData;
+import use_case.post_page.PostPageInputBoundary;
+import use_case.post_page.PostPageOutputData;
+
+/**
+ * Serves the html shell of each page. The home and post pages inline the json
+ * their script would otherwise fetch first, so they can be drawn after a single
+ * request.
+ * <p/>
+ * Rendered shells are kept in PageShells under the entity tag of the data they
+ * inline. While ContentVersions still trusts that tag, a page is served without
+ * reading MongoDB or evaluating the template.
+ */
 @Controller
 public class PageController {
-    // bundled JavaScript files
+    // bundled JavaScript files, resolved to their content hashed names through the manifest
     private final String SIGN_UP_SCRIPT = "/js/sign_up/app.js";
     private final String LOG_IN_SCRIPT = "/js/login/app.js";
     private final String POST_SCRIPT = "/js/post/app.js";
@@ -20,59 +50,189 @@ public class PageController {
     private final String SCRIPT = "script";
     private final String STYLE = "style";
     private final String DIV_ID = "div_id";
+    private final String INITIAL_DATA = "initial_data";
+
+    // Version of the shells that don't inline any data
+    private final String STATIC_VERSION = "static";
+    // As many posts as the home page displays
+    private final int FEED_PAGE_SIZE = 20;
+    private final int COMMENTS_PER_PAGE = 20;
+    private final CacheControl CACHE_POLICY = CacheControl.noCache();
+    // String bodies default to ISO-8859-1 otherwise
+    private final MediaType HTML = new MediaType(MediaType.TEXT_HTML, StandardCharsets.UTF_8);
 
+    private final AssetManifest assetManifest;
+    private final PageShells pageShells;
+    private final ContentVersions contentVersions;
+    private final GetPostInputBoundary homePageInteractor;
+    private final PostPageInputBoundary postPageInteractor;
+    private final ObjectMapper objectMapper;
+    private final boolean inlineInitialData;
+
+    /**
+     * @param inlineInitialData - false to serve every page as an empty shell, its script then fetches the data.
+     */
+    public PageController(AssetManifest assetManifest,
+                          PageShells pageShells,
+                          ContentVersions contentVersions,
+                          GetPostInputBoundary homePageInteractor,
+                          PostPageInputBoundary postPageInteractor,
+                          ObjectMapper objectMapper,
+                          @Value("${pages.inline-initial-data:true}") boolean inlineInitialData) {
+        this.assetManifest = assetManifest;
+        this.pageShells = pageShells;
+        this.contentVersions = contentVersions;
+        this.homePageInteractor = homePageInteractor;
+        this.postPageInteractor = postPageInteractor;
+        this.objectMapper = objectMapper;
+        this.inlineInitialData = inlineInitialData;
+    }
 
     @GetMapping("/")
-    public String home(Model model) {
-        model.addAttribute(PAGE_TITLE, "Home");
-        model.addAttribute(SCRIPT, HOME_PAGE_SCRIPT);
-        model.addAttribute(DIV_ID, "homeDiv");
-        model.addAttribute(STYLE, STYLES_SCRIPT);
-        return TEMPLATE_FILE;
+    public Mono<ResponseEntity<String>> home() {
+        return this.homeShell();
     }
 
     @GetMapping("/home")
-    public String homePage(Model model) {
-        model.addAttribute(PAGE_TITLE, "Home");
-        model.addAttribute(SCRIPT, HOME_PAGE_SCRIPT);
-        model.addAttribute(DIV_ID, "homeDiv");
-        model.addAttribute(STYLE, STYLES_SCRIPT);
-        return TEMPLATE_FILE;
+    public Mono<ResponseEntity<String>> homePage() {
+        return this.homeShell();
     }
 
     @GetMapping("/signup")
-    public String signIn(Model model) {
-        model.addAttribute(PAGE_TITLE, "Sign Up");
-        model.addAttribute(SCRIPT, SIGN_UP_SCRIPT);
-        model.addAttribute(DIV_ID, "signUpDiv");
-        model.addAttribute(STYLE, STYLES_SCRIPT);
-        return TEMPLATE_FILE;
+    public ResponseEntity<String> signIn() {
+        return this.html(this.staticShell("/signup", "Sign Up", SIGN_UP_SCRIPT, "signUpDiv"));
     }
 
     @GetMapping("/login")
-    public String login(Model model) {
-        model.addAttribute(PAGE_TITLE, "Log In");
-        model.addAttribute(SCRIPT, LOG_IN_SCRIPT);
-        model.addAttribute(DIV_ID, "loginDiv");
-        model.addAttribute(STYLE, STYLES_SCRIPT);
-        return TEMPLATE_FILE;
+    public ResponseEntity<String> login() {
+        return this.html(this.staticShell("/login", "Log In", LOG_IN_SCRIPT, "loginDiv"));
     }
 
     @GetMapping("/create-post")
-    public String createPost(Model model) {
-        model.addAttribute(PAGE_TITLE, "Create Post");
-        model.addAttribute(SCRIPT, CREATE_POST_SCRIPT);
-        model.addAttribute(DIV_ID, "createPostDiv");
-        model.addAttribute(STYLE, STYLES_SCRIPT);
-        return TEMPLATE_FILE;
+    public ResponseEntity<String> createPost() {
+        return this.html(this.staticShell("/create-post", "Create Post", CREATE_POST_SCRIPT, "createPostDiv"));
     }
 
     @GetMapping("/post/{post_id}")
-    public String post(@PathVariable("post_id") String postId, Model model) {
-        model.addAttribute(PAGE_TITLE, "Home");
-        model.addAttribute(SCRIPT, POST_SCRIPT);
-        model.addAttribute(DIV_ID, "postDiv");
-        model.addAttribute(STYLE, STYLES_SCRIPT);
-        return TEMPLATE_FILE;
+    public Mono<ResponseEntity<String>> post(@PathVariable("post_id") String postId) {
+        final String route = "/post/" + postId;
+        if (!this.inlineInitialData) {
+            // Without data every post's shell is the same
+            return Mono.just(this.html(this.staticShell("/post", "Home", POST_SCRIPT, "postDiv")));
+        }
+
+        final String key = ContentVersions.postPageKey(postId);
+        final String cached = this.cachedShell(route, key);
+        if (cached != null) {
+            return Mono.just(this.html(cached));
+        }
+
+        return this.offload(() -> {
+            final Map<String, Object> variables = this.pageVariables("Home", POST_SCRIPT, "postDiv");
+            final PostPageOutputData page;
+            final long generation = this.contentVersions.generation();
+            try {
+                page = this.postPageInteractor.getPostPage(new PostPageInputData(postId, COMMENTS_PER_PAGE));
+            } catch (RuntimeException ex) {
+                // The script reports the missing post when it fetches it, nothing worth keeping
+                return this.html(this.pageShells.renderUncached(TEMPLATE_FILE, variables));
+            }
+
+            final String tag = ContentVersions.postPageTag(page);
+            this.contentVersions.record(key, tag, generation);
+            return this.html(this.renderShell(route, tag, variables, page));
+        });
+    }
+
+    private Mono<ResponseEntity<String>> homeShell() {
+        final String route = "/home";
+        if (!this.inlineInitialData) {
+            return Mono.just(this.html(this.staticShell(route, "Home", HOME_PAGE_SCRIPT, "homeDiv")));
+        }
+
+        final String cached = this.cachedShell(route, ContentVersions.FEED_PAGE_KEY);
+        if (cached != null) {
+            return Mono.just(this.html(cached));
+        }
+
+        return this.offload(() -> {
+            final Map<String, Object> variables = this.pageVariables("Home", HOME_PAGE_SCRIPT, "homeDiv");
+            final List<Post> posts;
+            final long generation = this.contentVersions.generation();
+            try {
+                // Not getPostsPage, its presenter updates the Swing view model
+                posts = this.homePageInteractor.readPostsPage(null, null, FEED_PAGE_SIZE);
+            } catch (RuntimeException ex) {
+                // The script fetches the feed itself and reports if that fails too
+                return this.html(this.pageShells.renderUncached(TEMPLATE_FILE, variables));
+            }
+
+            final String tag = ContentVersions.feedPageTag(posts);
+            this.contentVersions.record(ContentVersions.FEED_PAGE_KEY, tag, generation);
+            return this.html(this.renderShell(route, tag, variables, posts));
+        });
+    }
+
+    /**
+     * @return the route's shell if it was rendered from the version ContentVersions trusts, or null.
+     */
+    private String cachedShell(String route, String versionKey) {
+        final String knownTag = this.contentVersions.knownTag(versionKey);
+        return knownTag == null ? null : this.pageShells.get(route, knownTag);
+    }
+
+    private String renderShell(String route, String tag, Map<String, Object> variables, Object initialData) {
+        final String cached = this.pageShells.get(route, tag);
+        if (cached != null) {
+            return cached;
+        }
+        variables.put(INITIAL_DATA, this.inlineJson(initialData));
+        return this.pageShells.render(route, tag, TEMPLATE_FILE, variables);
+    }
+
+    private String staticShell(String route, String title, String script, String divId) {
+        final String cached = this.pageShells.get(route, STATIC_VERSION);
+        if (cached != null) {
+            return cached;
+        }
+        return this.pageShells.render(route, STATIC_VERSION, TEMPLATE_FILE, this.pageVariables(title, script, divId));
+    }
+
+    private Map<String, Object> pageVariables(String title, String script, String divId) {
+        final Map<String, Object> variables = new HashMap<>();
+        variables.put(PAGE_TITLE, title);
+        variables.put(SCRIPT, this.assetManifest.resolve(script));
+        variables.put(DIV_ID, divId);
+        variables.put(STYLE, this.assetManifest.resolve(STYLES_SCRIPT));
+        return variables;
+    }
+
+    /**
+     * Serializes the data the same way the api does, escaped so a post's content
+     * can't close the script element it is inlined in.
+     */
+    String inlineJson(Object data) {
+        try {
+            return this.objectMapper.writeValueAsString(data)
+                .replace("<", "\\u003c")
+                .replace(">", "\\u003e")
+                .replace("&", "\\u0026")
+                .replace("\u2028", "\\u2028")
+                .replace("\u2029", "\\u2029");
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException("Could not serialize the initial page data", ex);
+        }
+    }
+
+    // Loading the data blocks, so it mustn't run on an event loop thread in reactive mode
+    private Mono<ResponseEntity<String>> offload(Callable<ResponseEntity<String>> render) {
+        return Mono.fromCallable(render).subscribeOn(Schedulers.boundedElastic());
+    }
+
+    private ResponseEntity<String> html(String shell) {
+        return ResponseEntity.status(HttpStatus.OK)
+            .contentType(HTML)
+            .cacheControl(CACHE_POLICY)
+            .body(shell);
     }
 }
@@ -0,0 +1,72 @@
+package api;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.thymeleaf.ITemplateEngine;
+import org.thymeleaf.context.Context;
+
+/**
+ * The rendered html of the pages PageController serves, kept per route along with
+ * the version of the data it was rendered from.
+ * <p/>
+ * A route only keeps its latest version, rendering a newer one replaces it. The
+ * routes used least recently are forgotten once maxEntries are kept.
+ */
+public class PageShells {
+    private final ITemplateEngine templateEngine;
+    private final Map<String, Shell> shells;
+
+    /**
+     * @param maxEntries - the most routes kept at once.
+     */
+    public PageShells(ITemplateEngine templateEngine, int maxEntries) {
+        this.templateEngine = templateEngine;
+        this.shells = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Shell> eldest) {
+                return size() > maxEntries;
+            }
+        });
+    }
+
+    /**
+     * @return the html last rendered for the route, or null if it wasn't rendered from this version.
+     */
+    String get(String route, String version) {
+        final Shell shell = this.shells.get(route);
+        if (shell == null || !shell.version.equals(version)) {
+            return null;
+        }
+        return shell.html;
+    }
+
+    /**
+     * Evaluates the template and keeps the result as the route's shell.
+     * @param version - identifies the data the variables hold, e.g. its entity tag.
+     * @return the rendered html.
+     */
+    String render(String route, String version, String template, Map<String, Object> variables) {
+        final String html = this.renderUncached(template, variables);
+        this.shells.put(route, new Shell(version, html));
+        return html;
+    }
+
+    /**
+     * Evaluates the template without keeping the result, for pages not worth caching.
+     */
+    String renderUncached(String template, Map<String, Object> variables) {
+        return this.templateEngine.process(template, new Context(null, variables));
+    }
+
+    private static final class Shell {
+        private final String version;
+        private final String html;
+
+        private Shell(String version, String html) {
+            this.version = version;
+            this.html = html;
+        }
+    }
+}
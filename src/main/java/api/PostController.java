@@ -1,17 +1,29 @@
 package api;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
 
 import use_case.create_post.CreatePostInputBoundary;
 import use_case.create_post.CreatePostInputData;
@@ -19,6 +31,9 @@ import use_case.create_post.PostCreationFailedException;
 import use_case.get_user.GetUserInputBoundary;
 import use_case.getpost.GetPostInputBoundary;
 import use_case.getpost.GetPostInputData;
+import use_case.post_page.PostPageInputBoundary;
+import use_case.post_page.PostPageInputData;
+import use_case.post_page.PostPageOutputData;
 import entity.Post;
 import entity.User;
 import entity.Comment;
@@ -26,27 +41,60 @@ import entity.Comment;
 @RestController
 @RequestMapping("/api/v1")
 public class PostController {
+    private final int COMMENTS_PER_PAGE = 20;
+    // Clients keep the response but check it is current before every use,
+    // which costs a 304 while it is
+    private final CacheControl CACHE_POLICY = CacheControl.noCache();
+
     private final GetPostInputBoundary homePageInteractor;
     private final GetPostInputBoundary getPostInteractor;
     private final CreatePostInputBoundary createPostInteractor;
     private final GetUserInputBoundary getUserInteractor;
+    private final PostPageInputBoundary postPageInteractor;
+    private final ContentVersions contentVersions;
+    private final ObjectMapper objectMapper;
+    // Leaves flushing to the generator's buffer instead of flushing after every post
+    private final ObjectWriter postWriter;
+    private final TokenBucketRateLimiter postCreations;
 
     public PostController(GetUserInputBoundary getUserInteractor,
                           GetPostInputBoundary homePageInteractor,
                           GetPostInputBoundary getPostInteractor,
-                          CreatePostInputBoundary createPostInteractor) {
+                          CreatePostInputBoundary createPostInteractor,
+                          PostPageInputBoundary postPageInteractor,
+                          ContentVersions contentVersions,
+                          ObjectMapper objectMapper,
+                          TokenBucketRateLimiter postCreations) {
         this.homePageInteractor = homePageInteractor;
         this.getPostInteractor = getPostInteractor;
         this.createPostInteractor = createPostInteractor;
         this.getUserInteractor = getUserInteractor;
+        this.postPageInteractor = postPageInteractor;
+        this.contentVersions = contentVersions;
+        this.objectMapper = objectMapper;
+        this.postWriter = objectMapper.writerFor(Post.class)
+            .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        this.postCreations = postCreations;
     }
 
     @GetMapping("/post")
-    public ResponseEntity<Post> getPost(@RequestParam("post_id") String postID) throws Exception {
+    public ResponseEntity<Post> getPost(@RequestParam("post_id") String postID,
+                                        @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false)
+                                        String ifNoneMatch) throws Exception {
+        final String key = ContentVersions.postKey(postID);
+        final String knownTag = this.contentVersions.knownTag(key);
+        if (ContentVersions.matches(ifNoneMatch, knownTag)) {
+            return this.notModified(knownTag);
+        }
+
         try {
+            final long generation = this.contentVersions.generation();
             GetPostInputData getPostInputData = new GetPostInputData(postID);
             Post post = this.getPostInteractor.getPost(getPostInputData);
-            return ResponseEntity.status(HttpStatus.OK).body(post);
+            if (post == null) {
+                return ResponseEntity.status(HttpStatus.OK).body(null);
+            }
+            return this.tagged(key, ContentVersions.postTag(post), generation, ifNoneMatch, post);
         } catch (IllegalArgumentException ex) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND).body(null);
         } catch (Exception ex) {
@@ -54,17 +102,88 @@ public class PostController {
         }
     }
 
+    /**
+     * Everything the post page renders, the post, its author and the first page of
+     * comments, in one response.
+     */
+    @GetMapping("/post-page")
+    public ResponseEntity<PostPageOutputData> getPostPage(@RequestParam("post_id") String postID,
+                                                          @RequestHeader(value = HttpHeaders.IF_NONE_MATCH,
+                                                                         required = false)
+                                                          String ifNoneMatch) {
+        final String key = ContentVersions.postPageKey(postID);
+        final String knownTag = this.contentVersions.knownTag(key);
+        if (ContentVersions.matches(ifNoneMatch, knownTag)) {
+            return this.notModified(knownTag);
+        }
+
+        try {
+            final long generation = this.contentVersions.generation();
+            PostPageInputData postPageInputData = new PostPageInputData(postID, COMMENTS_PER_PAGE);
+            PostPageOutputData page = this.postPageInteractor.getPostPage(postPageInputData);
+            return this.tagged(key, ContentVersions.postPageTag(page), generation, ifNoneMatch, page);
+        } catch (RuntimeException ex) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(null);
+        }
+    }
+
+    /**
+     * Every post as a json array. The posts are written to the response as they are
+     * read from the database, so the feed is never held in memory as a whole.
+     */
     @GetMapping("/all-posts")
-    public ResponseEntity<List<Post>> getAllPosts() {
+    public ResponseEntity<StreamingResponseBody> getAllPosts(@RequestHeader(value = HttpHeaders.IF_NONE_MATCH,
+                                                                            required = false)
+                                                             String ifNoneMatch) {
+        final String knownTag = this.contentVersions.knownTag(ContentVersions.FEED_KEY);
+        if (ContentVersions.matches(ifNoneMatch, knownTag)) {
+            return this.notModified(knownTag);
+        }
+
+        final String tag;
+        if (knownTag != null) {
+            // No post was written since the tag was computed, so it still describes the feed
+            tag = knownTag;
+        } else {
+            final long generation = this.contentVersions.generation();
+            // The tag has to be sent before the body, so it comes from a projection of the
+            // posts that the body is streamed after
+            tag = ContentVersions.feedTag(this.homePageInteractor.getAllPostVersions());
+            this.contentVersions.record(ContentVersions.FEED_KEY, tag, generation);
+            if (ContentVersions.matches(ifNoneMatch, tag)) {
+                return this.notModified(tag);
+            }
+        }
+
         // The posts should be paginated in the service. This is a temporary solution.
-        List<Post> allPosts = homePageInteractor.getAllPosts();
-        return new ResponseEntity<>(allPosts, HttpStatus.OK);
+        final StreamingResponseBody allPosts = outputStream -> {
+            try (JsonGenerator generator = this.objectMapper.getFactory().createGenerator(outputStream)) {
+                generator.writeStartArray();
+                this.homePageInteractor.forEachPost(post -> {
+                    try {
+                        this.postWriter.writeValue(generator, post);
+                    } catch (IOException ex) {
+                        throw new UncheckedIOException(ex);
+                    }
+                });
+                generator.writeEndArray();
+            }
+        };
+        return ResponseEntity.status(HttpStatus.OK)
+            .contentType(MediaType.APPLICATION_JSON)
+            .eTag(tag)
+            .cacheControl(CACHE_POLICY)
+            .body(allPosts);
     }
 
     @PostMapping("/create-post")
     public ResponseEntity<String> createPost(@RequestBody Map<String, Object> requestBody) {
         User currentUser = this.getUserInteractor.getCurrentUser();
         String currentUserID = currentUser == null ? null : currentUser.getUserID();
+        final ResponseEntity<String> rejected = AdmissionControl.checkAccount(this.postCreations, currentUserID);
+        if (rejected != null) {
+            return rejected;
+        }
 
         final CreatePostInputData createPostInputData = new CreatePostInputData(
             currentUserID,
@@ -89,4 +208,19 @@ public class PostController {
         }
     }
 
+    /**
+     * Remembers the tag of a freshly loaded response and sends it, or a 304 if the
+     * client already has this version.
+     */
+    private <T> ResponseEntity<T> tagged(String key, String tag, long generation, String ifNoneMatch, T body) {
+        this.contentVersions.record(key, tag, generation);
+        if (ContentVersions.matches(ifNoneMatch, tag)) {
+            return this.notModified(tag);
+        }
+        return ResponseEntity.status(HttpStatus.OK).eTag(tag).cacheControl(CACHE_POLICY).body(body);
+    }
+
+    private <T> ResponseEntity<T> notModified(String tag) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(tag).cacheControl(CACHE_POLICY).build();
+    }
 }
@@ -0,0 +1,60 @@
+package api;
+
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * The WebFlux counterpart of AdmissionInterceptor, puts posts to the given paths
+ * through AdmissionControl.
+ */
+public class ReactiveAdmissionFilter implements WebFilter {
+    private final AdmissionControl admissionControl;
+    private final Set<String> paths;
+
+    public ReactiveAdmissionFilter(AdmissionControl admissionControl, Set<String> paths) {
+        this.admissionControl = admissionControl;
+        this.paths = paths;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        final ServerHttpRequest request = exchange.getRequest();
+        if (request.getMethod() != HttpMethod.POST
+                || !this.paths.contains(request.getPath().pathWithinApplication().value())) {
+            return chain.filter(exchange);
+        }
+
+        final long retryAfterSeconds = this.admissionControl.admit(address(request));
+        if (retryAfterSeconds > 0) {
+            final ServerHttpResponse response = exchange.getResponse();
+            response.setStatusCode(HttpStatus.TOO_MANY_REQUESTS);
+            response.getHeaders().set(HttpHeaders.RETRY_AFTER, Long.toString(retryAfterSeconds));
+            response.getHeaders().setContentType(new MediaType(MediaType.TEXT_PLAIN, StandardCharsets.UTF_8));
+            final byte[] body = AdmissionControl.rejectedMessage().getBytes(StandardCharsets.UTF_8);
+            return response.writeWith(Mono.just(response.bufferFactory().wrap(body)));
+        }
+        return chain.filter(exchange).doFinally(signal -> this.admissionControl.release());
+    }
+
+    private static String address(ServerHttpRequest request) {
+        final InetSocketAddress remoteAddress = request.getRemoteAddress();
+        if (remoteAddress == null) {
+            return "unknown";
+        }
+        return remoteAddress.getAddress() == null ? remoteAddress.getHostString()
+                                                  : remoteAddress.getAddress().getHostAddress();
+    }
+}
@@ -0,0 +1,159 @@
+package api;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.AsynchronousFileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Optional;
+
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ZeroCopyHttpOutputMessage;
+import org.springframework.http.codec.multipart.FilePartEvent;
+import org.springframework.http.codec.multipart.PartEvent;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+
+import daos.AttachmentStore;
+import daos.AttachmentVariants;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * WebFlux handler mirroring AttachmentController. An upload is read as part events,
+ * each chunk written to the store as it arrives, so it isn't spooled anywhere first.
+ * Downloads answer range requests the way AttachmentController does, and have Netty
+ * send the file with zero-copy.
+ */
+public class ReactiveAttachmentHandler {
+    // Chunks read ahead of the disk, per upload
+    private final int UPLOAD_PREFETCH = 4;
+    private final int DOWNLOAD_BUFFER_SIZE = 64 * 1024;
+
+    private final AttachmentStore attachmentStore;
+    private final AttachmentVariants attachmentVariants;
+
+    public ReactiveAttachmentHandler(AttachmentStore attachmentStore, AttachmentVariants attachmentVariants) {
+        this.attachmentStore = attachmentStore;
+        this.attachmentVariants = attachmentVariants;
+    }
+
+    public Mono<ServerResponse> upload(ServerRequest request) {
+        return request.bodyToFlux(PartEvent.class)
+            .windowUntil(PartEvent::isLast)
+            .concatMap(part -> part.switchOnFirst((first, events) -> {
+                if (first.get() instanceof FilePartEvent filePart
+                        && AttachmentController.FILE_PART.equals(filePart.name())) {
+                    return this.store(events).map(stored -> AttachmentController.uploaded(
+                        stored, filePart.filename(), this.attachmentVariants));
+                }
+                // Other parts are skipped
+                return events.doOnNext(event -> DataBufferUtils.release(event.content())).then(Mono.empty());
+            }))
+            .next()
+            .flatMap(uploaded -> ServerResponse.status(HttpStatus.CREATED).bodyValue(uploaded))
+            .switchIfEmpty(ServerResponse.badRequest().build())
+            .onErrorResume(AttachmentStore.AttachmentTooLargeException.class, ex ->
+                ServerResponse.status(HttpStatus.PAYLOAD_TOO_LARGE).bodyValue(Map.of("error", ex.getMessage())))
+            .onErrorResume(IOException.class, ex ->
+                ServerResponse.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .bodyValue(Map.of("error", "Could not store the attachment")));
+    }
+
+    public Mono<ServerResponse> download(ServerRequest request) {
+        final String name = request.pathVariable("name");
+        final Integer width = AttachmentController.widthOf(request.queryParam("width").orElse(null));
+        final HttpHeaders requestHeaders = request.headers().asHttpHeaders();
+        return Mono.fromCallable(() -> Optional.ofNullable(AttachmentController.downloadOf(
+                this.attachmentStore, this.attachmentVariants, name, width)))
+            .subscribeOn(Schedulers.boundedElastic())
+            .flatMap(found -> {
+                if (found.isEmpty()) {
+                    return ServerResponse.notFound().build();
+                }
+                final Path file = found.get().file();
+                final String tag = found.get().tag();
+                final HttpHeaders headers = found.get().headers();
+                if (ContentVersions.matches(requestHeaders.getFirst(HttpHeaders.IF_NONE_MATCH), tag)) {
+                    return ServerResponse.status(HttpStatus.NOT_MODIFIED)
+                        .headers(responseHeaders -> responseHeaders.addAll(headers))
+                        .build();
+                }
+
+                final long length;
+                try {
+                    length = Files.size(file);
+                } catch (IOException ex) {
+                    return ServerResponse.notFound().build();
+                }
+                final AttachmentController.Region region = AttachmentController.regionOf(
+                    requestHeaders.getFirst(HttpHeaders.RANGE), requestHeaders.getFirst(HttpHeaders.IF_RANGE),
+                    tag, length);
+                if (region == null) {
+                    return ServerResponse.status(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE)
+                        .header(HttpHeaders.CONTENT_RANGE, "bytes */" + length)
+                        .build();
+                }
+                final ServerResponse.BodyBuilder response = region.partial()
+                    ? ServerResponse.status(HttpStatus.PARTIAL_CONTENT)
+                        .header(HttpHeaders.CONTENT_RANGE, region.contentRange(length))
+                    : ServerResponse.ok();
+                response.headers(responseHeaders -> responseHeaders.addAll(headers)).contentLength(region.count());
+                if (HttpMethod.HEAD.equals(request.method())) {
+                    return response.build();
+                }
+                return response.body((message, context) -> this.write(message, file, region));
+            });
+    }
+
+    /**
+     * Netty transfers the file to the socket with zero-copy, unless the response was wrapped.
+     */
+    private Mono<Void> write(ServerHttpResponse response, Path file, AttachmentController.Region region) {
+        if (response instanceof ZeroCopyHttpOutputMessage zeroCopy) {
+            return zeroCopy.writeWith(file, region.start(), region.count());
+        }
+        return response.writeWith(DataBufferUtils.takeUntilByteCount(
+            DataBufferUtils.readAsynchronousFileChannel(() -> AsynchronousFileChannel.open(file), region.start(),
+                                                        response.bufferFactory(), this.DOWNLOAD_BUFFER_SIZE),
+            region.count()));
+    }
+
+    /**
+     * Writes the chunks of a file part to the store, off the event loop since the disk blocks.
+     */
+    private Mono<AttachmentStore.StoredAttachment> store(Flux<PartEvent> events) {
+        return Mono.using(
+            this.attachmentStore::begin,
+            upload -> events
+                .publishOn(Schedulers.boundedElastic(), UPLOAD_PREFETCH)
+                .<PartEvent>handle((event, sink) -> {
+                    try {
+                        write(upload, event.content());
+                    } catch (IOException ex) {
+                        sink.error(ex);
+                    }
+                })
+                .then(Mono.fromCallable(upload::commit)),
+            AttachmentStore.Upload::close)
+            .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    private static void write(AttachmentStore.Upload upload, DataBuffer chunk) throws IOException {
+        try (DataBuffer.ByteBufferIterator buffers = chunk.readableByteBuffers()) {
+            while (buffers.hasNext()) {
+                final ByteBuffer buffer = buffers.next();
+                upload.write(buffer);
+            }
+        } finally {
+            DataBufferUtils.release(chunk);
+        }
+    }
+}
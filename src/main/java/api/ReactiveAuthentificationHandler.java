@@ -0,0 +1,38 @@
+package api;
+
+import java.util.Map;
+
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * WebFlux handlers mirroring AuthentificationController. Signing up and logging in
+ * update the current user held by the blocking DAO, so they run the blocking
+ * controller on the bounded elastic scheduler.
+ */
+public class ReactiveAuthentificationHandler {
+    private final AuthentificationController authentificationController;
+
+    public ReactiveAuthentificationHandler(AuthentificationController authentificationController) {
+        this.authentificationController = authentificationController;
+    }
+
+    public Mono<ServerResponse> signup(ServerRequest request) {
+        return request.bodyToMono(new ParameterizedTypeReference<Map<String, String>>() {})
+            .flatMap(requestBody -> BlockingCalls.offload(
+                () -> this.authentificationController.createUser(requestBody)));
+    }
+
+    public Mono<ServerResponse> login(ServerRequest request) {
+        return request.bodyToMono(new ParameterizedTypeReference<Map<String, String>>() {})
+            .flatMap(requestBody -> BlockingCalls.offload(
+                () -> this.authentificationController.logInUser(requestBody)));
+    }
+
+    public Mono<ServerResponse> logout(ServerRequest request) {
+        return BlockingCalls.offload(this.authentificationController::logOutUser);
+    }
+}
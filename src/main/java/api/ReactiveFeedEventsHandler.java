@@ -0,0 +1,84 @@
+package api;
+
+import java.util.List;
+import java.util.Set;
+
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
+import reactor.core.publisher.Mono;
+
+/**
+ * WebFlux handler mirroring FeedEventsController. Events are only taken off a
+ * subscriber's queue once the connection asks for more, so a slow client's events
+ * keep being coalesced in FeedEvents rather than buffered by Reactor.
+ */
+public class ReactiveFeedEventsHandler {
+    private final String RETRY_AFTER_SECONDS = "30";
+
+    private final FeedEvents feedEvents;
+
+    public ReactiveFeedEventsHandler(FeedEvents feedEvents) {
+        this.feedEvents = feedEvents;
+    }
+
+    public Mono<ServerResponse> feedEvents(ServerRequest request) {
+        if (!this.feedEvents.hasRoom()) {
+            return ServerResponse.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, RETRY_AFTER_SECONDS)
+                .build();
+        }
+
+        final Set<String> categories = Set.copyOf(request.queryParams().getOrDefault("category", List.of()));
+        final boolean missedEvents = request.headers().firstHeader(FeedEventsController.LAST_EVENT_ID) != null;
+        final Flux<ServerSentEvent<String>> events = Flux.create(sink -> {
+            final FeedEvents.Subscription subscription =
+                this.feedEvents.subscribe(categories, new FluxSinkAdapter(sink), missedEvents);
+            if (subscription == null) {
+                sink.complete();
+                return;
+            }
+            sink.onRequest(requested -> subscription.resume());
+            sink.onDispose(subscription::cancel);
+        });
+        return ServerResponse.ok()
+            .contentType(MediaType.TEXT_EVENT_STREAM)
+            .cacheControl(CacheControl.noStore())
+            .body(events, ServerSentEvent.class);
+    }
+
+    private static final class FluxSinkAdapter implements FeedEvents.Sink {
+        private final FluxSink<ServerSentEvent<String>> sink;
+
+        private FluxSinkAdapter(FluxSink<ServerSentEvent<String>> sink) {
+            this.sink = sink;
+        }
+
+        @Override
+        public boolean isReady() {
+            return this.sink.requestedFromDownstream() > 0;
+        }
+
+        @Override
+        public void send(String id, String type, String data) {
+            this.sink.next(ServerSentEvent.builder(data).id(id).event(type).build());
+        }
+
+        @Override
+        public void heartbeat() {
+            this.sink.next(ServerSentEvent.<String>builder().comment("keep-alive").build());
+        }
+
+        @Override
+        public void close() {
+            this.sink.complete();
+        }
+    }
+}
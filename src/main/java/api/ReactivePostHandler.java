@@ -0,0 +1,120 @@
+package api;
+
+import java.util.Map;
+
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+
+import entity.Post;
+import reactor.core.publisher.Mono;
+import use_case.getpost.PostJsonMapper;
+import use_case.getpost.ReactiveGetPostDataAccessInterface;
+
+/**
+ * WebFlux handlers mirroring the post endpoints of PostController. Reads go through
+ * the reactive DAO, creating a post still runs the blocking controller on the bounded
+ * elastic scheduler. Conditional GETs are answered the same way PostController does.
+ */
+public class ReactivePostHandler {
+    private final CacheControl CACHE_POLICY = CacheControl.noCache();
+
+    private final ReactiveGetPostDataAccessInterface postDAO;
+    private final PostController postController;
+    private final ContentVersions contentVersions;
+
+    public ReactivePostHandler(ReactiveGetPostDataAccessInterface postDAO, PostController postController,
+                               ContentVersions contentVersions) {
+        this.postDAO = postDAO;
+        this.postController = postController;
+        this.contentVersions = contentVersions;
+    }
+
+    public Mono<ServerResponse> getPost(ServerRequest request) {
+        final String ifNoneMatch = request.headers().firstHeader(HttpHeaders.IF_NONE_MATCH);
+        return request.queryParam("post_id")
+            .map(postID -> {
+                final String key = ContentVersions.postKey(postID);
+                final String knownTag = this.contentVersions.knownTag(key);
+                if (ContentVersions.matches(ifNoneMatch, knownTag)) {
+                    return this.notModified(knownTag);
+                }
+
+                final long generation = this.contentVersions.generation();
+                return this.postDAO.getPostByEntryID(postID)
+                    .map(PostJsonMapper::toPost)
+                    .flatMap(post -> this.tagged(key, ContentVersions.postTag(post), generation, ifNoneMatch, post))
+                    .switchIfEmpty(ServerResponse.status(HttpStatus.NOT_FOUND).build())
+                    .onErrorResume(ex -> ServerResponse.status(HttpStatus.NOT_FOUND).build());
+            })
+            .orElseGet(() -> ServerResponse.badRequest().build());
+    }
+
+    public Mono<ServerResponse> getPostPage(ServerRequest request) {
+        final String ifNoneMatch = request.headers().firstHeader(HttpHeaders.IF_NONE_MATCH);
+        return request.queryParam("post_id")
+            .map(postID -> BlockingCalls.offload(() -> this.postController.getPostPage(postID, ifNoneMatch)))
+            .orElseGet(() -> ServerResponse.badRequest().build());
+    }
+
+    public Mono<ServerResponse> getAllPosts(ServerRequest request) {
+        final String ifNoneMatch = request.headers().firstHeader(HttpHeaders.IF_NONE_MATCH);
+        final String knownTag = this.contentVersions.knownTag(ContentVersions.FEED_KEY);
+        if (ContentVersions.matches(ifNoneMatch, knownTag)) {
+            return this.notModified(knownTag);
+        }
+
+        if (knownTag != null) {
+            // No post was written since the tag was computed, so it still describes the feed
+            return this.allPosts(knownTag);
+        }
+
+        // The tag comes from a projection of the posts, the posts themselves are
+        // streamed to the client as they arrive
+        final long generation = this.contentVersions.generation();
+        return this.postDAO.getAllPostVersions()
+            .map(PostJsonMapper::toVersion)
+            .collectList()
+            .flatMap(versions -> {
+                final String tag = ContentVersions.feedTag(versions);
+                this.contentVersions.record(ContentVersions.FEED_KEY, tag, generation);
+                if (ContentVersions.matches(ifNoneMatch, tag)) {
+                    return this.notModified(tag);
+                }
+                return this.allPosts(tag);
+            });
+    }
+
+    private Mono<ServerResponse> allPosts(String tag) {
+        return ServerResponse.ok()
+            .contentType(MediaType.APPLICATION_JSON)
+            .eTag(tag)
+            .cacheControl(CACHE_POLICY)
+            .body(this.postDAO.getAllPosts().map(PostJsonMapper::toPost), Post.class);
+    }
+
+    public Mono<ServerResponse> createPost(ServerRequest request) {
+        return request.bodyToMono(new ParameterizedTypeReference<Map<String, Object>>() {})
+            .flatMap(requestBody -> BlockingCalls.offload(() -> this.postController.createPost(requestBody)));
+    }
+
+    private Mono<ServerResponse> tagged(String key, String tag, long generation, String ifNoneMatch, Object body) {
+        this.contentVersions.record(key, tag, generation);
+        if (ContentVersions.matches(ifNoneMatch, tag)) {
+            return this.notModified(tag);
+        }
+        return ServerResponse.ok()
+            .contentType(MediaType.APPLICATION_JSON)
+            .eTag(tag)
+            .cacheControl(CACHE_POLICY)
+            .bodyValue(body);
+    }
+
+    private Mono<ServerResponse> notModified(String tag) {
+        return ServerResponse.status(HttpStatus.NOT_MODIFIED).eTag(tag).cacheControl(CACHE_POLICY).build();
+    }
+}
@@ -0,0 +1,57 @@
+package api;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+
+import reactor.core.publisher.Mono;
+import use_case.get_user.GetUserInputBoundary;
+import use_case.get_user.PublicUserProfile;
+import use_case.get_user.ReactiveGetUserDataAccessInterface;
+import use_case.get_user.UserJsonMapper;
+
+/**
+ * WebFlux handlers mirroring UserController. The current user lives in memory, so
+ * only looking up a user by id goes through the reactive DAO.
+ */
+public class ReactiveUserHandler {
+    private final ReactiveGetUserDataAccessInterface userDAO;
+    private final GetUserInputBoundary getUserInteractor;
+
+    public ReactiveUserHandler(ReactiveGetUserDataAccessInterface userDAO,
+                               GetUserInputBoundary getUserInteractor) {
+        this.userDAO = userDAO;
+        this.getUserInteractor = getUserInteractor;
+    }
+
+    public Mono<ServerResponse> getCurrentUser(ServerRequest request) {
+        final PublicUserProfile currentUser = this.getUserInteractor.getCurrentUserProfile();
+        return currentUser == null
+            ? ServerResponse.ok().build()
+            : ServerResponse.ok().bodyValue(currentUser);
+    }
+
+    public Mono<ServerResponse> getUserInfo(ServerRequest request) {
+        return request.queryParam("user_id")
+            .map(userID -> this.userDAO.getUserProfileById(userID)
+                .map(UserJsonMapper::toPublicProfile)
+                .flatMap(profile -> ServerResponse.ok().bodyValue(profile))
+                .switchIfEmpty(ServerResponse.status(HttpStatus.NOT_FOUND).build()))
+            .orElseGet(() -> ServerResponse.badRequest().build());
+    }
+
+    public Mono<ServerResponse> getUsers(ServerRequest request) {
+        final List<String> userIDs = UserController.userIDsOf(request.queryParams().get("ids"));
+        if (userIDs == null) {
+            return ServerResponse.badRequest().build();
+        }
+
+        return this.userDAO.getUsersByIds(new LinkedHashSet<>(userIDs))
+            .map(UserJsonMapper::toPublicProfile)
+            .collectList()
+            .flatMap(profiles -> ServerResponse.ok().bodyValue(profiles));
+    }
+}
@@ -0,0 +1,114 @@
+package api;
+
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.LongSupplier;
+
+/**
+ * Limits how often something may happen per key, e.g. per client address or per
+ * account, with a token bucket for each key.
+ * <p/>
+ * A bucket holds up to capacity tokens and refills at a steady rate, every request
+ * takes one token. A bucket's state is immutable and replaced with compare-and-set,
+ * so requests never wait on a lock.
+ * <p/>
+ * Full buckets are dropped once more than maxKeys are kept, since a missing bucket
+ * behaves like a full one. Keys that find no room left aren't limited, the
+ * per-address limit still applies to them.
+ */
+public class TokenBucketRateLimiter {
+    // How often a full store may be scanned for buckets to drop
+    private static final long PURGE_INTERVAL_NANOS = Duration.ofSeconds(1).toNanos();
+
+    private final double capacity;
+    private final double tokensPerNano;
+    private final int maxKeys;
+    private final LongSupplier nanoClock;
+    private final ConcurrentHashMap<String, AtomicReference<Bucket>> buckets = new ConcurrentHashMap<>();
+    private final AtomicLong lastPurge;
+
+    /**
+     * @param capacity - the most requests allowed in a burst.
+     * @param refillEvery - how long it takes to earn one more request.
+     * @param maxKeys - the most buckets kept at once.
+     */
+    public TokenBucketRateLimiter(int capacity, Duration refillEvery, int maxKeys) {
+        this(capacity, refillEvery, maxKeys, System::nanoTime);
+    }
+
+    /**
+     * @param nanoClock - the time in nanoseconds, like System.nanoTime.
+     */
+    TokenBucketRateLimiter(int capacity, Duration refillEvery, int maxKeys, LongSupplier nanoClock) {
+        this.capacity = capacity;
+        this.tokensPerNano = 1.0 / refillEvery.toNanos();
+        this.maxKeys = maxKeys;
+        this.nanoClock = nanoClock;
+        this.lastPurge = new AtomicLong(nanoClock.getAsLong());
+    }
+
+    /**
+     * Takes a token from the key's bucket if it has one.
+     * @return 0 if the request is allowed, otherwise how many nanoseconds until it would be.
+     */
+    public long tryAcquire(String key) {
+        final AtomicReference<Bucket> bucket = this.bucketOf(key);
+        if (bucket == null) {
+            return 0;
+        }
+
+        while (true) {
+            final long now = this.nanoClock.getAsLong();
+            final Bucket current = bucket.get();
+            final double tokens = current.tokensAt(now, this.capacity, this.tokensPerNano);
+            if (tokens < 1) {
+                return (long) Math.ceil((1 - tokens) / this.tokensPerNano);
+            }
+            if (bucket.compareAndSet(current, new Bucket(tokens - 1, now))) {
+                return 0;
+            }
+        }
+    }
+
+    private AtomicReference<Bucket> bucketOf(String key) {
+        final AtomicReference<Bucket> existing = this.buckets.get(key);
+        if (existing != null) {
+            return existing;
+        }
+
+        if (this.buckets.size() >= this.maxKeys) {
+            this.purgeFullBuckets();
+            if (this.buckets.size() >= this.maxKeys) {
+                return null;
+            }
+        }
+        return this.buckets.computeIfAbsent(key,
+            newKey -> new AtomicReference<>(new Bucket(this.capacity, this.nanoClock.getAsLong())));
+    }
+
+    private void purgeFullBuckets() {
+        final long now = this.nanoClock.getAsLong();
+        final long last = this.lastPurge.get();
+        if (now - last < PURGE_INTERVAL_NANOS || !this.lastPurge.compareAndSet(last, now)) {
+            return;
+        }
+        this.buckets.values().removeIf(
+            bucket -> bucket.get().tokensAt(now, this.capacity, this.tokensPerNano) >= this.capacity);
+    }
+
+    private static final class Bucket {
+        private final double tokens;
+        private final long updatedAt;
+
+        private Bucket(double tokens, long updatedAt) {
+            this.tokens = tokens;
+            this.updatedAt = updatedAt;
+        }
+
+        private double tokensAt(long now, double capacity, double tokensPerNano) {
+            return Math.min(capacity, this.tokens + Math.max(0, now - this.updatedAt) * tokensPerNano);
+        }
+    }
+}
@@ -1,5 +1,8 @@
 package api;
 
+import java.util.LinkedHashSet;
+import java.util.List;
+
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -7,14 +10,17 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
-import entity.User;
 import use_case.get_user.GetUserInputBoundary;
 import use_case.get_user.GetUserInputData;
+import use_case.get_user.PublicUserProfile;
 import use_case.get_user.UserDoesNotExistException;
 
 @RestController
 @RequestMapping("/api/v1")
 public class UserController {
+    // Bounds the size of the $in query a single request can make
+    static final int MAX_IDS_PER_REQUEST = 100;
+
     private final GetUserInputBoundary getUserInteractor;
 
     public UserController(GetUserInputBoundary getUserInteractor) {
@@ -22,20 +28,55 @@ public class UserController {
     }
 
     @GetMapping("/current-user")
-    public ResponseEntity<User> getCurrentUser() {
-        return ResponseEntity.status(HttpStatus.OK).body(this.getUserInteractor.getCurrentUser());
+    public ResponseEntity<PublicUserProfile> getCurrentUser() {
+        return ResponseEntity.status(HttpStatus.OK).body(this.getUserInteractor.getCurrentUserProfile());
     }
 
     // TODO temporary solution to fetching user info, there should be a better way to combine with SSR?
     @GetMapping("/user-info")
-    public ResponseEntity<User> getUserInfo(@RequestParam("user_id") String userID) {
+    public ResponseEntity<PublicUserProfile> getUserInfo(@RequestParam("user_id") String userID) {
         return getUserInformation(userID);
     }
 
-    private ResponseEntity<User> getUserInformation(String userID) {
+    /**
+     * The public profiles of many users in one request, e.g. /users?ids=a,b,c for
+     * the authors of the posts on a page. Ids that don't exist are left out.
+     */
+    @GetMapping("/users")
+    public ResponseEntity<List<PublicUserProfile>> getUsers(
+            @RequestParam(value = "ids", required = false) List<String> ids) {
+        final List<String> userIDs = userIDsOf(ids);
+        if (userIDs == null) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(null);
+        }
+        return ResponseEntity.status(HttpStatus.OK).body(this.getUserInteractor.getUserProfiles(userIDs));
+    }
+
+    /**
+     * Reads the ids of a /users request, shared with ReactiveUserHandler so both
+     * stacks answer it the same. Blank and repeated ids are left out.
+     * @param ids - the values of the ids parameter, each may list several ids split by commas.
+     * @return null if no ids or too many were asked for.
+     */
+    static List<String> userIDsOf(List<String> ids) {
+        if (ids == null) {
+            return null;
+        }
+        final LinkedHashSet<String> userIDs = new LinkedHashSet<>();
+        for (String value : ids) {
+            for (String userID : value.split(",")) {
+                if (!userID.isBlank()) {
+                    userIDs.add(userID.trim());
+                }
+            }
+        }
+        return userIDs.isEmpty() || userIDs.size() > MAX_IDS_PER_REQUEST ? null : List.copyOf(userIDs);
+    }
+
+    private ResponseEntity<PublicUserProfile> getUserInformation(String userID) {
         try {
             GetUserInputData getUserInputData = new GetUserInputData(userID);
-            User user = this.getUserInteractor.getUserByID(getUserInputData);
+            PublicUserProfile user = this.getUserInteractor.getUserProfile(getUserInputData);
             return ResponseEntity.status(HttpStatus.OK).body(user);
         } catch (UserDoesNotExistException ex) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND).body(null);
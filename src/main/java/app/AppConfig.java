@@ -1,16 +1,44 @@
 package app;
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
 import controller.logout.LogoutPresenter;
 import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.CacheControl;
+import org.springframework.util.unit.DataSize;
 import org.springframework.web.servlet.config.annotation.CorsRegistry;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import org.springframework.web.servlet.resource.EncodedResourceResolver;
+import org.thymeleaf.ITemplateEngine;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.mongodb.client.MongoCollection;
 
+import api.AdmissionControl;
+import api.AdmissionInterceptor;
+import api.AssetManifest;
 import api.AuthentificationController;
+import api.PageShells;
+import api.ContentVersions;
+import api.FeedEvents;
 import api.PostController;
+import api.TokenBucketRateLimiter;
 import controller.ViewManagerModel;
 import controller.create_post.CreatePostPresenter;
 import controller.create_post.CreatePostViewModel;
@@ -22,12 +50,20 @@ import controller.post.PostPresenter;
 import controller.post.PostViewModel;
 import controller.signup.SignupPresenter;
 import controller.signup.SignupViewModel;
+import daos.AttachmentStore;
+import daos.AttachmentVariants;
+import daos.ContentStore;
 import daos.DBPostDataAccessObject;
 import daos.DBUserDataAccessObject;
+import daos.InvalidationBus;
+import daos.PostJournal;
 import entity.CommonUserFactory;
 import entity.PostFactory;
 import entity.UserFactory;
+import daos.DBCommentDataAccessObject;
 import io.github.cdimascio.dotenv.Dotenv;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
 import use_case.create_post.CreatePostInputBoundary;
 import use_case.create_post.CreatePostInteractor;
 import use_case.create_post.CreatePostOutputBoundary;
@@ -42,12 +78,54 @@ import use_case.login.LoginOutputBoundary;
 import use_case.logout.LogoutInputBoundary;
 import use_case.logout.LogoutInteractor;
 import use_case.logout.LogoutOutputBoundary;
+import use_case.post_page.PostPageInputBoundary;
+import use_case.post_page.PostPageInteractor;
 import use_case.signup.SignupInputBoundary;
 import use_case.signup.SignupInteractor;
 import use_case.signup.SignupOutputBoundary;
 
 @Configuration
 public class AppConfig implements WebMvcConfigurer {
+    static final Set<String> ADMISSION_CONTROLLED_PATHS = Set.of("/api/v1/signup", "/api/v1/login",
+                                                                 "/api/v1/create-post", "/api/v1/attachments");
+
+    private final int POST_PAGE_THREADS = 16;
+    private final int POST_PAGE_QUEUE_SIZE = 256;
+    // Bounds how stale a 304 can be after a write that bypassed this server
+    private final int CONTENT_VERSION_TRUST_SECONDS = 30;
+    private final int CONTENT_VERSION_MAX_ENTRIES = 10000;
+    private final int FINGERPRINTED_ASSET_CACHE_DAYS = 365;
+    private final int PAGE_SHELL_MAX_ENTRIES = 1000;
+    // Admission control of signing up, logging in and creating posts
+    private final int ADDRESS_BURST = 20;
+    private final int ADDRESS_REFILL_MILLIS = 500;
+    private final int LOGIN_ATTEMPT_BURST = 5;
+    private final int LOGIN_ATTEMPT_REFILL_SECONDS = 12;
+    private final int POST_CREATION_BURST = 10;
+    private final int POST_CREATION_REFILL_SECONDS = 6;
+    private final int RATE_LIMIT_MAX_KEYS = 100000;
+    private final int MAX_WRITES_IN_FLIGHT = 32;
+    private final int OVERLOADED_MAX_WRITES_IN_FLIGHT = 4;
+    private final int MONGO_OVERLOADED_LATENCY_MILLIS = 250;
+    private final int WRITE_BEHIND_FLUSH_MILLIS = 200;
+    private final int WRITE_BEHIND_MAX_BATCH_SIZE = 500;
+    private final int INVALIDATION_POLL_MILLIS = 1000;
+    private final int FEED_EVENT_SENDER_THREADS = 4;
+    private final int FEED_EVENT_MAX_PENDING = 100;
+    private final int FEED_EVENT_MAX_SUBSCRIBERS = 10000;
+    private final int FEED_EVENT_HEARTBEAT_SECONDS = 20;
+    private final int FEED_EVENT_SEND_TIMEOUT_SECONDS = 60;
+    // Widths of the copies of image attachments, for feed cards and the post page on 1x and 2x screens
+    private final int[] ATTACHMENT_VARIANT_WIDTHS = {160, 320, 640, 1280};
+    private final int ATTACHMENT_VARIANT_MAX_PIXELS = 50_000_000;
+    private final int ATTACHMENT_VARIANT_THREADS = 2;
+    private final int ATTACHMENT_VARIANT_QUEUE_SIZE = 100;
+    private final int CONTENT_STORE_MIN_BYTES = 1024;
+    private final int CONTENT_CACHE_MAX_ENTRIES = 10000;
+
+    @Value("${admission.exempt-addresses:}")
+    private List<String> admissionExemptAddresses;
+
     @Override
     public void addCorsMappings(CorsRegistry registry) {
         registry.addMapping("/**")
@@ -57,11 +135,73 @@ public class AppConfig implements WebMvcConfigurer {
                 .allowCredentials(true);
     }
 
+    // Content hashed bundles never change, so browsers needn't revalidate them. The
+    // .br and .gz files webpack wrote next to them are sent when the browser accepts them
+    @Override
+    public void addResourceHandlers(ResourceHandlerRegistry registry) {
+        final String[] fingerprinted = assetManifest().getFingerprintedPaths().toArray(String[]::new);
+        if (fingerprinted.length == 0) {
+            return;
+        }
+        registry.addResourceHandler(fingerprinted)
+                .addResourceLocations("classpath:/static/")
+                .setCacheControl(CacheControl.maxAge(Duration.ofDays(FINGERPRINTED_ASSET_CACHE_DAYS))
+                                             .cachePublic()
+                                             .immutable())
+                .resourceChain(true)
+                .addResolver(new EncodedResourceResolver());
+    }
+
+    // Reads are left out so a flood of writes can't slow them down
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new AdmissionInterceptor(admissionControl()))
+                .addPathPatterns(ADMISSION_CONTROLLED_PATHS.toArray(String[]::new));
+    }
+
+    @Bean
+    public AssetManifest assetManifest() {
+        return AssetManifest.load();
+    }
+
     @Bean
+    public PageShells pageShells(ITemplateEngine templateEngine) {
+        return new PageShells(templateEngine, PAGE_SHELL_MAX_ENTRIES);
+    }
+
+    @Bean
+    public AdmissionControl admissionControl() {
+        final TokenBucketRateLimiter addressLimiter = new TokenBucketRateLimiter(
+            ADDRESS_BURST, Duration.ofMillis(ADDRESS_REFILL_MILLIS), RATE_LIMIT_MAX_KEYS);
+        return new AdmissionControl(addressLimiter, Set.copyOf(this.admissionExemptAddresses),
+                                    MAX_WRITES_IN_FLIGHT, OVERLOADED_MAX_WRITES_IN_FLIGHT,
+                                    TimeUnit.MILLISECONDS.toNanos(MONGO_OVERLOADED_LATENCY_MILLIS),
+                                    MongoCommandLatency.shared()::getAverageNanos, Metrics.globalRegistry);
+    }
+
+    // Metrics
+    @Bean
+    public InstrumentationAspect instrumentationAspect(MeterRegistry meterRegistry) {
+        return new InstrumentationAspect(meterRegistry);
+    }
+
+    // Only with virtual threads, platform request threads are already capped at the pool size
+    @Bean
+    @ConditionalOnThreading(Threading.VIRTUAL)
+    public MongoBulkheadAspect mongoBulkheadAspect(Repositories repositories, MeterRegistry meterRegistry) {
+        return new MongoBulkheadAspect(repositories.getPoolMaxSize(), meterRegistry);
+    }
+
+    @Bean(destroyMethod = "closeDatabaseConnection")
     public Repositories repositories() {
         return new Repositories();
     }
 
+    @Bean
+    public MongoHealthIndicator mongoHealthIndicator(Repositories repositories) {
+        return new MongoHealthIndicator(repositories);
+    }
+
     @Bean
     public MongoCollection<Document> userRepository(Repositories repositories) {
         return repositories.getUserRepository();
@@ -72,15 +212,62 @@ public class AppConfig implements WebMvcConfigurer {
         return repositories.getPostRepository();
     }
 
+    @Bean
+    public MongoCollection<Document> commentRepository(Repositories repositories) {
+        return repositories.getCommentRepository();
+    }
+
+    // Shared by the post and comment DAOs of both stacks, so a body is cached once
+    @Bean
+    public ContentStore contentStore(Repositories repositories) {
+        return new ContentStore(repositories.getContentRepository(), CONTENT_STORE_MIN_BYTES,
+                                CONTENT_CACHE_MAX_ENTRIES);
+    }
+
     // DAOs
     @Bean
     public DBUserDataAccessObject userDAO(MongoCollection<Document> userRepository) {
         return new DBUserDataAccessObject(userRepository);
     }
 
+    // Closing it writes the posts still pending, if they are written behind
+    @Bean(destroyMethod = "close")
+    public DBPostDataAccessObject postDAO(MongoCollection<Document> postRepository,
+                                          ContentStore contentStore,
+                                          DBUserDataAccessObject userDAO,
+                                          @Value("${posts.write-behind.enabled:false}") boolean writeBehind,
+                                          @Value("${posts.write-behind.journal-directory:post-journal}")
+                                          String journalDirectory) throws IOException {
+        final DBPostDataAccessObject postDAO = new DBPostDataAccessObject(postRepository, contentStore);
+        postDAO.createIndexes();
+        if (writeBehind) {
+            postDAO.enableWriteBehind(PostJournal.open(Path.of(journalDirectory)), userDAO::addPostsToAuthors,
+                                      Duration.ofMillis(WRITE_BEHIND_FLUSH_MILLIS), WRITE_BEHIND_MAX_BATCH_SIZE);
+        }
+        return postDAO;
+    }
+
+    // Uploads are refused past the max size, Tomcat's multipart limits are set to it in application.properties
+    @Bean
+    public AttachmentStore attachmentStore(@Value("${attachments.directory:attachments}") String directory,
+                                           @Value("${attachments.max-size:100MB}") DataSize maxSize)
+            throws IOException {
+        return AttachmentStore.open(Path.of(directory), maxSize.toBytes());
+    }
+
+    @Bean(destroyMethod = "close")
+    public AttachmentVariants attachmentVariants(AttachmentStore attachmentStore,
+                                                 @Value("${attachments.directory:attachments}") String directory)
+            throws IOException {
+        return new AttachmentVariants(attachmentStore, Path.of(directory, "variants"), ATTACHMENT_VARIANT_WIDTHS,
+                                      ATTACHMENT_VARIANT_MAX_PIXELS, ATTACHMENT_VARIANT_THREADS,
+                                      ATTACHMENT_VARIANT_QUEUE_SIZE);
+    }
+
     @Bean
-    public DBPostDataAccessObject postDAO(MongoCollection<Document> postRepository) {
-        return new DBPostDataAccessObject(postRepository);
+    public DBCommentDataAccessObject commentDAO(MongoCollection<Document> commentRepository,
+                                                ContentStore contentStore) {
+        return new DBCommentDataAccessObject(commentRepository, contentStore);
     }
 
     // Factories
@@ -194,8 +381,9 @@ public class AppConfig implements WebMvcConfigurer {
     public CreatePostInputBoundary createPostInteractor(DBPostDataAccessObject postDAO,
                                                         DBUserDataAccessObject userDAO,
                                                         CreatePostOutputBoundary createPostOutputBoundary,
-                                                        PostFactory postFactory) {
-        return new CreatePostInteractor(postDAO, userDAO, createPostOutputBoundary, postFactory);
+                                                        PostFactory postFactory,
+                                                        FeedEvents feedEvents) {
+        return new CreatePostInteractor(postDAO, userDAO, createPostOutputBoundary, postFactory, feedEvents);
     }
 
     @Bean
@@ -204,6 +392,23 @@ public class AppConfig implements WebMvcConfigurer {
         return new GetUserInteractor(userDAO, userFactory);
     }
 
+    // Bounded so a burst of page loads queues instead of spawning threads, the caller
+    // runs the lookup itself once the queue is full
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService postPageExecutor() {
+        return new ThreadPoolExecutor(POST_PAGE_THREADS, POST_PAGE_THREADS, 60L, TimeUnit.SECONDS,
+                                      new ArrayBlockingQueue<>(POST_PAGE_QUEUE_SIZE),
+                                      new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    @Bean
+    public PostPageInputBoundary postPageInteractor(DBPostDataAccessObject postDAO,
+                                                    DBCommentDataAccessObject commentDAO,
+                                                    GetUserInputBoundary getUserInteractor,
+                                                    ExecutorService postPageExecutor) {
+        return new PostPageInteractor(postDAO, commentDAO, getUserInteractor, postPageExecutor);
+    }
+
     @Bean
     public LogoutInputBoundary logoutInteractor(DBUserDataAccessObject userDAO, LogoutOutputBoundary logoutPresenter) {
         return new LogoutInteractor(userDAO, logoutPresenter );
@@ -214,14 +419,53 @@ public class AppConfig implements WebMvcConfigurer {
     public AuthentificationController authentificationController(SignupInputBoundary signupInteractor,
                                                                  LoginInputBoundary loginInteractor,
                                                                  LogoutInputBoundary logoutInteractor) {
-        return new AuthentificationController(signupInteractor, loginInteractor, logoutInteractor);
+        final TokenBucketRateLimiter loginAttempts = new TokenBucketRateLimiter(
+            LOGIN_ATTEMPT_BURST, Duration.ofSeconds(LOGIN_ATTEMPT_REFILL_SECONDS), RATE_LIMIT_MAX_KEYS);
+        return new AuthentificationController(signupInteractor, loginInteractor, logoutInteractor, loginAttempts);
     }
 
     @Bean
     public PostController postController(GetUserInputBoundary getUserInteractor,
                                          GetPostInputBoundary homePageInteractor,
                                          GetPostInputBoundary getPostInteractor,
-                                         CreatePostInputBoundary createPostInteractor) {
-        return new PostController(getUserInteractor, homePageInteractor, getPostInteractor, createPostInteractor);
+                                         CreatePostInputBoundary createPostInteractor,
+                                         PostPageInputBoundary postPageInteractor,
+                                         ContentVersions contentVersions,
+                                         ObjectMapper objectMapper) {
+        final TokenBucketRateLimiter postCreations = new TokenBucketRateLimiter(
+            POST_CREATION_BURST, Duration.ofSeconds(POST_CREATION_REFILL_SECONDS), RATE_LIMIT_MAX_KEYS);
+        return new PostController(getUserInteractor, homePageInteractor, getPostInteractor, createPostInteractor,
+                                  postPageInteractor, contentVersions, objectMapper, postCreations);
+    }
+
+    // Pushes post changes to the home pages subscribed at /api/v1/feed-events
+    @Bean(destroyMethod = "close")
+    public FeedEvents feedEvents(ObjectMapper objectMapper) {
+        return new FeedEvents(objectMapper, FEED_EVENT_SENDER_THREADS, FEED_EVENT_MAX_PENDING,
+                              FEED_EVENT_MAX_SUBSCRIBERS, Duration.ofSeconds(FEED_EVENT_HEARTBEAT_SECONDS),
+                              Duration.ofSeconds(FEED_EVENT_SEND_TIMEOUT_SECONDS));
+    }
+
+    @Bean
+    public ContentVersions contentVersions(DBPostDataAccessObject postDAO) {
+        final ContentVersions contentVersions = new ContentVersions(Duration.ofSeconds(CONTENT_VERSION_TRUST_SECONDS),
+                                                                    CONTENT_VERSION_MAX_ENTRIES);
+        postDAO.addWriteListener(contentVersions);
+        return contentVersions;
+    }
+
+    // Tells the caches above about writes other instances and the Swing app make
+    @Bean(destroyMethod = "close")
+    @ConditionalOnProperty(name = "cache.invalidation.enabled", havingValue = "true", matchIfMissing = true)
+    public InvalidationBus invalidationBus(MongoCollection<Document> postRepository,
+                                           MongoCollection<Document> userRepository,
+                                           ContentVersions contentVersions,
+                                           DBUserDataAccessObject userDAO) {
+        final InvalidationBus invalidationBus = new InvalidationBus(postRepository, userRepository,
+                                                                    Duration.ofMillis(INVALIDATION_POLL_MILLIS));
+        invalidationBus.addPostListener(contentVersions);
+        invalidationBus.addUserListener(userDAO);
+        invalidationBus.start();
+        return invalidationBus;
     }
 }
\ No newline at end of file
@@ -0,0 +1,127 @@
+package app;
+
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.bson.Document;
+
+import com.mongodb.client.MongoCollection;
+
+import daos.BulkExport;
+import daos.BulkImport;
+import daos.BulkTransferReport;
+
+/**
+ * Seeds and migrates forum data, imports and exports the posts, users, comments or contents
+ * collection as newline delimited json. Long post and comment bodies are in contents, see
+ * ContentStore, so it moves along with them. Connects with the same .env as the server.
+ * <p/>
+ * Usage, from the packaged jar:
+ * <pre>
+ * java -cp WebServer.jar -Dloader.main=app.BulkDataTool org.springframework.boot.loader.launch.PropertiesLauncher \
+ *     import|export posts|users|comments|contents FILE [--checkpoint=FILE] [--batch-size=N] [--parallelism=N]
+ * </pre>
+ * Running it again with the same checkpoint resumes where it stopped.
+ */
+public class BulkDataTool {
+    private static final int DEFAULT_BATCH_SIZE = 1000;
+    private static final int DEFAULT_PARALLELISM = 4;
+    private static final String USAGE = "Usage: BulkDataTool import|export posts|users|comments|contents FILE "
+        + "[--checkpoint=FILE] [--batch-size=N] [--parallelism=N]";
+
+    /**
+     * @param args the operation, the collection, the file and options, see the class description.
+     */
+    public static void main(String[] args) throws Exception {
+        final Map<String, String> options = new HashMap<>();
+        final String[] positional = new String[3];
+        int count = 0;
+        for (String arg : args) {
+            if (arg.startsWith("--") && arg.contains("=")) {
+                options.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+            } else if (count < positional.length) {
+                positional[count++] = arg;
+            } else {
+                exitWithUsage();
+            }
+        }
+        if (count != positional.length) {
+            exitWithUsage();
+        }
+
+        final String operation = positional[0];
+        final String collectionName = positional[1];
+        final Path file = Path.of(positional[2]);
+        final Path checkpoint = options.containsKey("checkpoint") ? Path.of(options.get("checkpoint")) : null;
+        final int batchSize = Integer.parseInt(options.getOrDefault("batch-size", Integer.toString(DEFAULT_BATCH_SIZE)));
+        final int parallelism = Integer.parseInt(options.getOrDefault("parallelism",
+                                                                      Integer.toString(DEFAULT_PARALLELISM)));
+
+        final String keyField = keyFieldOf(collectionName);
+        if (keyField == null) {
+            exitWithUsage();
+            return;
+        }
+
+        final Repositories repositories = new Repositories();
+        try {
+            final MongoCollection<Document> collection = collectionOf(repositories, collectionName);
+
+            final BulkTransferReport report;
+            if ("import".equals(operation)) {
+                report = new BulkImport(collection, keyField, batchSize, parallelism)
+                    .run(file, checkpoint, BulkDataTool::printProgress);
+            } else if ("export".equals(operation)) {
+                report = new BulkExport(collection, batchSize).run(file, checkpoint, BulkDataTool::printProgress);
+            } else {
+                exitWithUsage();
+                return;
+            }
+            System.out.println("Done. " + report);
+        } finally {
+            repositories.closeDatabaseConnection();
+        }
+    }
+
+    /**
+     * @return the field that identifies the documents of the collection, which imports
+     *         upsert on, or null if there is no such collection.
+     */
+    static String keyFieldOf(String collectionName) {
+        switch (collectionName) {
+            case "posts":
+                return "post_id";
+            case "users":
+                return "userId";
+            case "comments":
+                return "comment_id";
+            case "contents":
+                return "_id";
+            default:
+                return null;
+        }
+    }
+
+    private static MongoCollection<Document> collectionOf(Repositories repositories, String collectionName) {
+        switch (collectionName) {
+            case "posts":
+                return repositories.getPostRepository();
+            case "users":
+                return repositories.getUserRepository();
+            case "comments":
+                return repositories.getCommentRepository();
+            default:
+                return repositories.getContentRepository();
+        }
+    }
+
+    private static void printProgress(BulkTransferReport report) {
+        System.out.println(report);
+    }
+
+    private static void exitWithUsage() {
+        System.err.println(USAGE);
+        System.exit(2);
+    }
+}
@@ -7,6 +7,7 @@ import javax.swing.*;
 import com.mongodb.client.MongoCollection;
 import org.bson.Document;
 
+import daos.ContentStore;
 import daos.DBPostDataAccessObject;
 import daos.DBUserDataAccessObject;
 import io.github.cdimascio.dotenv.Dotenv;
@@ -27,6 +28,8 @@ import view.ViewManager;
  * The version of Main with an external database used to persist user data.
  */
 public class ConnectHub {
+	private static final int CONTENT_STORE_MIN_BYTES = 1024;
+	private static final int CONTENT_CACHE_MAX_ENTRIES = 1000;
 
 	/**
 	 * The main method for starting the program with an external database used to persist user data.
@@ -39,7 +42,9 @@ public class ConnectHub {
 		final MongoCollection<Document> commentRepositroy = repositories.getCommentRepository();
 
 		final DBUserDataAccessObject userDataAccessObject = new DBUserDataAccessObject(userRepository);
-		final DBPostDataAccessObject postDataAccessObject = new DBPostDataAccessObject(postRepository);
+		final DBPostDataAccessObject postDataAccessObject = new DBPostDataAccessObject(postRepository,
+				new ContentStore(repositories.getContentRepository(), CONTENT_STORE_MIN_BYTES, CONTENT_CACHE_MAX_ENTRIES));
+		postDataAccessObject.createIndexes();
 
 		// Closes the connection with the database when the program terminates
 		Runtime.getRuntime().addShutdownHook(new Thread() {
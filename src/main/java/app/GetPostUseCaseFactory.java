@@ -1,5 +1,6 @@
 package app;
 
+import controller.BackgroundTasks;
 import controller.ViewManagerModel;
 import controller.homepage.HomepageController;
 import controller.homepage.HomepageViewModel;
@@ -38,6 +39,6 @@ public class GetPostUseCaseFactory {
         
         final GetPostInputBoundary getPostInteractor = new GetPostInteractor(postDAO, getPostOutputBoundary);
         
-        return new PostController(getPostInteractor);
+        return new PostController(getPostInteractor, BackgroundTasks.shared());
     }
 }
@@ -1,5 +1,6 @@
 package app;
 
+import controller.BackgroundTasks;
 import controller.ViewManagerModel;
 import controller.create_post.CreatePostController;
 import controller.create_post.CreatePostViewModel;
@@ -55,7 +56,8 @@ public class HomepageUseCaseFactory {
         UserFactory userFactory = new CommonUserFactory();
         final GetUserInteractor getUserInteractor = new GetUserInteractor(userRepo, userFactory);
         
-        return new HomepageController(getPostInteractor, getUserInteractor);
+        return new HomepageController(getPostInteractor, getUserInteractor, homepageViewModel,
+                                      BackgroundTasks.shared());
     }
 
     public static LogoutController createLogoutController(
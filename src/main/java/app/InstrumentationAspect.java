@@ -0,0 +1,66 @@
+package app;
+
+import java.time.Duration;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Times every public method of the use case interactors and the MongoDB DAOs
+ * that are wired up as beans in AppConfig.
+ * <p/>
+ * Each method gets its own timer tagged with the class, the method and whether it
+ * threw, and publishes a percentile histogram so tail latency can be aggregated
+ * across instances in Prometheus. It wraps every other aspect so the time spent
+ * waiting on MongoBulkheadAspect is included.
+ */
+@Aspect
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class InstrumentationAspect {
+    public static final String USE_CASE_TIMER = "connecthub.usecase";
+    public static final String DAO_TIMER = "connecthub.dao";
+
+    private final MeterRegistry registry;
+
+    public InstrumentationAspect(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Around("execution(public * use_case..*Interactor.*(..))")
+    public Object timeInteractor(ProceedingJoinPoint joinPoint) throws Throwable {
+        return this.time(USE_CASE_TIMER, joinPoint);
+    }
+
+    @Around("execution(public * daos.DB*DataAccessObject.*(..))")
+    public Object timeDAO(ProceedingJoinPoint joinPoint) throws Throwable {
+        return this.time(DAO_TIMER, joinPoint);
+    }
+
+    private Object time(String timerName, ProceedingJoinPoint joinPoint) throws Throwable {
+        final Timer.Sample sample = Timer.start(this.registry);
+        String outcome = "success";
+
+        try {
+            return joinPoint.proceed();
+        } catch (Throwable ex) {
+            outcome = ex.getClass().getSimpleName();
+            throw ex;
+        } finally {
+            sample.stop(Timer.builder(timerName)
+                .tag("class", joinPoint.getSignature().getDeclaringType().getSimpleName())
+                .tag("method", joinPoint.getSignature().getName())
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .minimumExpectedValue(Duration.ofMillis(1))
+                .maximumExpectedValue(Duration.ofSeconds(10))
+                .register(this.registry));
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package app;
+
+import java.util.concurrent.Semaphore;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Caps the number of DAO calls running at once to the size of the MongoDB connection pool.
+ * <p/>
+ * Only used with virtual threads, where thousands of requests can be in flight at once.
+ * Without it they would all pile into the driver's wait queue and fail once the pool's
+ * maximum wait time is up, with it they queue here in arrival order and cost nothing
+ * but a parked virtual thread while they wait.
+ */
+@Aspect
+@Order(Ordered.LOWEST_PRECEDENCE)
+public class MongoBulkheadAspect {
+    public static final String WAITING_GAUGE = "connecthub.mongo.bulkhead.waiting";
+
+    private final Semaphore permits;
+
+    public MongoBulkheadAspect(int maxConcurrentCalls, MeterRegistry registry) {
+        this.permits = new Semaphore(maxConcurrentCalls, true);
+        Gauge.builder(WAITING_GAUGE, this.permits, Semaphore::getQueueLength).register(registry);
+    }
+
+    @Around("execution(public * daos.DB*DataAccessObject.*(..))")
+    public Object limit(ProceedingJoinPoint joinPoint) throws Throwable {
+        this.permits.acquire();
+        try {
+            return joinPoint.proceed();
+        } finally {
+            this.permits.release();
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package app;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.mongodb.event.CommandFailedEvent;
+import com.mongodb.event.CommandListener;
+import com.mongodb.event.CommandSucceededEvent;
+
+/**
+ * Keeps a moving average of how long MongoDB takes to answer commands, so the
+ * server can tell when the database is struggling without querying Prometheus.
+ * <p/>
+ * Each command moves the average a fifth of the way towards its own latency, so a
+ * few slow commands raise it quickly and it falls back once they are fast again.
+ * getMore is left out since awaiting cursors block by design.
+ */
+public final class MongoCommandLatency implements CommandListener {
+    private static final double WEIGHT = 0.2;
+    private static final MongoCommandLatency SHARED = new MongoCommandLatency();
+
+    private final AtomicLong averageNanos = new AtomicLong();
+
+    /**
+     * @return the instance registered on the clients built by Repositories.clientSettings.
+     */
+    public static MongoCommandLatency shared() {
+        return SHARED;
+    }
+
+    /**
+     * @return the moving average of the command latency in nanoseconds, 0 before any command.
+     */
+    public long getAverageNanos() {
+        return this.averageNanos.get();
+    }
+
+    @Override
+    public void commandSucceeded(CommandSucceededEvent event) {
+        this.record(event.getCommandName(), event.getElapsedTime(TimeUnit.NANOSECONDS));
+    }
+
+    @Override
+    public void commandFailed(CommandFailedEvent event) {
+        this.record(event.getCommandName(), event.getElapsedTime(TimeUnit.NANOSECONDS));
+    }
+
+    private void record(String commandName, long elapsedNanos) {
+        if ("getMore".equals(commandName)) {
+            return;
+        }
+        this.averageNanos.accumulateAndGet(elapsedNanos,
+            (average, sample) -> average == 0 ? sample : average + (long) ((sample - average) * WEIGHT));
+    }
+}
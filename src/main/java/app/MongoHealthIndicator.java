@@ -0,0 +1,25 @@
+package app;
+
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+
+/**
+ * Reports whether MongoDB answers a ping. It is part of the readiness group, so a
+ * load balancer stops routing to an instance that can't reach the database
+ * instead of letting every request time out on the connection pool.
+ */
+public class MongoHealthIndicator implements HealthIndicator {
+    private final Repositories repositories;
+
+    public MongoHealthIndicator(Repositories repositories) {
+        this.repositories = repositories;
+    }
+
+    @Override
+    public Health health() {
+        if (this.repositories.ping()) {
+            return Health.up().build();
+        }
+        return Health.down().withDetail("error", "MongoDB did not answer the ping").build();
+    }
+}
@@ -0,0 +1,45 @@
+package app;
+
+import java.util.concurrent.TimeUnit;
+
+import com.mongodb.event.ConnectionCheckOutFailedEvent;
+import com.mongodb.event.ConnectionCheckedOutEvent;
+import com.mongodb.event.ConnectionPoolListener;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Records how long requests wait to check a connection out of the MongoDB pool.
+ * Micrometer's MongoMetricsConnectionPoolListener already exports the pool size,
+ * checked out count and wait queue size, this adds the wait time so pool
+ * starvation shows up as latency before it shows up as timeouts.
+ */
+public class MongoPoolWaitTimeListener implements ConnectionPoolListener {
+    public static final String CHECKOUT_WAIT_TIMER = "mongodb.driver.pool.checkout.wait";
+
+    private final Timer checkedOut;
+    private final MeterRegistry registry;
+
+    public MongoPoolWaitTimeListener(MeterRegistry registry) {
+        this.registry = registry;
+        this.checkedOut = Timer.builder(CHECKOUT_WAIT_TIMER)
+            .tag("outcome", "success")
+            .publishPercentileHistogram()
+            .register(registry);
+    }
+
+    @Override
+    public void connectionCheckedOut(ConnectionCheckedOutEvent event) {
+        this.checkedOut.record(event.getElapsedTime(TimeUnit.NANOSECONDS), TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void connectionCheckOutFailed(ConnectionCheckOutFailedEvent event) {
+        Timer.builder(CHECKOUT_WAIT_TIMER)
+            .tag("outcome", event.getReason().name().toLowerCase())
+            .publishPercentileHistogram()
+            .register(this.registry)
+            .record(event.getElapsedTime(TimeUnit.NANOSECONDS), TimeUnit.NANOSECONDS);
+    }
+}
@@ -0,0 +1,165 @@
+package app;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.CacheControl;
+import org.springframework.web.reactive.config.CorsRegistry;
+import org.springframework.web.reactive.config.ResourceHandlerRegistry;
+import org.springframework.web.reactive.config.WebFluxConfigurer;
+import org.springframework.web.reactive.function.server.RouterFunction;
+import org.springframework.web.reactive.function.server.RouterFunctions;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import org.springframework.web.reactive.resource.EncodedResourceResolver;
+
+import java.time.Duration;
+
+import api.AdmissionControl;
+import api.AssetManifest;
+import api.ReactiveAttachmentHandler;
+import api.AuthentificationController;
+import api.PostController;
+import api.ReactiveAdmissionFilter;
+import api.ReactiveAuthentificationHandler;
+import api.ContentVersions;
+import api.FeedEvents;
+import api.ReactiveFeedEventsHandler;
+import api.ReactivePostHandler;
+import api.ReactiveUserHandler;
+import daos.AttachmentStore;
+import daos.AttachmentVariants;
+import daos.ContentStore;
+import daos.DBPostDataAccessObject;
+import daos.ReactivePostDataAccessObject;
+import daos.ReactiveUserDataAccessObject;
+import io.github.cdimascio.dotenv.Dotenv;
+import use_case.get_user.GetUserInputBoundary;
+
+/**
+ * The optional non-blocking stack. The blocking stack in AppConfig stays the default,
+ * start the server with spring.main.web-application-type=reactive to serve /api/v1
+ * from these WebFlux routes instead.
+ * <p/>
+ * Reads use the MongoDB reactive streams driver, so concurrency is bounded by what
+ * the database can serve rather than by the number of request threads. Writes reuse
+ * the blocking controllers on the bounded elastic scheduler.
+ */
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveConfig implements WebFluxConfigurer {
+    private final int FINGERPRINTED_ASSET_CACHE_DAYS = 365;
+
+    private final AssetManifest assetManifest;
+
+    public ReactiveConfig(AssetManifest assetManifest) {
+        this.assetManifest = assetManifest;
+    }
+
+    @Override
+    public void addCorsMappings(CorsRegistry registry) {
+        registry.addMapping("/**")
+                .allowedOrigins(Dotenv.configure().load().get("WEB_FRONT_END_URL"))
+                .allowedMethods("GET", "POST")
+                .allowedHeaders("*")
+                .allowCredentials(true);
+    }
+
+    // Same caching as AppConfig. Netty sends bundles that are files on disk with zero-copy
+    @Override
+    public void addResourceHandlers(ResourceHandlerRegistry registry) {
+        final String[] fingerprinted = this.assetManifest.getFingerprintedPaths().toArray(String[]::new);
+        if (fingerprinted.length == 0) {
+            return;
+        }
+        registry.addResourceHandler(fingerprinted)
+                .addResourceLocations("classpath:/static/")
+                .setCacheControl(CacheControl.maxAge(Duration.ofDays(FINGERPRINTED_ASSET_CACHE_DAYS))
+                                             .cachePublic()
+                                             .immutable())
+                .resourceChain(true)
+                .addResolver(new EncodedResourceResolver());
+    }
+
+    @Bean(destroyMethod = "closeDatabaseConnection")
+    public ReactiveRepositories reactiveRepositories() {
+        return new ReactiveRepositories();
+    }
+
+    // DAOs
+    @Bean
+    public ReactivePostDataAccessObject reactivePostDAO(ReactiveRepositories reactiveRepositories,
+                                                        DBPostDataAccessObject postDAO,
+                                                        ContentStore contentStore) {
+        // Posts written behind are pending in the blocking DAO until they reach MongoDB
+        return new ReactivePostDataAccessObject(reactiveRepositories.getPostRepository(), postDAO::getPendingPosts,
+                                                contentStore);
+    }
+
+    @Bean
+    public ReactiveUserDataAccessObject reactiveUserDAO(ReactiveRepositories reactiveRepositories) {
+        return new ReactiveUserDataAccessObject(reactiveRepositories.getUserRepository());
+    }
+
+    // Handlers
+    @Bean
+    public ReactivePostHandler reactivePostHandler(ReactivePostDataAccessObject reactivePostDAO,
+                                                   PostController postController,
+                                                   ContentVersions contentVersions) {
+        return new ReactivePostHandler(reactivePostDAO, postController, contentVersions);
+    }
+
+    @Bean
+    public ReactiveUserHandler reactiveUserHandler(ReactiveUserDataAccessObject reactiveUserDAO,
+                                                   GetUserInputBoundary getUserInteractor) {
+        return new ReactiveUserHandler(reactiveUserDAO, getUserInteractor);
+    }
+
+    @Bean
+    public ReactiveAuthentificationHandler reactiveAuthentificationHandler(
+            AuthentificationController authentificationController) {
+        return new ReactiveAuthentificationHandler(authentificationController);
+    }
+
+    @Bean
+    public ReactiveFeedEventsHandler reactiveFeedEventsHandler(FeedEvents feedEvents) {
+        return new ReactiveFeedEventsHandler(feedEvents);
+    }
+
+    @Bean
+    public ReactiveAttachmentHandler reactiveAttachmentHandler(AttachmentStore attachmentStore,
+                                                               AttachmentVariants attachmentVariants) {
+        return new ReactiveAttachmentHandler(attachmentStore, attachmentVariants);
+    }
+
+    // Same admission control as AppConfig's interceptor
+    @Bean
+    public ReactiveAdmissionFilter reactiveAdmissionFilter(AdmissionControl admissionControl) {
+        return new ReactiveAdmissionFilter(admissionControl, AppConfig.ADMISSION_CONTROLLED_PATHS);
+    }
+
+    // Routes, these take precedence over the annotated controllers
+    @Bean
+    public RouterFunction<ServerResponse> reactiveRoutes(ReactivePostHandler postHandler,
+                                                         ReactiveUserHandler userHandler,
+                                                         ReactiveAuthentificationHandler authHandler,
+                                                         ReactiveFeedEventsHandler feedEventsHandler,
+                                                         ReactiveAttachmentHandler attachmentHandler) {
+        return RouterFunctions.route()
+            .path("/api/v1", builder -> builder
+                .GET("/post", postHandler::getPost)
+                .GET("/post-page", postHandler::getPostPage)
+                .GET("/all-posts", postHandler::getAllPosts)
+                .POST("/create-post", postHandler::createPost)
+                .GET("/feed-events", feedEventsHandler::feedEvents)
+                .POST("/attachments", attachmentHandler::upload)
+                .GET("/attachments/{name}", attachmentHandler::download)
+                .HEAD("/attachments/{name}", attachmentHandler::download)
+                .GET("/current-user", userHandler::getCurrentUser)
+                .GET("/user-info", userHandler::getUserInfo)
+                .GET("/users", userHandler::getUsers)
+                .POST("/signup", authHandler::signup)
+                .POST("/login", authHandler::login)
+                .POST("/logout", authHandler::logout))
+            .build();
+    }
+}
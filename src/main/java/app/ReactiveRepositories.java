@@ -0,0 +1,42 @@
+package app;
+
+import org.bson.Document;
+
+import com.mongodb.reactivestreams.client.MongoClient;
+import com.mongodb.reactivestreams.client.MongoClients;
+import com.mongodb.reactivestreams.client.MongoCollection;
+import com.mongodb.reactivestreams.client.MongoDatabase;
+
+import io.github.cdimascio.dotenv.Dotenv;
+
+/**
+ * Connects to the database with the reactive streams driver. Only created when the
+ * web server runs the reactive stack, see ReactiveConfig. Uses the same connection
+ * and pool settings as Repositories.
+ */
+public final class ReactiveRepositories {
+    private final MongoClient mongoClient;
+    private final MongoCollection<Document> userRepository;
+    private final MongoCollection<Document> postRepository;
+
+    public ReactiveRepositories() {
+        Dotenv dotenv = Dotenv.configure().load();
+        this.mongoClient = MongoClients.create(Repositories.clientSettings(dotenv));
+
+        MongoDatabase database = this.mongoClient.getDatabase("ConnectHub");
+        this.userRepository = database.getCollection("Users");
+        this.postRepository = database.getCollection("Posts");
+    }
+
+    public void closeDatabaseConnection() {
+        this.mongoClient.close();
+    }
+
+    public MongoCollection<Document> getUserRepository() {
+        return this.userRepository;
+    }
+
+    public MongoCollection<Document> getPostRepository() {
+        return this.postRepository;
+    }
+}
@@ -1,5 +1,7 @@
 package app;
 
+import java.util.concurrent.TimeUnit;
+
 import org.bson.Document;
 
 import com.mongodb.ConnectionString;
@@ -13,53 +15,87 @@ import com.mongodb.client.MongoCollection;
 import com.mongodb.client.MongoDatabase;
 
 import io.github.cdimascio.dotenv.Dotenv;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.binder.mongodb.MongoMetricsConnectionPoolListener;
 
 /**
  * Connects to the database.
+ * <p/>
+ * The connection pool is configured from the .env file, see .env.example for the
+ * variables. The default maximum pool size matches Tomcat's default of 200 request
+ * threads so a request never waits on the pool when the server isn't saturated.
  */
 public final class Repositories {
+    private static final int DEFAULT_POOL_MAX_SIZE = 200;
+    private static final int DEFAULT_POOL_MIN_SIZE = 0;
+    private static final int DEFAULT_POOL_MAX_WAIT_MS = 2000;
+    private static final int DEFAULT_POOL_MAX_IDLE_MS = 60000;
+    private static final int DEFAULT_CONNECT_TIMEOUT_MS = 5000;
+    private static final int DEFAULT_SOCKET_TIMEOUT_MS = 10000;
+    private static final int DEFAULT_SERVER_SELECTION_TIMEOUT_MS = 5000;
+
+    private final int poolMaxSize;
     private MongoClient mongoClient;
+    private MongoDatabase database;
     private MongoCollection<Document> userRepository;
     private MongoCollection<Document> postRepository;
     private MongoCollection<Document> commentRepository;
+    private MongoCollection<Document> contentRepository;
 
     public Repositories() {
         // Connecting to the database
         Dotenv dotenv = Dotenv.configure().load();
-		String connectionString = dotenv.get("MONGO_DB_CONNECTION_STRING");
-
-		ServerApi serverApi = ServerApi.builder()
-                .version(ServerApiVersion.V1)
-                .build();
-
-		MongoClientSettings settings = MongoClientSettings.builder()
-                .applyConnectionString(new ConnectionString(connectionString))
-                .serverApi(serverApi)
-                .build();
+        MongoClientSettings settings = clientSettings(dotenv);
+        this.poolMaxSize = settings.getConnectionPoolSettings().getMaxSize();
 
         try {
             // Create a new client and connect to the server
             this.mongoClient = MongoClients.create(settings);
-
-            // Send a ping to confirm a successful connection
-            MongoDatabase database = this.mongoClient.getDatabase("ConnectHub");
+            this.database = this.mongoClient.getDatabase("ConnectHub");
 
             this.userRepository = database.getCollection("Users");
             this.postRepository = database.getCollection("Posts");
             this.commentRepository = database.getCollection("Comments");
-
-            System.out.println("Pinged your deployment. You successfully connected to MongoDB!");
+            this.contentRepository = database.getCollection("Contents");
         } catch (MongoException e) {
             e.printStackTrace();
         }
+
+        // Send a ping to confirm a successful connection
+        if (this.ping()) {
+            System.out.println("Pinged your deployment. You successfully connected to MongoDB!");
+        } else {
+            System.out.println("Could not ping your deployment. Requests will fail until MongoDB is reachable.");
+        }
 	}
 
+    /**
+     * Sends a ping command to the deployment.
+     * @return true if the deployment answered, false otherwise.
+     */
+    public boolean ping() {
+        if (this.database == null) {
+            return false;
+        }
+
+        try {
+            this.database.runCommand(new Document("ping", 1));
+            return true;
+        } catch (MongoException e) {
+            return false;
+        }
+    }
+
     public void closeDatabaseConnection() {
         if (this.mongoClient != null) {
             mongoClient.close();
         }
     }
 
+    public int getPoolMaxSize() {
+        return this.poolMaxSize;
+    }
+
     public MongoCollection<Document> getUserRepository() {
         return this.userRepository;
     }
@@ -71,4 +107,49 @@ public final class Repositories {
     public MongoCollection<Document> getCommentRepository() {
         return this.commentRepository;
     }
+
+    public MongoCollection<Document> getContentRepository() {
+        return this.contentRepository;
+    }
+
+    /**
+     * Builds the client settings shared by the blocking and the reactive MongoDB clients.
+     * @param dotenv - the environment holding the connection string and pool settings.
+     */
+    static MongoClientSettings clientSettings(Dotenv dotenv) {
+		String connectionString = dotenv.get("MONGO_DB_CONNECTION_STRING");
+
+		ServerApi serverApi = ServerApi.builder()
+                .version(ServerApiVersion.V1)
+                .build();
+
+		return MongoClientSettings.builder()
+                .applyConnectionString(new ConnectionString(connectionString))
+                .serverApi(serverApi)
+                .addCommandListener(MongoCommandLatency.shared())
+                .applyToConnectionPoolSettings(pool -> pool
+                    .maxSize(readInt(dotenv, "MONGO_POOL_MAX_SIZE", DEFAULT_POOL_MAX_SIZE))
+                    .minSize(readInt(dotenv, "MONGO_POOL_MIN_SIZE", DEFAULT_POOL_MIN_SIZE))
+                    .maxWaitTime(readInt(dotenv, "MONGO_POOL_MAX_WAIT_MS", DEFAULT_POOL_MAX_WAIT_MS),
+                                 TimeUnit.MILLISECONDS)
+                    .maxConnectionIdleTime(readInt(dotenv, "MONGO_POOL_MAX_IDLE_MS", DEFAULT_POOL_MAX_IDLE_MS),
+                                           TimeUnit.MILLISECONDS)
+                    .addConnectionPoolListener(new MongoMetricsConnectionPoolListener(Metrics.globalRegistry))
+                    .addConnectionPoolListener(new MongoPoolWaitTimeListener(Metrics.globalRegistry)))
+                .applyToSocketSettings(socket -> socket
+                    .connectTimeout(readInt(dotenv, "MONGO_CONNECT_TIMEOUT_MS", DEFAULT_CONNECT_TIMEOUT_MS),
+                                    TimeUnit.MILLISECONDS)
+                    .readTimeout(readInt(dotenv, "MONGO_SOCKET_TIMEOUT_MS", DEFAULT_SOCKET_TIMEOUT_MS),
+                                 TimeUnit.MILLISECONDS))
+                .applyToClusterSettings(cluster -> cluster
+                    .serverSelectionTimeout(readInt(dotenv, "MONGO_SERVER_SELECTION_TIMEOUT_MS",
+                                                    DEFAULT_SERVER_SELECTION_TIMEOUT_MS),
+                                            TimeUnit.MILLISECONDS))
+                .build();
+    }
+
+    private static int readInt(Dotenv dotenv, String key, int defaultValue) {
+        String value = dotenv.get(key);
+        return value == null || value.isBlank() ? defaultValue : Integer.parseInt(value.trim());
+    }
 }
@@ -2,23 +2,17 @@ package app;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.autoconfigure.mongo.MongoAutoConfiguration;
+import org.springframework.boot.autoconfigure.mongo.MongoReactiveAutoConfiguration;
 import org.springframework.context.annotation.ComponentScan;
 
-@SpringBootApplication
+// Repositories and ReactiveRepositories own the MongoClients, Spring Boot's default clients would open more pools
+@SpringBootApplication(exclude = {MongoAutoConfiguration.class, MongoReactiveAutoConfiguration.class})
 @ComponentScan({"app", "api"})
 public class WebServer {
     public static void main(String[] args) {
-        final Repositories repositories = new Repositories();
-
-		// Application Start
+		// Application Start. The database connection is the Repositories bean in AppConfig,
+		// which Spring closes on shutdown.
         SpringApplication.run(WebServer.class, args);
-
-        Runtime.getRuntime().addShutdownHook(new Thread() {
-			@Override
-			public void run() {
-				repositories.closeDatabaseConnection();
-				System.out.println("Discconected to the database.");
-			}
-		});
     }
 }
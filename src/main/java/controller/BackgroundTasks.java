@@ -0,0 +1,135 @@
+package controller;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.swing.SwingUtilities;
+
+/**
+ * Runs controller calls off the Event Dispatch Thread so the Swing views stay
+ * responsive while the use cases wait on the database.
+ * <p/>
+ * Tasks are submitted under a key, e.g. "homepage posts". Submitting a new task
+ * under a key that still has one pending supersedes the old one: it won't start if
+ * it is still queued, and anything its presenter fires afterwards is dropped by
+ * ViewModel, so a slow response to an earlier click can never overwrite the result
+ * of a later one. A superseded task that is already running is interrupted, so it
+ * doesn't hold one of the few threads while the latest task waits for it. The
+ * MongoDB driver then closes that thread's pooled connection, which costs a new
+ * connection rather than a blocked click.
+ */
+public final class BackgroundTasks {
+    private static final int THREADS = 4;
+    private static final BackgroundTasks SHARED = new BackgroundTasks(THREADS);
+    private static final ThreadLocal<Task> CURRENT = new ThreadLocal<>();
+
+    private final ExecutorService executor;
+    private final Map<String, Task> latest = new ConcurrentHashMap<>();
+
+    public BackgroundTasks(int threads) {
+        final AtomicInteger threadCount = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(threads, runnable -> {
+            final Thread thread = new Thread(runnable, "swing-background-" + threadCount.incrementAndGet());
+            // Don't keep the app alive after the window is closed
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * @return the task runner shared by the Swing controllers.
+     */
+    public static BackgroundTasks shared() {
+        return SHARED;
+    }
+
+    /**
+     * Runs the work on a background thread, superseding the previous task submitted
+     * under the same key.
+     * @param key - identifies what the task loads, tasks under different keys don't affect each other.
+     * @param work - the controller call to run.
+     */
+    public void submit(String key, Runnable work) {
+        final Task task = new Task();
+        final Task previous = this.latest.put(key, task);
+        if (previous != null) {
+            previous.cancel();
+        }
+
+        task.future = this.executor.submit(() -> {
+            CURRENT.set(task);
+            try {
+                if (!task.isCancelled()) {
+                    work.run();
+                }
+            } finally {
+                CURRENT.remove();
+                this.latest.remove(key, task);
+            }
+        });
+    }
+
+    /**
+     * Stops the background threads, running tasks are interrupted.
+     */
+    public void shutdown() {
+        this.executor.shutdownNow();
+    }
+
+    /**
+     * Lets presenters skip updating their state for a result nobody is waiting for.
+     * @return true if the calling thread runs a task that has been superseded.
+     */
+    public static boolean isCurrentTaskSuperseded() {
+        final Task task = CURRENT.get();
+        return task != null && task.isCancelled();
+    }
+
+    /**
+     * Applies an update to a view state on the Event Dispatch Thread, for controllers
+     * that change the state themselves rather than through a presenter.
+     * @param update - dropped if the calling task is superseded before it runs.
+     */
+    public static void publish(Runnable update) {
+        final Task task = CURRENT.get();
+        if (task != null && task.isCancelled()) {
+            return;
+        }
+        SwingUtilities.invokeLater(() -> {
+            if (task == null || !task.isCancelled()) {
+                update.run();
+            }
+        });
+    }
+
+    /**
+     * @return the task running on the calling thread, or null if the caller isn't a background task.
+     */
+    static Task current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * A submitted piece of work that can be superseded.
+     */
+    static final class Task {
+        private volatile boolean cancelled;
+        private volatile Future<?> future;
+
+        boolean isCancelled() {
+            return this.cancelled;
+        }
+
+        private void cancel() {
+            this.cancelled = true;
+            final Future<?> running = this.future;
+            if (running != null) {
+                running.cancel(true);
+            }
+        }
+    }
+}
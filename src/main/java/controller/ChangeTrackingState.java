@@ -0,0 +1,26 @@
+package controller;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Base class for view states that record what changed since the ViewModel last
+ * fired. Subclasses call record from their setters.
+ */
+public abstract class ChangeTrackingState {
+    private List<StateChange> changes = new ArrayList<>();
+
+    protected synchronized void record(StateChange change) {
+        this.changes.add(change);
+    }
+
+    /**
+     * Returns the changes recorded since the last call and forgets them.
+     * @return the changes, in the order they were made
+     */
+    public synchronized List<StateChange> drainChanges() {
+        final List<StateChange> drained = this.changes;
+        this.changes = new ArrayList<>();
+        return drained;
+    }
+}
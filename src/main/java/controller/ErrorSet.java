@@ -0,0 +1,26 @@
+package controller;
+
+/**
+ * An error message of a view state was set or cleared.
+ */
+public final class ErrorSet implements StateChange {
+    private final String field;
+    private final String message;
+
+    /**
+     * @param field - the part of the state the error is about, e.g. "posts".
+     * @param message - the error message, null if the error was cleared.
+     */
+    public ErrorSet(String field, String message) {
+        this.field = field;
+        this.message = message;
+    }
+
+    public String getField() {
+        return this.field;
+    }
+
+    public String getMessage() {
+        return this.message;
+    }
+}
@@ -0,0 +1,11 @@
+package controller;
+
+/**
+ * A single change to the state of a ViewModel, e.g. a page of posts appended to
+ * the feed. States that extend ChangeTrackingState record one for every change
+ * made through their setters, and ViewModel fires them in order with the
+ * CHANGES property so views can patch the affected components instead of
+ * redrawing everything.
+ */
+public interface StateChange {
+}
@@ -2,15 +2,31 @@ package controller;
 
 import java.beans.PropertyChangeListener;
 import java.beans.PropertyChangeSupport;
+import java.util.List;
+
+import javax.swing.SwingUtilities;
 
 /**
  * The ViewModel for our Connecthub implementation.
  * This class delegates work to a PropertyChangeSupport object for
  * managing the property change events.
+ * <p/>
+ * Listeners are Swing views, so events are always delivered on the Event Dispatch
+ * Thread even when a presenter fires them from a BackgroundTasks thread. Events
+ * fired by a task that has since been superseded are dropped.
+ * <p/>
+ * If the state extends ChangeTrackingState, every fire is followed by a CHANGES
+ * event whose new value is the list of StateChanges recorded since the last one,
+ * so views can patch what changed instead of redrawing the whole state. The
+ * changes are taken from the state on the Event Dispatch Thread, so those of a
+ * superseded task aren't lost with its events: they stay queued and go out with
+ * the next CHANGES event, in the order they were made, and the view never drifts
+ * from the state.
  *
  * @param <T> The type of state object contained in the model.
  */
 public class ViewModel<T> {
+    public static final String CHANGES = "changes";
 
     private final String viewName;
 
@@ -38,7 +54,7 @@ public class ViewModel<T> {
      * Fires a property changed event for the state of this ViewModel.
      */
     public void firePropertyChanged() {
-        this.support.firePropertyChange("state", null, this.state);
+        this.firePropertyChanged("state");
     }
 
     /**
@@ -51,7 +67,56 @@ public class ViewModel<T> {
      * @param propertyName the label for the property that was changed
      */
     public void firePropertyChanged(String propertyName) {
-        this.support.firePropertyChange(propertyName, null, this.state);
+        this.fire(propertyName, this.state);
+
+        if (this.state instanceof ChangeTrackingState) {
+            this.fireChanges((ChangeTrackingState) this.state);
+        }
+    }
+
+    private void fireChanges(ChangeTrackingState changeTrackingState) {
+        // Drained even without listeners, so the presenters the web app shares
+        // with the Swing app don't pile changes up
+        if (SwingUtilities.isEventDispatchThread() || !this.support.hasListeners(CHANGES)) {
+            this.fireDrained(changeTrackingState);
+            return;
+        }
+
+        final BackgroundTasks.Task task = BackgroundTasks.current();
+        if (task != null && task.isCancelled()) {
+            return;
+        }
+        SwingUtilities.invokeLater(() -> {
+            // Left queued for the next fire if the task was superseded meanwhile
+            if (task == null || !task.isCancelled()) {
+                this.fireDrained(changeTrackingState);
+            }
+        });
+    }
+
+    private void fireDrained(ChangeTrackingState changeTrackingState) {
+        final List<StateChange> changes = changeTrackingState.drainChanges();
+        if (!changes.isEmpty()) {
+            this.support.firePropertyChange(CHANGES, null, changes);
+        }
+    }
+
+    private void fire(String propertyName, Object value) {
+        if (SwingUtilities.isEventDispatchThread() || !this.support.hasListeners(propertyName)) {
+            this.support.firePropertyChange(propertyName, null, value);
+            return;
+        }
+
+        final BackgroundTasks.Task task = BackgroundTasks.current();
+        if (task != null && task.isCancelled()) {
+            return;
+        }
+        SwingUtilities.invokeLater(() -> {
+            // The task may have been superseded while the event was queued
+            if (task == null || !task.isCancelled()) {
+                this.support.firePropertyChange(propertyName, null, value);
+            }
+        });
     }
 
     /**
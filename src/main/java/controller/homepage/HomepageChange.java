@@ -0,0 +1,59 @@
+package controller.homepage;
+
+import java.util.List;
+
+import controller.StateChange;
+import entity.Post;
+
+/**
+ * The changes HomepageState records for the home page feed.
+ */
+public abstract class HomepageChange implements StateChange {
+
+    private HomepageChange() {}
+
+    /**
+     * The feed was replaced, e.g. by the first page of another category.
+     */
+    public static final class PostsReplaced extends HomepageChange {
+        private final List<Post> posts;
+
+        PostsReplaced(List<Post> posts) {
+            this.posts = posts;
+        }
+
+        public List<Post> getPosts() {
+            return this.posts;
+        }
+    }
+
+    /**
+     * A page of posts was added to the end of the feed.
+     */
+    public static final class PostsAppended extends HomepageChange {
+        private final List<Post> posts;
+
+        PostsAppended(List<Post> posts) {
+            this.posts = posts;
+        }
+
+        public List<Post> getPosts() {
+            return this.posts;
+        }
+    }
+
+    /**
+     * The feed started or finished loading its first page.
+     */
+    public static final class LoadingChanged extends HomepageChange {
+        private final boolean loading;
+
+        LoadingChanged(boolean loading) {
+            this.loading = loading;
+        }
+
+        public boolean isLoading() {
+            return this.loading;
+        }
+    }
+}
@@ -1,25 +1,64 @@
 package controller.homepage;
 
+import java.util.List;
+
+import controller.BackgroundTasks;
+import entity.Post;
 import entity.User;
 import use_case.get_user.GetUserInteractor;
 import use_case.getpost.GetPostInputBoundary;
 
 public class HomepageController {
+    private final String POSTS_TASK = "homepage posts";
+    private final int PAGE_SIZE = 10;
+
     private final GetPostInputBoundary getPostInteractor;
     private GetUserInteractor getUserInteractor;
+    private final HomepageViewModel homepageViewModel;
+    private final BackgroundTasks backgroundTasks;
 
-    public HomepageController(GetPostInputBoundary getPostInteractor, GetUserInteractor getUserInteractor) {
+    public HomepageController(GetPostInputBoundary getPostInteractor, GetUserInteractor getUserInteractor,
+                              HomepageViewModel homepageViewModel, BackgroundTasks backgroundTasks) {
 
         this.getPostInteractor = getPostInteractor;
         this.getUserInteractor = getUserInteractor;
+        this.homepageViewModel = homepageViewModel;
+        this.backgroundTasks = backgroundTasks;
     }
 
+    /**
+     * Loads the first page of every post in the background, the home page shows a
+     * loading state until the presenter publishes them.
+     */
     public void fetchAllPosts() {
-        this.getPostInteractor.getAllPosts();
+        this.loadFirstPage(null);
     }
 
+    /**
+     * Loads the first page of a category in the background. Clicking another category
+     * before it arrives supersedes this request.
+     * @param category - the category to filter by.
+     */
     public void getPostsByCategory(String category) {
-        this.getPostInteractor.getPostsByCategory(category);
+        this.loadFirstPage(category);
+    }
+
+    /**
+     * Loads the page after the posts already in the feed, does nothing if a page is
+     * already on its way or the feed has no more posts.
+     */
+    public void fetchNextPage() {
+        final HomepageState homepageState = this.homepageViewModel.getState();
+        if (homepageState.isLoading() || homepageState.isLoadingMore() || !homepageState.hasMorePosts()) {
+            return;
+        }
+        homepageState.setLoadingMore(true);
+
+        final String category = homepageState.getCategory();
+        final List<Post> posts = homepageState.getPosts();
+        final Post after = posts.isEmpty() ? null : posts.get(posts.size() - 1);
+        this.submit(homepageState,
+            () -> this.getPostInteractor.getPostsPage(category, after, PAGE_SIZE));
     }
 
     public void switchToLoginView() {
@@ -34,5 +73,33 @@ public class HomepageController {
         return this.getUserInteractor.getCurrentUser();
     }
 
+    private void loadFirstPage(String category) {
+        final HomepageState homepageState = this.homepageViewModel.getState();
+        homepageState.setCategory(category);
+        homepageState.setLoading(true);
+        homepageState.setLoadingMore(false);
+        this.homepageViewModel.firePropertyChanged();
+
+        this.submit(homepageState, () -> this.getPostInteractor.getPostsPage(category, null, PAGE_SIZE));
+    }
 
+    private void submit(HomepageState homepageState, Runnable fetch) {
+        this.backgroundTasks.submit(POSTS_TASK, () -> {
+            try {
+                fetch.run();
+            } catch (RuntimeException ex) {
+                // A newer request owns the loading state now
+                if (BackgroundTasks.isCurrentTaskSuperseded()) {
+                    return;
+                }
+                // The interactor only reports missing posts to the presenter, a failed
+                // query still has to take the home page out of its loading state
+                BackgroundTasks.publish(() -> {
+                    homepageState.setLoading(false);
+                    homepageState.setLoadingMore(false);
+                    this.homepageViewModel.firePropertyChanged();
+                });
+            }
+        });
+    }
 }
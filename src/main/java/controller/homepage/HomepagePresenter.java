@@ -2,6 +2,7 @@ package controller.homepage;
 
 import java.util.List;
 
+import controller.BackgroundTasks;
 import controller.ViewManagerModel;
 import controller.post.PostViewModel;
 import entity.Post;
@@ -9,8 +10,6 @@ import use_case.getpost.GetPostOutputBoundary;
 import use_case.getpost.GetPostOutputData;
 
 public class HomepagePresenter implements GetPostOutputBoundary {
-    private final int PER_PAGE = 10;
-
     private final ViewManagerModel viewManagerModel;
     private final HomepageViewModel homepageViewModel;
     private final PostViewModel postViewModel;
@@ -30,12 +29,22 @@ public class HomepagePresenter implements GetPostOutputBoundary {
      */
     @Override
     public void prepareSuccessView(GetPostOutputData outputData) {
+        if (BackgroundTasks.isCurrentTaskSuperseded()) {
+            return;
+        }
         final HomepageState homepageState = this.homepageViewModel.getState();
-        List<Post> posts = outputData.getAllPosts();
+        final List<Post> page = outputData.getAllPosts();
 
-        homepageState.setPosts(posts.subList(0, Math.min(posts.size(), PER_PAGE)));
+        if (outputData.isFirstPage()) {
+            homepageState.setPosts(page);
+        } else {
+            homepageState.appendPosts(page);
+        }
+        homepageState.setHasMorePosts(outputData.hasMorePosts());
 
         homepageState.setPostsError(null);
+        homepageState.setLoading(false);
+        homepageState.setLoadingMore(false);
 
         this.homepageViewModel.setState(homepageState);
         this.homepageViewModel.firePropertyChanged();
@@ -50,8 +59,13 @@ public class HomepagePresenter implements GetPostOutputBoundary {
      */
     @Override
     public void prepareFailView(String errorMessage) {
+        if (BackgroundTasks.isCurrentTaskSuperseded()) {
+            return;
+        }
         final HomepageState homepageState = this.homepageViewModel.getState();
-        homepageState.setPostsError(null);
+        homepageState.setPostsError(errorMessage);
+        homepageState.setLoading(false);
+        homepageState.setLoadingMore(false);
         this.homepageViewModel.firePropertyChanged();
     }
 
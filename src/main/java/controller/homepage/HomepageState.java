@@ -2,17 +2,28 @@ package controller.homepage;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Objects;
 
+import controller.ChangeTrackingState;
+import controller.ErrorSet;
 import entity.Post;
 
 /**
- * Represents the state of the HomePage view.
+ * Represents the state of the HomePage view. Changes to the feed, the loading
+ * state and the errors are recorded as HomepageChanges and ErrorSets.
  */
-public class HomepageState {
+public class HomepageState extends ChangeTrackingState {
+    public static final String POSTS_FIELD = "posts";
+    public static final String CURRENT_USER_FIELD = "currentUser";
+
     private String currentUser = "";
     private String currentUserError;
     private List<Post> posts = new ArrayList<>();
-    private List<Post> postsError;
+    private String postsError;
+    private boolean loading;
+    private boolean loadingMore;
+    private boolean hasMorePosts;
+    private String category;
     
     public String getCurrentUser() {
         return currentUser;
@@ -27,14 +38,20 @@ public class HomepageState {
     }
 
     public void setCurrentUserError(String currentUserError) {
+        if (!Objects.equals(this.currentUserError, currentUserError)) {
+            this.record(new ErrorSet(CURRENT_USER_FIELD, currentUserError));
+        }
         this.currentUserError = currentUserError;
     }
 
-    public List<Post> getPostsError() {
+    public String getPostsError() {
         return postsError;
     }
 
-    public void setPostsError(List<Post> postsError) {
+    public void setPostsError(String postsError) {
+        if (!Objects.equals(this.postsError, postsError)) {
+            this.record(new ErrorSet(POSTS_FIELD, postsError));
+        }
         this.postsError = postsError;
     }
 
@@ -44,5 +61,57 @@ public class HomepageState {
 
     public void setPosts(List<Post> posts) {
         this.posts = posts;
+        this.record(new HomepageChange.PostsReplaced(posts));
+    }
+
+    /**
+     * Adds a page of posts to the end of the feed.
+     * @param page the posts to add
+     */
+    public void appendPosts(List<Post> page) {
+        // A new list so a snapshot held by the view doesn't change under it
+        final List<Post> appended = new ArrayList<>(this.posts.size() + page.size());
+        appended.addAll(this.posts);
+        appended.addAll(page);
+        this.posts = appended;
+        this.record(new HomepageChange.PostsAppended(page));
+    }
+
+    public boolean isLoading() {
+        return loading;
+    }
+
+    public void setLoading(boolean loading) {
+        if (this.loading != loading) {
+            this.record(new HomepageChange.LoadingChanged(loading));
+        }
+        this.loading = loading;
+    }
+
+    public boolean isLoadingMore() {
+        return loadingMore;
+    }
+
+    public void setLoadingMore(boolean loadingMore) {
+        this.loadingMore = loadingMore;
+    }
+
+    public boolean hasMorePosts() {
+        return hasMorePosts;
+    }
+
+    public void setHasMorePosts(boolean hasMorePosts) {
+        this.hasMorePosts = hasMorePosts;
+    }
+
+    /**
+     * @return the category the feed is filtered by, or null for every post.
+     */
+    public String getCategory() {
+        return category;
+    }
+
+    public void setCategory(String category) {
+        this.category = category;
     }
 }
@@ -0,0 +1,59 @@
+package controller.post;
+
+import java.util.List;
+
+import controller.StateChange;
+import entity.Comment;
+
+/**
+ * The changes PostState records for the post view.
+ */
+public abstract class PostChange implements StateChange {
+
+    private PostChange() {}
+
+    /**
+     * The title of the post changed.
+     */
+    public static final class TitleChanged extends PostChange {
+        private final String title;
+
+        TitleChanged(String title) {
+            this.title = title;
+        }
+
+        public String getTitle() {
+            return this.title;
+        }
+    }
+
+    /**
+     * The body of the post changed.
+     */
+    public static final class ContentChanged extends PostChange {
+        private final String content;
+
+        ContentChanged(String content) {
+            this.content = content;
+        }
+
+        public String getContent() {
+            return this.content;
+        }
+    }
+
+    /**
+     * The comments of the post were replaced.
+     */
+    public static final class CommentsReplaced extends PostChange {
+        private final List<Comment> comments;
+
+        CommentsReplaced(List<Comment> comments) {
+            this.comments = comments;
+        }
+
+        public List<Comment> getComments() {
+            return this.comments;
+        }
+    }
+}
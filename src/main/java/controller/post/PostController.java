@@ -1,5 +1,6 @@
 package controller.post;
 
+import controller.BackgroundTasks;
 import use_case.getpost.GetPostInputBoundary;
 import use_case.getpost.GetPostInputData;
 
@@ -7,18 +8,29 @@ import use_case.getpost.GetPostInputData;
  * A controller for an individual post
  */
 public class PostController {
+    private final String POST_TASK = "post";
+
     private final GetPostInputBoundary getPostInteractor; 
+    private final BackgroundTasks backgroundTasks;
 
-    public PostController(GetPostInputBoundary getPostInteractor) {
+    public PostController(GetPostInputBoundary getPostInteractor, BackgroundTasks backgroundTasks) {
         this.getPostInteractor = getPostInteractor;
+        this.backgroundTasks = backgroundTasks;
     }
 
+    /**
+     * Loads the post in the background, opening another post before it arrives
+     * supersedes this request.
+     * @param postId - the id of the post to show.
+     */
     public void execute(String postId) {
         final GetPostInputData getPostInputData = new GetPostInputData(postId);
-        try {
-            this.getPostInteractor.getPost(getPostInputData);
-        } catch (Exception ex) {
+        this.backgroundTasks.submit(POST_TASK, () -> {
+            try {
+                this.getPostInteractor.getPost(getPostInputData);
+            } catch (Exception ex) {
 
-        }
+            }
+        });
     }
 }
@@ -2,9 +2,21 @@ package controller.post;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Objects;
+
+import controller.ChangeTrackingState;
+import controller.ErrorSet;
 import entity.Comment;
 
-public class PostState {
+/**
+ * Represents the state of the Post view. Changes are recorded as PostChanges and
+ * ErrorSets, setting a field to the value it already has records nothing.
+ */
+public class PostState extends ChangeTrackingState {
+    public static final String POST_ID_FIELD = "postID";
+    public static final String POST_TITLE_FIELD = "postTitle";
+    public static final String POST_CONTENT_FIELD = "postContent";
+
     private String postID = "";
     private String postIDError;
     private String postTitle = "";
@@ -27,6 +39,9 @@ public class PostState {
     }
 
     public void setPostIDError(String postIDError) {
+        if (!Objects.equals(this.postIDError, postIDError)) {
+            this.record(new ErrorSet(POST_ID_FIELD, postIDError));
+        }
         this.postIDError = postIDError;
     }
 
@@ -35,6 +50,9 @@ public class PostState {
     }
 
     public void setPostTitle(String postTitle) {
+        if (!Objects.equals(this.postTitle, postTitle)) {
+            this.record(new PostChange.TitleChanged(postTitle));
+        }
         this.postTitle = postTitle;
     }
 
@@ -43,6 +61,9 @@ public class PostState {
     }
 
     public void setPostTitleError(String postTitleError) {
+        if (!Objects.equals(this.postTitleError, postTitleError)) {
+            this.record(new ErrorSet(POST_TITLE_FIELD, postTitleError));
+        }
         this.postTitleError = postTitleError;
     }
 
@@ -51,6 +72,9 @@ public class PostState {
     }
 
     public void setPostContent(String postContent) {
+        if (!Objects.equals(this.postContent, postContent)) {
+            this.record(new PostChange.ContentChanged(postContent));
+        }
         this.postContent = postContent;
     }
 
@@ -59,6 +83,9 @@ public class PostState {
     }
 
     public void setPostContentError(String postContentError) {
+        if (!Objects.equals(this.postContentError, postContentError)) {
+            this.record(new ErrorSet(POST_CONTENT_FIELD, postContentError));
+        }
         this.postContentError = postContentError;
     }
 
@@ -67,6 +94,9 @@ public class PostState {
     }
 
     public void setComments(List<Comment> comments) {
+        if (!Objects.equals(this.comments, comments)) {
+            this.record(new PostChange.CommentsReplaced(comments));
+        }
         this.comments = comments;
     }
 
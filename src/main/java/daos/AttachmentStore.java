@@ -0,0 +1,201 @@
+package daos;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.regex.Pattern;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Metrics;
+
+/**
+ * The attachments of posts, as files on local disk named by the SHA-256 of their
+ * bytes. The same file uploaded twice is stored once, and a stored file never
+ * changes, so it can be cached for good.
+ * <p/>
+ * An upload is written to a temporary file a buffer at a time as it arrives, and
+ * hashed on the way, so it is never held in memory whole. Once complete it is moved
+ * to its name, or dropped if an identical file is there already. Files are spread
+ * over directories named by the first two characters of their hash.
+ */
+public class AttachmentStore {
+    public static final String UPLOADS_COUNTER = "connecthub.attachments.uploads";
+
+    private static final String INCOMING_DIRECTORY = "incoming";
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final Pattern ID = Pattern.compile("[0-9a-f]{64}");
+    private static final Logger LOGGER = LoggerFactory.getLogger(AttachmentStore.class);
+
+    private final Path directory;
+    private final Path incoming;
+    private final long maxBytes;
+
+    private AttachmentStore(Path directory, long maxBytes) {
+        this.directory = directory;
+        this.incoming = directory.resolve(INCOMING_DIRECTORY);
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Opens the store in the directory, creating it if needed.
+     * @param maxBytes - the largest attachment that can be uploaded.
+     */
+    public static AttachmentStore open(Path directory, long maxBytes) throws IOException {
+        final AttachmentStore store = new AttachmentStore(directory, maxBytes);
+        Files.createDirectories(store.incoming);
+        // Uploads the last run didn't finish
+        try (DirectoryStream<Path> leftovers = Files.newDirectoryStream(store.incoming)) {
+            for (Path leftover : leftovers) {
+                Files.deleteIfExists(leftover);
+            }
+        }
+        return store;
+    }
+
+    public long getMaxBytes() {
+        return this.maxBytes;
+    }
+
+    /**
+     * Starts an upload, which must be closed whether or not it was committed.
+     */
+    public Upload begin() throws IOException {
+        final Path file = Files.createTempFile(this.incoming, "upload-", ".part");
+        try {
+            return new Upload(file, FileChannel.open(file, StandardOpenOption.WRITE));
+        } catch (IOException ex) {
+            Files.deleteIfExists(file);
+            throw ex;
+        }
+    }
+
+    /**
+     * @return the file of the attachment, or null if there is none with that id.
+     */
+    public Path find(String id) {
+        if (id == null || !ID.matcher(id).matches()) {
+            return null;
+        }
+        final Path file = this.fileOf(id);
+        return Files.isRegularFile(file) ? file : null;
+    }
+
+    private Path fileOf(String id) {
+        return this.directory.resolve(id.substring(0, 2)).resolve(id);
+    }
+
+    /**
+     * What an upload was stored as.
+     * @param deduplicated - whether an identical attachment was already stored.
+     */
+    public record StoredAttachment(String id, long size, boolean deduplicated) {}
+
+    /**
+     * Thrown when an upload grows past the largest attachment the store takes.
+     */
+    public static class AttachmentTooLargeException extends IOException {
+        public AttachmentTooLargeException(long maxBytes) {
+            super("Attachments can't be larger than " + maxBytes + " bytes");
+        }
+    }
+
+    /**
+     * An attachment being uploaded.
+     */
+    public final class Upload implements Closeable {
+        private final Path file;
+        private final FileChannel channel;
+        private final MessageDigest digest;
+        private long size;
+        private boolean committed;
+
+        private Upload(Path file, FileChannel channel) {
+            this.file = file;
+            this.channel = channel;
+            try {
+                this.digest = MessageDigest.getInstance("SHA-256");
+            } catch (NoSuchAlgorithmException ex) {
+                // Every JVM has it
+                throw new IllegalStateException(ex);
+            }
+        }
+
+        /**
+         * Appends the bytes left in the buffer.
+         */
+        public void write(ByteBuffer bytes) throws IOException {
+            this.size += bytes.remaining();
+            if (this.size > AttachmentStore.this.maxBytes) {
+                throw new AttachmentTooLargeException(AttachmentStore.this.maxBytes);
+            }
+            this.digest.update(bytes.duplicate());
+            while (bytes.hasRemaining()) {
+                this.channel.write(bytes);
+            }
+        }
+
+        /**
+         * Appends what is left of the stream.
+         */
+        public void write(InputStream content) throws IOException {
+            final byte[] buffer = new byte[BUFFER_SIZE];
+            int read;
+            while ((read = content.read(buffer)) != -1) {
+                this.write(ByteBuffer.wrap(buffer, 0, read));
+            }
+        }
+
+        /**
+         * Stores what was written under its hash.
+         */
+        public StoredAttachment commit() throws IOException {
+            this.channel.force(false);
+            this.channel.close();
+            final String id = HexFormat.of().formatHex(this.digest.digest());
+            final Path target = AttachmentStore.this.fileOf(id);
+            final boolean deduplicated = Files.exists(target);
+            if (deduplicated) {
+                Files.delete(this.file);
+            } else {
+                Files.createDirectories(target.getParent());
+                // Replacing an identical file uploaded at the same time is harmless
+                Files.move(this.file, target, StandardCopyOption.ATOMIC_MOVE);
+            }
+            this.committed = true;
+            Counter.builder(UPLOADS_COUNTER)
+                .tag("deduplicated", Boolean.toString(deduplicated))
+                .register(Metrics.globalRegistry)
+                .increment();
+            return new StoredAttachment(id, this.size, deduplicated);
+        }
+
+        /**
+         * Drops the upload unless it was committed.
+         */
+        @Override
+        public void close() {
+            if (this.committed) {
+                return;
+            }
+            try {
+                this.channel.close();
+                Files.deleteIfExists(this.file);
+            } catch (IOException ex) {
+                LOGGER.warn("Could not delete the unfinished upload {}", this.file, ex);
+            }
+        }
+    }
+}
@@ -0,0 +1,333 @@
+package daos;
+
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Metrics;
+
+/**
+ * Smaller copies of image attachments, so a feed card can show a preview without
+ * downloading the original.
+ * <p/>
+ * Once an image is uploaded a small pool of threads decodes it with ImageIO and
+ * writes a copy at each of the widths narrower than it. The JDK has no WebP
+ * writer, so copies are JPEG, or PNG if the image is transparent. Images too large
+ * to be worth decoding, or that ImageIO has no reader for, get no copies. One that
+ * fails to decode or write gets none for now, e.g. the disk was full. The failure
+ * is remembered for a while, during which the original is sent without queuing the
+ * image again, and its copies are tried again once it expires.
+ * <p/>
+ * The copies of an attachment are kept in a directory named by its hash, with a
+ * manifest of them written last. Until the manifest is there the original is the
+ * only thing to send. Asking for copies that aren't there queues them again, e.g.
+ * for attachments uploaded before this existed or dropped while the pool was busy.
+ */
+public class AttachmentVariants implements Closeable {
+    public static final String VARIANTS_COUNTER = "connecthub.attachments.variants";
+
+    private static final String MANIFEST = "manifest";
+    private static final String JPEG = "jpg";
+    private static final String PNG = "png";
+    private static final float JPEG_QUALITY = 0.8f;
+    private static final int MANIFEST_CACHE_SIZE = 10000;
+    private static final Duration FAILED_RETRY_AFTER = Duration.ofMinutes(10);
+    private static final Logger LOGGER = LoggerFactory.getLogger(AttachmentVariants.class);
+
+    private final AttachmentStore attachmentStore;
+    private final Path directory;
+    private final int[] widths;
+    private final long maxPixels;
+    private final ThreadPoolExecutor workers;
+    private final Set<String> queued = ConcurrentHashMap.newKeySet();
+    // Manifests are written once and never change, absent ones are looked for again soon
+    private final ExpiringCache<String, Manifest> manifests =
+        new ExpiringCache<>(MANIFEST_CACHE_SIZE, Duration.ofHours(1), Duration.ofSeconds(5));
+    // Attachments whose copies couldn't be made, not queued again until their entry expires
+    private final ExpiringCache<String, Boolean> failures;
+
+    /**
+     * @param widths - the widths copies are made at.
+     * @param maxPixels - the largest image copies are made of.
+     * @param threads - how many images are resized at once.
+     * @param queueSize - how many images wait for a thread before more are dropped.
+     */
+    public AttachmentVariants(AttachmentStore attachmentStore, Path directory, int[] widths, long maxPixels,
+                              int threads, int queueSize) throws IOException {
+        this(attachmentStore, directory, widths, maxPixels, threads, queueSize, FAILED_RETRY_AFTER);
+    }
+
+    /**
+     * @param retryFailedAfter - how long an attachment whose copies couldn't be made is left alone.
+     */
+    AttachmentVariants(AttachmentStore attachmentStore, Path directory, int[] widths, long maxPixels,
+                       int threads, int queueSize, Duration retryFailedAfter) throws IOException {
+        this.attachmentStore = attachmentStore;
+        this.directory = directory;
+        this.widths = widths.clone();
+        Arrays.sort(this.widths);
+        this.maxPixels = maxPixels;
+        this.failures = new ExpiringCache<>(MANIFEST_CACHE_SIZE, retryFailedAfter, Duration.ZERO);
+        final AtomicInteger threadCount = new AtomicInteger();
+        this.workers = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                                              new ArrayBlockingQueue<>(queueSize), runnable -> {
+            final Thread thread = new Thread(runnable, "attachment-variants-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        Files.createDirectories(directory);
+    }
+
+    /**
+     * Queues making the copies of an attachment, unless they were made, are queued
+     * already or failed a short while ago.
+     */
+    public void generate(String id) {
+        if (this.manifestOf(id) != null || this.failures.getIfPresent(id) != null || !this.queued.add(id)) {
+            return;
+        }
+        try {
+            this.workers.execute(() -> {
+                try {
+                    this.write(id);
+                } finally {
+                    this.queued.remove(id);
+                    this.manifests.invalidate(id);
+                }
+            });
+        } catch (RejectedExecutionException ex) {
+            // Queued again the next time it is asked for
+            this.queued.remove(id);
+            this.count("dropped");
+        }
+    }
+
+    /**
+     * @return the copies made of the attachment, or null if they weren't made yet.
+     */
+    public Manifest manifestOf(String id) {
+        return this.manifests.getOrLoad(id, this::readManifest);
+    }
+
+    @Override
+    public void close() {
+        this.workers.shutdownNow();
+    }
+
+    /**
+     * A copy of an attachment.
+     * @param mediaType - image/jpeg or image/png.
+     */
+    public record Variant(Path file, int width, String mediaType) {}
+
+    /**
+     * The copies made of an attachment, none if it isn't an image ImageIO can shrink.
+     */
+    public static final class Manifest {
+        private final Path directory;
+        private final String format;
+        private final int[] widths;
+
+        private Manifest(Path directory, String format, int[] widths) {
+            this.directory = directory;
+            this.format = format;
+            this.widths = widths;
+        }
+
+        /**
+         * @return the narrowest copy at least width wide, or null if the original is.
+         */
+        public Variant fitting(int width) {
+            for (int candidate : this.widths) {
+                if (candidate >= width) {
+                    return new Variant(this.directory.resolve(fileName(candidate, this.format)), candidate,
+                                       PNG.equals(this.format) ? "image/png" : "image/jpeg");
+                }
+            }
+            return null;
+        }
+    }
+
+    private Manifest readManifest(String id) {
+        final Path variants = this.directory.resolve(id);
+        final List<String> lines;
+        try {
+            lines = Files.readAllLines(variants.resolve(MANIFEST), StandardCharsets.UTF_8);
+        } catch (IOException ex) {
+            return null;
+        }
+        if (lines.size() < 2 || lines.get(1).isEmpty()) {
+            return new Manifest(variants, "", new int[0]);
+        }
+        return new Manifest(variants, lines.get(0),
+                            Arrays.stream(lines.get(1).split(",")).mapToInt(Integer::parseInt).toArray());
+    }
+
+    private void write(String id) {
+        final Path source = this.attachmentStore.find(id);
+        if (source == null) {
+            return;
+        }
+        final Path variants = this.directory.resolve(id);
+        String format = "";
+        final List<Integer> written = new ArrayList<>();
+        try (ImageInputStream input = ImageIO.createImageInputStream(source.toFile())) {
+            final Iterator<ImageReader> readers = input == null ? null : ImageIO.getImageReaders(input);
+            if (readers != null && readers.hasNext()) {
+                final ImageReader reader = readers.next();
+                try {
+                    reader.setInput(input, true, true);
+                    format = this.resize(reader, variants, Files.size(source), written);
+                } finally {
+                    reader.dispose();
+                }
+            }
+        } catch (IOException | RuntimeException ex) {
+            // No manifest, so the copies are made again when they are asked for after the failure expires
+            LOGGER.warn("Could not make the variants of attachment {}", id, ex);
+            this.failures.put(id, Boolean.TRUE);
+            this.count("failed");
+            return;
+        }
+        this.count(written.isEmpty() ? "none" : "generated");
+
+        try {
+            Files.createDirectories(variants);
+            final Path manifest = Files.createTempFile(variants, MANIFEST, ".part");
+            Files.writeString(manifest, format + "\n"
+                + written.stream().map(String::valueOf).collect(Collectors.joining(",")) + "\n");
+            Files.move(manifest, variants.resolve(MANIFEST), StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException ex) {
+            LOGGER.warn("Could not write the variants manifest of attachment {}", id, ex);
+            this.failures.put(id, Boolean.TRUE);
+        }
+    }
+
+    /**
+     * Writes the copies narrower than the image, widest first, each shrunk from the last.
+     * A copy that isn't smaller than the original, e.g. of a simple PNG, is left out.
+     * @param written - the widths written, narrowest first.
+     * @return the format of the copies.
+     */
+    private String resize(ImageReader reader, Path variants, long sourceSize, List<Integer> written)
+            throws IOException {
+        final int width = reader.getWidth(0);
+        final int height = reader.getHeight(0);
+        if ((long) width * height > this.maxPixels) {
+            return "";
+        }
+        final int[] wanted = Arrays.stream(this.widths).filter(candidate -> candidate < width).toArray();
+        if (wanted.length == 0) {
+            return "";
+        }
+
+        // Decodes every nth pixel of large images, keeping at least twice the widest copy
+        final ImageReadParam param = reader.getDefaultReadParam();
+        final int subsampling = Math.max(1, width / (wanted[wanted.length - 1] * 2));
+        param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+        BufferedImage image = reader.read(0, param);
+        final boolean transparent = image.getColorModel().hasAlpha();
+        final String format = transparent ? PNG : JPEG;
+
+        Files.createDirectories(variants);
+        for (int i = wanted.length - 1; i >= 0; i--) {
+            image = shrink(image, wanted[i], transparent);
+            final Path file = Files.createTempFile(variants, "variant", ".part");
+            try {
+                writeImage(image, format, file);
+                if (Files.size(file) >= sourceSize) {
+                    continue;
+                }
+                Files.move(file, variants.resolve(fileName(wanted[i], format)), StandardCopyOption.ATOMIC_MOVE);
+                written.add(0, wanted[i]);
+            } finally {
+                Files.deleteIfExists(file);
+            }
+        }
+        return format;
+    }
+
+    /**
+     * Halves the image until the next halving would go past the width, then scales
+     * the rest of the way, which keeps bilinear filtering from skipping pixels.
+     */
+    private static BufferedImage shrink(BufferedImage image, int width, boolean transparent) {
+        BufferedImage current = image;
+        do {
+            final int nextWidth = Math.max(width, current.getWidth() / 2);
+            final int nextHeight = Math.max(1, (int) Math.round(
+                (double) current.getHeight() * nextWidth / current.getWidth()));
+            final BufferedImage next = new BufferedImage(nextWidth, nextHeight,
+                                                         transparent ? BufferedImage.TYPE_INT_ARGB
+                                                                     : BufferedImage.TYPE_INT_RGB);
+            final Graphics2D graphics = next.createGraphics();
+            try {
+                graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+                graphics.drawImage(current, 0, 0, nextWidth, nextHeight, null);
+            } finally {
+                graphics.dispose();
+            }
+            current = next;
+        } while (current.getWidth() > width);
+        return current;
+    }
+
+    private static void writeImage(BufferedImage image, String format, Path file) throws IOException {
+        final ImageWriter writer = ImageIO.getImageWritersByFormatName(format).next();
+        try (ImageOutputStream output = ImageIO.createImageOutputStream(file.toFile())) {
+            writer.setOutput(output);
+            final ImageWriteParam param = writer.getDefaultWriteParam();
+            if (JPEG.equals(format)) {
+                param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+                param.setCompressionQuality(JPEG_QUALITY);
+            }
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+    }
+
+    private static String fileName(int width, String format) {
+        return width + "." + format;
+    }
+
+    private void count(String outcome) {
+        Counter.builder(VARIANTS_COUNTER)
+            .tag("outcome", outcome)
+            .register(Metrics.globalRegistry)
+            .increment();
+    }
+}
@@ -0,0 +1,140 @@
+package daos;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Properties;
+import java.util.function.Consumer;
+
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.bson.json.JsonMode;
+import org.bson.json.JsonWriterSettings;
+
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoCursor;
+import com.mongodb.client.model.Sorts;
+
+import static com.mongodb.client.model.Filters.gt;
+
+/**
+ * Writes every document of a collection to a file, one json document per line, in
+ * the format BulkImport reads.
+ * <p/>
+ * The documents are streamed in _id order, a batch at a time. After each batch the
+ * checkpoint records the last _id written and the length of the file at that point.
+ * A run given the same checkpoint cuts the file back to that length and carries on
+ * after that _id.
+ */
+public class BulkExport {
+    private static final String CHECKPOINT_LAST_ID = "last_id";
+    private static final String CHECKPOINT_BYTES = "bytes";
+    private static final Duration PROGRESS_INTERVAL = Duration.ofSeconds(5);
+    // Keeps numbers plain json, other types such as ObjectIds in the extended json Document.parse reads back
+    private static final JsonWriterSettings JSON_SETTINGS = JsonWriterSettings.builder()
+        .outputMode(JsonMode.RELAXED)
+        .build();
+
+    private final MongoCollection<Document> collection;
+    private final int batchSize;
+
+    /**
+     * @param batchSize - the documents read per round trip, and written between checkpoints.
+     */
+    public BulkExport(MongoCollection<Document> collection, int batchSize) {
+        this.collection = collection;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * @param checkpoint - where progress is recorded, and read from if it exists.
+     * @param onProgress - given a report every few seconds.
+     * @return the report of this run.
+     */
+    public BulkTransferReport run(Path file, Path checkpoint, Consumer<BulkTransferReport> onProgress)
+            throws IOException {
+        final long startedAt = System.nanoTime();
+        final Properties resume = readProperties(checkpoint);
+        final String lastIdJson = resume.getProperty(CHECKPOINT_LAST_ID);
+        long bytes = Long.parseLong(resume.getProperty(CHECKPOINT_BYTES, "0"));
+
+        // Whatever was written after the last checkpoint is written again
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            channel.truncate(bytes);
+        }
+
+        final Bson filter = lastIdJson == null ? new Document() : gt("_id", Document.parse(lastIdJson).get("_id"));
+        long transferred = 0;
+        long lastProgressAt = startedAt;
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(file, StandardOpenOption.APPEND));
+             MongoCursor<Document> documents = this.collection.find(filter)
+                 .sort(Sorts.ascending("_id"))
+                 .batchSize(this.batchSize)
+                 .iterator()) {
+            while (documents.hasNext()) {
+                final Document document = documents.next();
+                final byte[] line = (document.toJson(JSON_SETTINGS) + "\n").getBytes(StandardCharsets.UTF_8);
+                out.write(line);
+                bytes += line.length;
+                transferred++;
+
+                if (transferred % this.batchSize == 0 || !documents.hasNext()) {
+                    out.flush();
+                    if (checkpoint != null) {
+                        writeProperties(checkpoint, Map.of(
+                            CHECKPOINT_LAST_ID, new Document("_id", document.get("_id")).toJson(),
+                            CHECKPOINT_BYTES, Long.toString(bytes)));
+                    }
+                }
+
+                final long now = System.nanoTime();
+                if (now - lastProgressAt >= PROGRESS_INTERVAL.toNanos()) {
+                    lastProgressAt = now;
+                    onProgress.accept(this.report(transferred, startedAt));
+                }
+            }
+        }
+
+        DAOMetrics.documentsReturned("BulkExport", "run", (int) Math.min(Integer.MAX_VALUE, transferred));
+        return this.report(transferred, startedAt);
+    }
+
+    private BulkTransferReport report(long transferred, long startedAt) {
+        return new BulkTransferReport(this.collection.getNamespace().getCollectionName(), transferred, 0, 0,
+                                      Duration.ofNanos(System.nanoTime() - startedAt));
+    }
+
+    private static Properties readProperties(Path path) throws IOException {
+        final Properties properties = new Properties();
+        if (path != null && Files.exists(path)) {
+            try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+                properties.load(reader);
+            }
+        }
+        return properties;
+    }
+
+    /**
+     * Replaces the file with the properties at once, so a crash leaves either the old
+     * checkpoint or the new one.
+     */
+    static void writeProperties(Path path, Map<String, String> values) throws IOException {
+        final Properties properties = new Properties();
+        properties.putAll(values);
+        final Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+        try (BufferedWriter writer = Files.newBufferedWriter(temporary, StandardCharsets.UTF_8)) {
+            properties.store(writer, null);
+        }
+        Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+}
@@ -0,0 +1,277 @@
+package daos;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+import org.bson.BsonInvalidOperationException;
+import org.bson.Document;
+import org.bson.json.JsonParseException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.MongoException;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.Indexes;
+import com.mongodb.client.model.ReplaceOneModel;
+import com.mongodb.client.model.ReplaceOptions;
+import com.mongodb.client.model.WriteModel;
+
+import static com.mongodb.client.model.Filters.eq;
+
+/**
+ * Loads a file of documents, one json document per line, into a collection.
+ * <p/>
+ * The file is streamed and only parallelism + 1 batches are held in memory at once.
+ * Each batch is one unordered bulk write that runs next to the others. Every document
+ * replaces the one with the same key, or is inserted if there is none, so a file can
+ * be loaded again and a run can be resumed from any point. The _id of the documents
+ * is left to MongoDB, so a file can be loaded into a database that has some of them
+ * already.
+ * <p/>
+ * After each batch the checkpoint records the line every batch before it ended at. A
+ * run given the same checkpoint starts after that line.
+ */
+public class BulkImport {
+    private static final String CHECKPOINT_LINE = "line";
+    private static final int MAX_ATTEMPTS = 5;
+    private static final Duration FIRST_RETRY_DELAY = Duration.ofSeconds(1);
+    private static final Duration PROGRESS_INTERVAL = Duration.ofSeconds(5);
+    private static final Logger LOGGER = LoggerFactory.getLogger(BulkImport.class);
+
+    private final MongoCollection<Document> collection;
+    private final String keyField;
+    private final int batchSize;
+    private final int parallelism;
+
+    /**
+     * @param keyField - the field that identifies a document, e.g. post_id.
+     * @param batchSize - the documents written by one bulk write.
+     * @param parallelism - the bulk writes running at once.
+     */
+    public BulkImport(MongoCollection<Document> collection, String keyField, int batchSize, int parallelism) {
+        this.collection = collection;
+        this.keyField = keyField;
+        this.batchSize = batchSize;
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * @param checkpoint - where progress is recorded, and read from if it exists.
+     * @param onProgress - given a report every few seconds.
+     * @return the report of this run.
+     * @throws MongoException if a batch still failed after being retried, the checkpoint tells where to resume.
+     */
+    public BulkTransferReport run(Path file, Path checkpoint, Consumer<BulkTransferReport> onProgress)
+            throws IOException, InterruptedException {
+        // Without an index every replacement would scan the collection
+        this.collection.createIndex(Indexes.ascending(this.keyField));
+
+        final long resumeAfter = readCheckpoint(checkpoint);
+        final Run run = new Run(checkpoint, onProgress, resumeAfter);
+        final ExecutorService writers = Executors.newFixedThreadPool(this.parallelism);
+        final Semaphore inFlight = new Semaphore(this.parallelism);
+
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            List<WriteModel<Document>> batch = new ArrayList<>(this.batchSize);
+            long lineNumber = 0;
+            long sequence = 0;
+            String line;
+            while ((line = reader.readLine()) != null && run.failure.get() == null) {
+                lineNumber++;
+                if (lineNumber <= resumeAfter) {
+                    run.skipped.incrementAndGet();
+                    continue;
+                }
+
+                final WriteModel<Document> replacement = this.toReplacement(line, lineNumber);
+                if (replacement == null) {
+                    run.rejected.incrementAndGet();
+                } else {
+                    batch.add(replacement);
+                }
+                if (batch.size() == this.batchSize) {
+                    this.submit(writers, inFlight, run, batch, sequence++, lineNumber);
+                    batch = new ArrayList<>(this.batchSize);
+                }
+            }
+            if (run.failure.get() == null) {
+                this.submit(writers, inFlight, run, batch, sequence, lineNumber);
+            }
+        } finally {
+            writers.shutdown();
+            writers.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        }
+
+        if (run.failure.get() != null) {
+            throw run.failure.get();
+        }
+        return run.report();
+    }
+
+    private WriteModel<Document> toReplacement(String line, long lineNumber) {
+        if (line.isBlank()) {
+            return null;
+        }
+        final Document document;
+        try {
+            document = Document.parse(line);
+        } catch (JsonParseException | BsonInvalidOperationException ex) {
+            LOGGER.warn("Line {} isn't a json document: {}", lineNumber, ex.getMessage());
+            return null;
+        }
+        final Object key = document.get(this.keyField);
+        if (key == null) {
+            LOGGER.warn("Line {} has no {}", lineNumber, this.keyField);
+            return null;
+        }
+        document.remove("_id");
+        return new ReplaceOneModel<>(eq(this.keyField, key), document, new ReplaceOptions().upsert(true));
+    }
+
+    private void submit(ExecutorService writers, Semaphore inFlight, Run run,
+                        List<WriteModel<Document>> batch, long sequence, long lastLine) throws InterruptedException {
+        // Blocks reading the file while every writer is busy, which bounds the memory used
+        inFlight.acquire();
+        writers.execute(() -> {
+            try {
+                final int written = this.write(batch, run);
+                run.completed(sequence, lastLine, written);
+            } catch (RuntimeException ex) {
+                run.failure.compareAndSet(null, ex);
+            } finally {
+                inFlight.release();
+            }
+        });
+    }
+
+    /**
+     * @return the documents MongoDB accepted.
+     */
+    private int write(List<WriteModel<Document>> batch, Run run) {
+        if (batch.isEmpty()) {
+            return 0;
+        }
+        long delayMillis = FIRST_RETRY_DELAY.toMillis();
+        for (int attempt = 1; ; attempt++) {
+            try {
+                this.collection.bulkWrite(batch, new BulkWriteOptions().ordered(false));
+                return batch.size();
+            } catch (MongoBulkWriteException ex) {
+                if (ex.getWriteConcernError() == null) {
+                    // Documents MongoDB refused, e.g. a duplicate key, would be refused again
+                    for (BulkWriteError error : ex.getWriteErrors()) {
+                        LOGGER.warn("Document {} of a batch was refused: {}", error.getIndex(), error.getMessage());
+                    }
+                    run.rejected.addAndGet(ex.getWriteErrors().size());
+                    return batch.size() - ex.getWriteErrors().size();
+                }
+                if (attempt == MAX_ATTEMPTS) {
+                    throw ex;
+                }
+            } catch (MongoException ex) {
+                if (attempt == MAX_ATTEMPTS) {
+                    throw ex;
+                }
+                LOGGER.warn("Batch failed, retrying in {} ms: {}", delayMillis, ex.getMessage());
+            }
+            try {
+                Thread.sleep(delayMillis);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new MongoException("Interrupted while waiting to retry a batch", ex);
+            }
+            delayMillis *= 2;
+        }
+    }
+
+    private static long readCheckpoint(Path checkpoint) throws IOException {
+        if (checkpoint == null || !Files.exists(checkpoint)) {
+            return 0;
+        }
+        final Properties properties = new Properties();
+        try (BufferedReader reader = Files.newBufferedReader(checkpoint, StandardCharsets.UTF_8)) {
+            properties.load(reader);
+        }
+        return Long.parseLong(properties.getProperty(CHECKPOINT_LINE, "0"));
+    }
+
+    /**
+     * The state of one run. Batches finish in any order, the checkpoint only moves past
+     * a batch once every batch before it finished too.
+     */
+    private final class Run {
+        private final Path checkpoint;
+        private final Consumer<BulkTransferReport> onProgress;
+        private final long startedAt = System.nanoTime();
+        private final AtomicLong transferred = new AtomicLong();
+        private final AtomicLong rejected = new AtomicLong();
+        // Counted by the reading thread, reported from the writers
+        private final AtomicLong skipped = new AtomicLong();
+        private final AtomicReference<RuntimeException> failure = new AtomicReference<>();
+        private final Map<Long, Long> finishedLines = new HashMap<>();
+        private long nextSequence;
+        private long committedLine;
+        private long lastProgressAt = System.nanoTime();
+
+        private Run(Path checkpoint, Consumer<BulkTransferReport> onProgress, long resumeAfter) {
+            this.checkpoint = checkpoint;
+            this.onProgress = onProgress;
+            this.committedLine = resumeAfter;
+        }
+
+        private synchronized void completed(long sequence, long lastLine, int written) {
+            this.transferred.addAndGet(written);
+            this.finishedLines.put(sequence, lastLine);
+            final long before = this.committedLine;
+            while (this.finishedLines.containsKey(this.nextSequence)) {
+                this.committedLine = this.finishedLines.remove(this.nextSequence++);
+            }
+            if (this.committedLine != before) {
+                this.writeCheckpoint();
+            }
+
+            final long now = System.nanoTime();
+            if (now - this.lastProgressAt >= PROGRESS_INTERVAL.toNanos()) {
+                this.lastProgressAt = now;
+                this.onProgress.accept(this.report());
+            }
+        }
+
+        private void writeCheckpoint() {
+            if (this.checkpoint == null) {
+                return;
+            }
+            try {
+                BulkExport.writeProperties(this.checkpoint, Map.of(CHECKPOINT_LINE, Long.toString(this.committedLine)));
+            } catch (IOException ex) {
+                throw new UncheckedIOException("Could not write the checkpoint", ex);
+            }
+        }
+
+        private BulkTransferReport report() {
+            return new BulkTransferReport(collection.getNamespace().getCollectionName(), this.transferred.get(),
+                                          this.rejected.get(), this.skipped.get(),
+                                          Duration.ofNanos(System.nanoTime() - this.startedAt));
+        }
+    }
+}
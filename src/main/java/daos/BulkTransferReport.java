@@ -0,0 +1,63 @@
+package daos;
+
+import java.time.Duration;
+
+/**
+ * How far a BulkImport or BulkExport got, passed to its progress listener as it
+ * runs and returned once it is done.
+ */
+public final class BulkTransferReport {
+    private final String collection;
+    private final long transferred;
+    private final long rejected;
+    private final long skipped;
+    private final Duration elapsed;
+
+    BulkTransferReport(String collection, long transferred, long rejected, long skipped, Duration elapsed) {
+        this.collection = collection;
+        this.transferred = transferred;
+        this.rejected = rejected;
+        this.skipped = skipped;
+        this.elapsed = elapsed;
+    }
+
+    /**
+     * @return the documents written by this run.
+     */
+    public long getTransferred() {
+        return this.transferred;
+    }
+
+    /**
+     * @return the documents that were malformed or refused by MongoDB, and left out.
+     */
+    public long getRejected() {
+        return this.rejected;
+    }
+
+    /**
+     * @return the documents a previous run had transferred already, according to the checkpoint.
+     */
+    public long getSkipped() {
+        return this.skipped;
+    }
+
+    public Duration getElapsed() {
+        return this.elapsed;
+    }
+
+    /**
+     * @return the documents written per second by this run.
+     */
+    public double getThroughput() {
+        final double seconds = this.elapsed.toNanos() / 1e9;
+        return seconds == 0 ? 0 : this.transferred / seconds;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s: %,d transferred, %,d rejected, %,d skipped in %.1fs (%,.0f documents/s)",
+                             this.collection, this.transferred, this.rejected, this.skipped,
+                             this.elapsed.toMillis() / 1000.0, this.getThroughput());
+    }
+}
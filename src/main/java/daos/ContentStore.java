@@ -0,0 +1,199 @@
+package daos;
+
+import static com.mongodb.client.model.Filters.eq;
+import static com.mongodb.client.model.Filters.in;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.bson.Document;
+import org.json.JSONObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.mongodb.ErrorCategory;
+import com.mongodb.MongoWriteException;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.UpdateOptions;
+import com.mongodb.client.model.Updates;
+import com.mongodb.client.result.UpdateResult;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Metrics;
+
+/**
+ * The bodies of posts and comments, stored once each in MongoDB under the SHA-256
+ * of their text. Spam and cross-posts repeat the same long body over and over,
+ * with this they take the space of one.
+ * <p/>
+ * A document whose content_body is at least minBytes long is stored with a
+ * content_hash in its place. Short bodies stay inline, a lookup would cost more
+ * than they take. Reads put the body back before the document leaves its DAO, so
+ * nothing past the DAOs sees the hash. A body that can't be found fails the read,
+ * rather than the document being shown, or edited and written back, without it.
+ * <p/>
+ * A stored body never changes, so it is cached for long, and every document with
+ * the same body shares the one cached string. The hashes already stored are
+ * remembered too, so storing a body seen before doesn't reach MongoDB. Bodies are
+ * never deleted, one no document refers to anymore is only wasted space.
+ */
+public class ContentStore {
+    public static final String CONTENTS_COUNTER = "connecthub.contents.stored";
+
+    private static final String CONTENT_BODY = "content_body";
+    private static final String CONTENT_HASH = "content_hash";
+    private static final String BODY = "body";
+    private static final int HASH_CACHE_SIZE = 100000;
+    private static final String DAO_NAME = "ContentStore";
+    private static final Logger LOGGER = LoggerFactory.getLogger(ContentStore.class);
+
+    private final MongoCollection<Document> contentRepository;
+    private final int minBytes;
+    // A body another instance stores is looked for again soon
+    private final ExpiringCache<String, String> bodies;
+    private final ExpiringCache<String, Boolean> storedHashes =
+        new ExpiringCache<>(HASH_CACHE_SIZE, Duration.ofDays(1), Duration.ZERO);
+
+    /**
+     * @param minBytes - the shortest body stored by its hash, in UTF-8 bytes.
+     * @param maxCachedBodies - the most bodies kept in memory.
+     */
+    public ContentStore(MongoCollection<Document> contentRepository, int minBytes, int maxCachedBodies) {
+        this.contentRepository = contentRepository;
+        this.minBytes = minBytes;
+        this.bodies = new ExpiringCache<>(maxCachedBodies, Duration.ofDays(1), Duration.ofSeconds(5));
+    }
+
+    /**
+     * Stores the body unless it is short, throws a MongoException if it couldn't.
+     * @return the hash to refer to the body by, or null if it is kept inline.
+     */
+    public String store(String body) {
+        if (body == null) {
+            return null;
+        }
+        final byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length < this.minBytes) {
+            return null;
+        }
+
+        final String hash = hashOf(bytes);
+        final boolean[] inserted = {false};
+        this.storedHashes.getOrLoad(hash, key -> {
+            inserted[0] = this.insert(key, body);
+            return Boolean.TRUE;
+        });
+        Counter.builder(CONTENTS_COUNTER)
+            .tag("deduplicated", Boolean.toString(!inserted[0]))
+            .register(Metrics.globalRegistry)
+            .increment();
+        return hash;
+    }
+
+    /**
+     * Replaces the content_body of a document about to be written with its
+     * content_hash, unless the body is short.
+     */
+    public Document externalize(Document document) {
+        final String hash = this.store(document.getString(CONTENT_BODY));
+        if (hash != null) {
+            document.remove(CONTENT_BODY);
+            document.append(CONTENT_HASH, hash);
+        }
+        return document;
+    }
+
+    /**
+     * Puts back the content_body of a document read from MongoDB.
+     * @param document - may be null.
+     * @throws IllegalStateException if the body isn't stored, the document is left as it was.
+     */
+    public JSONObject resolve(JSONObject document) {
+        if (document != null) {
+            this.resolveAll(List.of(document));
+        }
+        return document;
+    }
+
+    /**
+     * Puts back the content_body of documents read from MongoDB, reading the bodies
+     * that aren't cached in one query.
+     * @throws IllegalStateException if a body isn't stored, the documents are left as they were.
+     */
+    public List<JSONObject> resolveAll(List<JSONObject> documents) {
+        final Set<String> hashes = new LinkedHashSet<>();
+        for (JSONObject document : documents) {
+            if (needsResolving(document)) {
+                hashes.add(document.getString(CONTENT_HASH));
+            }
+        }
+        if (hashes.isEmpty()) {
+            return documents;
+        }
+
+        final Map<String, String> found = this.bodies.getAllOrLoad(hashes, this::load);
+        for (String hash : hashes) {
+            if (!found.containsKey(hash)) {
+                LOGGER.error("No content is stored with hash {}", hash);
+                throw new IllegalStateException("No content is stored with hash " + hash);
+            }
+        }
+        for (JSONObject document : documents) {
+            if (needsResolving(document)) {
+                document.put(CONTENT_BODY, found.get((String) document.remove(CONTENT_HASH)));
+            }
+        }
+        return documents;
+    }
+
+    /**
+     * Whether the document refers to its body by hash, resolving it may then read MongoDB.
+     */
+    public static boolean needsResolving(JSONObject document) {
+        return document.has(CONTENT_HASH) && !document.has(CONTENT_BODY);
+    }
+
+    /**
+     * @return whether the body was new, rather than stored by someone else already.
+     */
+    private boolean insert(String hash, String body) {
+        try {
+            final UpdateResult result = this.contentRepository.updateOne(eq("_id", hash),
+                                                                        Updates.setOnInsert(BODY, body),
+                                                                        new UpdateOptions().upsert(true));
+            return result.getUpsertedId() != null;
+        } catch (MongoWriteException ex) {
+            // Two upserts of the same new body raced, the other one inserted it
+            if (ex.getError().getCategory() == ErrorCategory.DUPLICATE_KEY) {
+                return false;
+            }
+            throw ex;
+        }
+    }
+
+    private Map<String, String> load(Set<String> hashes) {
+        final Map<String, String> found = new HashMap<>();
+        for (Document content : this.contentRepository.find(in("_id", hashes))) {
+            found.put(content.getString("_id"), content.getString(BODY));
+        }
+        DAOMetrics.documentsReturned(DAO_NAME, "load", found.size());
+        return found;
+    }
+
+    private static String hashOf(byte[] bytes) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(bytes));
+        } catch (NoSuchAlgorithmException ex) {
+            // Every JVM has it
+            throw new IllegalStateException(ex);
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package daos;
+
+import com.mongodb.MongoException;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Metrics;
+
+/**
+ * Counters recorded by the MongoDB DAOs. Timers for each DAO method are recorded
+ * by app.InstrumentationAspect, this class only covers what the aspect can't see
+ * from the outside: how many documents a query returned and how many errors were
+ * swallowed in a catch block. How many documents MongoDB examined to find them is
+ * only known to the server, see its profiler or explain.
+ * <p/>
+ * Meters are registered on the global registry so the DAOs keep working (as no-ops)
+ * when they are used from the Swing app without Spring.
+ */
+public final class DAOMetrics {
+    public static final String DOCUMENTS_RETURNED = "connecthub.dao.documents.returned";
+    public static final String SWALLOWED_ERRORS = "connecthub.dao.errors.swallowed";
+
+    private DAOMetrics() {}
+
+    /**
+     * Records the number of documents handed back to the caller.
+     * @param dao - the simple name of the DAO class.
+     * @param method - the DAO method that ran the query.
+     * @param count - the number of documents returned.
+     */
+    public static void documentsReturned(String dao, String method, int count) {
+        counter(DOCUMENTS_RETURNED, dao, method).increment(count);
+    }
+
+    /**
+     * Records an exception that was caught and not rethrown.
+     * @param dao - the simple name of the DAO class.
+     * @param method - the DAO method the error happened in.
+     * @param error - the swallowed exception.
+     */
+    public static void swallowedError(String dao, String method, MongoException error) {
+        Counter.builder(SWALLOWED_ERRORS)
+            .tag("dao", dao)
+            .tag("method", method)
+            .tag("exception", error.getClass().getSimpleName())
+            .register(Metrics.globalRegistry)
+            .increment();
+    }
+
+    private static Counter counter(String name, String dao, String method) {
+        return Counter.builder(name)
+            .tag("dao", dao)
+            .tag("method", method)
+            .register(Metrics.globalRegistry);
+    }
+}
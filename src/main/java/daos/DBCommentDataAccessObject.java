@@ -0,0 +1,54 @@
+package daos;
+
+import static com.mongodb.client.model.Filters.eq;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.bson.Document;
+import org.json.JSONObject;
+
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.Sorts;
+
+import use_case.post_page.PostPageDataAccessInterface;
+
+/**
+ * MongoDB implementation of the DAO for reading comment data.
+ */
+public class DBCommentDataAccessObject implements PostPageDataAccessInterface {
+    private final String POST_ID = "post_id";
+    private final String POSTED_DATE = "posted_date";
+
+    private static final String DAO_NAME = "DBCommentDataAccessObject";
+
+    private final MongoCollection<Document> commentRepository;
+    // Null if bodies are all kept inline
+    private final ContentStore contentStore;
+
+    public DBCommentDataAccessObject(MongoCollection<Document> commentRepository) {
+        this(commentRepository, null);
+    }
+
+    /**
+     * @param contentStore - where the long bodies of comments are stored once each, see ContentStore.
+     */
+    public DBCommentDataAccessObject(MongoCollection<Document> commentRepository, ContentStore contentStore) {
+        this.commentRepository = commentRepository;
+        this.contentStore = contentStore;
+    }
+
+    @Override
+    public List<JSONObject> getCommentsByPostID(String postID, int limit) {
+        List<JSONObject> comments = new ArrayList<>();
+
+        for (Document comment : this.commentRepository.find(eq(POST_ID, postID))
+                .sort(Sorts.ascending(POSTED_DATE))
+                .limit(limit)) {
+            comments.add(new JSONObject(comment.toJson()));
+        }
+
+        DAOMetrics.documentsReturned(DAO_NAME, "getCommentsByPostID", comments.size());
+        return this.contentStore == null ? comments : this.contentStore.resolveAll(comments);
+    }
+}
@@ -1,6 +1,7 @@
 package daos;
 
 import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Indexes;
 import entity.Post;
 import use_case.create_post.CreatePostDataAccessInterface;
 import use_case.delete_post.DeletePostDataAccessInterface;
@@ -10,23 +11,38 @@ import use_case.edit_post.EditPostDataAccessInterface;
 import org.bson.Document;
 import org.bson.conversions.Bson;
 import org.json.JSONObject;  
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import com.mongodb.MongoException;
 import com.mongodb.client.FindIterable;
 import com.mongodb.client.MongoCollection;
 import com.mongodb.client.MongoCursor;
+import com.mongodb.bulk.BulkWriteResult;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.Projections;
 import com.mongodb.client.model.Sorts;
+import com.mongodb.client.model.UpdateOneModel;
 import com.mongodb.client.model.UpdateOptions;
 import com.mongodb.client.model.Updates;
+import com.mongodb.client.model.WriteModel;
 import com.mongodb.client.result.InsertOneResult;
 import com.mongodb.client.result.UpdateResult;
 
 import static com.mongodb.client.model.Filters.eq;
 import static com.mongodb.client.model.Filters.lt;
 
+import java.io.IOException;
+import java.time.Duration;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
 
 /**
  * MongoDB implementation of the DAO for storing user data. 
@@ -38,6 +54,7 @@ public class DBPostDataAccessObject implements CreatePostDataAccessInterface,
     private final String ENTRY_ID = "post_id";
     private final String AUTHOR = "author";
     private final String CONTENT_BODY = "content_body";
+    private final String CONTENT_HASH = "content_hash";
     private final String ATTACHMENT_PATH = "attachment_path";
     private final String FILE_TYPE = "file_type";
     private final String POST_TITLE = "title";
@@ -47,13 +64,92 @@ public class DBPostDataAccessObject implements CreatePostDataAccessInterface,
     private final String LIKES = "likes";
     private final String DISLIKES = "dislikes";
     private final String COMMENTS = "comments";
+    // The order of the feed, newest first, posted at the same time by post id
+    private final Comparator<JSONObject> FEED_ORDER = Comparator
+        .comparing((JSONObject post) -> post.optString(POSTED_DATE))
+        .thenComparing(post -> post.optString(ENTRY_ID))
+        .reversed();
+
+    // Posts fetched per round trip while streaming
+    private final int STREAM_BATCH_SIZE = 100;
+
+    private static final String DAO_NAME = "DBPostDataAccessObject";
+    private static final Logger LOGGER = LoggerFactory.getLogger(DBPostDataAccessObject.class);
 
     private final DateTimeFormatter DATE_TIME_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
 
     private MongoCollection<Document> postRepository;
+    // Null if bodies are all kept inline
+    private final ContentStore contentStore;
+    private final List<PostWriteListener> writeListeners = new CopyOnWriteArrayList<>();
+    // Null unless posts are written behind
+    private PostWriteBehind writeBehind;
 
     public DBPostDataAccessObject(MongoCollection<Document> postRepository) {
+        this(postRepository, null);
+    }
+
+    /**
+     * @param contentStore - stores the long bodies of posts once each, see ContentStore.
+     */
+    public DBPostDataAccessObject(MongoCollection<Document> postRepository, ContentStore contentStore) {
         this.postRepository = postRepository;
+        this.contentStore = contentStore;
+    }
+
+    /**
+     * Creates the index the pages of the feed are read by, does nothing if it exists.
+     * Without it every page sorts the whole collection, so failing is only logged.
+     */
+    public void createIndexes() {
+        try {
+            this.postRepository.createIndex(Indexes.descending(POSTED_DATE, ENTRY_ID));
+        } catch (MongoException ex) {
+            LOGGER.warn("Could not create the index of the feed", ex);
+        }
+    }
+
+    /**
+     * Registers a listener to be told about every post this DAO writes.
+     * @param listener - the listener to add.
+     */
+    public void addWriteListener(PostWriteListener listener) {
+        this.writeListeners.add(listener);
+    }
+
+    /**
+     * Makes createPost return once the post is in the journal rather than in MongoDB.
+     * The post is written along with the others created around the same time, and
+     * the author's posts are updated then too. Until it is, the reads of this DAO
+     * serve it from memory.
+     * @param addToAuthors - adds the post ids to their authors' posts, keyed by author, throws a MongoException if it couldn't.
+     * @param flushInterval - how long a post waits for its batch at most while MongoDB is up.
+     * @param maxBatchSize - the most posts written in one bulk write.
+     */
+    public void enableWriteBehind(PostJournal journal,
+                                  Consumer<Map<String, List<String>>> addToAuthors,
+                                  Duration flushInterval,
+                                  int maxBatchSize) {
+        this.writeBehind = new PostWriteBehind(journal, posts -> this.writeBatch(posts, addToAuthors),
+                                               flushInterval, maxBatchSize);
+        this.writeBehind.start();
+    }
+
+    /**
+     * @return the posts that were created but aren't in MongoDB yet, oldest first.
+     */
+    public List<JSONObject> getPendingPosts() {
+        return this.writeBehind == null ? List.of() : this.writeBehind.getPending();
+    }
+
+    /**
+     * Writes the pending posts, if posts are written behind, and stops writing them
+     * in the background.
+     */
+    public void close() throws IOException {
+        if (this.writeBehind != null) {
+            this.writeBehind.close();
+        }
     }
 
     // TODO check if there's any other operations missing
@@ -64,12 +160,31 @@ public class DBPostDataAccessObject implements CreatePostDataAccessInterface,
 
     @Override
     public void createPost(Post post) {
-        this.insertPostToDB(post);
+        if (this.writeBehind != null) {
+            this.writeBehind.submit(new JSONObject(this.toDocument(post).toJson()));
+            this.notifyWritten(post.getEntryID());
+            return;
+        }
+
+        try {
+            this.insertPostToDB(post);
+        } finally {
+            this.notifyWritten(post.getEntryID());
+        }
+    }
+
+    @Override
+    public boolean addsPostToAuthor() {
+        return this.writeBehind != null;
     }
 
     @Override
     public JSONObject getPostByEntryID(String id) {
-        return new JSONObject(queryOnePostBy(ENTRY_ID, id).toJson());
+        final JSONObject pending = this.writeBehind == null ? null : this.writeBehind.getPending(id);
+        if (pending != null) {
+            return pending;
+        }
+        return this.resolve(new JSONObject(queryOnePostBy(ENTRY_ID, id).toJson()));
     }
 
     @Override
@@ -85,12 +200,14 @@ public class DBPostDataAccessObject implements CreatePostDataAccessInterface,
                 Document document = retrievedPosts.next();
                 JSONObject postJson = new JSONObject(document.toJson());
                 posts.add(postJson);
-
-                System.out.println("Category: " + postJson.getString("category"));
             }
         } finally {
             retrievedPosts.close();
         }
+
+        DAOMetrics.documentsReturned(DAO_NAME, "getPostsByCategory", posts.size());
+        this.resolveAll(posts);
+        this.addPending(posts, post -> category.equals(post.optString(CATEGORY)));
         return posts;
     }
 
@@ -109,6 +226,105 @@ public class DBPostDataAccessObject implements CreatePostDataAccessInterface,
             res.add(new JSONObject(post.toJson()));
         }
 
+        DAOMetrics.documentsReturned(DAO_NAME, "getAllPosts", res.size());
+        this.resolveAll(res);
+        this.addPending(res, post -> true);
+        return res;
+    }
+
+    @Override
+    public List<JSONObject> getPostsPage(String category, Post after, int limit) {
+        final String afterDate = after == null ? null : after.getPostedDate().toString();
+        final String afterID = after == null ? null : after.getEntryID();
+        final List<JSONObject> posts = this.queryPostsPage(category, afterDate, afterID, limit);
+
+        // Pending posts after the cursor may belong on this page, merge them in and cut
+        // the page to size again
+        final JSONObject cursor = new JSONObject().put(POSTED_DATE, afterDate).put(ENTRY_ID, afterID);
+        final int queried = posts.size();
+        this.addPending(posts, post -> (category == null || category.equals(post.optString(CATEGORY)))
+                && (after == null || FEED_ORDER.compare(post, cursor) > 0));
+        if (posts.size() == queried) {
+            return posts;
+        }
+        posts.sort(FEED_ORDER);
+        return new ArrayList<>(posts.subList(0, Math.min(limit, posts.size())));
+    }
+
+    /**
+     * Reads the posts that come after the cursor, newest first. The cursor is the
+     * (posted_date, post_id) of the last post shown, so posts created meanwhile
+     * don't shift the next page the way an offset would.
+     */
+    private List<JSONObject> queryPostsPage(String category, String afterDate, String afterID, int limit) {
+        List<JSONObject> posts = new ArrayList<>();
+
+        final List<Bson> filters = new ArrayList<>();
+        if (category != null) {
+            filters.add(eq(CATEGORY, category));
+        }
+        if (afterDate != null) {
+            filters.add(Filters.or(lt(POSTED_DATE, afterDate),
+                                   Filters.and(eq(POSTED_DATE, afterDate), lt(ENTRY_ID, afterID))));
+        }
+        Bson filter = filters.isEmpty() ? new Document() : Filters.and(filters);
+        FindIterable<Document> page = this.postRepository.find(filter)
+                .sort(Sorts.descending(POSTED_DATE, ENTRY_ID))
+                .limit(limit);
+        for (Document post : page) {
+            posts.add(new JSONObject(post.toJson()));
+        }
+
+        DAOMetrics.documentsReturned(DAO_NAME, "getPostsPage", posts.size());
+        return this.resolveAll(posts);
+    }
+
+    @Override
+    public void forEachPost(Consumer<JSONObject> action) {
+        int count = 0;
+        final Map<String, JSONObject> pending = this.pendingById();
+
+        try (MongoCursor<Document> posts = this.postRepository.find().batchSize(STREAM_BATCH_SIZE).iterator()) {
+            // Bodies stored by hash are read a batch at a time too
+            final List<JSONObject> batch = new ArrayList<>(STREAM_BATCH_SIZE);
+            while (posts.hasNext()) {
+                final JSONObject post = new JSONObject(posts.next().toJson());
+                pending.remove(post.optString(ENTRY_ID));
+                batch.add(post);
+                count++;
+                if (batch.size() == STREAM_BATCH_SIZE || !posts.hasNext()) {
+                    this.resolveAll(batch).forEach(action);
+                    batch.clear();
+                }
+            }
+        } finally {
+            DAOMetrics.documentsReturned(DAO_NAME, "forEachPost", count);
+        }
+        pending.values().forEach(action);
+    }
+
+    @Override
+    public List<JSONObject> getAllPostVersions() {
+        List<JSONObject> res = new ArrayList<>();
+
+        FindIterable<Document> versions = this.postRepository.find()
+                .projection(Projections.fields(
+                    Projections.include(ENTRY_ID, LAST_MODIFIED, POSTED_DATE),
+                    Projections.excludeId()));
+        for (Document version : versions) {
+            res.add(new JSONObject(version.toJson()));
+        }
+
+        DAOMetrics.documentsReturned(DAO_NAME, "getAllPostVersions", res.size());
+        // In the order forEachPost passes them, after the posts in MongoDB
+        final Map<String, JSONObject> pending = this.pendingById();
+        res.forEach(version -> pending.remove(version.optString(ENTRY_ID)));
+        for (JSONObject post : pending.values()) {
+            res.add(new JSONObject()
+                .put(ENTRY_ID, post.getString(ENTRY_ID))
+                .put(LAST_MODIFIED, post.getString(LAST_MODIFIED))
+                .put(POSTED_DATE, post.getString(POSTED_DATE)));
+        }
         return res;
     }
 
@@ -119,21 +335,25 @@ public class DBPostDataAccessObject implements CreatePostDataAccessInterface,
 
    @Override
     public void deletePost(String postID) {
+        this.flushIfPending(postID);
         Bson query = eq(ENTRY_ID, postID);
         
         try {
             this.postRepository.deleteOne(query);
         } catch (MongoException error) {
             // TODO throw some error, depending how the rest of the group implemts stuff.
+            DAOMetrics.swallowedError(DAO_NAME, "deletePost", error);
+        } finally {
+            this.notifyWritten(postID);
         }
     }
 
     @Override
     public void updatePost(Post updatedContent) {
+        this.flushIfPending(updatedContent.getEntryID());
         Document query = new Document().append(ENTRY_ID, updatedContent.getEntryID());
 
         Bson updates = Updates.combine(
-            Updates.set(CONTENT_BODY, updatedContent.getContent().getBody()),
             Updates.set(ATTACHMENT_PATH, updatedContent.getContent().getAttachmentPath()),
             Updates.set(FILE_TYPE, updatedContent.getContent().getFileType()),
             Updates.set(CATEGORY, updatedContent.getCategory()),
@@ -147,10 +367,103 @@ public class DBPostDataAccessObject implements CreatePostDataAccessInterface,
         UpdateOptions insertNewDoc = new UpdateOptions().upsert(true);
 
         try {
-            UpdateResult result = this.postRepository.updateOne(query, updates, insertNewDoc);
-            System.out.println("Upserted id: " + result.getUpsertedId());
+            // Storing the body by hash can fail like the update itself
+            Bson setBody = this.setBody(updatedContent.getContent().getBody());
+            UpdateResult result = this.postRepository.updateOne(query, Updates.combine(setBody, updates), insertNewDoc);
+            LOGGER.debug("Upserted id: {}", result.getUpsertedId());
         } catch (MongoException error) {
             // throw err?
+            DAOMetrics.swallowedError(DAO_NAME, "updatePost", error);
+        } finally {
+            this.notifyWritten(updatedContent.getEntryID());
+        }
+    }
+
+    /**
+     * Writes a batch of pending posts. Posts already in MongoDB are left as they are,
+     * so writing a batch again changes nothing.
+     */
+    private void writeBatch(List<JSONObject> posts, Consumer<Map<String, List<String>>> addToAuthors) {
+        final List<WriteModel<Document>> inserts = new ArrayList<>();
+        final Map<String, List<String>> postsByAuthor = new LinkedHashMap<>();
+        for (JSONObject post : posts) {
+            final String postID = post.getString(ENTRY_ID);
+            inserts.add(new UpdateOneModel<>(eq(ENTRY_ID, postID),
+                                             new Document("$setOnInsert",
+                                                          this.externalize(Document.parse(post.toString()))),
+                                             new UpdateOptions().upsert(true)));
+            postsByAuthor.computeIfAbsent(post.getString(AUTHOR), author -> new ArrayList<>()).add(postID);
+        }
+
+        final BulkWriteResult result = this.postRepository.bulkWrite(inserts, new BulkWriteOptions().ordered(false));
+        LOGGER.debug("Wrote {} pending posts, {} were new", posts.size(), result.getUpserts().size());
+        addToAuthors.accept(postsByAuthor);
+        for (JSONObject post : posts) {
+            this.notifyWritten(post.getString(ENTRY_ID));
+        }
+    }
+
+    // A write to a pending post mustn't reach MongoDB before the post does
+    private void flushIfPending(String postID) {
+        if (this.writeBehind == null || this.writeBehind.getPending(postID) == null) {
+            return;
+        }
+        try {
+            this.writeBehind.flush();
+        } catch (RuntimeException ex) {
+            // The write below fails the same way, it would have without write behind too
+            LOGGER.warn("Could not write post {} before changing it", postID, ex);
+        }
+    }
+
+    /**
+     * Adds the pending posts that match the filter and aren't in the list already.
+     */
+    private void addPending(List<JSONObject> posts, Predicate<JSONObject> filter) {
+        final Map<String, JSONObject> pending = this.pendingById();
+        if (pending.isEmpty()) {
+            return;
+        }
+        posts.forEach(post -> pending.remove(post.optString(ENTRY_ID)));
+        for (JSONObject post : pending.values()) {
+            if (filter.test(post)) {
+                posts.add(post);
+            }
+        }
+    }
+
+    private Map<String, JSONObject> pendingById() {
+        final Map<String, JSONObject> pending = new LinkedHashMap<>();
+        for (JSONObject post : this.getPendingPosts()) {
+            pending.put(post.getString(ENTRY_ID), post);
+        }
+        return pending;
+    }
+
+    private Bson setBody(String body) {
+        final String contentHash = this.contentStore == null ? null : this.contentStore.store(body);
+        if (contentHash == null) {
+            return Updates.combine(Updates.set(CONTENT_BODY, body), Updates.unset(CONTENT_HASH));
+        }
+        return Updates.combine(Updates.set(CONTENT_HASH, contentHash), Updates.unset(CONTENT_BODY));
+    }
+
+    // Pending posts keep their body inline, it is stored by hash once they are written
+    private Document externalize(Document post) {
+        return this.contentStore == null ? post : this.contentStore.externalize(post);
+    }
+
+    private JSONObject resolve(JSONObject post) {
+        return this.contentStore == null ? post : this.contentStore.resolve(post);
+    }
+
+    private List<JSONObject> resolveAll(List<JSONObject> posts) {
+        return this.contentStore == null ? posts : this.contentStore.resolveAll(posts);
+    }
+
+    private void notifyWritten(String postID) {
+        for (PostWriteListener listener : this.writeListeners) {
+            listener.postWritten(postID);
         }
     }
 
@@ -161,29 +474,35 @@ public class DBPostDataAccessObject implements CreatePostDataAccessInterface,
      */
     private void insertPostToDB(Post post) {
         try {
-            
-            Document data = (new Document()
-                .append(ENTRY_ID, post.getEntryID())
-                .append(AUTHOR, post.getAuthor())
-                .append(CONTENT_BODY, post.getContent().getBody())
-                .append(ATTACHMENT_PATH, post.getContent().getAttachmentPath())
-                .append(FILE_TYPE, post.getContent().getFileType())
-                .append(POST_TITLE, post.getPostTitle())
-                .append(CATEGORY, post.getCategory())
-                .append(POSTED_DATE, post.getPostedDate().toString())
-                .append(LAST_MODIFIED, post.getLastModifiedDate().toString())
-                .append(LIKES, post.getLikes())
-                .append(DISLIKES, post.getDislikes())
-                .append(COMMENTS, post.getComments()) // TODO figure out type conversions if neccessary
-            );
+            Document data = this.externalize(this.toDocument(post));
 
             InsertOneResult result = this.postRepository.insertOne(data);
-            System.out.println("Successfully inserted post with insert id: " + result.getInsertedId());
+            LOGGER.debug("Successfully inserted post with insert id: {}", result.getInsertedId());
         } catch (MongoException err) {
             // TODO throws custom exceptions when they're created
+            DAOMetrics.swallowedError(DAO_NAME, "createPost", err);
         }
     }
 
+    /**
+     * @return the document a post is stored as.
+     */
+    private Document toDocument(Post post) {
+        return new Document()
+            .append(ENTRY_ID, post.getEntryID())
+            .append(AUTHOR, post.getAuthor())
+            .append(CONTENT_BODY, post.getContent().getBody())
+            .append(ATTACHMENT_PATH, post.getContent().getAttachmentPath())
+            .append(FILE_TYPE, post.getContent().getFileType())
+            .append(POST_TITLE, post.getPostTitle())
+            .append(CATEGORY, post.getCategory())
+            .append(POSTED_DATE, post.getPostedDate().toString())
+            .append(LAST_MODIFIED, post.getLastModifiedDate().toString())
+            .append(LIKES, post.getLikes())
+            .append(DISLIKES, post.getDislikes())
+            .append(COMMENTS, post.getComments()); // TODO figure out type conversions if neccessary
+    }
+
     /**
      * Queries a specific post from the database.
      * @param field - the column to to match.
@@ -194,6 +513,8 @@ public class DBPostDataAccessObject implements CreatePostDataAccessInterface,
             .find(eq(field, target))
             .first();
 
+        int found = doc == null ? 0 : 1;
+        DAOMetrics.documentsReturned(DAO_NAME, "queryOnePostBy", found);
         return doc;
     }
 
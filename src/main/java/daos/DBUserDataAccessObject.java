@@ -1,5 +1,13 @@
 package daos;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
 import entity.User;
 import use_case.signup.SignupDataAccessInterface;
 import use_case.get_user.GetUserDataAccessInterface;
@@ -9,14 +17,21 @@ import use_case.logout.LogoutDataAccessInterface;
 import org.bson.Document;
 import org.bson.conversions.Bson;
 import org.json.JSONObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import com.mongodb.MongoException;
 import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.Projections;
+import com.mongodb.client.model.UpdateOneModel;
 import com.mongodb.client.model.UpdateOptions;
 import com.mongodb.client.model.Updates;
+import com.mongodb.client.model.WriteModel;
 import com.mongodb.client.result.InsertOneResult;
 
 import static com.mongodb.client.model.Filters.eq;
+import static com.mongodb.client.model.Filters.in;
 
 /**
  * MongoDB implementation of the DAO for storing user data.
@@ -24,7 +39,8 @@ import static com.mongodb.client.model.Filters.eq;
 public class DBUserDataAccessObject implements SignupDataAccessInterface,
                                                LoginDataAccessInterface,
                                                LogoutDataAccessInterface,
-                                               GetUserDataAccessInterface {
+                                               GetUserDataAccessInterface,
+                                               UserWriteListener {
     private final String USER_ID = "userId";
     private final String USER_NAME = "username";
     private final String PASSWORD = "password";
@@ -33,9 +49,22 @@ public class DBUserDataAccessObject implements SignupDataAccessInterface,
     private final String FULL_NAME = "full_name";
     private final String MODERATING = "moderating";
     private final String POSTS = "posts";
+    private final String POST_COUNT = "post_count";
+
+    // Profiles barely change, unknown ids are forgotten sooner so a new user shows up quickly
+    private final int PROFILE_CACHE_SIZE = 10000;
+    private final Duration PROFILE_TTL = Duration.ofMinutes(5);
+    private final Duration UNKNOWN_ID_TTL = Duration.ofSeconds(30);
+
+    private static final String DAO_NAME = "DBUserDataAccessObject";
+    private static final Logger LOGGER = LoggerFactory.getLogger(DBUserDataAccessObject.class);
 
     private MongoCollection<Document> userRepository;
     private User currentUser;
+    // The public fields of users as json by userId, unknown ids are kept as absent.
+    // Kept as text, so a caller can't change the profile every later reader gets
+    private final ExpiringCache<String, String> profiles =
+        new ExpiringCache<>(PROFILE_CACHE_SIZE, PROFILE_TTL, UNKNOWN_ID_TTL);
 
     public DBUserDataAccessObject(MongoCollection<Document> userRepository) {
         this.userRepository = userRepository;
@@ -43,12 +72,38 @@ public class DBUserDataAccessObject implements SignupDataAccessInterface,
 
     @Override
     public void save(User user) {
-        this.insertUserToDB(user);
+        try {
+            this.insertUserToDB(user);
+        } finally {
+            this.profiles.invalidate(user.getUserID());
+        }
     }
 
     @Override
     public boolean existsByID(String userID) {
-        return this.queryOneUserBy(USER_ID, userID) != null;
+        return this.getUserProfileById(userID) != null;
+    }
+
+    /**
+     * The profile comes from the cache if it is there.
+     */
+    @Override
+    public JSONObject getUserProfileById(String userID) {
+        final String profile = this.profiles.getOrLoad(userID, this::queryProfile);
+        return profile == null ? null : new JSONObject(profile);
+    }
+
+    /**
+     * Forgets the cached profile of a user written by another process.
+     */
+    @Override
+    public void userWritten(String userID) {
+        this.profiles.invalidate(userID);
+    }
+
+    @Override
+    public void usersWritten() {
+        this.profiles.invalidateAll();
     }
 
     @Override
@@ -77,6 +132,17 @@ public class DBUserDataAccessObject implements SignupDataAccessInterface,
         return new JSONObject(this.queryOneUserBy(EMAIL, email).toJson());
     }
 
+    /**
+     * The profiles come from the cache, only the ids it doesn't know are queried.
+     */
+    @Override
+    public List<JSONObject> getUsersByIds(Collection<String> userIDs) {
+        final List<JSONObject> res = new ArrayList<>();
+        this.profiles.getAllOrLoad(userIDs, this::queryProfiles).values()
+            .forEach(profile -> res.add(new JSONObject(profile)));
+        return res;
+    }
+
     @Override
     public User getCurrentUser() {
         return this.currentUser;
@@ -115,6 +181,30 @@ public class DBUserDataAccessObject implements SignupDataAccessInterface,
             this.userRepository.updateOne(query, updates, insertNewDoc);
         } catch (MongoException error) {
             // throw err?
+            DAOMetrics.swallowedError(DAO_NAME, "updateUserPosts", error);
+        } finally {
+            this.profiles.invalidate(updatedContent.getUserID());
+        }
+    }
+
+    /**
+     * Adds posts to their authors' posts, leaving out the ones they have already.
+     * Unlike the other writes it throws, so posts written behind can be retried.
+     * @param postIDsByAuthor - the ids of the new posts, keyed by the user id of their author.
+     * @throws MongoException if the users couldn't be updated.
+     */
+    public void addPostsToAuthors(Map<String, List<String>> postIDsByAuthor) {
+        if (postIDsByAuthor.isEmpty()) {
+            return;
+        }
+
+        final List<WriteModel<Document>> updates = new ArrayList<>();
+        postIDsByAuthor.forEach((userID, postIDs) ->
+            updates.add(new UpdateOneModel<>(eq(USER_ID, userID), Updates.addEachToSet(POSTS, postIDs))));
+        try {
+            this.userRepository.bulkWrite(updates, new BulkWriteOptions().ordered(false));
+        } finally {
+            postIDsByAuthor.keySet().forEach(this.profiles::invalidate);
         }
     }
 
@@ -135,9 +225,10 @@ public class DBUserDataAccessObject implements SignupDataAccessInterface,
                 .append(POSTS, user.getPosts());
 
             InsertOneResult result = this.userRepository.insertOne(data);
-            System.out.println("Successfully inserted user with insert id: " + result.getInsertedId());
+            LOGGER.debug("Successfully inserted user with insert id: {}", result.getInsertedId());
         } catch (MongoException err) {
             // TODO throws custom exceptions when they're created
+            DAOMetrics.swallowedError(DAO_NAME, "save", err);
         }
     }
 
@@ -151,6 +242,46 @@ public class DBUserDataAccessObject implements SignupDataAccessInterface,
             .find(eq(field, target))
             .first();
 
+        int found = doc == null ? 0 : 1;
+        DAOMetrics.documentsReturned(DAO_NAME, "queryOneUserBy", found);
         return doc;
     }
+
+    /**
+     * Reads the public fields of a user.
+     * @return the fields as json, or null if there is no user with the id.
+     */
+    private String queryProfile(String userID) {
+        final Document profile = this.userRepository.find(eq(USER_ID, userID))
+            .projection(this.profileFields())
+            .first();
+
+        int found = profile == null ? 0 : 1;
+        DAOMetrics.documentsReturned(DAO_NAME, "queryProfile", found);
+        return profile == null ? null : profile.toJson();
+    }
+
+    /**
+     * Reads the public fields of many users with a single $in query.
+     * @return the fields of each user found by userId.
+     */
+    private Map<String, String> queryProfiles(Set<String> userIDs) {
+        final Map<String, String> res = new HashMap<>();
+        this.userRepository.find(in(USER_ID, userIDs))
+            .projection(this.profileFields())
+            .forEach(profile -> res.put(profile.getString(USER_ID), profile.toJson()));
+
+        DAOMetrics.documentsReturned(DAO_NAME, "queryProfiles", res.size());
+        return res;
+    }
+
+    // Only the fields of a public profile are read. The posts are counted by the
+    // server instead of sending their ids, so a profile's size doesn't grow with them
+    private Bson profileFields() {
+        return Projections.fields(
+            Projections.include(USER_ID, USER_NAME, FULL_NAME),
+            Projections.computed(POST_COUNT,
+                new Document("$size", new Document("$ifNull", List.of("$" + POSTS, List.of())))),
+            Projections.excludeId());
+    }
 }
@@ -0,0 +1,154 @@
+package daos;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * A bounded cache in front of database lookups whose entries expire after a while.
+ * <p/>
+ * A key the loader found nothing for is remembered as absent, for a shorter time
+ * than values are kept, so asking for unknown keys over and over doesn't reach the
+ * database each time. The least recently used entries are dropped once maxEntries
+ * are kept.
+ * <p/>
+ * The cache can't see writes made by other processes by itself, the time to live
+ * bounds how long it serves what they changed unless its owner is told about them,
+ * e.g. by an InvalidationBus. Writes made through the owner of the cache are seen
+ * right away by invalidating the keys they touch.
+ */
+public class ExpiringCache<K, V> {
+    private final long ttlNanos;
+    private final long absentTtlNanos;
+    private final Map<K, Entry<V>> entries;
+    // Loads that started before an invalidation mustn't put what they read afterwards
+    private final AtomicLong invalidations = new AtomicLong();
+
+    /**
+     * @param maxEntries - the most keys kept at once, absent ones included.
+     * @param ttl - how long a loaded value is served.
+     * @param absentTtl - how long a key is known to be absent.
+     */
+    public ExpiringCache(int maxEntries, Duration ttl, Duration absentTtl) {
+        this.ttlNanos = ttl.toNanos();
+        this.absentTtlNanos = absentTtl.toNanos();
+        this.entries = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest) {
+                return size() > maxEntries;
+            }
+        });
+    }
+
+    /**
+     * @param loader - reads the value from the database, returns null if there is none.
+     * @return the value of the key, or null if it is absent.
+     */
+    public V getOrLoad(K key, Function<K, V> loader) {
+        final Entry<V> entry = this.entries.get(key);
+        if (entry != null && !entry.isExpired(System.nanoTime())) {
+            return entry.value;
+        }
+
+        final long invalidationCount = this.invalidations.get();
+        final V value = loader.apply(key);
+        this.put(key, value, invalidationCount);
+        return value;
+    }
+
+    /**
+     * @return the cached value of the key, or null if it isn't cached, has expired or is absent.
+     */
+    public V getIfPresent(K key) {
+        final Entry<V> entry = this.entries.get(key);
+        return entry == null || entry.isExpired(System.nanoTime()) ? null : entry.value;
+    }
+
+    /**
+     * Caches a value that wasn't loaded through the cache, e.g. one its owner just found out.
+     * @param value - null to remember the key as absent.
+     */
+    public void put(K key, V value) {
+        this.put(key, value, this.invalidations.get());
+    }
+
+    /**
+     * Loads the keys that aren't cached all at once.
+     * @param loader - reads the values of the keys it is given in one go, leaving out the keys that have none.
+     * @return the value of each key that isn't absent.
+     */
+    public Map<K, V> getAllOrLoad(Collection<K> keys, Function<Set<K>, Map<K, V>> loader) {
+        final Map<K, V> values = new HashMap<>();
+        final Set<K> missing = new LinkedHashSet<>();
+        final long now = System.nanoTime();
+        for (K key : keys) {
+            final Entry<V> entry = this.entries.get(key);
+            if (entry == null || entry.isExpired(now)) {
+                missing.add(key);
+            } else if (entry.value != null) {
+                values.put(key, entry.value);
+            }
+        }
+        if (missing.isEmpty()) {
+            return values;
+        }
+
+        final long invalidationCount = this.invalidations.get();
+        final Map<K, V> loaded = loader.apply(missing);
+        for (K key : missing) {
+            final V value = loaded.get(key);
+            this.put(key, value, invalidationCount);
+            if (value != null) {
+                values.put(key, value);
+            }
+        }
+        return values;
+    }
+
+    /**
+     * Forgets the key, so its next lookup reads the database.
+     */
+    public void invalidate(K key) {
+        this.invalidations.incrementAndGet();
+        this.entries.remove(key);
+    }
+
+    /**
+     * Forgets every key.
+     */
+    public void invalidateAll() {
+        this.invalidations.incrementAndGet();
+        this.entries.clear();
+    }
+
+    private void put(K key, V value, long invalidationCount) {
+        final long expiresAt = System.nanoTime() + (value == null ? this.absentTtlNanos : this.ttlNanos);
+        final Entry<V> entry = new Entry<>(value, expiresAt);
+        this.entries.put(key, entry);
+        // An invalidation that landed while this was being put must not leave it behind
+        if (invalidationCount != this.invalidations.get()) {
+            this.entries.remove(key, entry);
+        }
+    }
+
+    private static final class Entry<V> {
+        private final V value;
+        private final long expiresAt;
+
+        private Entry(V value, long expiresAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+
+        private boolean isExpired(long now) {
+            return now - this.expiresAt >= 0;
+        }
+    }
+}
@@ -0,0 +1,415 @@
+package daos;
+
+import java.io.Closeable;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import org.bson.BsonDocument;
+import org.bson.BsonValue;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.mongodb.MongoCommandException;
+import com.mongodb.MongoException;
+import com.mongodb.client.ChangeStreamIterable;
+import com.mongodb.client.MongoChangeStreamCursor;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.Aggregates;
+import com.mongodb.client.model.Indexes;
+import com.mongodb.client.model.Projections;
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import com.mongodb.client.model.changestream.FullDocument;
+import com.mongodb.client.model.changestream.FullDocumentBeforeChange;
+import com.mongodb.client.model.changestream.OperationType;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Metrics;
+
+import static com.mongodb.client.model.Filters.gt;
+import static com.mongodb.client.model.Filters.or;
+
+/**
+ * Tells the caches of this process about every write to the Posts and Users
+ * collections, whichever process made it, so several instances of the server can
+ * run behind a load balancer without serving each other's stale posts and profiles.
+ * <p/>
+ * Each collection is tailed with a MongoDB change stream, resumed where it stopped
+ * after a connection error. Change streams need a replica set. Against a standalone
+ * server, e.g. a local stand-in, posts are polled for a recent last_modified
+ * instead, and the user caches are left to their time to live since users have no
+ * such field.
+ * <p/>
+ * A delete only carries the _id of the document. It is mapped to the id the
+ * listeners know by the document as it was before, if the collection keeps
+ * pre-images (changeStreamPreAndPostImages, MongoDB 6.0), or else by the changes
+ * to it this bus saw earlier. A delete of a document neither tells about
+ * invalidates every post or user.
+ * <p/>
+ * Writes this process made are seen again, invalidating twice is harmless.
+ */
+public class InvalidationBus implements Closeable {
+    public static final String EVENTS_COUNTER = "connecthub.invalidation.events";
+
+    private static final String POST_ID = "post_id";
+    private static final String USER_ID = "userId";
+    private static final String LAST_MODIFIED = "last_modified";
+    private static final String POSTED_DATE = "posted_date";
+    // What a standalone server answers a change stream with
+    private static final int CHANGE_STREAMS_UNSUPPORTED = 40573;
+    // What a server older than 6.0 answers asking for pre-images with
+    private static final int UNKNOWN_FIELD = 40415;
+    // How many _ids of documents seen changing are remembered, for the deletes of them
+    private static final int MAX_KNOWN_IDS = 10_000;
+    // How far behind the newest last_modified seen polling looks, for clocks of other instances running late
+    private static final Duration POLL_LOOKBACK = Duration.ofSeconds(10);
+    private static final Duration MAX_RETRY_DELAY = Duration.ofSeconds(30);
+    private static final Logger LOGGER = LoggerFactory.getLogger(InvalidationBus.class);
+
+    private final MongoCollection<Document> postRepository;
+    private final MongoCollection<Document> userRepository;
+    private final Duration pollInterval;
+    private final List<PostWriteListener> postListeners = new CopyOnWriteArrayList<>();
+    private final List<UserWriteListener> userListeners = new CopyOnWriteArrayList<>();
+    private final List<Thread> watchers = new ArrayList<>();
+    private volatile boolean closed;
+
+    /**
+     * @param pollInterval - how often posts are polled without change streams, and how
+     *                     long a change stream waits for events before checking it was closed.
+     */
+    public InvalidationBus(MongoCollection<Document> postRepository,
+                           MongoCollection<Document> userRepository,
+                           Duration pollInterval) {
+        this.postRepository = postRepository;
+        this.userRepository = userRepository;
+        this.pollInterval = pollInterval;
+    }
+
+    public void addPostListener(PostWriteListener listener) {
+        this.postListeners.add(listener);
+    }
+
+    public void addUserListener(UserWriteListener listener) {
+        this.userListeners.add(listener);
+    }
+
+    /**
+     * Starts watching both collections in the background.
+     */
+    public void start() {
+        this.startWatcher("post-invalidation", () -> this.watch(
+            "posts", this.postRepository, POST_ID, this::postWritten, this::postsWritten, this::pollPosts));
+        this.startWatcher("user-invalidation", () -> this.watch(
+            "users", this.userRepository, USER_ID, this::userWritten, this::usersWritten, null));
+    }
+
+    @Override
+    public void close() {
+        this.closed = true;
+        for (Thread watcher : this.watchers) {
+            watcher.interrupt();
+        }
+        for (Thread watcher : this.watchers) {
+            try {
+                watcher.join(this.pollInterval.multipliedBy(2).toMillis());
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private void startWatcher(String name, Runnable watch) {
+        final Thread watcher = new Thread(watch, name);
+        watcher.setDaemon(true);
+        this.watchers.add(watcher);
+        watcher.start();
+    }
+
+    /**
+     * Tails the collection until closed, falling back to poll if change streams aren't supported.
+     * @param idField - the field the listeners know documents by.
+     * @param poll - polls the collection until closed, null if it can't be polled.
+     */
+    private void watch(String collectionName, MongoCollection<Document> collection, String idField,
+                       Consumer<String> written, Runnable allWritten, Runnable poll) {
+        BsonDocument resumeToken = null;
+        long retryDelayNanos = 0;
+        boolean preImages = true;
+        final Map<BsonValue, String> knownIds = knownIds();
+        while (!this.closed) {
+            try (MongoChangeStreamCursor<ChangeStreamDocument<Document>> cursor =
+                     this.openStream(collection, idField, resumeToken, preImages)) {
+                if (retryDelayNanos > 0) {
+                    LOGGER.info("Watching {} again", collectionName);
+                    retryDelayNanos = 0;
+                }
+                while (!this.closed) {
+                    // Waits up to the poll interval for a change
+                    final ChangeStreamDocument<Document> change = cursor.tryNext();
+                    resumeToken = cursor.getResumeToken();
+                    if (change == null) {
+                        continue;
+                    }
+                    final String id = idOf(change, idField, knownIds);
+                    if (id != null) {
+                        written.accept(id);
+                    } else {
+                        allWritten.run();
+                    }
+                    this.countEvent(collectionName, "change-stream");
+                    if (change.getOperationType() == OperationType.INVALIDATE) {
+                        // The collection was dropped or renamed, the stream can't go on from there
+                        resumeToken = null;
+                        break;
+                    }
+                }
+            } catch (MongoCommandException ex) {
+                if (ex.getErrorCode() == CHANGE_STREAMS_UNSUPPORTED) {
+                    this.fallBack(collectionName, poll);
+                    return;
+                }
+                if (ex.getErrorCode() == UNKNOWN_FIELD && preImages) {
+                    LOGGER.info("MongoDB doesn't keep pre-images, deletes of {} are mapped by earlier changes",
+                                collectionName);
+                    preImages = false;
+                    continue;
+                }
+                if (resumeToken != null) {
+                    // The stream couldn't be resumed, e.g. the oplog moved past it, so changes were missed
+                    LOGGER.warn("Could not resume watching {}, invalidating all of them", collectionName, ex);
+                    resumeToken = null;
+                    allWritten.run();
+                }
+                retryDelayNanos = this.pauseAfterFailure(collectionName, retryDelayNanos, ex);
+            } catch (MongoException ex) {
+                retryDelayNanos = this.pauseAfterFailure(collectionName, retryDelayNanos, ex);
+            }
+        }
+    }
+
+    /**
+     * @param preImages - whether to ask for the document as it was before a delete.
+     */
+    private MongoChangeStreamCursor<ChangeStreamDocument<Document>> openStream(MongoCollection<Document> collection,
+                                                                               String idField,
+                                                                               BsonDocument resumeToken,
+                                                                               boolean preImages) {
+        // Only the id of the changed document is needed, not the document itself
+        ChangeStreamIterable<Document> stream = collection
+            .watch(List.of(Aggregates.project(Projections.include(
+                "operationType", "documentKey", "fullDocument." + idField, "fullDocumentBeforeChange." + idField))))
+            .fullDocument(FullDocument.UPDATE_LOOKUP)
+            .maxAwaitTime(this.pollInterval.toMillis(), TimeUnit.MILLISECONDS);
+        if (preImages) {
+            stream = stream.fullDocumentBeforeChange(FullDocumentBeforeChange.WHEN_AVAILABLE);
+        }
+        if (resumeToken != null) {
+            stream = stream.resumeAfter(resumeToken);
+        }
+        return stream.cursor();
+    }
+
+    /**
+     * @return a map from the _id of a document to the id the listeners know it by,
+     *         forgetting the documents that changed longest ago.
+     */
+    static Map<BsonValue, String> knownIds() {
+        return new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<BsonValue, String> eldest) {
+                return size() > MAX_KNOWN_IDS;
+            }
+        };
+    }
+
+    /**
+     * Finds which document a change was to.
+     * @param idField - the field the listeners know documents by.
+     * @param knownIds - the ids of documents seen changing, see knownIds.
+     * @return null if it isn't known, e.g. the collection was dropped.
+     */
+    static String idOf(ChangeStreamDocument<Document> change, String idField, Map<BsonValue, String> knownIds) {
+        final BsonDocument documentKey = change.getDocumentKey();
+        final BsonValue key = documentKey == null ? null : documentKey.get("_id");
+        final Document document = change.getFullDocument() != null
+            ? change.getFullDocument()
+            : change.getFullDocumentBeforeChange();
+        String id = document == null ? null : document.getString(idField);
+        if (key == null) {
+            return id;
+        }
+        if (change.getOperationType() == OperationType.DELETE) {
+            final String known = knownIds.remove(key);
+            return id != null ? id : known;
+        }
+        if (id != null) {
+            knownIds.put(key, id);
+        } else {
+            // Deleted since, the lookup found nothing
+            id = knownIds.get(key);
+        }
+        return id;
+    }
+
+    private void fallBack(String collectionName, Runnable poll) {
+        if (poll == null) {
+            LOGGER.info("MongoDB doesn't support change streams, cached {} expire on their own", collectionName);
+            return;
+        }
+        LOGGER.info("MongoDB doesn't support change streams, polling {} every {}ms",
+                    collectionName, this.pollInterval.toMillis());
+        poll.run();
+    }
+
+    /**
+     * Looks for posts with a last_modified newer than the last one seen. Deletes leave
+     * nothing to find, they are noticed by the collection's count not adding up.
+     */
+    private void pollPosts() {
+        try {
+            // Without it every poll scans the whole collection
+            this.postRepository.createIndex(Indexes.descending(LAST_MODIFIED));
+        } catch (MongoException ex) {
+            LOGGER.warn("Could not create the index posts are polled by", ex);
+        }
+        LocalDateTime newest = LocalDateTime.now();
+        // The versions found by the last poll, which the next one finds again
+        Set<String> seen = new HashSet<>();
+        long count = -1;
+        long retryDelayNanos = 0;
+        while (this.pause(this.pollInterval.toNanos())) {
+            try {
+                final long total = this.postRepository.estimatedDocumentCount();
+                final LocalDateTime since = newest.minus(POLL_LOOKBACK);
+                final Set<String> found = new HashSet<>();
+                int created = 0;
+                // last_modified is a string when a post is created and a date once it was updated
+                for (Document post : this.postRepository
+                        .find(or(gt(LAST_MODIFIED, since.toString()), gt(LAST_MODIFIED, since)))
+                        .projection(Projections.include(POST_ID, LAST_MODIFIED, POSTED_DATE))) {
+                    final LocalDateTime modified = toDateTime(post.get(LAST_MODIFIED));
+                    final String postID = post.getString(POST_ID);
+                    if (modified == null || postID == null) {
+                        continue;
+                    }
+                    final String version = postID + "@" + modified;
+                    found.add(version);
+                    if (seen.contains(version)) {
+                        continue;
+                    }
+                    if (modified.isAfter(newest)) {
+                        newest = modified;
+                    }
+                    if (modified.equals(toDateTime(post.get(POSTED_DATE)))) {
+                        created++;
+                    }
+                    this.postWritten(postID);
+                    this.countEvent("posts", "poll");
+                }
+                seen = found;
+                if (count >= 0 && total != count + created) {
+                    this.postsWritten();
+                    this.countEvent("posts", "poll");
+                }
+                count = total;
+                if (retryDelayNanos > 0) {
+                    LOGGER.info("Polling posts again");
+                    retryDelayNanos = 0;
+                }
+            } catch (MongoException ex) {
+                retryDelayNanos = this.pauseAfterFailure("posts", retryDelayNanos, ex);
+            }
+        }
+    }
+
+    /**
+     * Waits twice as long after each failure in a row, only the first one is logged.
+     * @return the delay to wait after the next failure.
+     */
+    private long pauseAfterFailure(String collectionName, long retryDelayNanos, MongoException ex) {
+        if (this.closed) {
+            return retryDelayNanos;
+        }
+        if (retryDelayNanos == 0) {
+            LOGGER.warn("Could not watch {} for writes, retrying", collectionName, ex);
+        }
+        final long delay = retryDelayNanos == 0
+            ? this.pollInterval.toNanos()
+            : Math.min(retryDelayNanos * 2, MAX_RETRY_DELAY.toNanos());
+        this.pause(delay);
+        return delay;
+    }
+
+    /**
+     * @return false if the bus was closed in the meantime.
+     */
+    private boolean pause(long nanos) {
+        try {
+            TimeUnit.NANOSECONDS.sleep(nanos);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        return !this.closed;
+    }
+
+    private static LocalDateTime toDateTime(Object value) {
+        if (value instanceof String text) {
+            try {
+                return LocalDateTime.parse(text);
+            } catch (DateTimeParseException ex) {
+                return null;
+            }
+        }
+        if (value instanceof Date date) {
+            // The driver stores a LocalDateTime as if it were UTC
+            return LocalDateTime.ofInstant(date.toInstant(), ZoneOffset.UTC);
+        }
+        return null;
+    }
+
+    private void postWritten(String postID) {
+        for (PostWriteListener listener : this.postListeners) {
+            listener.postWritten(postID);
+        }
+    }
+
+    private void postsWritten() {
+        for (PostWriteListener listener : this.postListeners) {
+            listener.postsWritten();
+        }
+    }
+
+    private void userWritten(String userID) {
+        for (UserWriteListener listener : this.userListeners) {
+            listener.userWritten(userID);
+        }
+    }
+
+    private void usersWritten() {
+        for (UserWriteListener listener : this.userListeners) {
+            listener.usersWritten();
+        }
+    }
+
+    private void countEvent(String collectionName, String source) {
+        Counter.builder(EVENTS_COUNTER)
+            .tag("collection", collectionName)
+            .tag("source", source)
+            .register(Metrics.globalRegistry)
+            .increment();
+    }
+}
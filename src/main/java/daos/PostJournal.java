@@ -0,0 +1,246 @@
+package daos;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * An append only file of the posts that were accepted but may not be in MongoDB
+ * yet, one json document per line.
+ * <p/>
+ * The journal is split in segments. Posts are appended to the open segment, which
+ * is sealed once its posts are about to be written to MongoDB and deleted once they
+ * were. Whatever segments are left when the journal is opened again hold posts that
+ * may never have been written.
+ * <p/>
+ * An append returns once the post is on disk. Appends that wait for the disk at the
+ * same time share one fsync.
+ * <p/>
+ * The writes and fsyncs are guarded by locks rather than monitors, a virtual thread
+ * waiting for the disk inside a monitor would pin its carrier thread.
+ */
+public class PostJournal implements Closeable {
+    private static final String SEGMENT_PREFIX = "posts-";
+    private static final String SEGMENT_SUFFIX = ".journal";
+    private static final Logger LOGGER = LoggerFactory.getLogger(PostJournal.class);
+
+    private final Path directory;
+    private final List<Segment> recovered;
+    // Guards the open segment and the writes to it
+    private final ReentrantLock appendLock = new ReentrantLock();
+    private Segment open;
+
+    private PostJournal(Path directory, List<Segment> recovered, long nextSequence) throws IOException {
+        this.directory = directory;
+        this.recovered = recovered;
+        this.open = this.createSegment(nextSequence);
+    }
+
+    /**
+     * Opens the journal in the directory, creating it if needed.
+     */
+    public static PostJournal open(Path directory) throws IOException {
+        Files.createDirectories(directory);
+
+        final List<Path> paths = new ArrayList<>();
+        try (DirectoryStream<Path> segments = Files.newDirectoryStream(directory,
+                SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+            segments.forEach(paths::add);
+        }
+        // The sequence is zero padded, so the names sort in the order the segments were written
+        paths.sort(null);
+
+        final List<Segment> recovered = new ArrayList<>();
+        long nextSequence = 0;
+        for (Path path : paths) {
+            final Segment segment = new Segment(sequenceOf(path), path, null);
+            segment.entries.addAll(readEntries(path));
+            recovered.add(segment);
+            nextSequence = Math.max(nextSequence, segment.sequence + 1);
+        }
+        return new PostJournal(directory, recovered, nextSequence);
+    }
+
+    /**
+     * @return the segments a previous run left behind, oldest first, each with the posts it holds.
+     */
+    public List<Segment> recovered() {
+        return this.recovered;
+    }
+
+    /**
+     * Appends the post to the open segment and waits until it is on disk.
+     */
+    public void append(JSONObject post) throws IOException {
+        final ByteBuffer line = ByteBuffer.wrap((post.toString() + "\n").getBytes(StandardCharsets.UTF_8));
+        final Segment segment;
+        final long end;
+        this.appendLock.lock();
+        try {
+            segment = this.open;
+            while (line.hasRemaining()) {
+                segment.channel.write(line);
+            }
+            segment.written += line.capacity();
+            end = segment.written;
+        } finally {
+            this.appendLock.unlock();
+        }
+        segment.sync(end);
+    }
+
+    /**
+     * Closes the open segment and starts a new one, so the posts appended so far can
+     * be deleted separately from the ones appended next.
+     * @return the sealed segment.
+     */
+    public Segment seal() throws IOException {
+        final Segment sealed;
+        this.appendLock.lock();
+        try {
+            sealed = this.open;
+            this.open = this.createSegment(sealed.sequence + 1);
+        } finally {
+            this.appendLock.unlock();
+        }
+        sealed.close();
+        return sealed;
+    }
+
+    /**
+     * Deletes a sealed segment whose posts are all in MongoDB.
+     */
+    public void delete(Segment segment) throws IOException {
+        Files.deleteIfExists(segment.path);
+    }
+
+    @Override
+    public void close() throws IOException {
+        final Segment segment;
+        this.appendLock.lock();
+        try {
+            segment = this.open;
+        } finally {
+            this.appendLock.unlock();
+        }
+        segment.close();
+        // Nothing was appended to it, no need to leave an empty segment behind
+        if (segment.written == 0) {
+            Files.deleteIfExists(segment.path);
+        }
+    }
+
+    private Segment createSegment(long sequence) throws IOException {
+        final Path path = this.directory.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, sequence, SEGMENT_SUFFIX));
+        final FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                                                     StandardOpenOption.APPEND);
+        this.syncDirectory();
+        return new Segment(sequence, path, channel);
+    }
+
+    // A new file's name isn't durable until its directory is synced
+    private void syncDirectory() {
+        try (FileChannel directoryChannel = FileChannel.open(this.directory, StandardOpenOption.READ)) {
+            directoryChannel.force(true);
+        } catch (IOException ex) {
+            // Not every platform can open a directory, the segment's own fsync is all there is then
+            LOGGER.debug("Could not sync the journal directory {}", this.directory, ex);
+        }
+    }
+
+    private static List<JSONObject> readEntries(Path path) throws IOException {
+        final List<JSONObject> entries = new ArrayList<>();
+        final List<String> lines = Files.readAllLines(path, StandardCharsets.UTF_8);
+        for (int i = 0; i < lines.size(); i++) {
+            if (lines.get(i).isBlank()) {
+                continue;
+            }
+            try {
+                entries.add(new JSONObject(lines.get(i)));
+            } catch (JSONException ex) {
+                // Only the last line can be torn, by a crash in the middle of an append
+                // that was never acknowledged
+                if (i != lines.size() - 1) {
+                    throw new IOException("Corrupt journal entry at line " + (i + 1) + " of " + path, ex);
+                }
+                LOGGER.warn("Skipping the incomplete last entry of {}", path);
+            }
+        }
+        return entries;
+    }
+
+    private static long sequenceOf(Path path) {
+        final String name = path.getFileName().toString();
+        return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    /**
+     * A file of the journal.
+     */
+    public static final class Segment {
+        private final long sequence;
+        private final Path path;
+        private final FileChannel channel;
+        // Only filled for recovered segments
+        private final List<JSONObject> entries = new ArrayList<>();
+        private final ReentrantLock syncLock = new ReentrantLock();
+        private volatile long written;
+        private long synced;
+
+        private Segment(long sequence, Path path, FileChannel channel) {
+            this.sequence = sequence;
+            this.path = path;
+            this.channel = channel;
+        }
+
+        /**
+         * @return the posts of a recovered segment.
+         */
+        public List<JSONObject> getEntries() {
+            return this.entries;
+        }
+
+        private void sync(long end) throws IOException {
+            this.syncLock.lock();
+            try {
+                // An fsync started after this append was written covers it too
+                if (this.synced >= end) {
+                    return;
+                }
+                final long target = this.written;
+                this.channel.force(false);
+                this.synced = target;
+            } finally {
+                this.syncLock.unlock();
+            }
+        }
+
+        private void close() throws IOException {
+            this.syncLock.lock();
+            try {
+                if (this.channel == null || !this.channel.isOpen()) {
+                    return;
+                }
+                this.channel.force(false);
+                this.synced = this.written;
+                this.channel.close();
+            } finally {
+                this.syncLock.unlock();
+            }
+        }
+    }
+}
@@ -0,0 +1,235 @@
+package daos;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+import org.json.JSONObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.mongodb.MongoException;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Metrics;
+
+/**
+ * Accepts new posts into a PostJournal and writes them to MongoDB later, in batches.
+ * <p/>
+ * A post is pending from the moment its journal append returns until the batch it
+ * is in was written. Pending posts are kept in memory so the DAOs can serve them as
+ * if they were in MongoDB already.
+ * <p/>
+ * A batch that fails is retried, waiting twice as long after each failure, and its
+ * segment is kept until it succeeds. The writer has to be idempotent, since a batch
+ * whose write succeeded may be written again after a crash or a partial failure.
+ */
+public class PostWriteBehind implements Closeable {
+    public static final String PENDING_GAUGE = "connecthub.posts.write_behind.pending";
+
+    private static final String ENTRY_ID = "post_id";
+    private static final Duration MAX_RETRY_DELAY = Duration.ofSeconds(30);
+    private static final Logger LOGGER = LoggerFactory.getLogger(PostWriteBehind.class);
+
+    private final PostJournal journal;
+    private final Consumer<List<JSONObject>> writer;
+    private final Duration flushInterval;
+    private final int maxBatchSize;
+    private final ScheduledExecutorService flusher;
+
+    private final Map<String, JSONObject> pending = Collections.synchronizedMap(new LinkedHashMap<>());
+    // Appended since the open segment was started, read locked while appending so
+    // sealing the segment sees every post in it
+    private final Queue<JSONObject> unsealed = new ConcurrentLinkedQueue<>();
+    private final ReadWriteLock sealLock = new ReentrantReadWriteLock();
+    // Not a monitor, flushes write to MongoDB and to disk, which would pin a virtual thread
+    private final ReentrantLock flushLock = new ReentrantLock();
+    // Only touched while holding the flush lock
+    private final Deque<Batch> sealed = new ArrayDeque<>();
+    private long retryDelayNanos;
+    private long nextAttemptAt;
+
+    /**
+     * @param writer - writes a batch of posts to MongoDB, throws a MongoException if it couldn't.
+     * @param flushInterval - how long a post is pending at most while MongoDB is up.
+     * @param maxBatchSize - the most posts given to the writer at once.
+     */
+    public PostWriteBehind(PostJournal journal,
+                           Consumer<List<JSONObject>> writer,
+                           Duration flushInterval,
+                           int maxBatchSize) {
+        this.journal = journal;
+        this.writer = writer;
+        this.flushInterval = flushInterval;
+        this.maxBatchSize = maxBatchSize;
+        this.flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            final Thread thread = new Thread(runnable, "post-write-behind");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        for (PostJournal.Segment segment : journal.recovered()) {
+            final List<JSONObject> posts = segment.getEntries();
+            posts.forEach(post -> this.pending.put(post.getString(ENTRY_ID), post));
+            this.sealed.add(new Batch(segment, posts));
+        }
+        if (!this.pending.isEmpty()) {
+            LOGGER.info("Replaying {} posts left in the journal", this.pending.size());
+        }
+        Gauge.builder(PENDING_GAUGE, this.pending, Map::size).register(Metrics.globalRegistry);
+    }
+
+    /**
+     * Starts writing the pending posts in the background, the replayed ones first.
+     */
+    public void start() {
+        this.flusher.scheduleWithFixedDelay(this::flushQuietly, 0, this.flushInterval.toNanos(),
+                                            TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Adds the post to the journal, it is pending once this returns.
+     * @param post - the post document as json, with its post_id.
+     * @throws UncheckedIOException if the journal couldn't be written, the post was not accepted then.
+     */
+    public void submit(JSONObject post) {
+        this.sealLock.readLock().lock();
+        try {
+            this.journal.append(post);
+            this.pending.put(post.getString(ENTRY_ID), post);
+            this.unsealed.add(post);
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Could not journal post " + post.optString(ENTRY_ID), ex);
+        } finally {
+            this.sealLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return the pending post with the id, or null if it isn't pending.
+     */
+    public JSONObject getPending(String postID) {
+        return this.pending.get(postID);
+    }
+
+    /**
+     * @return every pending post, in the order they were submitted.
+     */
+    public List<JSONObject> getPending() {
+        synchronized (this.pending) {
+            return new ArrayList<>(this.pending.values());
+        }
+    }
+
+    /**
+     * Writes every pending post now, for writes that mustn't overtake the post they change.
+     * @throws MongoException if a batch couldn't be written, it is retried later.
+     */
+    public void flush() {
+        this.flushLock.lock();
+        try {
+            this.flushLocked();
+        } finally {
+            this.flushLock.unlock();
+        }
+    }
+
+    private void flushLocked() {
+        final List<JSONObject> posts = new ArrayList<>();
+        this.sealLock.writeLock().lock();
+        try {
+            if (!this.unsealed.isEmpty()) {
+                final PostJournal.Segment segment = this.journal.seal();
+                posts.addAll(this.unsealed);
+                this.unsealed.clear();
+                this.sealed.add(new Batch(segment, posts));
+            }
+        } catch (IOException ex) {
+            // The posts stay unsealed, sealing is tried again with the next flush
+            throw new UncheckedIOException("Could not seal the post journal", ex);
+        } finally {
+            this.sealLock.writeLock().unlock();
+        }
+
+        while (!this.sealed.isEmpty()) {
+            final Batch batch = this.sealed.peek();
+            for (int from = 0; from < batch.posts.size(); from += this.maxBatchSize) {
+                this.writer.accept(batch.posts.subList(from, Math.min(from + this.maxBatchSize, batch.posts.size())));
+            }
+            this.sealed.poll();
+            for (JSONObject post : batch.posts) {
+                this.pending.remove(post.getString(ENTRY_ID), post);
+            }
+            try {
+                this.journal.delete(batch.segment);
+            } catch (IOException ex) {
+                // Replaying it is harmless, the writes are idempotent
+                LOGGER.warn("Could not delete a flushed journal segment", ex);
+            }
+        }
+    }
+
+    /**
+     * Stops the background writes, and makes one last attempt to write what is pending.
+     * Whatever is still pending afterwards is replayed from the journal on the next start.
+     */
+    @Override
+    public void close() throws IOException {
+        this.flusher.shutdown();
+        try {
+            this.flusher.awaitTermination(this.flushInterval.toMillis() + MAX_RETRY_DELAY.toMillis(),
+                                          TimeUnit.MILLISECONDS);
+            this.flush();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException ex) {
+            LOGGER.warn("{} posts are left in the journal", this.pending.size(), ex);
+        } finally {
+            this.journal.close();
+        }
+    }
+
+    private void flushQuietly() {
+        final long now = System.nanoTime();
+        if (this.retryDelayNanos > 0 && now - this.nextAttemptAt < 0) {
+            return;
+        }
+        try {
+            this.flush();
+            this.retryDelayNanos = 0;
+        } catch (RuntimeException ex) {
+            this.retryDelayNanos = Math.min(MAX_RETRY_DELAY.toNanos(),
+                                            Math.max(this.flushInterval.toNanos(), this.retryDelayNanos * 2));
+            this.nextAttemptAt = now + this.retryDelayNanos;
+            LOGGER.warn("Could not write {} pending posts, retrying in {} ms", this.pending.size(),
+                        TimeUnit.NANOSECONDS.toMillis(this.retryDelayNanos), ex);
+        }
+    }
+
+    private static final class Batch {
+        private final PostJournal.Segment segment;
+        private final List<JSONObject> posts;
+
+        private Batch(PostJournal.Segment segment, List<JSONObject> posts) {
+            this.segment = segment;
+            this.posts = posts;
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package daos;
+
+/**
+ * Notified by DBPostDataAccessObject after it created, updated or deleted a post,
+ * and by InvalidationBus when a post was written elsewhere.
+ */
+public interface PostWriteListener {
+
+    /**
+     * Called after a write to the post, whether or not it succeeded.
+     * @param postID - the entry id of the post that was written.
+     */
+    void postWritten(String postID);
+
+    /**
+     * Called when posts may have been written but which ones isn't known, e.g. after
+     * a delete seen by its _id only, or after change events may have been missed.
+     */
+    default void postsWritten() {
+    }
+}
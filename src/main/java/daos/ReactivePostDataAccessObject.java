@@ -0,0 +1,165 @@
+package daos;
+
+import static com.mongodb.client.model.Filters.eq;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+import org.bson.Document;
+import org.json.JSONObject;
+
+import com.mongodb.client.model.Projections;
+import com.mongodb.reactivestreams.client.MongoCollection;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import use_case.getpost.ReactiveGetPostDataAccessInterface;
+
+/**
+ * MongoDB reactive streams implementation of the DAO for reading post data.
+ * Used by the reactive request handlers, the blocking DBPostDataAccessObject
+ * remains the DAO for everything else.
+ */
+public class ReactivePostDataAccessObject implements ReactiveGetPostDataAccessInterface {
+    private final String ENTRY_ID = "post_id";
+    private final String CATEGORY = "category";
+    private final String POSTED_DATE = "posted_date";
+    private final String LAST_MODIFIED = "last_modified";
+
+    // Posts whose bodies are read from the ContentStore in one query
+    private final int RESOLVE_BATCH_SIZE = 100;
+
+    private static final String DAO_NAME = "ReactivePostDataAccessObject";
+
+    private final MongoCollection<Document> postRepository;
+    private final Supplier<List<JSONObject>> pendingPosts;
+    // Null if bodies are all kept inline
+    private final ContentStore contentStore;
+
+    /**
+     * @param pendingPosts - the posts that were created but aren't in MongoDB yet, see DBPostDataAccessObject.
+     */
+    public ReactivePostDataAccessObject(MongoCollection<Document> postRepository,
+                                        Supplier<List<JSONObject>> pendingPosts) {
+        this(postRepository, pendingPosts, null);
+    }
+
+    /**
+     * @param contentStore - where the long bodies of posts are stored once each, see ContentStore.
+     */
+    public ReactivePostDataAccessObject(MongoCollection<Document> postRepository,
+                                        Supplier<List<JSONObject>> pendingPosts,
+                                        ContentStore contentStore) {
+        this.postRepository = postRepository;
+        this.pendingPosts = pendingPosts;
+        this.contentStore = contentStore;
+    }
+
+    @Override
+    public Mono<JSONObject> getPostByEntryID(String id) {
+        return Mono.defer(() -> {
+            for (JSONObject post : this.pendingPosts.get()) {
+                if (id.equals(post.optString(ENTRY_ID))) {
+                    return Mono.just(post);
+                }
+            }
+            return this.resolveAll(Flux.from(this.postRepository.find(eq(ENTRY_ID, id)).first())
+                .map(post -> new JSONObject(post.toJson())))
+                .next();
+        });
+    }
+
+    @Override
+    public Flux<JSONObject> getAllPosts() {
+        return this.withPending(
+            this.resolveAll(this.countDocuments("getAllPosts", Flux.from(this.postRepository.find()))
+                .map(post -> new JSONObject(post.toJson()))),
+            post -> true,
+            post -> post);
+    }
+
+    @Override
+    public Flux<JSONObject> getAllPostVersions() {
+        return this.withPending(this.countDocuments("getAllPostVersions", Flux.from(this.postRepository.find()
+                .projection(Projections.fields(
+                    Projections.include(ENTRY_ID, LAST_MODIFIED, POSTED_DATE),
+                    Projections.excludeId()))))
+            .map(version -> new JSONObject(version.toJson())),
+            post -> true,
+            post -> new JSONObject()
+                .put(ENTRY_ID, post.getString(ENTRY_ID))
+                .put(LAST_MODIFIED, post.getString(LAST_MODIFIED))
+                .put(POSTED_DATE, post.getString(POSTED_DATE)));
+    }
+
+    @Override
+    public Flux<JSONObject> getPostsByCategory(String category) {
+        return this.withPending(
+            this.resolveAll(this.countDocuments("getPostsByCategory",
+                                                Flux.from(this.postRepository.find(eq(CATEGORY, category))))
+                .map(post -> new JSONObject(post.toJson()))),
+            post -> category.equals(post.optString(CATEGORY)),
+            post -> post);
+    }
+
+    /**
+     * Puts back the bodies of posts stored by hash, those of a batch of posts in one
+     * query. The ContentStore blocks when a body isn't cached, so that is done off the
+     * event loop, once per batch rather than once per post.
+     */
+    private Flux<JSONObject> resolveAll(Flux<JSONObject> posts) {
+        if (this.contentStore == null) {
+            return posts;
+        }
+        return posts
+            .buffer(RESOLVE_BATCH_SIZE)
+            .concatMap(batch -> {
+                if (batch.stream().noneMatch(ContentStore::needsResolving)) {
+                    return Flux.fromIterable(batch);
+                }
+                return Mono.fromCallable(() -> this.contentStore.resolveAll(batch))
+                    .subscribeOn(Schedulers.boundedElastic())
+                    .flatMapIterable(resolved -> resolved);
+            });
+    }
+
+    /**
+     * Follows the posts read from MongoDB with the pending posts that match the filter
+     * and weren't among them, the same order DBPostDataAccessObject uses.
+     */
+    private Flux<JSONObject> withPending(Flux<JSONObject> posts,
+                                         Predicate<JSONObject> filter,
+                                         Function<JSONObject, JSONObject> mapper) {
+        return Flux.defer(() -> {
+            final Map<String, JSONObject> pending = new LinkedHashMap<>();
+            for (JSONObject post : this.pendingPosts.get()) {
+                if (filter.test(post)) {
+                    pending.put(post.getString(ENTRY_ID), post);
+                }
+            }
+            if (pending.isEmpty()) {
+                return posts;
+            }
+            return posts
+                .doOnNext(post -> pending.remove(post.optString(ENTRY_ID)))
+                .concatWith(Flux.defer(() -> Flux.fromIterable(pending.values()).map(mapper)));
+        });
+    }
+
+    /**
+     * Records the number of documents a query published once it completes.
+     */
+    private Flux<Document> countDocuments(String method, Flux<Document> documents) {
+        return Flux.defer(() -> {
+            final int[] count = {0};
+            return documents
+                .doOnNext(document -> count[0]++)
+                .doOnComplete(() -> DAOMetrics.documentsReturned(DAO_NAME, method, count[0]));
+        });
+    }
+}
@@ -0,0 +1,79 @@
+package daos;
+
+import static com.mongodb.client.model.Filters.eq;
+import static com.mongodb.client.model.Filters.in;
+
+import java.util.Collection;
+import java.util.List;
+
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.json.JSONObject;
+
+import com.mongodb.client.model.Projections;
+import com.mongodb.reactivestreams.client.MongoCollection;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import use_case.get_user.ReactiveGetUserDataAccessInterface;
+
+/**
+ * MongoDB reactive streams implementation of the DAO for reading user data.
+ * Used by the reactive request handlers, the blocking DBUserDataAccessObject
+ * remains the DAO for everything else, including the current user.
+ */
+public class ReactiveUserDataAccessObject implements ReactiveGetUserDataAccessInterface {
+    private final String USER_ID = "userId";
+    private final String USER_NAME = "username";
+    private final String FULL_NAME = "full_name";
+    private final String EMAIL = "email";
+    private final String POSTS = "posts";
+    private final String POST_COUNT = "post_count";
+
+    private final MongoCollection<Document> userRepository;
+
+    public ReactiveUserDataAccessObject(MongoCollection<Document> userRepository) {
+        this.userRepository = userRepository;
+    }
+
+    @Override
+    public Mono<JSONObject> getUserById(String userID) {
+        return this.queryOneUserBy(USER_ID, userID);
+    }
+
+    @Override
+    public Mono<JSONObject> getUserByEmail(String email) {
+        return this.queryOneUserBy(EMAIL, email);
+    }
+
+    @Override
+    public Mono<JSONObject> getUserProfileById(String userID) {
+        return Mono.from(this.userRepository.find(eq(USER_ID, userID)).projection(this.profileFields()).first())
+            .map(user -> new JSONObject(user.toJson()));
+    }
+
+    @Override
+    public Flux<JSONObject> getUsersByIds(Collection<String> userIDs) {
+        return Flux.from(this.userRepository.find(in(USER_ID, userIDs)).projection(this.profileFields()))
+            .map(user -> new JSONObject(user.toJson()));
+    }
+
+    // The same fields as DBUserDataAccessObject's profiles
+    private Bson profileFields() {
+        return Projections.fields(
+            Projections.include(USER_ID, USER_NAME, FULL_NAME),
+            Projections.computed(POST_COUNT,
+                new Document("$size", new Document("$ifNull", List.of("$" + POSTS, List.of())))),
+            Projections.excludeId());
+    }
+
+    /**
+     * Queries a specific user from the database.
+     * @param field - the column to to match.
+     * @param target - the target value to query for.
+     */
+    private Mono<JSONObject> queryOneUserBy(String field, String target) {
+        return Mono.from(this.userRepository.find(eq(field, target)).first())
+            .map(user -> new JSONObject(user.toJson()));
+    }
+}
@@ -0,0 +1,17 @@
+package daos;
+
+/**
+ * Notified by InvalidationBus when a user was written, by this process or another.
+ */
+public interface UserWriteListener {
+
+    /**
+     * @param userID - the userId of the user that was written.
+     */
+    void userWritten(String userID);
+
+    /**
+     * Called when users may have been written but which ones isn't known.
+     */
+    void usersWritten();
+}
@@ -0,0 +1,74 @@
+package entity;
+
+import java.lang.ref.WeakReference;
+import java.util.Collections;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Shares the strings that repeat across the entities decoded from the DAOs, so
+ * caches holding many posts hold each category, author and file type once rather
+ * than once per post.
+ * <p/>
+ * Categories and file types come from a handful of values, they are kept for good,
+ * up to a limit so made up ones can't grow the registry without bound. Authors are
+ * too many to keep, they are shared only while an entity still refers to them.
+ */
+public final class SharedStrings {
+    private static final int MAX_REGISTERED = 1000;
+
+    private static final Map<String, String> CATEGORIES = new ConcurrentHashMap<>();
+    private static final Map<String, String> FILE_TYPES = new ConcurrentHashMap<>();
+    private static final Map<String, WeakReference<String>> AUTHORS =
+        Collections.synchronizedMap(new WeakHashMap<>());
+
+    private SharedStrings() {}
+
+    /**
+     * @return the shared copy of the category, may be null.
+     */
+    public static String category(String category) {
+        return register(CATEGORIES, category);
+    }
+
+    /**
+     * @return the shared copy of the file type, may be null.
+     */
+    public static String fileType(String fileType) {
+        return register(FILE_TYPES, fileType);
+    }
+
+    /**
+     * @return the shared copy of the author id, may be null.
+     */
+    public static String author(String author) {
+        if (author == null) {
+            return null;
+        }
+        synchronized (AUTHORS) {
+            final WeakReference<String> shared = AUTHORS.get(author);
+            final String existing = shared == null ? null : shared.get();
+            if (existing != null) {
+                return existing;
+            }
+            AUTHORS.put(author, new WeakReference<>(author));
+            return author;
+        }
+    }
+
+    private static String register(Map<String, String> registry, String value) {
+        if (value == null) {
+            return null;
+        }
+        final String existing = registry.get(value);
+        if (existing != null) {
+            return existing;
+        }
+        if (registry.size() >= MAX_REGISTERED) {
+            return value;
+        }
+        final String raced = registry.putIfAbsent(value, value);
+        return raced == null ? value : raced;
+    }
+}
@@ -0,0 +1,66 @@
+package loadtest;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Counts latencies in buckets that grow by 2% each, so any percentile is off by
+ * at most 2% whatever the latency, in fixed memory. Safe to record into from many
+ * threads at once.
+ */
+final class LatencyHistogram {
+    private static final double GROWTH = 1.02;
+    private static final double LOG_GROWTH = Math.log(GROWTH);
+    // 1.02^1200 microseconds is over five hours, the last bucket holds anything slower
+    private static final int BUCKETS = 1200;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong totalMicros = new AtomicLong();
+    private final AtomicLong maxMicros = new AtomicLong();
+
+    void record(long nanos) {
+        final long micros = Math.max(1, nanos / 1000);
+        final int bucket = Math.min(BUCKETS - 1, (int) Math.ceil(Math.log(micros) / LOG_GROWTH));
+        this.counts.incrementAndGet(bucket);
+        this.count.incrementAndGet();
+        this.totalMicros.addAndGet(micros);
+        this.maxMicros.accumulateAndGet(micros, Math::max);
+    }
+
+    long getCount() {
+        return this.count.get();
+    }
+
+    /**
+     * @param percentile - between 0 and 100.
+     * @return the latency in milliseconds that percentile of the recorded ones didn't exceed.
+     */
+    double percentileMillis(double percentile) {
+        final long total = this.count.get();
+        if (total == 0) {
+            return 0;
+        }
+        final long rank = Math.max(1, (long) Math.ceil(total * percentile / 100));
+        long seen = 0;
+        for (int bucket = 0; bucket < BUCKETS; bucket++) {
+            seen += this.counts.get(bucket);
+            if (seen >= rank) {
+                // The last bucket has no upper bound but the slowest latency
+                return bucket == BUCKETS - 1
+                    ? this.maxMillis()
+                    : Math.min(Math.pow(GROWTH, bucket), this.maxMicros.get()) / 1000;
+            }
+        }
+        return this.maxMillis();
+    }
+
+    double meanMillis() {
+        final long total = this.count.get();
+        return total == 0 ? 0 : this.totalMicros.get() / 1000.0 / total;
+    }
+
+    double maxMillis() {
+        return this.maxMicros.get() / 1000.0;
+    }
+}
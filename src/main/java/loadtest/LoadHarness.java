@@ -0,0 +1,227 @@
+package loadtest;
+
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import org.bson.Document;
+
+/**
+ * Drives the REST API with an open model: requests arrive at random times at a
+ * fixed average rate whether or not earlier ones were answered, the way users do.
+ * A closed loop that waits for each answer slows down with the server and hides
+ * the queueing it is meant to find.
+ * <p/>
+ * Latency is measured from when a request was due, not from when it went out, so
+ * time spent behind a stalled server counts against it. Past maxOutstanding
+ * requests in flight new arrivals are dropped and counted instead of sent.
+ */
+final class LoadHarness {
+    enum Endpoint {
+        POST("post"),
+        ALL_POSTS("all-posts"),
+        LOGIN("login"),
+        CREATE_POST("create-post"),
+        SIGNUP("signup");
+
+        private final String label;
+
+        Endpoint(String label) {
+            this.label = label;
+        }
+
+        String getLabel() {
+            return this.label;
+        }
+
+        static Endpoint fromLabel(String label) {
+            for (Endpoint endpoint : values()) {
+                if (endpoint.label.equals(label)) {
+                    return endpoint;
+                }
+            }
+            throw new IllegalArgumentException("Unknown endpoint " + label);
+        }
+    }
+
+    /**
+     * What one endpoint saw during a run.
+     */
+    static final class EndpointStats {
+        private final LatencyHistogram latencies = new LatencyHistogram();
+        private final Map<Integer, AtomicLong> statuses = new ConcurrentHashMap<>();
+        private final AtomicLong errors = new AtomicLong();
+        private final AtomicLong dropped = new AtomicLong();
+
+        LatencyHistogram getLatencies() {
+            return this.latencies;
+        }
+
+        Map<Integer, AtomicLong> getStatuses() {
+            return this.statuses;
+        }
+
+        long getErrors() {
+            return this.errors.get();
+        }
+
+        long getDropped() {
+            return this.dropped.get();
+        }
+    }
+
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
+
+    private final URI baseUrl;
+    private final Map<Endpoint, Integer> mix;
+    private final double rate;
+    private final Duration duration;
+    private final int maxOutstanding;
+    private final Map<Endpoint, EndpointStats> stats = new EnumMap<>(Endpoint.class);
+    private final ZipfDistribution posts;
+    private final ZipfDistribution users;
+    private final String runId = Long.toString(System.currentTimeMillis(), 36);
+    private final AtomicLong signups = new AtomicLong();
+
+    /**
+     * @param mix - the weight of each endpoint in the requests sent.
+     * @param rate - average requests per second.
+     */
+    LoadHarness(URI baseUrl, SyntheticForum forum, Map<Endpoint, Integer> mix, double rate,
+                Duration duration, int maxOutstanding) {
+        this.baseUrl = baseUrl;
+        this.mix = mix;
+        this.rate = rate;
+        this.duration = duration;
+        this.maxOutstanding = maxOutstanding;
+        for (Endpoint endpoint : mix.keySet()) {
+            this.stats.put(endpoint, new EndpointStats());
+        }
+        this.posts = new ZipfDistribution(forum.getPosts(), forum.getExponent());
+        this.users = new ZipfDistribution(forum.getUsers(), forum.getExponent());
+    }
+
+    /**
+     * Sends requests for the duration, then waits for the ones still in flight.
+     */
+    Map<Endpoint, EndpointStats> run() throws InterruptedException {
+        final Random random = new Random();
+        final Endpoint[] endpoints = this.mix.keySet().toArray(new Endpoint[0]);
+        final int[] cumulativeWeights = new int[endpoints.length];
+        int totalWeight = 0;
+        for (int i = 0; i < endpoints.length; i++) {
+            totalWeight += this.mix.get(endpoints[i]);
+            cumulativeWeights[i] = totalWeight;
+        }
+
+        final Semaphore outstanding = new Semaphore(this.maxOutstanding);
+        try (HttpClient client = HttpClient.newBuilder()
+                .connectTimeout(REQUEST_TIMEOUT)
+                .build()) {
+            final long start = System.nanoTime();
+            final long end = start + this.duration.toNanos();
+            long due = start;
+            while (true) {
+                // Exponential gaps between arrivals make a Poisson process
+                due += (long) (-Math.log(1 - random.nextDouble()) / this.rate * 1e9);
+                if (due >= end) {
+                    break;
+                }
+                long wait;
+                while ((wait = due - System.nanoTime()) > 0) {
+                    LockSupport.parkNanos(wait);
+                }
+
+                final int pick = random.nextInt(totalWeight);
+                int index = 0;
+                while (cumulativeWeights[index] <= pick) {
+                    index++;
+                }
+                final Endpoint endpoint = endpoints[index];
+                final EndpointStats endpointStats = this.stats.get(endpoint);
+                if (!outstanding.tryAcquire()) {
+                    endpointStats.dropped.incrementAndGet();
+                    continue;
+                }
+                final long dueAt = due;
+                client.sendAsync(this.request(endpoint, random), HttpResponse.BodyHandlers.discarding())
+                    .whenComplete((response, error) -> {
+                        endpointStats.latencies.record(System.nanoTime() - dueAt);
+                        if (error != null) {
+                            endpointStats.errors.incrementAndGet();
+                        } else {
+                            endpointStats.statuses.computeIfAbsent(response.statusCode(), status -> new AtomicLong())
+                                .incrementAndGet();
+                        }
+                        outstanding.release();
+                    });
+            }
+            if (!outstanding.tryAcquire(this.maxOutstanding, REQUEST_TIMEOUT.toSeconds(), TimeUnit.SECONDS)) {
+                System.err.println("Gave up waiting for " + (this.maxOutstanding - outstanding.availablePermits())
+                                   + " requests still in flight");
+            }
+        }
+        return this.stats;
+    }
+
+    private HttpRequest request(Endpoint endpoint, Random random) {
+        switch (endpoint) {
+            case POST -> {
+                final String postId = SyntheticForum.postId(this.posts.sample(random));
+                return this.get("/api/v1/post?post_id=" + URLEncoder.encode(postId, StandardCharsets.UTF_8));
+            }
+            case ALL_POSTS -> {
+                return this.get("/api/v1/all-posts");
+            }
+            case LOGIN -> {
+                final int user = this.users.sample(random);
+                return this.post("/api/v1/login", new Document()
+                    .append("email", SyntheticForum.email(user))
+                    .append("password", SyntheticForum.password(user)));
+            }
+            case CREATE_POST -> {
+                return this.post("/api/v1/create-post", new Document()
+                    .append("post_title", SyntheticForum.sentence(random, 3 + random.nextInt(8)))
+                    .append("content", SyntheticForum.sentence(random, 20 + random.nextInt(180)))
+                    .append("category", SyntheticForum.CATEGORIES.get(random.nextInt(SyntheticForum.CATEGORIES.size())))
+                    .append("attachment_path", "")
+                    .append("file_type", ""));
+            }
+            case SIGNUP -> {
+                final long n = this.signups.incrementAndGet();
+                return this.post("/api/v1/signup", new Document()
+                    .append("email", "load-" + this.runId + "-" + n + "@example.com")
+                    .append("password", "password-" + n)
+                    .append("confirmation", "password-" + n)
+                    .append("username", "load" + this.runId + n)
+                    .append("full_name", "Load " + n)
+                    .append("birth_date", "2000-01-01"));
+            }
+            default -> throw new IllegalStateException("Unhandled endpoint " + endpoint);
+        }
+    }
+
+    private HttpRequest get(String path) {
+        return HttpRequest.newBuilder(this.baseUrl.resolve(path)).timeout(REQUEST_TIMEOUT).GET().build();
+    }
+
+    private HttpRequest post(String path, Document body) {
+        return HttpRequest.newBuilder(this.baseUrl.resolve(path))
+            .timeout(REQUEST_TIMEOUT)
+            .header("Content-Type", "application/json")
+            .POST(HttpRequest.BodyPublishers.ofString(body.toJson()))
+            .build();
+    }
+}
@@ -0,0 +1,122 @@
+package loadtest;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.bson.Document;
+import org.bson.json.JsonWriterSettings;
+
+/**
+ * Writes what a run saw as report.json, for comparing runs with a script, and
+ * report.html, a table to read.
+ */
+final class LoadReport {
+    static final String JSON_FILE = "report.json";
+    static final String HTML_FILE = "report.html";
+
+    private static final double[] PERCENTILES = {50, 99, 99.9};
+    private static final String[] PERCENTILE_NAMES = {"p50", "p99", "p999"};
+
+    private final Document report;
+
+    LoadReport(String target, double rate, Duration duration, Map<LoadHarness.Endpoint, LoadHarness.EndpointStats> stats) {
+        final List<Document> endpoints = new ArrayList<>();
+        for (Map.Entry<LoadHarness.Endpoint, LoadHarness.EndpointStats> entry : stats.entrySet()) {
+            final LoadHarness.EndpointStats endpoint = entry.getValue();
+            final LatencyHistogram latencies = endpoint.getLatencies();
+            final Document latencyMillis = new Document();
+            for (int i = 0; i < PERCENTILES.length; i++) {
+                latencyMillis.append(PERCENTILE_NAMES[i], round(latencies.percentileMillis(PERCENTILES[i])));
+            }
+            latencyMillis.append("mean", round(latencies.meanMillis())).append("max", round(latencies.maxMillis()));
+            final Document statuses = new Document();
+            new TreeMap<>(endpoint.getStatuses()).forEach((status, count) -> statuses.append(status.toString(), count.get()));
+            endpoints.add(new Document()
+                .append("endpoint", entry.getKey().getLabel())
+                .append("requests", latencies.getCount())
+                .append("throughput", round(latencies.getCount() / (duration.toMillis() / 1000.0)))
+                .append("latency_ms", latencyMillis)
+                .append("statuses", statuses)
+                .append("errors", endpoint.getErrors())
+                .append("dropped", endpoint.getDropped()));
+        }
+        this.report = new Document()
+            .append("target", target)
+            .append("finished", Instant.now().toString())
+            .append("rate", rate)
+            .append("duration_s", duration.toMillis() / 1000.0)
+            .append("endpoints", endpoints);
+    }
+
+    void writeTo(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        Files.writeString(directory.resolve(JSON_FILE),
+                          this.report.toJson(JsonWriterSettings.builder().indent(true).build()));
+        Files.writeString(directory.resolve(HTML_FILE), this.toHtml());
+    }
+
+    /**
+     * One line per endpoint, for the console.
+     */
+    String summary() {
+        final StringBuilder summary = new StringBuilder();
+        for (Document endpoint : this.report.getList("endpoints", Document.class)) {
+            final Document latency = endpoint.get("latency_ms", Document.class);
+            summary.append(String.format(Locale.ROOT, "%-12s %,8d requests %9.1f/s  p50 %8.2fms  p99 %8.2fms  "
+                                         + "p999 %8.2fms  errors %d  dropped %d%n",
+                                         endpoint.getString("endpoint"), endpoint.getLong("requests"),
+                                         endpoint.getDouble("throughput"), latency.getDouble("p50"),
+                                         latency.getDouble("p99"), latency.getDouble("p999"),
+                                         endpoint.getLong("errors"), endpoint.getLong("dropped")));
+        }
+        return summary.toString();
+    }
+
+    private String toHtml() {
+        final StringBuilder html = new StringBuilder()
+            .append("<!DOCTYPE html>\n<html>\n<head>\n<meta charset=\"utf-8\">\n<title>ConnectHub load test</title>\n")
+            .append("<style>body{font-family:sans-serif}table{border-collapse:collapse}")
+            .append("th,td{border:1px solid #ccc;padding:4px 8px;text-align:right}th:first-child,td:first-child{text-align:left}")
+            .append("</style>\n</head>\n<body>\n")
+            .append("<h1>ConnectHub load test</h1>\n<p>")
+            .append(escape(this.report.getString("target")))
+            .append(String.format(Locale.ROOT, ", %.1f requests/s offered for %.1fs, finished %s</p>\n",
+                                  this.report.getDouble("rate"), this.report.getDouble("duration_s"),
+                                  escape(this.report.getString("finished"))))
+            .append("<table>\n<tr><th>Endpoint</th><th>Requests</th><th>Throughput/s</th><th>p50 ms</th>")
+            .append("<th>p99 ms</th><th>p999 ms</th><th>Max ms</th><th>Mean ms</th><th>Statuses</th>")
+            .append("<th>Errors</th><th>Dropped</th></tr>\n");
+        for (Document endpoint : this.report.getList("endpoints", Document.class)) {
+            final Document latency = endpoint.get("latency_ms", Document.class);
+            final StringBuilder statuses = new StringBuilder();
+            endpoint.get("statuses", Document.class).forEach((status, count) ->
+                statuses.append(statuses.isEmpty() ? "" : ", ").append(status).append(": ").append(count));
+            html.append(String.format(Locale.ROOT, "<tr><td>%s</td><td>%d</td><td>%.1f</td><td>%.2f</td>"
+                                      + "<td>%.2f</td><td>%.2f</td><td>%.2f</td><td>%.2f</td><td>%s</td>"
+                                      + "<td>%d</td><td>%d</td></tr>%n",
+                                      escape(endpoint.getString("endpoint")), endpoint.getLong("requests"),
+                                      endpoint.getDouble("throughput"), latency.getDouble("p50"),
+                                      latency.getDouble("p99"), latency.getDouble("p999"),
+                                      latency.getDouble("max"), latency.getDouble("mean"),
+                                      escape(statuses.toString()), endpoint.getLong("errors"),
+                                      endpoint.getLong("dropped")));
+        }
+        return html.append("</table>\n</body>\n</html>\n").toString();
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 1000) / 1000.0;
+    }
+
+    private static String escape(String text) {
+        return text.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;");
+    }
+}
@@ -0,0 +1,143 @@
+package loadtest;
+
+import java.net.URI;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Generates a synthetic forum and load tests the REST API with it.
+ * <p/>
+ * Usage, from the packaged jar:
+ * <pre>
+ * java -cp WebServer.jar -Dloader.main=loadtest.LoadTestTool org.springframework.boot.loader.launch.PropertiesLauncher \
+ *     generate DIR [--users=N] [--posts=N] [--comments=N] [--exponent=X] [--seed=N]
+ *     stand-in DIR [--port=N] [--latency-ms=N]
+ *     run DIR --base-url=URL|--offline [--rate=N] [--duration=SECONDS] [--mix=post:70,all-posts:10,...]
+ *         [--max-outstanding=N] [--report=DIR] [--latency-ms=N]
+ * </pre>
+ * generate writes the forum as ndjson for app.BulkDataTool to import. run drives the
+ * server at --base-url, or with --offline a stand-in backend it starts on the forum,
+ * and writes report.json and report.html. A real server rate limits writes per client
+ * address, so list the address run sends from in its admission.exempt-addresses.
+ */
+public class LoadTestTool {
+    private static final String DEFAULT_MIX = "post:70,all-posts:10,login:10,create-post:7,signup:3";
+    private static final String USAGE = "Usage: LoadTestTool generate DIR [--users=N] [--posts=N] [--comments=N] "
+        + "[--exponent=X] [--seed=N]\n"
+        + "       LoadTestTool stand-in DIR [--port=N] [--latency-ms=N]\n"
+        + "       LoadTestTool run DIR --base-url=URL|--offline [--rate=N] [--duration=SECONDS] "
+        + "[--mix=" + DEFAULT_MIX + "] [--max-outstanding=N] [--report=DIR] [--latency-ms=N]";
+
+    /**
+     * @param args the command, the forum directory and options, see the class description.
+     */
+    public static void main(String[] args) throws Exception {
+        final Map<String, String> options = new HashMap<>();
+        final List<String> positional = new ArrayList<>();
+        for (String arg : args) {
+            if (arg.startsWith("--")) {
+                final int equals = arg.indexOf('=');
+                options.put(equals < 0 ? arg.substring(2) : arg.substring(2, equals),
+                            equals < 0 ? "true" : arg.substring(equals + 1));
+            } else {
+                positional.add(arg);
+            }
+        }
+        if (positional.size() != 2) {
+            exitWithUsage();
+        }
+        final Path directory = Path.of(positional.get(1));
+        final Duration latency = Duration.ofMillis(Long.parseLong(options.getOrDefault("latency-ms", "5")));
+
+        switch (positional.get(0)) {
+            case "generate" -> {
+                final SyntheticForum forum = new SyntheticForum(
+                    Integer.parseInt(options.getOrDefault("users", "10000")),
+                    Integer.parseInt(options.getOrDefault("posts", "50000")),
+                    Integer.parseInt(options.getOrDefault("comments", "250000")),
+                    Double.parseDouble(options.getOrDefault("exponent", "1.1")),
+                    Long.parseLong(options.getOrDefault("seed", "42")));
+                final long start = System.nanoTime();
+                forum.writeTo(directory);
+                System.out.printf("Generated %,d users and %,d posts in %s in %.1fs%n", forum.getUsers(),
+                                  forum.getPosts(), directory, (System.nanoTime() - start) / 1e9);
+            }
+            case "stand-in" -> {
+                final StandInBackend backend = new StandInBackend(
+                    directory, Integer.parseInt(options.getOrDefault("port", "8080")), latency);
+                backend.start();
+                Runtime.getRuntime().addShutdownHook(new Thread(backend::close));
+                System.out.println("Stand-in backend listening on " + backend.getBaseUrl());
+                Thread.currentThread().join();
+            }
+            case "run" -> run(directory, options, latency);
+            default -> exitWithUsage();
+        }
+    }
+
+    private static void run(Path directory, Map<String, String> options, Duration latency) throws Exception {
+        final boolean offline = options.containsKey("offline");
+        if (offline == options.containsKey("base-url")) {
+            exitWithUsage();
+        }
+        final SyntheticForum forum = SyntheticForum.read(directory);
+        final double rate = Double.parseDouble(options.getOrDefault("rate", "200"));
+        final Duration duration = Duration.ofSeconds(Long.parseLong(options.getOrDefault("duration", "60")));
+        final int maxOutstanding = Integer.parseInt(options.getOrDefault("max-outstanding", "1000"));
+        final Path reportDirectory = Path.of(options.getOrDefault("report", "load-report"));
+        final Map<LoadHarness.Endpoint, Integer> mix = parseMix(options.getOrDefault("mix", DEFAULT_MIX));
+
+        StandInBackend backend = null;
+        try {
+            final URI baseUrl;
+            if (offline) {
+                backend = new StandInBackend(directory, 0, latency);
+                backend.start();
+                baseUrl = backend.getBaseUrl();
+            } else {
+                baseUrl = URI.create(options.get("base-url"));
+            }
+            System.out.printf("Offering %.1f requests/s to %s for %ds%n", rate, baseUrl, duration.toSeconds());
+            final Map<LoadHarness.Endpoint, LoadHarness.EndpointStats> stats =
+                new LoadHarness(baseUrl, forum, mix, rate, duration, maxOutstanding).run();
+
+            final LoadReport report = new LoadReport(offline ? "stand-in backend" : baseUrl.toString(),
+                                                     rate, duration, stats);
+            report.writeTo(reportDirectory);
+            System.out.print(report.summary());
+            System.out.println("Report written to " + reportDirectory.toAbsolutePath());
+        } finally {
+            if (backend != null) {
+                backend.close();
+            }
+        }
+    }
+
+    private static Map<LoadHarness.Endpoint, Integer> parseMix(String mix) {
+        final Map<LoadHarness.Endpoint, Integer> weights = new LinkedHashMap<>();
+        for (String entry : mix.split(",")) {
+            final String[] parts = entry.split(":");
+            final int weight = parts.length == 2 ? Integer.parseInt(parts[1].trim()) : -1;
+            if (weight < 0) {
+                exitWithUsage();
+            }
+            if (weight > 0) {
+                weights.put(LoadHarness.Endpoint.fromLabel(parts[0].trim()), weight);
+            }
+        }
+        if (weights.isEmpty()) {
+            exitWithUsage();
+        }
+        return weights;
+    }
+
+    private static void exitWithUsage() {
+        System.err.println(USAGE);
+        System.exit(2);
+    }
+}
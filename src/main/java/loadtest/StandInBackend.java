@@ -0,0 +1,224 @@
+package loadtest;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.bson.Document;
+import org.bson.json.JsonParseException;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Serves the routes the load harness drives from a generated forum held in memory,
+ * so the harness and its reports can run without MongoDB or the network.
+ * <p/>
+ * The routes answer with the same status codes as the Spring app, the bodies are
+ * the stored documents rather than the app's json. Every request waits for a
+ * service time drawn around serviceTime, standing in for the database round trip.
+ */
+public final class StandInBackend implements AutoCloseable {
+    private final Map<String, String> posts = new ConcurrentHashMap<>();
+    private final List<String> feed = new CopyOnWriteArrayList<>();
+    private final Map<String, String> passwordsByEmail = new ConcurrentHashMap<>();
+    private final Duration serviceTime;
+    private final HttpServer server;
+    // Platform threads, the server blocks on its streams while holding monitors, which would pin virtual ones
+    private final ExecutorService handlers = Executors.newCachedThreadPool();
+
+    /**
+     * @param directory - where SyntheticForum wrote the forum.
+     * @param port - 0 for any free port.
+     */
+    public StandInBackend(Path directory, int port, Duration serviceTime) throws IOException {
+        this.serviceTime = serviceTime;
+        final List<String> loaded = new ArrayList<>();
+        try (BufferedReader reader = Files.newBufferedReader(directory.resolve(SyntheticForum.POSTS_FILE))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                this.posts.put(Document.parse(line).getString("post_id"), line);
+                loaded.add(line);
+            }
+        }
+        this.feed.addAll(loaded);
+        try (BufferedReader reader = Files.newBufferedReader(directory.resolve(SyntheticForum.USERS_FILE))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                final Document user = Document.parse(line);
+                this.passwordsByEmail.put(user.getString("email"), user.getString("password"));
+            }
+        }
+
+        this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", port), 1024);
+        this.server.setExecutor(this.handlers);
+        this.server.createContext("/api/v1/all-posts", exchange -> this.handle(exchange, "GET", this::allPosts));
+        this.server.createContext("/api/v1/post", exchange -> this.handle(exchange, "GET", this::post));
+        this.server.createContext("/api/v1/create-post", exchange -> this.handle(exchange, "POST", this::createPost));
+        this.server.createContext("/api/v1/login", exchange -> this.handle(exchange, "POST", this::login));
+        this.server.createContext("/api/v1/signup", exchange -> this.handle(exchange, "POST", this::signup));
+    }
+
+    public void start() {
+        this.server.start();
+    }
+
+    public URI getBaseUrl() {
+        return URI.create("http://127.0.0.1:" + this.server.getAddress().getPort());
+    }
+
+    @Override
+    public void close() {
+        this.server.stop(0);
+        this.handlers.close();
+    }
+
+    private interface Route {
+        Response serve(HttpExchange exchange, Document body);
+    }
+
+    /**
+     * @param items - when not null, the body is these documents streamed as a json array.
+     */
+    private record Response(int status, String body, List<String> items) {
+        Response(int status, String body) {
+            this(status, body, null);
+        }
+    }
+
+    private void handle(HttpExchange exchange, String method, Route route) throws IOException {
+        try (exchange) {
+            if (!method.equals(exchange.getRequestMethod())) {
+                this.send(exchange, new Response(405, ""));
+                return;
+            }
+            Document body = null;
+            if ("POST".equals(method)) {
+                try (InputStream in = exchange.getRequestBody()) {
+                    body = Document.parse(new String(in.readAllBytes(), StandardCharsets.UTF_8));
+                } catch (JsonParseException ex) {
+                    this.send(exchange, new Response(400, "Something went wrong..."));
+                    return;
+                }
+            }
+            this.waitServiceTime();
+            this.send(exchange, route.serve(exchange, body));
+        }
+    }
+
+    // Streamed like the app streams the feed, rather than built up in memory
+    private Response allPosts(HttpExchange exchange, Document body) {
+        return new Response(200, null, this.feed);
+    }
+
+    private Response post(HttpExchange exchange, Document body) {
+        final String query = exchange.getRequestURI().getRawQuery();
+        final String postId = query == null || !query.startsWith("post_id=")
+            ? null
+            : URLDecoder.decode(query.substring("post_id=".length()), StandardCharsets.UTF_8);
+        final String post = postId == null ? null : this.posts.get(postId);
+        return post == null ? new Response(404, "") : new Response(200, post);
+    }
+
+    private Response createPost(HttpExchange exchange, Document body) {
+        final String title = body.getString("post_title");
+        if (title == null || title.isEmpty() || body.getString("category") == null
+                || body.getString("content") == null) {
+            return new Response(400, "use_case.create_post.PostCreationFailedException");
+        }
+        final String posted = LocalDateTime.now().toString();
+        final String post = new Document()
+            .append("post_id", UUID.randomUUID().toString())
+            .append("title", title)
+            .append("content_body", body.getString("content"))
+            .append("category", body.getString("category"))
+            .append("posted_date", posted)
+            .append("last_modified", posted)
+            .toJson();
+        this.posts.put(Document.parse(post).getString("post_id"), post);
+        this.feed.add(post);
+        return new Response(200, "Post Created!");
+    }
+
+    private Response login(HttpExchange exchange, Document body) {
+        final String password = this.passwordsByEmail.get(String.valueOf(body.getString("email")));
+        if (password == null) {
+            return new Response(404, "User with email not found");
+        }
+        return password.equals(body.getString("password"))
+            ? new Response(200, "Logged in successfully!")
+            : new Response(404, "Incorrect password");
+    }
+
+    private Response signup(HttpExchange exchange, Document body) {
+        final String email = body.getString("email");
+        if (email == null || this.passwordsByEmail.putIfAbsent(email, String.valueOf(body.getString("password"))) != null) {
+            return new Response(400, "User with email exists");
+        }
+        return new Response(200, "Signed up successfully!");
+    }
+
+    // Exponentially distributed around the mean, like the time a loaded database takes
+    private void waitServiceTime() {
+        if (this.serviceTime.isZero()) {
+            return;
+        }
+        final double factor = -Math.log(1 - ThreadLocalRandom.current().nextDouble());
+        try {
+            Thread.sleep(Duration.ofNanos((long) (this.serviceTime.toNanos() * factor)));
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void send(HttpExchange exchange, Response response) throws IOException {
+        if (response.items() != null) {
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(response.status(), 0);
+            try (Writer out = new BufferedWriter(new OutputStreamWriter(exchange.getResponseBody(),
+                                                                        StandardCharsets.UTF_8))) {
+                out.write('[');
+                boolean first = true;
+                for (String item : response.items()) {
+                    if (!first) {
+                        out.write(',');
+                    }
+                    out.write(item);
+                    first = false;
+                }
+                out.write(']');
+            }
+            return;
+        }
+        final byte[] bytes = response.body().getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", response.body().startsWith("[")
+            || response.body().startsWith("{") ? "application/json" : "text/plain;charset=UTF-8");
+        exchange.sendResponseHeaders(response.status(), bytes.length == 0 ? -1 : bytes.length);
+        if (bytes.length > 0) {
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+        }
+    }
+}
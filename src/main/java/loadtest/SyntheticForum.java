@@ -0,0 +1,233 @@
+package loadtest;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+
+import org.bson.Document;
+
+/**
+ * A made up forum with the shape of a real one: a few users write most of the
+ * posts, a few posts get most of the comments, and comments answer each other.
+ * <p/>
+ * writeTo stores it as users.ndjson, posts.ndjson and comments.ndjson in the
+ * format of the MongoDB collections, ready for app.BulkDataTool, and a manifest
+ * the load harness reads. Ids, emails and passwords are derived from ranks and the
+ * seed, so the harness can ask for the same users and posts without the files.
+ */
+public final class SyntheticForum {
+    public static final List<String> CATEGORIES = List.of(
+        "General", "Questions", "Announcements", "Projects", "Help", "Off Topic",
+        "Feedback", "Events", "Jobs", "Showcase", "Tutorials", "Meta");
+
+    static final String USERS_FILE = "users.ndjson";
+    static final String POSTS_FILE = "posts.ndjson";
+    static final String COMMENTS_FILE = "comments.ndjson";
+    static final String MANIFEST_FILE = "manifest.json";
+
+    private static final String[] WORDS = (
+        "the a to of and in is it you that for on with this be are have not as at your can but what "
+        + "if we all my so just one about out how like get when there up do more time new some know "
+        + "post thread question answer idea project code build test help thanks issue version data "
+        + "server page design feature update release bug fix team forum topic reply week today").split(" ");
+    // Comments that answer an earlier comment instead of the post
+    private static final double REPLY_SHARE = 0.6;
+    private static final int HISTORY_DAYS = 365;
+
+    private final int users;
+    private final int posts;
+    private final int comments;
+    private final double exponent;
+    private final long seed;
+
+    /**
+     * @param exponent - how skewed popularity is, around 1 for forums.
+     */
+    public SyntheticForum(int users, int posts, int comments, double exponent, long seed) {
+        this.users = users;
+        this.posts = posts;
+        this.comments = comments;
+        this.exponent = exponent;
+        this.seed = seed;
+    }
+
+    /**
+     * Reads the manifest writeTo left in the directory.
+     */
+    public static SyntheticForum read(Path directory) throws IOException {
+        final Document manifest = Document.parse(Files.readString(directory.resolve(MANIFEST_FILE)));
+        return new SyntheticForum(manifest.get("users", Number.class).intValue(),
+                                  manifest.get("posts", Number.class).intValue(),
+                                  manifest.get("comments", Number.class).intValue(),
+                                  manifest.get("exponent", Number.class).doubleValue(),
+                                  manifest.get("seed", Number.class).longValue());
+    }
+
+    /**
+     * Generates the forum into the directory. Only the author and date of each post are kept
+     * in memory, the documents are written as they are made.
+     */
+    public void writeTo(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        final Random random = new Random(this.seed);
+        final ZipfDistribution authors = new ZipfDistribution(this.users, this.exponent);
+        final ZipfDistribution categories = new ZipfDistribution(CATEGORIES.size(), this.exponent);
+        final ZipfDistribution popularity = new ZipfDistribution(this.posts, this.exponent);
+        final LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+
+        final int[] authorOf = new int[this.posts];
+        final LocalDateTime[] postedAt = new LocalDateTime[this.posts];
+        try (Writer out = newWriter(directory.resolve(POSTS_FILE))) {
+            for (int post = 0; post < this.posts; post++) {
+                authorOf[post] = authors.sample(random);
+                // Most posts are recent
+                postedAt[post] = now.minusSeconds((long) (HISTORY_DAYS * 86400L * Math.pow(random.nextDouble(), 2)));
+                final String posted = postedAt[post].toString();
+                writeLine(out, new Document()
+                    .append("post_id", postId(post))
+                    .append("author", userId(authorOf[post]))
+                    .append("content_body", sentence(random, 20 + random.nextInt(180)))
+                    .append("attachment_path", "")
+                    .append("file_type", "")
+                    .append("title", sentence(random, 3 + random.nextInt(8)))
+                    .append("category", CATEGORIES.get(categories.sample(random)))
+                    .append("posted_date", posted)
+                    .append("last_modified", posted)
+                    // The rank of a post is also how popular it is
+                    .append("likes", (int) (200 / Math.pow(post + 1, this.exponent / 2)) + random.nextInt(5))
+                    .append("dislikes", random.nextInt(5))
+                    .append("comments", List.of()));
+            }
+        }
+
+        final int[] commentCounts = new int[this.posts];
+        for (int i = 0; i < this.comments; i++) {
+            commentCounts[popularity.sample(random)]++;
+        }
+        try (Writer out = newWriter(directory.resolve(COMMENTS_FILE))) {
+            int commentNumber = 0;
+            for (int post = 0; post < this.posts; post++) {
+                final List<String> thread = new ArrayList<>();
+                LocalDateTime posted = postedAt[post];
+                for (int i = 0; i < commentCounts[post]; i++) {
+                    final String commentId = commentId(commentNumber++);
+                    final String parent = thread.isEmpty() || random.nextDouble() >= REPLY_SHARE
+                        ? null
+                        : thread.get(random.nextInt(thread.size()));
+                    posted = posted.plusSeconds(1 + random.nextInt(3600));
+                    writeLine(out, new Document()
+                        .append("comment_id", commentId)
+                        .append("post_id", postId(post))
+                        .append("parent_id", parent)
+                        .append("author", userId(authors.sample(random)))
+                        .append("content_body", sentence(random, 5 + random.nextInt(60)))
+                        .append("posted_date", posted.toString())
+                        .append("likes", random.nextInt(10))
+                        .append("dislikes", random.nextInt(3)));
+                    thread.add(commentId);
+                }
+            }
+        }
+
+        // Each user's posts, grouped by author with a counting sort
+        final int[] firstPost = new int[this.users + 1];
+        for (int author : authorOf) {
+            firstPost[author + 1]++;
+        }
+        for (int user = 0; user < this.users; user++) {
+            firstPost[user + 1] += firstPost[user];
+        }
+        final int[] postsByAuthor = new int[this.posts];
+        final int[] filled = Arrays.copyOf(firstPost, this.users);
+        for (int post = 0; post < this.posts; post++) {
+            postsByAuthor[filled[authorOf[post]]++] = post;
+        }
+        try (Writer out = newWriter(directory.resolve(USERS_FILE))) {
+            for (int user = 0; user < this.users; user++) {
+                final List<String> userPosts = new ArrayList<>();
+                for (int i = firstPost[user]; i < firstPost[user + 1]; i++) {
+                    userPosts.add(postId(postsByAuthor[i]));
+                }
+                writeLine(out, new Document()
+                    .append("userId", userId(user))
+                    .append("username", "user" + user)
+                    .append("password", password(user))
+                    .append("email", email(user))
+                    .append("birth_date", "2000-01-01")
+                    .append("full_name", "User " + user)
+                    .append("moderating", List.of())
+                    .append("posts", userPosts));
+            }
+        }
+
+        Files.writeString(directory.resolve(MANIFEST_FILE), new Document()
+            .append("users", this.users)
+            .append("posts", this.posts)
+            .append("comments", this.comments)
+            .append("exponent", this.exponent)
+            .append("seed", this.seed)
+            .toJson());
+    }
+
+    public int getUsers() {
+        return this.users;
+    }
+
+    public int getPosts() {
+        return this.posts;
+    }
+
+    public double getExponent() {
+        return this.exponent;
+    }
+
+    static String userId(int rank) {
+        return UUID.nameUUIDFromBytes(("user-" + rank).getBytes(StandardCharsets.UTF_8)).toString();
+    }
+
+    static String postId(int rank) {
+        return UUID.nameUUIDFromBytes(("post-" + rank).getBytes(StandardCharsets.UTF_8)).toString();
+    }
+
+    static String commentId(int number) {
+        return UUID.nameUUIDFromBytes(("comment-" + number).getBytes(StandardCharsets.UTF_8)).toString();
+    }
+
+    static String email(int rank) {
+        return "user" + rank + "@example.com";
+    }
+
+    static String password(int rank) {
+        return "password-" + rank;
+    }
+
+    static String sentence(Random random, int words) {
+        final StringBuilder sentence = new StringBuilder();
+        for (int i = 0; i < words; i++) {
+            if (i > 0) {
+                sentence.append(' ');
+            }
+            sentence.append(WORDS[random.nextInt(WORDS.length)]);
+        }
+        return sentence.toString();
+    }
+
+    private static BufferedWriter newWriter(Path path) throws IOException {
+        return Files.newBufferedWriter(path, StandardCharsets.UTF_8);
+    }
+
+    private static void writeLine(Writer out, Document document) throws IOException {
+        out.write(document.toJson());
+        out.write('\n');
+    }
+}
@@ -0,0 +1,30 @@
+package loadtest;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Picks ranks 0 to n - 1 where rank k comes up in proportion to 1 / (k + 1)^exponent,
+ * the long tail of how popular posts and active users are.
+ */
+final class ZipfDistribution {
+    private final double[] cumulative;
+
+    ZipfDistribution(int n, double exponent) {
+        this.cumulative = new double[n];
+        double sum = 0;
+        for (int rank = 0; rank < n; rank++) {
+            sum += 1 / Math.pow(rank + 1, exponent);
+            this.cumulative[rank] = sum;
+        }
+        for (int rank = 0; rank < n; rank++) {
+            this.cumulative[rank] /= sum;
+        }
+    }
+
+    int sample(Random random) {
+        final int found = Arrays.binarySearch(this.cumulative, random.nextDouble());
+        final int rank = found >= 0 ? found : -found - 1;
+        return Math.min(rank, this.cumulative.length - 1);
+    }
+}
@@ -10,5 +10,15 @@ public interface CreatePostDataAccessInterface {
      * @param post The post to be created.
      */
     void createPost(Post post);
+
+    /**
+     * Whether createPost also adds the post to its author's posts, e.g. because it
+     * writes both in the background.
+     *
+     * @return true if the caller mustn't update the author's posts itself.
+     */
+    default boolean addsPostToAuthor() {
+        return false;
+    }
 }
 
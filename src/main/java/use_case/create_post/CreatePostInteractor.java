@@ -6,21 +6,32 @@ import java.util.List;
 import java.util.UUID;
 
 import daos.DBUserDataAccessObject;
+import use_case.post_events.PostEventListener;
 
 public class CreatePostInteractor implements CreatePostInputBoundary {
     private final CreatePostDataAccessInterface dataAccess;
     private final DBUserDataAccessObject userRepo;
     private final CreatePostOutputBoundary userPresenter;
     private final PostFactory postFactory;
+    private final PostEventListener postEvents;
 
     public CreatePostInteractor(CreatePostDataAccessInterface dataAccess, 
                                 DBUserDataAccessObject userRepo,
                                 CreatePostOutputBoundary outputBoundary, 
                                 PostFactory postFactory) {
+        this(dataAccess, userRepo, outputBoundary, postFactory, PostEventListener.NONE);
+    }
+
+    public CreatePostInteractor(CreatePostDataAccessInterface dataAccess,
+                                DBUserDataAccessObject userRepo,
+                                CreatePostOutputBoundary outputBoundary,
+                                PostFactory postFactory,
+                                PostEventListener postEvents) {
         this.dataAccess = dataAccess;
         this.userRepo = userRepo;
         this.userPresenter = outputBoundary;
         this.postFactory = postFactory;
+        this.postEvents = postEvents;
     }
 
     @Override
@@ -55,7 +66,10 @@ public class CreatePostInteractor implements CreatePostInputBoundary {
             dataAccess.createPost(post);
             List<String> userPosts = currentUser.getPosts();
             userPosts.add(post.getEntryID()); // Aliases user's post list
-            this.userRepo.updateUserPosts(currentUser);
+            if (!dataAccess.addsPostToAuthor()) {
+                this.userRepo.updateUserPosts(currentUser);
+            }
+            this.postEvents.postCreated(post);
 
             final CreatePostOutputData outputData = new CreatePostOutputData(
                 post.getEntryID(),
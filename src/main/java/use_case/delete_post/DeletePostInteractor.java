@@ -2,6 +2,7 @@ package use_case.delete_post;
 
 import daos.DBUserDataAccessObject;
 import entity.User;
+import use_case.post_events.PostEventListener;
 
 /**
  * Interactor for delete post.
@@ -11,13 +12,22 @@ public class DeletePostInteractor implements DeletePostInputBoundary {
     private final DeletePostDataAccessInterface postDataAccessObject;
     private final DeletePostOutputBoundary postPresenter;
     private final DBUserDataAccessObject userRepo;
+    private final PostEventListener postEvents;
 
     public DeletePostInteractor(DeletePostDataAccessInterface postDataAccessObject,
                                 DeletePostOutputBoundary postPresenter,
                                 DBUserDataAccessObject userRepo) {
+        this(postDataAccessObject, postPresenter, userRepo, PostEventListener.NONE);
+    }
+
+    public DeletePostInteractor(DeletePostDataAccessInterface postDataAccessObject,
+                                DeletePostOutputBoundary postPresenter,
+                                DBUserDataAccessObject userRepo,
+                                PostEventListener postEvents) {
         this.postDataAccessObject = postDataAccessObject;
         this.postPresenter = postPresenter;
         this.userRepo = userRepo;
+        this.postEvents = postEvents;
     }
 
     @Override
@@ -36,6 +46,7 @@ public class DeletePostInteractor implements DeletePostInputBoundary {
 
         try {
             postDataAccessObject.deletePost(deletePostInputData.getPostId());
+            this.postEvents.postDeleted(deletePostInputData.getPostId());
 
             DeletePostOutputData outputData = new DeletePostOutputData(
                     deletePostInputData.getPostId(),
@@ -12,18 +12,28 @@ import entity.Comment;
 import entity.Content;
 import entity.Post;
 import entity.PostContent;
+import entity.SharedStrings;
+import use_case.post_events.PostEventListener;
 
 public class EditPostInteractor implements EditPostInputBoundary {
 
     private EditPostDataAccessInterface editPostDB;  // Interface to access data (edit post in DB)
     private DBUserDataAccessObject userRepo; // To get the current user
     private EditPostOutputBoundary editPostOutput;  // Interface to handle output (views for success/fail)
+    private final PostEventListener postEvents;
 
     // Constructor to initialize dependencies
     public EditPostInteractor(EditPostDataAccessInterface editPostDB, DBUserDataAccessObject userRepo, 
                               EditPostOutputBoundary editPostOutput) {
+        this(editPostDB, userRepo, editPostOutput, PostEventListener.NONE);
+    }
+
+    public EditPostInteractor(EditPostDataAccessInterface editPostDB, DBUserDataAccessObject userRepo,
+                              EditPostOutputBoundary editPostOutput, PostEventListener postEvents) {
         this.editPostDB = editPostDB;
+        this.userRepo = userRepo;
         this.editPostOutput = editPostOutput;
+        this.postEvents = postEvents;
     }
 
     // Implementing editPost method from EditPostInputBoundary
@@ -59,6 +69,7 @@ public class EditPostInteractor implements EditPostInputBoundary {
         );
 
         editPostDB.updatePost(post); 
+        this.postEvents.postEdited(post);
         editPostOutput.prepareSuccessView(editPostOutputData);  
     }
 
@@ -73,7 +84,7 @@ public class EditPostInteractor implements EditPostInputBoundary {
     private Post jsonToPost(JSONObject postData) {
         Content postContent = new PostContent(postData.getString("content_body"),
                                               postData.getString("attachment_path"),
-                                              postData.getString("file_type"));
+                                              SharedStrings.fileType(postData.getString("file_type")));
 
         JSONArray commentData = postData.getJSONArray("comments");
         List<Comment> comments = new ArrayList<>();
@@ -85,7 +96,7 @@ public class EditPostInteractor implements EditPostInputBoundary {
 
         Post post = new Post(
             postData.getString("post_id"), 
-            postData.getString("author"),
+            SharedStrings.author(postData.getString("author")),
             postContent,
             LocalDateTime.parse(postData.getString("posted_date")),
             LocalDateTime.parse(postData.getString("last_modified")),
@@ -93,7 +104,7 @@ public class EditPostInteractor implements EditPostInputBoundary {
             postData.getInt("dislikes"),
             postData.getString("title"),
             comments,
-            postData.getString("category")
+            SharedStrings.category(postData.getString("category"))
         );
 
         return post;
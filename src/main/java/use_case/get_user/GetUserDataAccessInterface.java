@@ -1,5 +1,8 @@
 package use_case.get_user;
 
+import java.util.Collection;
+import java.util.List;
+
 import org.json.JSONObject;
 
 import entity.User;
@@ -17,5 +20,20 @@ public interface GetUserDataAccessInterface {
 
     public JSONObject getUserByEmail(String email);
 
+    /**
+     * Retrieve the public fields of the user with a specific userID.
+     * @param userID the id of the user to retrieve
+     * @return the fields read by getUsersByIds, or null if the user does not exist
+     */
+    public JSONObject getUserProfileById(String userID);
+
+    /**
+     * Looks up many users in one query, ids that don't exist are skipped.
+     * @param userIDs the ids of the users to retrieve
+     * @return the public fields of each user found, in no particular order: userId,
+     *         username, full_name and post_count
+     */
+    public List<JSONObject> getUsersByIds(Collection<String> userIDs);
+
     public User getCurrentUser();
 }
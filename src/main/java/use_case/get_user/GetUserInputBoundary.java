@@ -1,9 +1,31 @@
 package use_case.get_user;
 
+import java.util.Collection;
+import java.util.List;
+
 import entity.User;
 
 public interface GetUserInputBoundary {
     User getUserByID(GetUserInputData getUserInputData);
 
     User getCurrentUser();
+
+    /**
+     * @param getUserInputData the id of the user
+     * @return what anyone may see of the user
+     * @throws UserDoesNotExistException if there is no user with the id
+     */
+    PublicUserProfile getUserProfile(GetUserInputData getUserInputData);
+
+    /**
+     * @return what anyone may see of the logged in user, or null if nobody is logged in
+     */
+    PublicUserProfile getCurrentUserProfile();
+
+    /**
+     * Looks up the public profiles of many users at once, e.g. the authors of a page of posts.
+     * @param userIDs the ids of the users, duplicates are looked up once
+     * @return the profile of each user that exists, in no particular order
+     */
+    List<PublicUserProfile> getUserProfiles(Collection<String> userIDs);
 }
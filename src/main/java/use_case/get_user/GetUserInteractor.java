@@ -1,9 +1,10 @@
 package use_case.get_user;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
 import java.util.List;
 
-import org.json.JSONArray;
 import org.json.JSONObject;
 
 import entity.User;
@@ -34,30 +35,40 @@ public class GetUserInteractor implements GetUserInputBoundary {
         return this.userRepo.getCurrentUser();
     }
 
-    private User jsonObjectToUser(JSONObject user) {
-        JSONArray moderatingData = user.getJSONArray("moderating");
-        List<String> moderating = new ArrayList<>();
-        for (int i = 0; i < moderatingData.length(); i++){
-            moderating.add(moderatingData.getString(i));
+    @Override
+    public PublicUserProfile getUserProfile(GetUserInputData getUserInputData) {
+        final JSONObject profile = this.userRepo.getUserProfileById(getUserInputData.getUserID());
+        if (profile == null) {
+            throw new UserDoesNotExistException(
+                "User with ID " + getUserInputData.getUserID() + " does not exist");
+        }
+        return UserJsonMapper.toPublicProfile(profile);
+    }
+
+    @Override
+    public PublicUserProfile getCurrentUserProfile() {
+        final User currentUser = this.userRepo.getCurrentUser();
+        if (currentUser == null) {
+            return null;
         }
+        return new PublicUserProfile(currentUser.getUserID(), currentUser.getUsername(),
+                                     currentUser.getFullName(), currentUser.getPosts().size());
+    }
 
-        JSONArray postsData = user.getJSONArray("posts");
-        List<String> posts = new ArrayList<>();
-        for (int i = 0; i < postsData.length(); i++){
-            posts.add(postsData.getString(i));
+    @Override
+    public List<PublicUserProfile> getUserProfiles(Collection<String> userIDs) {
+        final List<PublicUserProfile> profiles = new ArrayList<>();
+        if (userIDs.isEmpty()) {
+            return profiles;
         }
 
-        User currentUser = this.userFactory.create(
-            user.getString("username"),
-            user.getString("password"),
-            user.getString("userId"),
-            user.getString("birth_date"),
-            user.getString("full_name"),
-            user.getString("email"),
-            moderating,
-            posts
-        );
-
-        return currentUser;
+        for (JSONObject user : this.userRepo.getUsersByIds(new LinkedHashSet<>(userIDs))) {
+            profiles.add(UserJsonMapper.toPublicProfile(user));
+        }
+        return profiles;
+    }
+
+    private User jsonObjectToUser(JSONObject user) {
+        return UserJsonMapper.toUser(user, this.userFactory);
     }
 }
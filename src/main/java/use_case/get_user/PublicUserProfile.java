@@ -0,0 +1,36 @@
+package use_case.get_user;
+
+/**
+ * What anyone may see of a user: their id, the names they go by and how many posts
+ * they wrote. Unlike User it carries no credentials or personal details, and its
+ * size doesn't grow with the user's posts, so it can be sent to any client.
+ */
+public class PublicUserProfile {
+    private final String userID;
+    private final String username;
+    private final String fullName;
+    private final int postCount;
+
+    public PublicUserProfile(String userID, String username, String fullName, int postCount) {
+        this.userID = userID;
+        this.username = username;
+        this.fullName = fullName;
+        this.postCount = postCount;
+    }
+
+    public String getUserID() {
+        return userID;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public String getFullName() {
+        return fullName;
+    }
+
+    public int getPostCount() {
+        return postCount;
+    }
+}
@@ -0,0 +1,45 @@
+package use_case.get_user;
+
+import java.util.Collection;
+
+import org.json.JSONObject;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Non-blocking DAO for the Get User Use Case. Mirrors GetUserDataAccessInterface,
+ * but results are published as they arrive from the database instead of blocking
+ * the calling thread.
+ */
+public interface ReactiveGetUserDataAccessInterface {
+
+    /**
+     * Retrieve the user with a specific userID.
+     * @param userID the id of the user to retrieve
+     * @return the user json data, or an empty Mono if it does not exist
+     */
+    Mono<JSONObject> getUserById(String userID);
+
+    /**
+     * Retrieve the user with a specific email.
+     * @param email the email of the user to retrieve
+     * @return the user json data, or an empty Mono if it does not exist
+     */
+    Mono<JSONObject> getUserByEmail(String email);
+
+    /**
+     * Retrieve the public fields of the user with a specific userID.
+     * @param userID the id of the user to retrieve
+     * @return the fields read by getUsersByIds, or an empty Mono if the user does not exist
+     */
+    Mono<JSONObject> getUserProfileById(String userID);
+
+    /**
+     * Looks up many users in one query, ids that don't exist are skipped.
+     * @param userIDs the ids of the users to retrieve
+     * @return the public fields of each user found, in no particular order: userId,
+     *         username, full_name and post_count
+     */
+    Flux<JSONObject> getUsersByIds(Collection<String> userIDs);
+}
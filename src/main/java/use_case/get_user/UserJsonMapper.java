@@ -0,0 +1,65 @@
+package use_case.get_user;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import entity.User;
+import entity.UserFactory;
+
+/**
+ * Converts user json data from the DAOs into User entities. Shared by the Get User
+ * interactor and the reactive request handlers so both return the same users.
+ */
+public final class UserJsonMapper {
+
+    private UserJsonMapper() {}
+
+    /**
+     * Creates a user from its json data.
+     * @param user - a user document as json.
+     * @param userFactory - the factory used to create the user.
+     * @return the User entity.
+     */
+    public static User toUser(JSONObject user, UserFactory userFactory) {
+        JSONArray moderatingData = user.getJSONArray("moderating");
+        List<String> moderating = new ArrayList<>();
+        for (int i = 0; i < moderatingData.length(); i++){
+            moderating.add(moderatingData.getString(i));
+        }
+
+        JSONArray postsData = user.getJSONArray("posts");
+        List<String> posts = new ArrayList<>();
+        for (int i = 0; i < postsData.length(); i++){
+            posts.add(postsData.getString(i));
+        }
+
+        return userFactory.create(
+            user.getString("username"),
+            user.getString("password"),
+            user.getString("userId"),
+            user.getString("birth_date"),
+            user.getString("full_name"),
+            user.getString("email"),
+            moderating,
+            posts
+        );
+    }
+
+    /**
+     * Creates a user's public profile from its json data, which may be a projection
+     * holding only the public fields.
+     * @param user - a user document as json.
+     * @return the user's public profile.
+     */
+    public static PublicUserProfile toPublicProfile(JSONObject user) {
+        return new PublicUserProfile(
+            user.getString("userId"),
+            user.getString("username"),
+            user.optString("full_name", null),
+            user.optInt("post_count", 0)
+        );
+    }
+}
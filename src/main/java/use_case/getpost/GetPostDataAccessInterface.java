@@ -1,9 +1,12 @@
 package use_case.getpost;
 
 import java.util.List;
+import java.util.function.Consumer;
 
 import org.json.JSONObject;
 
+import entity.Post;
+
 /**
  * DAO for the Get Post Use Case.
  */
@@ -30,10 +33,33 @@ public interface GetPostDataAccessInterface {
      */
     List<JSONObject> getAllPosts();
 
+    /**
+     * Passes every post in the database to the action as it is read, so the posts
+     * never have to be held in memory at once.
+     * @param action called with the json data of each post
+     */
+    void forEachPost(Consumer<JSONObject> action);
+
+    /**
+     * Retrieve the post_id, last_modified and posted_date of every post, in the
+     * order forEachPost passes them.
+     * @return a list of partial post json data
+     */
+    List<JSONObject> getAllPostVersions();
+
     /**
      * Retrieve all posts with a specific category.
      * @return a list of post json data
      */
     List<JSONObject> getPostsByCategory(String category);
 
+    /**
+     * Retrieve one page of posts, newest first.
+     * @param category the category to filter by, or null for every post
+     * @param after the last post before this page, or null for the first page
+     * @param limit the maximum number of posts to return
+     * @return a list of post json data
+     */
+    List<JSONObject> getPostsPage(String category, Post after, int limit);
+
 }
@@ -1,6 +1,7 @@
 package use_case.getpost;
 
 import java.util.List;
+import java.util.function.Consumer;
 
 import entity.Post;
 
@@ -18,8 +19,39 @@ public interface GetPostInputBoundary {
 
     List<Post> getAllPosts();
 
+    /**
+     * Passes every post to the action as it is read from the database, without
+     * collecting them or calling the presenter.
+     * @param action called with each post
+     */
+    void forEachPost(Consumer<Post> action);
+
+    /**
+     * @return the version of every post, in the order forEachPost passes them
+     */
+    List<PostVersion> getAllPostVersions();
+
     List<Post> getPostsByCategory(String category);
 
+    /**
+     * Fetches one page of the feed, newest first.
+     * @param category the category to filter by, or null for every post
+     * @param after the last post already shown, or null for the first page
+     * @param pageSize the number of posts to fetch
+     * @return the posts of the page
+     */
+    List<Post> getPostsPage(String category, Post after, int pageSize);
+
+    /**
+     * Fetches one page of the feed like getPostsPage, without calling the presenter,
+     * so it can be called from threads that don't own the view.
+     * @param category the category to filter by, or null for every post
+     * @param after the last post already shown, or null for the first page
+     * @param pageSize the number of posts to fetch
+     * @return the posts of the page
+     */
+    List<Post> readPostsPage(String category, Post after, int pageSize);
+
     void switchToPostView();
 
     void switchToHomePageView();
@@ -1,16 +1,12 @@
 package use_case.getpost;
 
-import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Consumer;
 
-import org.json.JSONArray;
 import org.json.JSONObject;
 
-import entity.Comment;
-import entity.Content;
 import entity.Post;
-import entity.PostContent;
 
 /**
  * The Get Post Interactor.
@@ -69,6 +65,20 @@ public class GetPostInteractor implements GetPostInputBoundary {
         return posts;
     }
 
+    @Override
+    public void forEachPost(Consumer<Post> action) {
+        this.postDB.forEachPost(postData -> action.accept(this.jsonToPost(postData)));
+    }
+
+    @Override
+    public List<PostVersion> getAllPostVersions() {
+        final List<PostVersion> versions = new ArrayList<>();
+        for (JSONObject postData : this.postDB.getAllPostVersions()) {
+            versions.add(PostJsonMapper.toVersion(postData));
+        }
+        return versions;
+    }
+
     @Override
     public List<Post> getPostsByCategory(String category) {
         final List<JSONObject> postDatas = this.postDB.getPostsByCategory(category);
@@ -82,6 +92,22 @@ public class GetPostInteractor implements GetPostInputBoundary {
         return posts;
     }
 
+    @Override
+    public List<Post> getPostsPage(String category, Post after, int pageSize) {
+        // One extra post tells whether there is a next page without a count query
+        final List<JSONObject> postDatas = this.postDB.getPostsPage(category, after, pageSize + 1);
+        final List<Post> posts = this.toPosts(postDatas, pageSize);
+        final GetPostOutputData pageOutputData = new GetPostOutputData(posts, after == null,
+                                                                       postDatas.size() > pageSize);
+        getPostPresenter.prepareSuccessView(pageOutputData);
+        return posts;
+    }
+
+    @Override
+    public List<Post> readPostsPage(String category, Post after, int pageSize) {
+        return this.toPosts(this.postDB.getPostsPage(category, after, pageSize), pageSize);
+    }
+
     @Override
     public void switchToPostView() {
         getPostPresenter.switchToPostView();
@@ -92,31 +118,15 @@ public class GetPostInteractor implements GetPostInputBoundary {
         getPostPresenter.switchToHomePageView();
     }
 
-    private Post jsonToPost(JSONObject postData) {
-        final Content postContent = new PostContent(postData.getString("content_body"),
-                postData.getString("attachment_path"),
-                postData.getString("file_type"));
-
-        final JSONArray commentData = postData.getJSONArray("comments");
-        final List<Comment> comments = new ArrayList<>();
-        for (int i = 0; i < commentData.length(); i++) {
-            // TODO modify when implementing the comment feature. Will likely need to change the DAO implementation
-            // Comment comment = new Comment();
-            comments.add(null);
+    private List<Post> toPosts(List<JSONObject> postDatas, int pageSize) {
+        final List<Post> posts = new ArrayList<>();
+        for (JSONObject postData : postDatas.subList(0, Math.min(postDatas.size(), pageSize))) {
+            posts.add(this.jsonToPost(postData));
         }
+        return posts;
+    }
 
-        final Post post = new Post(
-                postData.getString("post_id"),
-                postData.getString("author"),
-                postContent,
-                LocalDateTime.parse(postData.getString("posted_date")),
-                LocalDateTime.parse(postData.getString("last_modified")),
-                postData.getInt("likes"),
-                postData.getInt("dislikes"),
-                postData.getString("title"),
-                comments,
-                postData.getString("category")
-        );
-        return post;
+    private Post jsonToPost(JSONObject postData) {
+        return PostJsonMapper.toPost(postData);
     }
 }
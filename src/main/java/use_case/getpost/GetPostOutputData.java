@@ -17,6 +17,8 @@ public class GetPostOutputData {
     private final Content postContent;
     private final List<Comment> comments;
     private final List<Post> allPosts;
+    private final boolean firstPage;
+    private final boolean hasMorePosts;
 
     public GetPostOutputData(String entryID, String postTitle, Content postContent, List<Comment> comments) {
         this.entryID = entryID;
@@ -24,10 +26,24 @@ public class GetPostOutputData {
         this.postTitle = postTitle;
         this.comments = comments;
         this.allPosts = null;
+        this.firstPage = true;
+        this.hasMorePosts = false;
     }
 
     public GetPostOutputData(List<Post> allPosts) {
+        this(allPosts, true, false);
+    }
+
+    /**
+     * Output data for one page of the feed.
+     * @param allPosts the posts of the page
+     * @param firstPage whether this is the first page, rather than one after the posts already shown
+     * @param hasMorePosts whether there are posts after this page
+     */
+    public GetPostOutputData(List<Post> allPosts, boolean firstPage, boolean hasMorePosts) {
         this.allPosts = allPosts;
+        this.firstPage = firstPage;
+        this.hasMorePosts = hasMorePosts;
         this.entryID = null;
         this.postTitle = null;
         this.postContent = null;
@@ -54,6 +70,14 @@ public class GetPostOutputData {
         return allPosts;
     }
 
+    public boolean isFirstPage() {
+        return firstPage;
+    }
+
+    public boolean hasMorePosts() {
+        return hasMorePosts;
+    }
+
     /**
      * Ensure that two posts are equal if they have the same content
      * This is so that testGetPost_PresenterCalledOnSuccess test passes
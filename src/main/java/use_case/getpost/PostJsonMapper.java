@@ -0,0 +1,69 @@
+package use_case.getpost;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import entity.Comment;
+import entity.Content;
+import entity.Post;
+import entity.PostContent;
+import entity.SharedStrings;
+
+/**
+ * Converts post json data from the DAOs into Post entities. Shared by the Get Post
+ * interactor and the reactive request handlers so both return the same posts.
+ */
+public final class PostJsonMapper {
+
+    private PostJsonMapper() {}
+
+    /**
+     * Creates a post from its json data. The strings many posts repeat are shared,
+     * see SharedStrings.
+     * @param postData - a post document as json.
+     * @return the Post entity.
+     */
+    public static Post toPost(JSONObject postData) {
+        final Content postContent = new PostContent(postData.getString("content_body"),
+                postData.getString("attachment_path"),
+                SharedStrings.fileType(postData.getString("file_type")));
+
+        final JSONArray commentData = postData.getJSONArray("comments");
+        final List<Comment> comments = new ArrayList<>();
+        for (int i = 0; i < commentData.length(); i++) {
+            // TODO modify when implementing the comment feature. Will likely need to change the DAO implementation
+            // Comment comment = new Comment();
+            comments.add(null);
+        }
+
+        final Post post = new Post(
+                postData.getString("post_id"),
+                SharedStrings.author(postData.getString("author")),
+                postContent,
+                LocalDateTime.parse(postData.getString("posted_date")),
+                LocalDateTime.parse(postData.getString("last_modified")),
+                postData.getInt("likes"),
+                postData.getInt("dislikes"),
+                postData.getString("title"),
+                comments,
+                SharedStrings.category(postData.getString("category"))
+        );
+        return post;
+    }
+
+    /**
+     * Reads the version of a post from its json data, which only needs the post_id,
+     * last_modified and posted_date fields.
+     * @param postData - a post document, or a projection of one, as json.
+     * @return the PostVersion.
+     */
+    public static PostVersion toVersion(JSONObject postData) {
+        final String lastModified = postData.optString("last_modified", null);
+        return new PostVersion(postData.getString("post_id"),
+                LocalDateTime.parse(lastModified != null ? lastModified : postData.getString("posted_date")));
+    }
+}
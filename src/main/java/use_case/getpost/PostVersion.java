@@ -0,0 +1,25 @@
+package use_case.getpost;
+
+import java.time.LocalDateTime;
+
+/**
+ * Identifies one version of a post without loading its content: the post's id
+ * and when it was last modified, or posted if it never was.
+ */
+public class PostVersion {
+    private final String entryID;
+    private final LocalDateTime lastModified;
+
+    public PostVersion(String entryID, LocalDateTime lastModified) {
+        this.entryID = entryID;
+        this.lastModified = lastModified;
+    }
+
+    public String getEntryID() {
+        return entryID;
+    }
+
+    public LocalDateTime getLastModified() {
+        return lastModified;
+    }
+}
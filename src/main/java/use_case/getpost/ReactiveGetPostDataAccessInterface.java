@@ -0,0 +1,40 @@
+package use_case.getpost;
+
+import org.json.JSONObject;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Non-blocking DAO for the Get Post Use Case. Mirrors GetPostDataAccessInterface,
+ * but results are published as they arrive from the database instead of blocking
+ * the calling thread.
+ */
+public interface ReactiveGetPostDataAccessInterface {
+
+    /**
+     * Retrieve the post with a specific entryID.
+     * @param entryID the entryID of the Post to retrieve
+     * @return the post json data, or an empty Mono if it does not exist
+     */
+    Mono<JSONObject> getPostByEntryID(String entryID);
+
+    /**
+     * Retrieve all posts in the database.
+     * @return the post json data
+     */
+    Flux<JSONObject> getAllPosts();
+
+    /**
+     * Retrieve the post_id, last_modified and posted_date of every post, in the
+     * order getAllPosts publishes them.
+     * @return the partial post json data
+     */
+    Flux<JSONObject> getAllPostVersions();
+
+    /**
+     * Retrieve all posts with a specific category.
+     * @return the post json data
+     */
+    Flux<JSONObject> getPostsByCategory(String category);
+}
@@ -0,0 +1,32 @@
+package use_case.post_events;
+
+import entity.Post;
+
+/**
+ * Told by the create, edit and delete post interactors about every post they
+ * changed, once the change was handed to the DAO.
+ */
+public interface PostEventListener {
+    PostEventListener NONE = new PostEventListener() {
+        @Override
+        public void postCreated(Post post) {
+        }
+
+        @Override
+        public void postEdited(Post post) {
+        }
+
+        @Override
+        public void postDeleted(String postID) {
+        }
+    };
+
+    void postCreated(Post post);
+
+    /**
+     * @param post - the post as it is after the edit.
+     */
+    void postEdited(Post post);
+
+    void postDeleted(String postID);
+}
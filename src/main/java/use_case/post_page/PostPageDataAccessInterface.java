@@ -0,0 +1,19 @@
+package use_case.post_page;
+
+import java.util.List;
+
+import org.json.JSONObject;
+
+/**
+ * DAO for the comments shown on a post page.
+ */
+public interface PostPageDataAccessInterface {
+
+    /**
+     * Retrieve the oldest comments of a post.
+     * @param postID the entryID of the post the comments belong to
+     * @param limit the maximum number of comments to retrieve
+     * @return a list of comment json data, oldest first
+     */
+    List<JSONObject> getCommentsByPostID(String postID, int limit);
+}
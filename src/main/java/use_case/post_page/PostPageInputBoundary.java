@@ -0,0 +1,15 @@
+package use_case.post_page;
+
+/**
+ * The input boundary for the Post Page Use Case.
+ */
+public interface PostPageInputBoundary {
+
+    /**
+     * Loads everything needed to render a post page in one call.
+     * @param postPageInputData the post page input data
+     * @return the post, its author and its first page of comments
+     * @throws use_case.getpost.PostNotFoundException if the post does not exist
+     */
+    PostPageOutputData getPostPage(PostPageInputData postPageInputData);
+}
@@ -0,0 +1,22 @@
+package use_case.post_page;
+
+/**
+ * The Input Data for the Post Page Use Case.
+ */
+public class PostPageInputData {
+    private final String postID;
+    private final int commentLimit;
+
+    public PostPageInputData(String postID, int commentLimit) {
+        this.postID = postID;
+        this.commentLimit = commentLimit;
+    }
+
+    public String getPostID() {
+        return postID;
+    }
+
+    public int getCommentLimit() {
+        return commentLimit;
+    }
+}
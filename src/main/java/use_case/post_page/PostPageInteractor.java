@@ -0,0 +1,119 @@
+package use_case.post_page;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+
+import org.json.JSONObject;
+
+import entity.Comment;
+import entity.CommentContent;
+import entity.Content;
+import entity.Post;
+import entity.SharedStrings;
+import use_case.get_user.GetUserInputBoundary;
+import use_case.get_user.GetUserInputData;
+import use_case.get_user.PublicUserProfile;
+import use_case.get_user.UserDoesNotExistException;
+import use_case.getpost.GetPostDataAccessInterface;
+import use_case.getpost.PostJsonMapper;
+import use_case.getpost.PostNotFoundException;
+
+/**
+ * The Post Page Interactor.
+ * <p/>
+ * The post and its comments are fetched at the same time, and the author is fetched
+ * as soon as the post says who it is. The page then takes as long as the slower of
+ * the two chains instead of the sum of every round trip.
+ */
+public class PostPageInteractor implements PostPageInputBoundary {
+    private final GetPostDataAccessInterface postDB;
+    private final PostPageDataAccessInterface commentDB;
+    private final GetUserInputBoundary getUserInteractor;
+    private final Executor executor;
+
+    /**
+     * @param executor - runs the lookups, should be bounded since every page load
+     *                   submits up to three tasks.
+     */
+    public PostPageInteractor(GetPostDataAccessInterface postDB,
+                              PostPageDataAccessInterface commentDB,
+                              GetUserInputBoundary getUserInteractor,
+                              Executor executor) {
+        this.postDB = postDB;
+        this.commentDB = commentDB;
+        this.getUserInteractor = getUserInteractor;
+        this.executor = executor;
+    }
+
+    @Override
+    public PostPageOutputData getPostPage(PostPageInputData postPageInputData) {
+        final String postID = postPageInputData.getPostID();
+        if (postID == null) {
+            throw new PostNotFoundException(null);
+        }
+
+        final CompletableFuture<Post> post = CompletableFuture.supplyAsync(
+            () -> this.fetchPost(postID), this.executor);
+        final CompletableFuture<PublicUserProfile> author = post.thenApplyAsync(
+            retrievedPost -> this.fetchAuthor(retrievedPost.getAuthor()), this.executor);
+        final CompletableFuture<List<Comment>> comments = CompletableFuture.supplyAsync(
+            () -> this.fetchComments(postID, postPageInputData.getCommentLimit()), this.executor);
+
+        try {
+            CompletableFuture.allOf(author, comments).join();
+            return new PostPageOutputData(post.join(), author.join(), comments.join());
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) ex.getCause();
+            }
+            throw ex;
+        }
+    }
+
+    private Post fetchPost(String postID) {
+        final JSONObject postData = this.postDB.getPostByEntryID(postID);
+        if (postData == null) {
+            throw new PostNotFoundException(postID);
+        }
+        return PostJsonMapper.toPost(postData);
+    }
+
+    private PublicUserProfile fetchAuthor(String authorID) {
+        try {
+            return this.getUserInteractor.getUserProfile(new GetUserInputData(authorID));
+        } catch (UserDoesNotExistException ex) {
+            // The post stays readable when its author deleted their account
+            return null;
+        }
+    }
+
+    private List<Comment> fetchComments(String postID, int limit) {
+        final List<Comment> comments = new ArrayList<>();
+        for (JSONObject commentData : this.commentDB.getCommentsByPostID(postID, limit)) {
+            comments.add(this.jsonToComment(commentData));
+        }
+        return comments;
+    }
+
+    private Comment jsonToComment(JSONObject commentData) {
+        final Content commentContent = new CommentContent(commentData.getString("content_body"),
+                commentData.optString("attachment_path", null),
+                SharedStrings.fileType(commentData.optString("file_type", null)));
+
+        final String lastModified = commentData.optString("last_modified", null);
+        return new Comment(
+                commentData.getString("comment_id"),
+                SharedStrings.author(commentData.getString("author")),
+                commentContent,
+                LocalDateTime.parse(commentData.getString("posted_date")),
+                lastModified == null ? null : LocalDateTime.parse(lastModified),
+                commentData.optInt("likes", 0),
+                commentData.optInt("dislikes", 0),
+                new ArrayList<>()
+        );
+    }
+}
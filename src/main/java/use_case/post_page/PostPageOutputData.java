@@ -0,0 +1,39 @@
+package use_case.post_page;
+
+import java.util.List;
+
+import entity.Comment;
+import entity.Post;
+import use_case.get_user.PublicUserProfile;
+
+/**
+ * The Output Data for the Post Page Use Case.
+ */
+public class PostPageOutputData {
+    private final Post post;
+    private final PublicUserProfile author;
+    private final List<Comment> comments;
+
+    /**
+     * @param post - the post shown on the page.
+     * @param author - the author of the post, null if the author no longer exists.
+     * @param comments - the first page of comments under the post.
+     */
+    public PostPageOutputData(Post post, PublicUserProfile author, List<Comment> comments) {
+        this.post = post;
+        this.author = author;
+        this.comments = comments;
+    }
+
+    public Post getPost() {
+        return post;
+    }
+
+    public PublicUserProfile getAuthor() {
+        return author;
+    }
+
+    public List<Comment> getComments() {
+        return comments;
+    }
+}
@@ -2,13 +2,18 @@ package view;
 
 import javax.swing.*;
 import java.awt.*;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
 import java.beans.PropertyChangeEvent;
 import java.beans.PropertyChangeListener;
 
+import controller.ErrorSet;
+import controller.StateChange;
+import controller.ViewModel;
 import controller.create_post.CreatePostController;
 import controller.create_post.CreatePostViewModel;
+import controller.homepage.HomepageChange;
 import controller.homepage.HomepageController;
-import controller.homepage.HomepageState;
 import controller.homepage.HomepageViewModel;
 import controller.logout.LogoutController;
 import controller.post.PostController;
@@ -22,11 +27,21 @@ import java.util.List;
  */
 public class HomePageView extends JPanel implements PropertyChangeListener {
     private final String viewName = "home page";
+    private final String FEED_CARD = "feed";
+    private final String LOADING_CARD = "loading";
+    // The next page is requested once the last visible row is this close to the end
+    private final int PREFETCH_ROWS = 3;
+    private final int ROW_PADDING = 10;
 
     private final JPanel mainContent = new JPanel(new BorderLayout());
     private final JPanel homepage = new JPanel();
-    private final JPanel contentArea = new JPanel();
+    private final CardLayout feedLayout = new CardLayout();
+    private final JPanel contentArea = new JPanel(feedLayout);
+    private final DefaultListModel<Post> feedModel = new DefaultListModel<>();
+    private final JList<Post> feed = new JList<>(feedModel);
+    private final PostCellRenderer postCellRenderer = new PostCellRenderer();
     private final JPanel rightPaddingPanel = new JPanel();
+    private final JLabel loadingLabel = new JLabel("Loading posts...", SwingConstants.CENTER);
 
     private final HomepageController homepageController;
     private final CreatePostController createPostController;
@@ -60,16 +75,31 @@ public class HomePageView extends JPanel implements PropertyChangeListener {
         final JPanel navigationPanel = new NavigationPane(homepage, this.homepageViewModel, this.homepageController).getNavigationPane();
         homepage.add(navigationPanel, BorderLayout.WEST);
 
-        // Add center panel to display post previews
-        this.contentArea.setLayout(new BoxLayout(contentArea, BoxLayout.Y_AXIS));
-        this.contentArea.setBackground(Color.WHITE);
+        // Add center panel to display post previews. The list only paints the rows on
+        // screen with a single renderer, so a long feed costs no more than a short one
+        this.feed.setCellRenderer(this.postCellRenderer);
+        this.feed.setFixedCellHeight(StyleConstants.POST_HEIGHT + ROW_PADDING);
+        this.feed.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+        this.feed.addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent evt) {
+                clickPost(feed.locationToIndex(evt.getPoint()), evt.getPoint());
+            }
+        });
 
         // Scroll bar
-        final JScrollPane scrollPane = new JScrollPane(contentArea);
+        final JScrollPane scrollPane = new JScrollPane(feed);
         scrollPane.setHorizontalScrollBarPolicy(ScrollPaneConstants.HORIZONTAL_SCROLLBAR_NEVER);
         scrollPane.setVerticalScrollBarPolicy(ScrollPaneConstants.VERTICAL_SCROLLBAR_AS_NEEDED);
-        scrollPane.setPreferredSize(new Dimension(800, 550));
-        homepage.add(scrollPane, BorderLayout.CENTER);
+        scrollPane.getVerticalScrollBar().setUnitIncrement(16);
+        scrollPane.getViewport().addChangeListener(e -> fetchMoreIfNearEnd());
+
+        this.loadingLabel.setOpaque(true);
+        this.loadingLabel.setBackground(Color.WHITE);
+        this.contentArea.add(scrollPane, FEED_CARD);
+        this.contentArea.add(loadingLabel, LOADING_CARD);
+        this.contentArea.setPreferredSize(new Dimension(800, 550));
+        homepage.add(contentArea, BorderLayout.CENTER);
 
         // Add right panel to center posts and also leave space for future features
         this.rightPaddingPanel.setBackground(StyleConstants.PANEL_COLOR);
@@ -110,14 +140,15 @@ public class HomePageView extends JPanel implements PropertyChangeListener {
 
     @Override
     public void propertyChange(PropertyChangeEvent evt) {
-        final HomepageState state = (HomepageState) evt.getNewValue();
-        this.loadPosts(state.getPosts());
-
-        if (state.getPostsError() != null) {
-            JOptionPane.showMessageDialog(this, state.getPostsError());
-        } else if (state.getCurrentUserError() != null) {
-            JOptionPane.showMessageDialog(this, state.getCurrentUserError());
-        } 
+        if (!ViewModel.CHANGES.equals(evt.getPropertyName())) {
+            return;
+        }
+
+        @SuppressWarnings("unchecked")
+        final List<StateChange> changes = (List<StateChange>) evt.getNewValue();
+        for (StateChange change : changes) {
+            this.applyChange(change);
+        }
     }
 
     public String getViewName() {
@@ -128,22 +159,50 @@ public class HomePageView extends JPanel implements PropertyChangeListener {
         this.homepageController.fetchAllPosts();
     }
     
-    private void loadPosts(List<Post> posts) {
-        this.contentArea.removeAll();
-        for (Post post : posts) {
-            this.contentArea.add(new PostBox(
-                post.getPostTitle(), post.getContent().getBody(), 
-                post.getEntryID(), homepage, homepageController, postController).getPostBox());
+    private void applyChange(StateChange change) {
+        if (change instanceof HomepageChange.LoadingChanged) {
+            if (((HomepageChange.LoadingChanged) change).isLoading()) {
+                this.feedModel.clear();
+                this.feedLayout.show(this.contentArea, LOADING_CARD);
+            } else {
+                this.feedLayout.show(this.contentArea, FEED_CARD);
+            }
+        } else if (change instanceof HomepageChange.PostsReplaced) {
+            this.feedModel.clear();
+            this.feedModel.addAll(((HomepageChange.PostsReplaced) change).getPosts());
+            this.feed.ensureIndexIsVisible(0);
+            // A short page may not fill the viewport, so there'd be no scroll to trigger the next one
+            SwingUtilities.invokeLater(this::fetchMoreIfNearEnd);
+        } else if (change instanceof HomepageChange.PostsAppended) {
+            this.feedModel.addAll(((HomepageChange.PostsAppended) change).getPosts());
+            SwingUtilities.invokeLater(this::fetchMoreIfNearEnd);
+        } else if (change instanceof ErrorSet && ((ErrorSet) change).getMessage() != null) {
+            JOptionPane.showMessageDialog(this, ((ErrorSet) change).getMessage());
+        }
+    }
+
+    private void fetchMoreIfNearEnd() {
+        final int lastVisible = this.feed.getLastVisibleIndex();
+        if (this.feedModel.getSize() > 0 && lastVisible >= this.feedModel.getSize() - 1 - PREFETCH_ROWS) {
+            this.homepageController.fetchNextPage();
         }
-        revalidate();
-        repaint();
     }
-    // For testing purposes
-    private void addDummyPost() {
-        this.contentArea.add(new PostBox(
-        "Test post", 
-        "This is a test post",
-        "1191bb2a-8870-4d3d-87f2-8c4ec522d793", 
-        homepage, homepageController, postController).getPostBox());
+
+    private void clickPost(int index, Point clickedPoint) {
+        // locationToIndex returns the closest row even when the click is below the last one
+        if (index < 0 || !this.feed.getCellBounds(index, index).contains(clickedPoint)) {
+            return;
+        }
+        final String postId = this.feedModel.get(index).getEntryID();
+        final String button = this.postCellRenderer.buttonAt(this.feed, index, clickedPoint);
+        if (PostCellRenderer.LIKE.equals(button)) {
+            JOptionPane.showMessageDialog(null, "Liked post " + postId);
+        } else if (PostCellRenderer.DISLIKE.equals(button)) {
+            JOptionPane.showMessageDialog(null, "Disliked post " + postId);
+        } else {
+            // View Post, or anywhere else on the preview
+            this.postController.execute(postId);
+            this.homepageController.switchToLoginView();
+        }
     }
 }
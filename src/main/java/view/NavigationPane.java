@@ -46,7 +46,6 @@ public class NavigationPane {
             } else {
                 button.addActionListener(e -> {
                     String category = button.getText();
-                    System.out.println(category);
                     homepageController.getPostsByCategory(category);
                     homepageController.switchToHomePageView();
                 });
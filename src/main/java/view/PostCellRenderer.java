@@ -0,0 +1,111 @@
+package view;
+
+import entity.Post;
+
+import javax.swing.*;
+import java.awt.*;
+
+/**
+ * Draws a post preview in the home page feed. One renderer is shared by every
+ * row, the JList only asks it to paint the rows that are on screen.
+ * <p/>
+ * The buttons of a row are only painted, the JList gets the clicks. buttonAt
+ * tells which of them a click landed on, by laying the renderer out over the row.
+ */
+public class PostCellRenderer implements ListCellRenderer<Post> {
+    public static final String LIKE = "Like";
+    public static final String DISLIKE = "Dislike";
+    public static final String VIEW_POST = "View Post";
+
+    // Only as much of the body as fits the preview is laid out
+    private final int PREVIEW_LENGTH = 300;
+
+    private final JPanel postBox = new JPanel(new BorderLayout());
+    private final JLabel postTitle = new JLabel();
+    private final JTextArea postContent = new JTextArea();
+    private final JPanel buttonPanel = new JPanel(new FlowLayout(FlowLayout.RIGHT));
+
+    public PostCellRenderer() {
+        postBox.setBorder(BorderFactory.createCompoundBorder(
+                BorderFactory.createLineBorder(Color.GRAY, 1),
+                BorderFactory.createEmptyBorder(10, 10, 10, 10)));
+        postBox.setBackground(Color.WHITE);
+
+        // Post title
+        postTitle.setForeground(Color.DARK_GRAY);
+        postTitle.setBorder(BorderFactory.createEmptyBorder(5, 0, 5, 0));
+        postBox.add(postTitle, BorderLayout.NORTH);
+
+        // Post content
+        postContent.setFont(new Font(StyleConstants.FONT_TYPE, Font.PLAIN, 14));
+        postContent.setForeground(Color.BLACK);
+        postContent.setLineWrap(true);
+        postContent.setWrapStyleWord(true);
+        postContent.setEditable(false);
+        postContent.setBackground(new Color(245, 245, 245));
+        postContent.setBorder(BorderFactory.createCompoundBorder(
+                BorderFactory.createLineBorder(Color.LIGHT_GRAY, 1),
+                BorderFactory.createEmptyBorder(5, 5, 5, 5))); // padding
+        postBox.add(postContent, BorderLayout.CENTER);
+
+        buttonPanel.setBorder(BorderFactory.createEmptyBorder(10, 0, 0, 0)); // Spacing from content
+        buttonPanel.setBackground(Color.WHITE);
+        buttonPanel.add(createStyledButton(LIKE));
+        buttonPanel.add(createStyledButton(DISLIKE));
+        buttonPanel.add(createStyledButton(VIEW_POST));
+        postBox.add(buttonPanel, BorderLayout.SOUTH);
+    }
+
+    @Override
+    public Component getListCellRendererComponent(JList<? extends Post> list, Post post, int index,
+                                                  boolean isSelected, boolean cellHasFocus) {
+        final String body = post.getContent().getBody();
+        postTitle.setText(post.getPostTitle());
+        postContent.setText(body.length() > PREVIEW_LENGTH ? body.substring(0, PREVIEW_LENGTH) + "..." : body);
+        postBox.setBackground(isSelected ? new Color(230, 230, 230) : Color.WHITE);
+        buttonPanel.setBackground(postBox.getBackground());
+        return postBox;
+    }
+
+    /**
+     * @param point - where the list was clicked.
+     * @return the text of the button of the row that was clicked, null if the click missed them.
+     */
+    public String buttonAt(JList<Post> list, int index, Point point) {
+        final Rectangle bounds = list.getCellBounds(index, index);
+        if (bounds == null || !bounds.contains(point)) {
+            return null;
+        }
+        final Component row = this.getListCellRendererComponent(list, list.getModel().getElementAt(index), index,
+                                                                false, false);
+        row.setBounds(bounds);
+        layOut(row);
+        final Component clicked = SwingUtilities.getDeepestComponentAt(row, point.x - bounds.x, point.y - bounds.y);
+        return clicked instanceof JButton ? ((JButton) clicked).getText() : null;
+    }
+
+    // validate does nothing for a component that isn't on screen, as a renderer never is
+    private static void layOut(Component component) {
+        if (component instanceof Container) {
+            ((Container) component).doLayout();
+            for (Component child : ((Container) component).getComponents()) {
+                layOut(child);
+            }
+        }
+    }
+
+    private static JButton createStyledButton(String text) {
+        final JButton button = new JButton(text);
+        button.setFont(new Font(StyleConstants.FONT_TYPE, Font.PLAIN, 12));
+        // Light gray background for button
+        button.setBackground(new Color(230, 230, 230));
+        button.setForeground(Color.DARK_GRAY);
+        button.setBorder(BorderFactory.createCompoundBorder(
+                BorderFactory.createLineBorder(Color.GRAY, 1),
+                // Padding inside button
+                BorderFactory.createEmptyBorder(5, 15, 5, 15)));
+        // Removes the box appearing when clicking on button
+        button.setFocusPainted(false);
+        return button;
+    }
+}
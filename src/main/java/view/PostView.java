@@ -1,8 +1,12 @@
 package view;
 
+import controller.ErrorSet;
+import controller.StateChange;
+import controller.ViewModel;
 import controller.homepage.HomepageController;
 import controller.homepage.HomepageViewModel;
 import controller.logout.LogoutController;
+import controller.post.PostChange;
 import controller.post.PostController;
 import controller.post.PostState;
 import controller.post.PostViewModel;
@@ -105,30 +109,31 @@ public class PostView extends JPanel implements PropertyChangeListener {
 
     @Override
     public void propertyChange(PropertyChangeEvent evt) {
-        final PostState state = (PostState) evt.getNewValue();
-        this.setPostTitle(state);
-        this.setPostContent(state);
-        this.setComments(state);
-
-        if (state.getPostContentError() != null) {
-            JOptionPane.showMessageDialog(this, state.getPostContentError());
-        } else if (state.getCommentsError() != null) {
-            JOptionPane.showMessageDialog(this, state.getPostContent());
-        } 
-    }
-
-    private void setPostTitle(PostState state) {
-        this.postTitle.setText(state.getPostTitle());
-    }
+        if (!ViewModel.CHANGES.equals(evt.getPropertyName())) {
+            return;
+        }
 
-    private void setPostContent(PostState state) {
-        this.postContent.setText(state.getPostContent());
+        @SuppressWarnings("unchecked")
+        final List<StateChange> changes = (List<StateChange>) evt.getNewValue();
+        for (StateChange change : changes) {
+            if (change instanceof PostChange.TitleChanged) {
+                this.postTitle.setText(((PostChange.TitleChanged) change).getTitle());
+            } else if (change instanceof PostChange.ContentChanged) {
+                this.postContent.setText(((PostChange.ContentChanged) change).getContent());
+            } else if (change instanceof PostChange.CommentsReplaced) {
+                this.setComments(((PostChange.CommentsReplaced) change).getComments());
+            } else if (change instanceof ErrorSet) {
+                final ErrorSet error = (ErrorSet) change;
+                if (PostState.POST_CONTENT_FIELD.equals(error.getField()) && error.getMessage() != null) {
+                    JOptionPane.showMessageDialog(this, error.getMessage());
+                }
+            }
+        }
     }
 
-    private void setComments(PostState state) {
+    private void setComments(List<Comment> comments) {
         this.commentsPanel.removeAll();
 
-        List<Comment> comments = state.getComments();
         for (Comment comment : comments) {
             JLabel commentLabel = new JLabel(comment.getContent().getBody());
             commentLabel.setFont(new Font(FONT_TYPE, Font.PLAIN, 12));
@@ -137,5 +142,7 @@ public class PostView extends JPanel implements PropertyChangeListener {
             // TODO Add content texts from the comment
             commentsPanel.add(commentLabel);
         }
+        this.commentsPanel.revalidate();
+        this.commentsPanel.repaint();
     }
-}
\ No newline at end of file
+}
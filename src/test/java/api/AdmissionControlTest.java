@@ -0,0 +1,124 @@
+package api;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class AdmissionControlTest {
+    private static final String ADDRESS = "10.0.0.1";
+    private static final long LATENCY_THRESHOLD_NANOS = TimeUnit.MILLISECONDS.toNanos(250);
+
+    private final AtomicLong now = new AtomicLong(1_000_000_000L);
+    private final AtomicLong databaseLatency = new AtomicLong();
+
+    @Test
+    void BucketRefillsOverTimeTest() {
+        final TokenBucketRateLimiter limiter = new TokenBucketRateLimiter(2, Duration.ofSeconds(1), 10, this.now::get);
+
+        assertEquals(0, limiter.tryAcquire(ADDRESS));
+        assertEquals(0, limiter.tryAcquire(ADDRESS));
+        assertEquals(TimeUnit.SECONDS.toNanos(1), limiter.tryAcquire(ADDRESS));
+        // Other keys have buckets of their own
+        assertEquals(0, limiter.tryAcquire("10.0.0.2"));
+
+        this.now.addAndGet(TimeUnit.MILLISECONDS.toNanos(400));
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(600), limiter.tryAcquire(ADDRESS));
+
+        this.now.addAndGet(TimeUnit.MILLISECONDS.toNanos(600));
+        assertEquals(0, limiter.tryAcquire(ADDRESS));
+        assertTrue(limiter.tryAcquire(ADDRESS) > 0);
+
+        // Never more than the capacity, however long it was left
+        this.now.addAndGet(TimeUnit.HOURS.toNanos(1));
+        assertEquals(0, limiter.tryAcquire(ADDRESS));
+        assertEquals(0, limiter.tryAcquire(ADDRESS));
+        assertTrue(limiter.tryAcquire(ADDRESS) > 0);
+    }
+
+    @Test
+    void RateLimitedClientIsToldWhenToRetryTest() {
+        final AdmissionControl admissionControl = this.admissionControl(1, Set.of());
+
+        assertEquals(0, admissionControl.admit(ADDRESS));
+        admissionControl.release();
+
+        // A refill every 500ms is rounded up to a whole second
+        assertEquals(1, admissionControl.admit(ADDRESS));
+    }
+
+    @Test
+    void InFlightRequestsAreCappedTest() {
+        final AdmissionControl admissionControl = this.admissionControl(100, Set.of());
+        for (int i = 0; i < 32; i++) {
+            assertEquals(0, admissionControl.admit(ADDRESS));
+        }
+
+        assertEquals(1, admissionControl.admit(ADDRESS));
+
+        admissionControl.release();
+        assertEquals(0, admissionControl.admit(ADDRESS));
+    }
+
+    @Test
+    void FewerRequestsAreAdmittedWhileMongoIsSlowTest() {
+        final AdmissionControl admissionControl = this.admissionControl(100, Set.of());
+        this.databaseLatency.set(LATENCY_THRESHOLD_NANOS + 1);
+        for (int i = 0; i < 4; i++) {
+            assertEquals(0, admissionControl.admit(ADDRESS));
+        }
+
+        assertEquals(1, admissionControl.admit(ADDRESS));
+
+        // Once it keeps up again, the full limit applies
+        this.databaseLatency.set(LATENCY_THRESHOLD_NANOS);
+        assertEquals(0, admissionControl.admit(ADDRESS));
+    }
+
+    @Test
+    void ExemptAddressSkipsItsBucketOnlyTest() {
+        final AdmissionControl admissionControl = this.admissionControl(1, Set.of(ADDRESS));
+        for (int i = 0; i < 32; i++) {
+            assertEquals(0, admissionControl.admit(ADDRESS));
+        }
+
+        assertEquals(1, admissionControl.admit(ADDRESS));
+    }
+
+    @Test
+    void InterceptorAnswersRejectedRequestsWith429Test() throws Exception {
+        final AdmissionInterceptor interceptor = new AdmissionInterceptor(this.admissionControl(1, Set.of()));
+        final MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/v1/create-post");
+        request.setRemoteAddr(ADDRESS);
+
+        final MockHttpServletResponse admitted = new MockHttpServletResponse();
+        assertTrue(interceptor.preHandle(request, admitted, null));
+        interceptor.afterCompletion(request, admitted, null, null);
+
+        final MockHttpServletResponse rejected = new MockHttpServletResponse();
+        assertFalse(interceptor.preHandle(request, rejected, null));
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS.value(), rejected.getStatus());
+        assertEquals("1", rejected.getHeader(HttpHeaders.RETRY_AFTER));
+        assertEquals(AdmissionControl.rejectedMessage(), rejected.getContentAsString());
+    }
+
+    /**
+     * The limits AppConfig sets, 32 in flight or 4 while MongoDB is slow, with a bucket refilled every 500ms.
+     */
+    private AdmissionControl admissionControl(int burst, Set<String> exemptAddresses) {
+        final TokenBucketRateLimiter addressLimiter = new TokenBucketRateLimiter(
+            burst, Duration.ofMillis(500), 10, this.now::get);
+        return new AdmissionControl(addressLimiter, exemptAddresses, 32, 4, LATENCY_THRESHOLD_NANOS,
+                                    this.databaseLatency::get, new SimpleMeterRegistry());
+    }
+}
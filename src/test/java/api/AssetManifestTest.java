@@ -0,0 +1,44 @@
+package api;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.ClassPathResource;
+
+class AssetManifestTest {
+
+    @Test
+    void BundleResolvesToItsHashedFileTest() {
+        final AssetManifest assetManifest = AssetManifest.load(new ByteArrayResource(
+            "{\"js/home_page/app.js\": \"js/home_page/app.3f2a9c.js\"}".getBytes(StandardCharsets.UTF_8)));
+
+        assertEquals("/js/home_page/app.3f2a9c.js", assetManifest.resolve("/js/home_page/app.js"));
+        assertEquals(Set.of("/js/home_page/app.3f2a9c.js"), assetManifest.getFingerprintedPaths());
+    }
+
+    @Test
+    void UnlistedBundleKeepsItsLogicalPathTest() {
+        final AssetManifest assetManifest = AssetManifest.load(new ByteArrayResource(
+            "{\"js/home_page/app.js\": \"js/home_page/app.3f2a9c.js\"}".getBytes(StandardCharsets.UTF_8)));
+
+        assertEquals("/js/post/app.js", assetManifest.resolve("/js/post/app.js"));
+    }
+
+    @Test
+    void MissingManifestServesLogicalPathsTest() {
+        final AssetManifest assetManifest = AssetManifest.load(new ClassPathResource("static/no-such-manifest.json"));
+
+        assertEquals("/js/post/app.js", assetManifest.resolve("/js/post/app.js"));
+        assertEquals(Set.of(), assetManifest.getFingerprintedPaths());
+    }
+
+    @Test
+    void UnreadableManifestFailsStartupTest() {
+        assertThrows(IllegalStateException.class, () -> AssetManifest.load(new ByteArrayResource(
+            "not json".getBytes(StandardCharsets.UTF_8))));
+    }
+}
@@ -0,0 +1,211 @@
+package api;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import daos.AttachmentStore;
+import daos.AttachmentVariants;
+
+class AttachmentControllerTest {
+    private static final byte[] CONTENT = "Not really a PNG".getBytes(StandardCharsets.UTF_8);
+    private static final String TAG = "\"tag\"";
+
+    @TempDir
+    Path directory;
+
+    private AttachmentStore attachmentStore;
+    private AttachmentVariants attachmentVariants;
+    private String id;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        this.attachmentStore = AttachmentStore.open(this.directory, 1_000_000);
+        this.attachmentVariants = mock(AttachmentVariants.class);
+        try (AttachmentStore.Upload upload = this.attachmentStore.begin()) {
+            upload.write(new ByteArrayInputStream(CONTENT));
+            this.id = upload.commit().id();
+        }
+    }
+
+    @Test
+    void WidthThatMakesNoSenseIsIgnoredTest() {
+        assertNull(AttachmentController.widthOf(null));
+        assertNull(AttachmentController.widthOf("0"));
+        assertNull(AttachmentController.widthOf("-5"));
+        assertNull(AttachmentController.widthOf("abc"));
+        assertEquals(320, AttachmentController.widthOf("320"));
+    }
+
+    @Test
+    void ImageWithoutCopiesYetIsSentAsIsWithNoCacheTest() {
+        final AttachmentController.Download download = AttachmentController.downloadOf(
+            this.attachmentStore, this.attachmentVariants, this.id + ".png", 320);
+
+        assertEquals(this.attachmentStore.find(this.id), download.file());
+        assertEquals("\"" + this.id + "\"", download.tag());
+        assertEquals("\"" + this.id + "\"", download.headers().getETag());
+        // Asked again, so the client gets the copy once there is one
+        assertEquals(CacheControl.noCache().getHeaderValue(), download.headers().getCacheControl());
+        assertEquals(MediaType.IMAGE_PNG, download.headers().getContentType());
+        verify(this.attachmentVariants).generate(this.id);
+    }
+
+    @Test
+    void CopyThatFitsIsSentWithItsOwnTagTest() {
+        final Path copy = this.directory.resolve("copy");
+        final AttachmentVariants.Manifest manifest = mock(AttachmentVariants.Manifest.class);
+        when(manifest.fitting(320)).thenReturn(new AttachmentVariants.Variant(copy, 400, "image/jpeg"));
+        when(this.attachmentVariants.manifestOf(this.id)).thenReturn(manifest);
+
+        final AttachmentController.Download download = AttachmentController.downloadOf(
+            this.attachmentStore, this.attachmentVariants, this.id + ".png", 320);
+
+        assertEquals(copy, download.file());
+        assertEquals("\"" + this.id + "-400\"", download.tag());
+        assertEquals("\"" + this.id + "-400\"", download.headers().getETag());
+        assertEquals(MediaType.IMAGE_JPEG, download.headers().getContentType());
+        assertEquals(AttachmentController.CACHE_POLICY.getHeaderValue(), download.headers().getCacheControl());
+        verify(this.attachmentVariants, never()).generate(anyString());
+    }
+
+    @Test
+    void OriginalIsSentWhenNoCopyFitsTest() {
+        final AttachmentVariants.Manifest manifest = mock(AttachmentVariants.Manifest.class);
+        when(this.attachmentVariants.manifestOf(this.id)).thenReturn(manifest);
+
+        final AttachmentController.Download download = AttachmentController.downloadOf(
+            this.attachmentStore, this.attachmentVariants, this.id + ".png", 4000);
+
+        assertEquals(this.attachmentStore.find(this.id), download.file());
+        assertEquals("\"" + this.id + "\"", download.tag());
+        assertEquals(AttachmentController.CACHE_POLICY.getHeaderValue(), download.headers().getCacheControl());
+    }
+
+    @Test
+    void UnknownAttachmentIsNotFoundTest() {
+        assertNull(AttachmentController.downloadOf(this.attachmentStore, this.attachmentVariants, "missing.png", null));
+    }
+
+    @Test
+    void SingleRangeIsSentPartiallyTest() {
+        assertEquals(new AttachmentController.Region(0, 4, true),
+                     AttachmentController.regionOf("bytes=0-3", null, TAG, 16));
+        // Open ended, and past the end, are cut at the end
+        assertEquals(new AttachmentController.Region(10, 16, true),
+                     AttachmentController.regionOf("bytes=10-", null, TAG, 16));
+        assertEquals(new AttachmentController.Region(10, 16, true),
+                     AttachmentController.regionOf("bytes=10-100", null, TAG, 16));
+        assertEquals("bytes 0-3/16", new AttachmentController.Region(0, 4, true).contentRange(16));
+    }
+
+    @Test
+    void SuffixRangeIsTheLastBytesTest() {
+        assertEquals(new AttachmentController.Region(12, 16, true),
+                     AttachmentController.regionOf("bytes=-4", null, TAG, 16));
+        // Longer than the attachment, the whole of it
+        assertEquals(new AttachmentController.Region(0, 16, true),
+                     AttachmentController.regionOf("bytes=-100", null, TAG, 16));
+    }
+
+    @Test
+    void WholeAttachmentIsSentUnlessOneValidRangeIsAskedForTest() {
+        final AttachmentController.Region whole = new AttachmentController.Region(0, 16, false);
+
+        assertEquals(whole, AttachmentController.regionOf(null, null, TAG, 16));
+        assertEquals(whole, AttachmentController.regionOf("bytes=0-1,4-5", null, TAG, 16));
+        assertEquals(whole, AttachmentController.regionOf("items=0-1", null, TAG, 16));
+        assertEquals(whole, AttachmentController.regionOf("bytes=5-2", null, TAG, 16));
+    }
+
+    @Test
+    void RangeIsOnlySentForTheSameAttachmentTest() {
+        assertTrue(AttachmentController.regionOf("bytes=0-3", TAG, TAG, 16).partial());
+        assertFalse(AttachmentController.regionOf("bytes=0-3", "\"other\"", TAG, 16).partial());
+        // A date is never the attachment's tag
+        assertFalse(AttachmentController.regionOf("bytes=0-3", "Wed, 21 Oct 2015 07:28:00 GMT", TAG, 16).partial());
+    }
+
+    @Test
+    void RangePastTheEndIsNotSatisfiableTest() throws Exception {
+        assertNull(AttachmentController.regionOf("bytes=16-", null, TAG, 16));
+        assertNull(AttachmentController.regionOf("bytes=0-", null, TAG, 0));
+
+        final MockHttpServletResponse response = this.download("bytes=16-20", false);
+
+        assertEquals(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE.value(), response.getStatus());
+        assertEquals("bytes */16", response.getHeader(HttpHeaders.CONTENT_RANGE));
+    }
+
+    @Test
+    void RangeIsHandedToSendfileWithAnExclusiveEndTest() throws Exception {
+        final MockHttpServletRequest request = request("bytes=-4", true);
+        final MockHttpServletResponse response = new MockHttpServletResponse();
+
+        this.attachmentController().download(this.id + ".png", null, request, response);
+
+        assertEquals(HttpStatus.PARTIAL_CONTENT.value(), response.getStatus());
+        assertEquals("bytes 12-15/16", response.getHeader(HttpHeaders.CONTENT_RANGE));
+        assertEquals(4, response.getContentLengthLong());
+        assertEquals(this.attachmentStore.find(this.id).toAbsolutePath().toString(),
+                     request.getAttribute("org.apache.tomcat.sendfile.filename"));
+        assertEquals(12L, request.getAttribute("org.apache.tomcat.sendfile.start"));
+        assertEquals(16L, request.getAttribute("org.apache.tomcat.sendfile.end"));
+        assertEquals(0, response.getContentAsByteArray().length);
+    }
+
+    @Test
+    void RangeIsCopiedWithoutSendfileTest() throws Exception {
+        final MockHttpServletResponse response = this.download("bytes=4-9", false);
+
+        assertEquals(HttpStatus.PARTIAL_CONTENT.value(), response.getStatus());
+        assertEquals("bytes 4-9/16", response.getHeader(HttpHeaders.CONTENT_RANGE));
+        assertEquals("really", response.getContentAsString());
+    }
+
+    @Test
+    void CachedCopyIsNotSentAgainTest() throws Exception {
+        final MockHttpServletRequest request = request(null, false);
+        request.addHeader(HttpHeaders.IF_NONE_MATCH, "\"" + this.id + "\"");
+        final MockHttpServletResponse response = new MockHttpServletResponse();
+
+        this.attachmentController().download(this.id + ".png", null, request, response);
+
+        assertEquals(HttpStatus.NOT_MODIFIED.value(), response.getStatus());
+        assertEquals(0, response.getContentAsByteArray().length);
+    }
+
+    private AttachmentController attachmentController() {
+        return new AttachmentController(this.attachmentStore, this.attachmentVariants);
+    }
+
+    private MockHttpServletResponse download(String range, boolean sendfile) throws Exception {
+        final MockHttpServletResponse response = new MockHttpServletResponse();
+        this.attachmentController().download(this.id + ".png", null, request(range, sendfile), response);
+        return response;
+    }
+
+    private static MockHttpServletRequest request(String range, boolean sendfile) {
+        final MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/v1/attachments/");
+        if (range != null) {
+            request.addHeader(HttpHeaders.RANGE, range);
+        }
+        if (sendfile) {
+            request.setAttribute("org.apache.tomcat.sendfile.support", Boolean.TRUE);
+        }
+        return request;
+    }
+}
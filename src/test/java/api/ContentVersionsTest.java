@@ -0,0 +1,102 @@
+package api;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+
+import entity.Post;
+import entity.PostContent;
+import use_case.get_user.PublicUserProfile;
+import use_case.post_page.PostPageOutputData;
+
+class ContentVersionsTest {
+    private static final LocalDateTime POSTED = LocalDateTime.of(2024, 3, 1, 12, 0);
+
+    private final AtomicLong now = new AtomicLong(1_000_000_000L);
+    private final ContentVersions contentVersions = new ContentVersions(Duration.ofSeconds(5), 3, this.now::get);
+
+    @Test
+    void LateRecordOfAnOlderLoadIsDroppedTest() {
+        final long before = this.contentVersions.generation();
+        this.contentVersions.postWritten("p1");
+        final long after = this.contentVersions.generation();
+
+        this.contentVersions.record(ContentVersions.postKey("p1"), "\"new\"", after);
+        // The load that started before the write finishes last
+        this.contentVersions.record(ContentVersions.postKey("p1"), "\"old\"", before);
+
+        assertEquals("\"new\"", this.contentVersions.knownTag(ContentVersions.postKey("p1")));
+    }
+
+    @Test
+    void TagIsOnlyTrustedForAWhileTest() {
+        this.contentVersions.record(ContentVersions.FEED_KEY, "\"feed\"", this.contentVersions.generation());
+
+        this.now.addAndGet(TimeUnit.SECONDS.toNanos(5));
+        assertEquals("\"feed\"", this.contentVersions.knownTag(ContentVersions.FEED_KEY));
+
+        this.now.incrementAndGet();
+        assertNull(this.contentVersions.knownTag(ContentVersions.FEED_KEY));
+    }
+
+    @Test
+    void WrittenPostForgetsOnlyWhatShowsItTest() {
+        final long generation = this.contentVersions.generation();
+        this.contentVersions.record(ContentVersions.postKey("p1"), "\"p1\"", generation);
+        this.contentVersions.record(ContentVersions.postPageKey("p1"), "\"page\"", generation);
+        this.contentVersions.record(ContentVersions.postKey("p2"), "\"p2\"", generation);
+
+        this.contentVersions.postWritten("p1");
+
+        assertNull(this.contentVersions.knownTag(ContentVersions.postKey("p1")));
+        assertNull(this.contentVersions.knownTag(ContentVersions.postPageKey("p1")));
+        assertEquals("\"p2\"", this.contentVersions.knownTag(ContentVersions.postKey("p2")));
+    }
+
+    @Test
+    void NoMoreThanMaxEntriesAreRememberedTest() {
+        final long generation = this.contentVersions.generation();
+        for (String postID : List.of("p1", "p2", "p3", "p4")) {
+            this.contentVersions.record(ContentVersions.postKey(postID), "\"" + postID + "\"", generation);
+        }
+        assertNull(this.contentVersions.knownTag(ContentVersions.postKey("p4")));
+
+        // Once the others are too old to trust they make room
+        this.now.addAndGet(TimeUnit.SECONDS.toNanos(6));
+        this.contentVersions.record(ContentVersions.postKey("p4"), "\"p4\"", generation);
+        assertEquals("\"p4\"", this.contentVersions.knownTag(ContentVersions.postKey("p4")));
+    }
+
+    @Test
+    void IfNoneMatchIsComparedWeaklyTest() {
+        assertTrue(ContentVersions.matches("\"a\"", "\"a\""));
+        assertTrue(ContentVersions.matches("W/\"a\"", "\"a\""));
+        assertTrue(ContentVersions.matches("*", "\"a\""));
+        assertTrue(ContentVersions.matches("\"b\", W/\"a\"", "\"a\""));
+        assertFalse(ContentVersions.matches("\"b\", \"c\"", "\"a\""));
+        assertFalse(ContentVersions.matches("a", "\"a\""));
+        assertFalse(ContentVersions.matches(null, "\"a\""));
+    }
+
+    @Test
+    void PostPageTagFollowsTheAuthorsProfileTest() {
+        final String tag = ContentVersions.postPageTag(page(new PublicUserProfile("u1", "ada", "Ada Lovelace", 3)));
+
+        assertEquals(tag, ContentVersions.postPageTag(page(new PublicUserProfile("u1", "ada", "Ada Lovelace", 3))));
+        assertNotEquals(tag, ContentVersions.postPageTag(page(new PublicUserProfile("u1", "ada", "Ada King", 3))));
+        assertNotEquals(tag, ContentVersions.postPageTag(page(new PublicUserProfile("u1", "ada", "Ada Lovelace", 4))));
+        assertNotEquals(tag, ContentVersions.postPageTag(page(null)));
+    }
+
+    private static PostPageOutputData page(PublicUserProfile author) {
+        final Post post = new Post("p1", "u1", new PostContent("Body", null, null), POSTED, POSTED,
+                                   0, 0, "Title", List.of(), "General");
+        return new PostPageOutputData(post, author, List.of());
+    }
+}
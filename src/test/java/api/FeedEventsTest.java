@@ -0,0 +1,186 @@
+package api;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import entity.Post;
+import entity.PostContent;
+
+class FeedEventsTest {
+    // Long enough that no heartbeat is due unless a test asks for them
+    private static final Duration NO_HEARTBEATS = Duration.ofHours(1);
+    private static final Duration SEND_TIMEOUT = Duration.ofMinutes(1);
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+    private FeedEvents feedEvents;
+
+    @AfterEach
+    void tearDown() {
+        this.feedEvents.close();
+    }
+
+    @Test
+    void ChangesWhileNotReadyAreCoalescedTest() throws Exception {
+        this.feedEvents = new FeedEvents(this.objectMapper, 2, 100, 10, NO_HEARTBEATS, SEND_TIMEOUT);
+        final RecordingSink sink = new RecordingSink(false);
+        final FeedEvents.Subscription subscription = this.feedEvents.subscribe(Set.of(), sink, false);
+
+        this.feedEvents.postCreated(post("p1", "First"));
+        this.feedEvents.postEdited(post("p1", "First, edited"));
+        this.feedEvents.postCreated(post("p2", "Second"));
+        this.feedEvents.postDeleted("p2");
+        this.feedEvents.postEdited(post("p3", "Third"));
+        this.feedEvents.postEdited(post("p3", "Third, edited"));
+        sink.ready = true;
+        subscription.resume();
+
+        // p1 is still new to the client, and it never heard of p2
+        assertEquals("created p1 First, edited", sink.next());
+        assertEquals("edited p3 Third, edited", sink.next());
+        assertNull(sink.events.poll(100, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    void TooManyPendingEventsResetTheSubscriberTest() throws Exception {
+        this.feedEvents = new FeedEvents(this.objectMapper, 2, 2, 10, NO_HEARTBEATS, SEND_TIMEOUT);
+        final RecordingSink sink = new RecordingSink(false);
+        final FeedEvents.Subscription subscription = this.feedEvents.subscribe(Set.of(), sink, false);
+
+        this.feedEvents.postCreated(post("p1", "First"));
+        this.feedEvents.postCreated(post("p2", "Second"));
+        this.feedEvents.postCreated(post("p3", "Third"));
+        // The reset has the client fetch this too
+        this.feedEvents.postCreated(post("p4", "Fourth"));
+        sink.ready = true;
+        subscription.resume();
+
+        assertEquals(FeedEvents.RESET, sink.next());
+        assertNull(sink.events.poll(100, TimeUnit.MILLISECONDS));
+
+        // Once reset, the subscriber is sent changes again
+        this.feedEvents.postCreated(post("p5", "Fifth"));
+        assertEquals("created p5 Fifth", sink.next());
+    }
+
+    @Test
+    void SubscriberThatMissedEventsIsResetFirstTest() throws Exception {
+        this.feedEvents = new FeedEvents(this.objectMapper, 2, 100, 10, NO_HEARTBEATS, SEND_TIMEOUT);
+        final RecordingSink sink = new RecordingSink(true);
+
+        this.feedEvents.subscribe(Set.of("News"), sink, true);
+        // Changes published before the reset is sent are left to it
+        assertEquals(FeedEvents.RESET, sink.next());
+
+        this.feedEvents.postCreated(post("p1", "First"));
+        this.feedEvents.postDeleted("p2");
+
+        // Not in a category it asked for, but a delete goes to everyone
+        assertEquals("deleted p2", sink.next());
+        assertNull(sink.events.poll(100, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    void IdleSubscriberIsSentHeartbeatsTest() throws Exception {
+        this.feedEvents = new FeedEvents(this.objectMapper, 2, 100, 10, Duration.ofMillis(20), SEND_TIMEOUT);
+        final RecordingSink sink = new RecordingSink(true);
+
+        this.feedEvents.subscribe(Set.of(), sink, false);
+
+        assertEquals(RecordingSink.HEARTBEAT, sink.next());
+        assertEquals(RecordingSink.HEARTBEAT, sink.next());
+    }
+
+    @Test
+    void SubscriberNotReadyPastTheSendTimeoutIsDroppedTest() throws Exception {
+        this.feedEvents = new FeedEvents(this.objectMapper, 2, 100, 1, Duration.ofMillis(20),
+                                         Duration.ofMillis(50));
+        final RecordingSink sink = new RecordingSink(false);
+        this.feedEvents.subscribe(Set.of(), sink, false);
+        assertFalse(this.feedEvents.hasRoom());
+
+        this.feedEvents.postCreated(post("p1", "First"));
+
+        assertTrue(sink.closed.await(5, TimeUnit.SECONDS));
+        assertTrue(this.feedEvents.hasRoom());
+        assertTrue(sink.events.isEmpty());
+    }
+
+    private static Post post(String postID, String title) {
+        return new Post(postID, "author@example.com", new PostContent("Body", null, null), LocalDateTime.now(),
+                        LocalDateTime.now(), 0, 0, title, List.of(), "General");
+    }
+
+    /**
+     * Records the events it was sent as "type postID title", once flushed.
+     */
+    private final class RecordingSink implements FeedEvents.Sink {
+        static final String HEARTBEAT = "heartbeat";
+
+        private final BlockingQueue<String> events = new LinkedBlockingQueue<>();
+        private final List<String> queued = new ArrayList<>();
+        private final CountDownLatch closed = new CountDownLatch(1);
+        private volatile boolean ready;
+
+        private RecordingSink(boolean ready) {
+            this.ready = ready;
+        }
+
+        private String next() throws InterruptedException {
+            final String event = this.events.poll(5, TimeUnit.SECONDS);
+            assertNotNull(event, "No event was sent");
+            return event;
+        }
+
+        @Override
+        public boolean isReady() {
+            return this.ready;
+        }
+
+        @Override
+        public void send(String id, String type, String data) {
+            try {
+                final var json = FeedEventsTest.this.objectMapper.readTree(data);
+                String event = type;
+                if (json.has("postID")) {
+                    event += " " + json.get("postID").asText();
+                }
+                if (json.has("post")) {
+                    event += " " + json.get("post").get("postTitle").asText();
+                }
+                this.queued.add(event);
+            } catch (Exception ex) {
+                throw new IllegalStateException(ex);
+            }
+        }
+
+        @Override
+        public void heartbeat() {
+            this.queued.add(HEARTBEAT);
+        }
+
+        @Override
+        public void flush() {
+            this.events.addAll(this.queued);
+            this.queued.clear();
+        }
+
+        @Override
+        public void close() {
+            this.closed.countDown();
+        }
+    }
+}
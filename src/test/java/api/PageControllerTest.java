@@ -0,0 +1,59 @@
+package api;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.thymeleaf.ITemplateEngine;
+import org.thymeleaf.context.IContext;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import entity.Post;
+import entity.PostContent;
+import use_case.getpost.GetPostInputBoundary;
+import use_case.post_page.PostPageInputBoundary;
+
+class PageControllerTest {
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+    private final GetPostInputBoundary homePageInteractor = mock(GetPostInputBoundary.class);
+    private final ITemplateEngine templateEngine = mock(ITemplateEngine.class);
+
+    @Test
+    void InlinedJsonCantEndTheScriptTest() {
+        final String json = this.pageController().inlineJson(
+            Map.of("content", "</script><!-- a & b \u2028\u2029"));
+
+        assertFalse(json.contains("<"));
+        assertFalse(json.contains(">"));
+        assertFalse(json.contains("&"));
+        assertFalse(json.contains("\u2028"));
+        assertFalse(json.contains("\u2029"));
+        assertEquals("{\"content\":\"\\u003c/script\\u003e\\u003c!-- a \\u0026 b \\u2028\\u2029\"}", json);
+    }
+
+    @Test
+    void HomeShellLeavesTheSwingPresenterAloneTest() {
+        final Post post = new Post("p1", "author@example.com", new PostContent("Body", null, null),
+                                   LocalDateTime.now(), LocalDateTime.now(), 0, 0, "Title", List.of(), "General");
+        when(this.homePageInteractor.readPostsPage(null, null, 20)).thenReturn(List.of(post));
+        when(this.templateEngine.process(eq("index"), any(IContext.class)))
+            .thenAnswer(invocation -> invocation.<IContext>getArgument(1).getVariable("initial_data"));
+
+        final String shell = this.pageController().home().block().getBody();
+
+        assertTrue(shell.contains("\"Title\""));
+        verify(this.homePageInteractor, never()).getPostsPage(any(), any(), anyInt());
+    }
+
+    private PageController pageController() {
+        return new PageController(new AssetManifest(Map.of()), new PageShells(this.templateEngine, 10),
+                                  new ContentVersions(Duration.ofSeconds(5), 10), this.homePageInteractor,
+                                  mock(PostPageInputBoundary.class), this.objectMapper, true);
+    }
+}
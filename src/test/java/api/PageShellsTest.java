@@ -0,0 +1,55 @@
+package api;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.thymeleaf.ITemplateEngine;
+import org.thymeleaf.context.IContext;
+
+class PageShellsTest {
+    private final ITemplateEngine templateEngine = mock(ITemplateEngine.class);
+
+    @Test
+    void ShellIsOnlyServedForItsVersionTest() {
+        when(this.templateEngine.process(eq("index"), any(IContext.class))).thenReturn("v1 html", "v2 html");
+        final PageShells pageShells = new PageShells(this.templateEngine, 10);
+
+        assertNull(pageShells.get("/home", "v1"));
+        assertEquals("v1 html", pageShells.render("/home", "v1", "index", Map.of()));
+        assertEquals("v1 html", pageShells.get("/home", "v1"));
+
+        // A newer version replaces the route's shell
+        assertEquals("v2 html", pageShells.render("/home", "v2", "index", Map.of()));
+        assertNull(pageShells.get("/home", "v1"));
+        assertEquals("v2 html", pageShells.get("/home", "v2"));
+        verify(this.templateEngine, times(2)).process(eq("index"), any(IContext.class));
+    }
+
+    @Test
+    void LeastRecentlyUsedRouteIsForgottenTest() {
+        when(this.templateEngine.process(eq("index"), any(IContext.class))).thenReturn("html");
+        final PageShells pageShells = new PageShells(this.templateEngine, 2);
+
+        pageShells.render("/home", "v1", "index", Map.of());
+        pageShells.render("/login", "static", "index", Map.of());
+        pageShells.get("/home", "v1");
+        pageShells.render("/signup", "static", "index", Map.of());
+
+        assertEquals("html", pageShells.get("/home", "v1"));
+        assertNull(pageShells.get("/login", "static"));
+        assertEquals("html", pageShells.get("/signup", "static"));
+    }
+
+    @Test
+    void UncachedRenderIsNotKeptTest() {
+        when(this.templateEngine.process(eq("index"), any(IContext.class))).thenReturn("html");
+        final PageShells pageShells = new PageShells(this.templateEngine, 10);
+
+        assertEquals("html", pageShells.renderUncached("index", Map.of()));
+
+        assertNull(pageShells.get("/post", "static"));
+    }
+}
@@ -0,0 +1,87 @@
+package api;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.reactive.function.server.MockServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import reactor.core.publisher.Flux;
+import use_case.create_post.CreatePostInputBoundary;
+import use_case.get_user.GetUserInputBoundary;
+import use_case.getpost.GetPostInputBoundary;
+import use_case.getpost.ReactiveGetPostDataAccessInterface;
+import use_case.post_page.PostPageInputBoundary;
+
+class PostControllerTest {
+    private static final String FEED_TAG = "\"feed-known\"";
+
+    private final GetPostInputBoundary homePageInteractor = mock(GetPostInputBoundary.class);
+    private final ContentVersions contentVersions = new ContentVersions(Duration.ofSeconds(5), 10);
+
+    @Test
+    void KnownFeedTagSkipsTheScanTest() throws Exception {
+        this.contentVersions.record(ContentVersions.FEED_KEY, FEED_TAG, this.contentVersions.generation());
+
+        final ResponseEntity<StreamingResponseBody> response = this.postController().getAllPosts("\"feed-older\"");
+        final ByteArrayOutputStream body = new ByteArrayOutputStream();
+        response.getBody().writeTo(body);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(FEED_TAG, response.getHeaders().getETag());
+        assertEquals("[]", body.toString(StandardCharsets.UTF_8));
+        verify(this.homePageInteractor, never()).getAllPostVersions();
+        verify(this.homePageInteractor).forEachPost(any());
+    }
+
+    @Test
+    void FeedTagIsOnlyComputedWhenNoneIsKnownTest() {
+        when(this.homePageInteractor.getAllPostVersions()).thenReturn(List.of());
+        final PostController postController = this.postController();
+
+        final String tag = postController.getAllPosts(null).getHeaders().getETag();
+        final ResponseEntity<StreamingResponseBody> cached = postController.getAllPosts(tag);
+
+        assertEquals(HttpStatus.NOT_MODIFIED, cached.getStatusCode());
+        verify(this.homePageInteractor, times(1)).getAllPostVersions();
+
+        // A write makes the feed's tag unknown again
+        this.contentVersions.postWritten("p1");
+        postController.getAllPosts(tag);
+        verify(this.homePageInteractor, times(2)).getAllPostVersions();
+    }
+
+    @Test
+    void ReactiveFeedWithAKnownTagSkipsTheScanTest() {
+        final ReactiveGetPostDataAccessInterface postDAO = mock(ReactiveGetPostDataAccessInterface.class);
+        when(postDAO.getAllPosts()).thenReturn(Flux.empty());
+        this.contentVersions.record(ContentVersions.FEED_KEY, FEED_TAG, this.contentVersions.generation());
+        final ReactivePostHandler handler = new ReactivePostHandler(postDAO, this.postController(),
+                                                                    this.contentVersions);
+
+        final ServerResponse response = handler.getAllPosts(MockServerRequest.builder().build()).block();
+
+        assertEquals(HttpStatus.OK, response.statusCode());
+        assertEquals(FEED_TAG, response.headers().getETag());
+        verify(postDAO, never()).getAllPostVersions();
+    }
+
+    private PostController postController() {
+        return new PostController(mock(GetUserInputBoundary.class), this.homePageInteractor,
+                                  mock(GetPostInputBoundary.class), mock(CreatePostInputBoundary.class),
+                                  mock(PostPageInputBoundary.class), this.contentVersions,
+                                  new ObjectMapper().findAndRegisterModules(),
+                                  new TokenBucketRateLimiter(1, Duration.ofSeconds(1), 10));
+    }
+}
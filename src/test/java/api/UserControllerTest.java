@@ -0,0 +1,75 @@
+package api;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import java.net.URI;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.reactive.function.server.MockServerRequest;
+
+import reactor.core.publisher.Flux;
+import use_case.get_user.GetUserInputBoundary;
+import use_case.get_user.ReactiveGetUserDataAccessInterface;
+
+class UserControllerTest {
+    private final GetUserInputBoundary getUserInteractor = mock(GetUserInputBoundary.class);
+    private final ReactiveGetUserDataAccessInterface userDAO = mock(ReactiveGetUserDataAccessInterface.class);
+
+    @Test
+    void BlankAndRepeatedIdsAreLeftOutTest() {
+        assertEquals(List.of("a", "b", "c"), UserController.userIDsOf(List.of("a,,b", " ", "a, c")));
+    }
+
+    @Test
+    void NoIdsOrTooManyAreRejectedTest() {
+        assertNull(UserController.userIDsOf(null));
+        assertNull(UserController.userIDsOf(List.of()));
+        assertNull(UserController.userIDsOf(List.of(",", " ")));
+        assertNull(UserController.userIDsOf(IntStream.rangeClosed(0, UserController.MAX_IDS_PER_REQUEST)
+                                                .mapToObj(i -> "u" + i).toList()));
+    }
+
+    @Test
+    void BothStacksRejectEmptyIdsTest() {
+        final UserController userController = new UserController(this.getUserInteractor);
+        final ReactiveUserHandler userHandler = new ReactiveUserHandler(this.userDAO, this.getUserInteractor);
+
+        assertEquals(HttpStatus.BAD_REQUEST, userController.getUsers(List.of("")).getStatusCode());
+        assertEquals(HttpStatus.BAD_REQUEST, userController.getUsers(null).getStatusCode());
+        assertEquals(HttpStatus.BAD_REQUEST, userHandler.getUsers(request("ids=")).block().statusCode());
+        assertEquals(HttpStatus.BAD_REQUEST, userHandler.getUsers(request("")).block().statusCode());
+        verifyNoInteractions(this.getUserInteractor, this.userDAO);
+    }
+
+    @Test
+    void BothStacksLookUpTheSameIdsTest() {
+        final UserController userController = new UserController(this.getUserInteractor);
+        final ReactiveUserHandler userHandler = new ReactiveUserHandler(this.userDAO, this.getUserInteractor);
+        when(this.getUserInteractor.getUserProfiles(anyCollection())).thenReturn(List.of());
+        when(this.userDAO.getUsersByIds(anyCollection())).thenReturn(Flux.empty());
+
+        assertEquals(HttpStatus.OK, userController.getUsers(List.of("a", " ", "b")).getStatusCode());
+        assertEquals(HttpStatus.OK, userHandler.getUsers(request("ids=a,%20,b")).block().statusCode());
+
+        verify(this.getUserInteractor).getUserProfiles(List.of("a", "b"));
+        verify(this.userDAO).getUsersByIds(argThat(ids -> List.copyOf(ids).equals(List.of("a", "b"))));
+    }
+
+    private static MockServerRequest request(String query) {
+        final MockServerRequest.Builder builder = MockServerRequest.builder()
+            .method(HttpMethod.GET)
+            .uri(URI.create("/api/v1/users?" + query));
+        for (String param : query.split("&")) {
+            final int equals = param.indexOf('=');
+            if (equals > 0) {
+                builder.queryParam(param.substring(0, equals), param.substring(equals + 1).replace("%20", " "));
+            }
+        }
+        return builder.build();
+    }
+}
@@ -0,0 +1,139 @@
+package app;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+
+import com.mongodb.MongoNamespace;
+import com.mongodb.client.FindIterable;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoCursor;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.ReplaceOneModel;
+import com.mongodb.client.model.WriteModel;
+
+import daos.BulkExport;
+import daos.BulkImport;
+import daos.BulkTransferReport;
+
+class BulkDataToolTest {
+    // A document of each collection, in the shape the DAOs write them
+    private static final Map<String, Document> SAMPLES = Map.of(
+        "posts", new Document("_id", new ObjectId()).append("post_id", "p1").append("title", "Hello"),
+        "users", new Document("_id", new ObjectId()).append("userId", "u1").append("username", "alice"),
+        "comments", new Document("_id", new ObjectId()).append("comment_id", "c1").append("post_id", "p1"),
+        "contents", new Document("_id", "9f86d081884c7d659a2feaa0c55ad015a3bf4f1b2b0b822cd15d6c15b0f00a08")
+            .append("body", "A long body"));
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void KeyFieldsTest() {
+        assertEquals("post_id", BulkDataTool.keyFieldOf("posts"));
+        assertEquals("userId", BulkDataTool.keyFieldOf("users"));
+        assertEquals("comment_id", BulkDataTool.keyFieldOf("comments"));
+        assertEquals("_id", BulkDataTool.keyFieldOf("contents"));
+        assertNull(BulkDataTool.keyFieldOf("sessions"));
+    }
+
+    @Test
+    void ExportThenImportEachCollectionTest() throws Exception {
+        for (Map.Entry<String, Document> sample : SAMPLES.entrySet()) {
+            final String name = sample.getKey();
+            final String keyField = BulkDataTool.keyFieldOf(name);
+            final Path file = this.directory.resolve(name + ".ndjson");
+
+            final BulkTransferReport exported = new BulkExport(exportedFrom(name, List.of(sample.getValue())), 10)
+                .run(file, this.directory.resolve(name + ".export.checkpoint"), report -> {});
+            assertEquals(1, exported.getTransferred(), name);
+            assertEquals(1, Files.readAllLines(file, StandardCharsets.UTF_8).size(), name);
+
+            final MongoCollection<Document> target = collectionNamed(name);
+            final BulkTransferReport imported = new BulkImport(target, keyField, 10, 2)
+                .run(file, this.directory.resolve(name + ".import.checkpoint"), report -> {});
+            assertEquals(1, imported.getTransferred(), name);
+            assertEquals(0, imported.getRejected(), name);
+
+            final ReplaceOneModel<Document> replacement = onlyReplacement(target);
+            final Object key = sample.getValue().get(keyField);
+            assertEquals(Filters.eq(keyField, key).toBsonDocument(), replacement.getFilter().toBsonDocument(), name);
+            // The _id is left to MongoDB, the filter sets it for contents
+            assertFalse(replacement.getReplacement().containsKey("_id"), name);
+        }
+    }
+
+    @Test
+    void ImportRejectsDocumentsWithoutTheKeyTest() throws Exception {
+        final Path file = this.directory.resolve("users.ndjson");
+        Files.writeString(file, "{\"user_id\": \"u1\"}\n{\"userId\": \"u2\"}\nnot json\n");
+        final MongoCollection<Document> target = collectionNamed("users");
+
+        final BulkTransferReport report = new BulkImport(target, BulkDataTool.keyFieldOf("users"), 10, 1)
+            .run(file, null, progress -> {});
+
+        assertEquals(1, report.getTransferred());
+        assertEquals(2, report.getRejected());
+        assertEquals("u2", onlyReplacement(target).getReplacement().getString("userId"));
+    }
+
+    @Test
+    void ImportResumesAfterTheCheckpointTest() throws Exception {
+        final Path file = this.directory.resolve("posts.ndjson");
+        Files.writeString(file, "{\"post_id\": \"p1\"}\n{\"post_id\": \"p2\"}\n{\"post_id\": \"p3\"}\n");
+        final Path checkpoint = this.directory.resolve("posts.checkpoint");
+        Files.writeString(checkpoint, "line=2\n");
+        final MongoCollection<Document> target = collectionNamed("posts");
+
+        final BulkTransferReport report = new BulkImport(target, "post_id", 10, 1).run(file, checkpoint, progress -> {});
+
+        assertEquals(2, report.getSkipped());
+        assertEquals("p3", onlyReplacement(target).getReplacement().getString("post_id"));
+        assertTrue(Files.readString(checkpoint).contains("line=3"));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static MongoCollection<Document> collectionNamed(String name) {
+        final MongoCollection<Document> collection = mock(MongoCollection.class);
+        when(collection.getNamespace()).thenReturn(new MongoNamespace("ConnectHub", name));
+        return collection;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static MongoCollection<Document> exportedFrom(String name, List<Document> documents) {
+        final MongoCollection<Document> collection = collectionNamed(name);
+        final FindIterable<Document> found = mock(FindIterable.class, RETURNS_SELF);
+        final MongoCursor<Document> cursor = mock(MongoCursor.class);
+        final Iterator<Document> iterator = new ArrayList<>(documents).iterator();
+        when(cursor.hasNext()).thenAnswer(invocation -> iterator.hasNext());
+        when(cursor.next()).thenAnswer(invocation -> iterator.next());
+        when(found.iterator()).thenReturn(cursor);
+        when(collection.find(any(Bson.class))).thenReturn(found);
+        return collection;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static ReplaceOneModel<Document> onlyReplacement(MongoCollection<Document> collection) {
+        final ArgumentCaptor<List<WriteModel<Document>>> batches = ArgumentCaptor.forClass(List.class);
+        verify(collection, atLeastOnce()).bulkWrite(batches.capture(), any(BulkWriteOptions.class));
+        final List<WriteModel<Document>> written = new ArrayList<>();
+        batches.getAllValues().forEach(written::addAll);
+        assertEquals(1, written.size());
+        return (ReplaceOneModel<Document>) written.get(0);
+    }
+}
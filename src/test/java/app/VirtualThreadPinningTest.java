@@ -0,0 +1,163 @@
+package app;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.json.JSONObject;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import daos.ExpiringCache;
+import daos.PostJournal;
+import daos.PostWriteBehind;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordingFile;
+
+/**
+ * Runs what requests do in the virtual thread mode on virtual threads, with sleeps
+ * standing in for MongoDB, and fails if a virtual thread blocked while pinned to its
+ * carrier, e.g. by waiting inside a synchronized block. JFR records every such wait.
+ */
+class VirtualThreadPinningTest {
+    private static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+    private static final Duration MONGO_LATENCY = Duration.ofMillis(5);
+    private static final int THREADS = 50;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void BlockingInAMonitorIsCaughtTest() throws Exception {
+        final Object monitor = new Object();
+
+        final List<String> pinned = this.pinnedWhile(() -> {
+            synchronized (monitor) {
+                Thread.sleep(MONGO_LATENCY.toMillis());
+            }
+            return null;
+        });
+
+        assertFalse(pinned.isEmpty());
+    }
+
+    @Test
+    void CacheLoadsDontPinTest() throws Exception {
+        final ExpiringCache<String, String> cache = new ExpiringCache<>(10, Duration.ofMinutes(1), Duration.ZERO);
+
+        final List<String> pinned = this.pinnedWhile(() -> {
+            // A few keys, so loads of the same one overlap
+            final String key = "key" + (Thread.currentThread().threadId() % 5);
+            cache.getOrLoad(key, this::slowLoad);
+            cache.invalidate(key);
+            cache.getAllOrLoad(List.of(key, "other"), keys -> {
+                this.slowLoad(key);
+                return Map.of(key, key);
+            });
+            return null;
+        });
+
+        assertEquals(List.of(), pinned);
+    }
+
+    @Test
+    void WriteBehindDoesntPinTest() throws Exception {
+        final PostWriteBehind writeBehind = new PostWriteBehind(PostJournal.open(this.directory),
+                                                                posts -> this.slowLoad("batch"),
+                                                                Duration.ofHours(1), 10);
+        try {
+            final List<String> pinned = this.pinnedWhile(() -> {
+                final String postID = "p" + Thread.currentThread().threadId();
+                writeBehind.submit(new JSONObject().put("post_id", postID));
+                writeBehind.getPending(postID);
+                writeBehind.getPending();
+                // Every thread flushes, so most wait for another's write to MongoDB
+                writeBehind.flush();
+                return null;
+            });
+
+            assertEquals(List.of(), pinned);
+        } finally {
+            writeBehind.close();
+        }
+    }
+
+    @Test
+    void BulkheadDoesntPinTest() throws Throwable {
+        final MongoBulkheadAspect bulkhead = new MongoBulkheadAspect(2, new SimpleMeterRegistry());
+        final ProceedingJoinPoint daoCall = mock(ProceedingJoinPoint.class);
+        when(daoCall.proceed()).thenAnswer(invocation -> this.slowLoad("dao"));
+
+        final List<String> pinned = this.pinnedWhile(() -> {
+            try {
+                return bulkhead.limit(daoCall);
+            } catch (Throwable ex) {
+                throw new IllegalStateException(ex);
+            }
+        });
+
+        assertEquals(List.of(), pinned);
+    }
+
+    private String slowLoad(String key) {
+        try {
+            Thread.sleep(MONGO_LATENCY.toMillis());
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        return key;
+    }
+
+    /**
+     * Runs the task on many virtual threads at once.
+     * @return the top frame of every wait that pinned a virtual thread.
+     */
+    private List<String> pinnedWhile(Callable<Object> task) throws Exception {
+        final Path dump = this.directory.resolve("pinning.jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable(PINNED_EVENT).withThreshold(Duration.ZERO).withStackTrace();
+            recording.start();
+            try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+                final List<Future<Object>> futures = new ArrayList<>();
+                for (int i = 0; i < THREADS; i++) {
+                    futures.add(executor.submit(task));
+                }
+                for (Future<Object> future : futures) {
+                    future.get();
+                }
+            }
+            recording.stop();
+            recording.dump(dump);
+        }
+
+        final List<String> pinned = new ArrayList<>();
+        for (RecordedEvent event : RecordingFile.readAllEvents(dump)) {
+            if (!PINNED_EVENT.equals(event.getEventType().getName())) {
+                continue;
+            }
+            final List<RecordedFrame> frames = event.getStackTrace() == null
+                ? List.of()
+                : event.getStackTrace().getFrames();
+            pinned.add(frames.stream()
+                .filter(RecordedFrame::isJavaFrame)
+                .map(frame -> frame.getMethod().getType().getName() + "." + frame.getMethod().getName())
+                .filter(frame -> !frame.startsWith("java.") && !frame.startsWith("jdk."))
+                .findFirst()
+                .orElse("unknown"));
+        }
+        return pinned;
+    }
+}
@@ -0,0 +1,102 @@
+package controller;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import javax.swing.SwingUtilities;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+class BackgroundTasksTest {
+    // One thread, so tasks run in the order they were submitted
+    private final BackgroundTasks backgroundTasks = new BackgroundTasks(1);
+    private final List<String> published = new CopyOnWriteArrayList<>();
+
+    @AfterEach
+    void tearDown() {
+        this.backgroundTasks.shutdown();
+    }
+
+    @Test
+    void SecondSubmitInterruptsTheFirstTest() throws Exception {
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch interrupted = new CountDownLatch(1);
+        this.backgroundTasks.submit("posts", () -> {
+            started.countDown();
+            try {
+                new CountDownLatch(1).await();
+            } catch (InterruptedException ex) {
+                assertTrue(BackgroundTasks.isCurrentTaskSuperseded());
+                interrupted.countDown();
+            }
+        });
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        this.backgroundTasks.submit("posts", () -> { });
+
+        assertTrue(interrupted.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void TaskUnderAnotherKeyIsNotInterruptedTest() throws Exception {
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final CountDownLatch finished = new CountDownLatch(1);
+        this.backgroundTasks.submit("posts", () -> {
+            started.countDown();
+            try {
+                release.await();
+                this.publish("posts");
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+            finished.countDown();
+        });
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        this.backgroundTasks.submit("user", () -> this.publish("user"));
+        release.countDown();
+
+        assertTrue(finished.await(5, TimeUnit.SECONDS));
+        this.awaitQueuedTasks();
+        assertEquals(List.of("posts", "user"), this.published);
+    }
+
+    @Test
+    void OnlyTheLatestTaskPublishesTest() throws Exception {
+        final CountDownLatch started = new CountDownLatch(1);
+        this.backgroundTasks.submit("posts", () -> {
+            started.countDown();
+            try {
+                new CountDownLatch(1).await();
+            } catch (InterruptedException ex) {
+                // A query that stops early still returns, whatever it publishes is dropped
+                this.publish("first");
+            }
+        });
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        // Queued behind the first, and superseded before it could start
+        this.backgroundTasks.submit("posts", () -> this.publish("second"));
+        this.backgroundTasks.submit("posts", () -> this.publish("third"));
+        this.awaitQueuedTasks();
+
+        assertEquals(List.of("third"), this.published);
+    }
+
+    private void publish(String result) {
+        BackgroundTasks.publish(() -> this.published.add(result));
+    }
+
+    private void awaitQueuedTasks() throws Exception {
+        final CountDownLatch done = new CountDownLatch(1);
+        this.backgroundTasks.submit("test", done::countDown);
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        SwingUtilities.invokeAndWait(() -> { });
+    }
+}
@@ -0,0 +1,123 @@
+package controller;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.beans.PropertyChangeEvent;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import javax.swing.SwingUtilities;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+class ViewModelTest {
+    private final BackgroundTasks backgroundTasks = new BackgroundTasks(2);
+    private final ViewModel<CountingState> viewModel = new ViewModel<>("counting");
+    // Only touched on the Event Dispatch Thread
+    private final List<PropertyChangeEvent> events = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() {
+        this.backgroundTasks.shutdown();
+    }
+
+    @Test
+    void ChangesSinceTheLastFireGoOutTogetherTest() throws Exception {
+        this.listen();
+
+        this.viewModel.getState().increment();
+        this.viewModel.getState().increment();
+        this.viewModel.firePropertyChanged();
+        this.viewModel.firePropertyChanged();
+        SwingUtilities.invokeAndWait(() -> { });
+
+        assertEquals(List.of("state", ViewModel.CHANGES, "state"), this.names());
+        assertEquals(List.of(new Increment(1), new Increment(2)), this.events.get(1).getNewValue());
+        assertTrue(this.viewModel.getState().drainChanges().isEmpty());
+    }
+
+    @Test
+    void SupersededTaskFiresNothingButKeepsItsChangesTest() throws Exception {
+        this.listen();
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch superseded = new CountDownLatch(1);
+        final CountDownLatch finished = new CountDownLatch(1);
+
+        this.backgroundTasks.submit("count", () -> {
+            started.countDown();
+            awaitIgnoringInterrupts(superseded);
+            this.viewModel.getState().increment();
+            this.viewModel.firePropertyChanged();
+            finished.countDown();
+        });
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        this.backgroundTasks.submit("count", () -> { });
+        superseded.countDown();
+        assertTrue(finished.await(5, TimeUnit.SECONDS));
+        SwingUtilities.invokeAndWait(() -> { });
+
+        assertEquals(List.of(), this.names());
+
+        // The view still gets the change, with the next one that is fired
+        this.viewModel.getState().increment();
+        this.viewModel.firePropertyChanged();
+        SwingUtilities.invokeAndWait(() -> { });
+
+        assertEquals(List.of("state", ViewModel.CHANGES), this.names());
+        assertEquals(List.of(new Increment(1), new Increment(2)), this.events.get(1).getNewValue());
+    }
+
+    @Test
+    void ChangesAreDrainedWithoutListenersTest() {
+        this.viewModel.setState(new CountingState());
+
+        this.viewModel.getState().increment();
+        this.viewModel.firePropertyChanged();
+
+        assertTrue(this.viewModel.getState().drainChanges().isEmpty());
+    }
+
+    private void listen() {
+        this.viewModel.setState(new CountingState());
+        this.viewModel.addPropertyChangeListener(event -> {
+            assertTrue(SwingUtilities.isEventDispatchThread());
+            this.events.add(event);
+        });
+    }
+
+    private List<String> names() throws Exception {
+        final List<String> names = new ArrayList<>();
+        SwingUtilities.invokeAndWait(() -> this.events.forEach(event -> names.add(event.getPropertyName())));
+        return names;
+    }
+
+    static void awaitIgnoringInterrupts(CountDownLatch latch) {
+        boolean interrupted = false;
+        while (true) {
+            try {
+                latch.await();
+                break;
+            } catch (InterruptedException ex) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private record Increment(int count) implements StateChange {
+    }
+
+    private static final class CountingState extends ChangeTrackingState {
+        private int count;
+
+        void increment() {
+            this.count++;
+            this.record(new Increment(this.count));
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package controller.homepage;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import java.beans.PropertyChangeEvent;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import javax.swing.SwingUtilities;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import controller.BackgroundTasks;
+import use_case.get_user.GetUserInteractor;
+import use_case.getpost.GetPostInputBoundary;
+
+class HomepageControllerTest {
+    // One thread, so tasks run in the order they were submitted
+    private final BackgroundTasks backgroundTasks = new BackgroundTasks(1);
+    private final GetPostInputBoundary getPostInteractor = mock(GetPostInputBoundary.class);
+    private final HomepageViewModel homepageViewModel = new HomepageViewModel();
+    private final HomepageController homepageController = new HomepageController(
+        this.getPostInteractor, mock(GetUserInteractor.class), this.homepageViewModel, this.backgroundTasks);
+
+    @AfterEach
+    void tearDown() {
+        this.backgroundTasks.shutdown();
+    }
+
+    @Test
+    void FailedQueryEndsLoadingOnTheEventDispatchThreadTest() throws Exception {
+        when(this.getPostInteractor.getPostsPage(null, null, 10)).thenThrow(new IllegalStateException("timeout"));
+        final BlockingQueue<Boolean> loadingWhenFired = new LinkedBlockingQueue<>();
+        this.homepageViewModel.addPropertyChangeListener(event -> {
+            if ("state".equals(event.getPropertyName())) {
+                assertTrue(SwingUtilities.isEventDispatchThread());
+                loadingWhenFired.add(((HomepageState) event.getNewValue()).isLoading());
+            }
+        });
+
+        this.homepageController.fetchAllPosts();
+
+        assertEquals(true, loadingWhenFired.poll(5, TimeUnit.SECONDS));
+        assertEquals(false, loadingWhenFired.poll(5, TimeUnit.SECONDS));
+        assertFalse(this.homepageViewModel.getState().isLoadingMore());
+    }
+
+    @Test
+    void SupersededFailureLeavesTheNewerLoadAloneTest() throws Exception {
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch superseded = new CountDownLatch(1);
+        when(this.getPostInteractor.getPostsPage("News", null, 10)).thenAnswer(invocation -> {
+            started.countDown();
+            try {
+                superseded.await();
+            } catch (InterruptedException ex) {
+                // What the MongoDB driver does when its thread is interrupted
+                throw new IllegalStateException("interrupted", ex);
+            }
+            throw new IllegalStateException("timeout");
+        });
+        when(this.getPostInteractor.getPostsPage("Sports", null, 10)).thenReturn(List.of());
+        final BlockingQueue<PropertyChangeEvent> events = new LinkedBlockingQueue<>();
+
+        this.homepageController.getPostsByCategory("News");
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        this.homepageViewModel.addPropertyChangeListener(events::add);
+        this.homepageController.getPostsByCategory("Sports");
+        superseded.countDown();
+        this.awaitQueuedTasks();
+
+        // Nobody presented the newer load's page, so it is still loading
+        assertTrue(this.homepageViewModel.getState().isLoading());
+        assertEquals("Sports", this.homepageViewModel.getState().getCategory());
+        // Only the one the newer load fired as it started
+        assertEquals(1, events.size());
+    }
+
+    private void awaitQueuedTasks() throws Exception {
+        final CountDownLatch done = new CountDownLatch(1);
+        this.backgroundTasks.submit("test", done::countDown);
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        SwingUtilities.invokeAndWait(() -> { });
+    }
+}
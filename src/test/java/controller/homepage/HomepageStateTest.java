@@ -0,0 +1,60 @@
+package controller.homepage;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import controller.ErrorSet;
+import controller.StateChange;
+import entity.Post;
+import entity.PostContent;
+
+class HomepageStateTest {
+
+    @Test
+    void FeedChangesAreRecordedInOrderTest() {
+        final HomepageState homepageState = new HomepageState();
+        final List<Post> first = List.of(post("p1"));
+        final List<Post> second = List.of(post("p2"));
+
+        homepageState.setLoading(true);
+        homepageState.setPosts(first);
+        homepageState.appendPosts(second);
+        homepageState.setLoading(false);
+
+        final List<StateChange> changes = homepageState.drainChanges();
+        assertEquals(4, changes.size());
+        assertTrue(((HomepageChange.LoadingChanged) changes.get(0)).isLoading());
+        assertEquals(first, ((HomepageChange.PostsReplaced) changes.get(1)).getPosts());
+        // Only the added page, the view already shows the rest
+        assertEquals(second, ((HomepageChange.PostsAppended) changes.get(2)).getPosts());
+        assertFalse(((HomepageChange.LoadingChanged) changes.get(3)).isLoading());
+        assertEquals(List.of(first.get(0), second.get(0)), homepageState.getPosts());
+        assertTrue(homepageState.drainChanges().isEmpty());
+    }
+
+    @Test
+    void SettingTheSameValueRecordsNothingTest() {
+        final HomepageState homepageState = new HomepageState();
+
+        homepageState.setLoading(false);
+        homepageState.setPostsError(null);
+        assertTrue(homepageState.drainChanges().isEmpty());
+
+        homepageState.setPostsError("Could not load the posts");
+        homepageState.setPostsError("Could not load the posts");
+        final List<StateChange> changes = homepageState.drainChanges();
+
+        assertEquals(1, changes.size());
+        assertEquals(HomepageState.POSTS_FIELD, ((ErrorSet) changes.get(0)).getField());
+        assertEquals("Could not load the posts", ((ErrorSet) changes.get(0)).getMessage());
+    }
+
+    private static Post post(String postID) {
+        return new Post(postID, "author@example.com", new PostContent("Body", null, null), LocalDateTime.now(),
+                        LocalDateTime.now(), 0, 0, "Title", List.of(), "General");
+    }
+}
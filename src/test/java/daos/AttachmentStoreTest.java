@@ -0,0 +1,116 @@
+package daos;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class AttachmentStoreTest {
+    private static final byte[] CONTENT = "An attachment".getBytes(StandardCharsets.UTF_8);
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void AttachmentIsStoredUnderItsHashTest() throws Exception {
+        final AttachmentStore attachmentStore = AttachmentStore.open(this.directory, 1000);
+
+        final AttachmentStore.StoredAttachment stored = this.store(attachmentStore, CONTENT);
+
+        final String hash = HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(CONTENT));
+        assertEquals(hash, stored.id());
+        assertEquals(CONTENT.length, stored.size());
+        assertFalse(stored.deduplicated());
+        final Path file = attachmentStore.find(stored.id());
+        assertEquals(this.directory.resolve(hash.substring(0, 2)).resolve(hash), file);
+        assertArrayEquals(CONTENT, Files.readAllBytes(file));
+        assertEquals(0, incomingCount(this.directory));
+    }
+
+    @Test
+    void SameAttachmentIsStoredOnceTest() throws Exception {
+        final AttachmentStore attachmentStore = AttachmentStore.open(this.directory, 1000);
+
+        final AttachmentStore.StoredAttachment first = this.store(attachmentStore, CONTENT);
+        final AttachmentStore.StoredAttachment second = this.store(attachmentStore, CONTENT);
+
+        assertEquals(first.id(), second.id());
+        assertTrue(second.deduplicated());
+        assertEquals(0, incomingCount(this.directory));
+    }
+
+    @Test
+    void UploadPastTheSizeLimitIsDroppedTest() throws Exception {
+        final AttachmentStore attachmentStore = AttachmentStore.open(this.directory, CONTENT.length - 1);
+
+        try (AttachmentStore.Upload upload = attachmentStore.begin()) {
+            assertThrows(AttachmentStore.AttachmentTooLargeException.class,
+                         () -> upload.write(new ByteArrayInputStream(CONTENT)));
+        }
+
+        assertEquals(0, incomingCount(this.directory));
+        // Only the incoming directory is there, nothing was stored
+        try (Stream<Path> files = Files.list(this.directory)) {
+            assertEquals(1, files.count());
+        }
+    }
+
+    @Test
+    void UncommittedUploadIsNeverFoundTest() throws Exception {
+        final AttachmentStore attachmentStore = AttachmentStore.open(this.directory, 1000);
+        final String hash = HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(CONTENT));
+
+        try (AttachmentStore.Upload upload = attachmentStore.begin()) {
+            upload.write(new ByteArrayInputStream(CONTENT));
+            // Until it is committed it is only in incoming, never half written under its name
+            assertNull(attachmentStore.find(hash));
+            assertEquals(1, incomingCount(this.directory));
+        }
+
+        assertNull(attachmentStore.find(hash));
+        assertEquals(0, incomingCount(this.directory));
+    }
+
+    @Test
+    void UploadsLeftByACrashAreDroppedOnOpenTest() throws Exception {
+        final AttachmentStore beforeCrash = AttachmentStore.open(this.directory, 1000);
+        // Never closed, as if the process died while it was uploaded
+        beforeCrash.begin().write(new ByteArrayInputStream(CONTENT));
+        assertEquals(1, incomingCount(this.directory));
+
+        AttachmentStore.open(this.directory, 1000);
+
+        assertEquals(0, incomingCount(this.directory));
+    }
+
+    @Test
+    void OnlyHashesAreLookedUpTest() throws Exception {
+        final AttachmentStore attachmentStore = AttachmentStore.open(this.directory, 1000);
+        this.store(attachmentStore, CONTENT);
+
+        assertNull(attachmentStore.find(null));
+        assertNull(attachmentStore.find("../incoming"));
+        assertNull(attachmentStore.find("0".repeat(64)));
+    }
+
+    private AttachmentStore.StoredAttachment store(AttachmentStore attachmentStore, byte[] bytes) throws Exception {
+        try (AttachmentStore.Upload upload = attachmentStore.begin()) {
+            upload.write(new ByteArrayInputStream(bytes));
+            return upload.commit();
+        }
+    }
+
+    private static long incomingCount(Path directory) throws Exception {
+        try (Stream<Path> files = Files.list(directory.resolve("incoming"))) {
+            return files.count();
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package daos;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Random;
+
+import javax.imageio.ImageIO;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class AttachmentVariantsTest {
+    private static final int[] WIDTHS = {40, 80, 400};
+
+    @TempDir
+    Path directory;
+
+    private AttachmentStore attachmentStore;
+    private AttachmentVariants attachmentVariants;
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    @BeforeEach
+    void setUp() throws Exception {
+        Metrics.addRegistry(this.registry);
+        this.attachmentStore = AttachmentStore.open(this.directory.resolve("attachments"), 10_000_000);
+        // One thread, so attachments are done in the order they are queued
+        this.attachmentVariants = new AttachmentVariants(this.attachmentStore, this.directory.resolve("variants"),
+                                                         WIDTHS, 1_000_000, 1, 10);
+    }
+
+    @AfterEach
+    void tearDown() {
+        this.attachmentVariants.close();
+        Metrics.removeRegistry(this.registry);
+    }
+
+    @Test
+    void ImageGetsCopiesNarrowerThanItTest() throws Exception {
+        final String id = this.store(png(200, 100));
+
+        final AttachmentVariants.Manifest manifest = this.generated(id);
+
+        final AttachmentVariants.Variant narrowest = manifest.fitting(30);
+        assertEquals(40, narrowest.width());
+        assertEquals("image/jpeg", narrowest.mediaType());
+        assertEquals(20, ImageIO.read(narrowest.file().toFile()).getHeight());
+        assertEquals(40, manifest.fitting(40).width());
+        assertEquals(80, manifest.fitting(41).width());
+        // Wider than every copy, the original fits best
+        assertNull(manifest.fitting(81));
+    }
+
+    @Test
+    void AttachmentImageIOCantReadGetsNoCopiesTest() throws Exception {
+        final String id = this.store("Not an image".getBytes(StandardCharsets.UTF_8));
+
+        final AttachmentVariants.Manifest manifest = this.generated(id);
+
+        assertNull(manifest.fitting(1));
+    }
+
+    @Test
+    void ImageOverMaxPixelsGetsNoCopiesTest() throws Exception {
+        final String id = this.store(png(2000, 1000));
+
+        final AttachmentVariants.Manifest manifest = this.generated(id);
+
+        assertNull(manifest.fitting(1));
+    }
+
+    @Test
+    void ImageThatFailsToDecodeIsNotQueuedAgainForAWhileTest() throws Exception {
+        final String truncated = this.storeTruncated();
+
+        this.attachmentVariants.generate(truncated);
+        // Done after the truncated one, there is only one thread
+        this.generated(this.store("Not an image".getBytes(StandardCharsets.UTF_8)));
+        this.attachmentVariants.generate(truncated);
+        this.generated(this.store("Still not an image".getBytes(StandardCharsets.UTF_8)));
+
+        assertEquals(1, this.failedCount());
+        assertNull(this.attachmentVariants.manifestOf(truncated));
+        assertFalse(Files.exists(this.directory.resolve("variants").resolve(truncated).resolve("manifest")));
+    }
+
+    @Test
+    void ImageThatFailsToDecodeIsTriedAgainOnceTheFailureExpiresTest() throws Exception {
+        this.attachmentVariants.close();
+        this.attachmentVariants = new AttachmentVariants(this.attachmentStore, this.directory.resolve("variants"),
+                                                         WIDTHS, 1_000_000, 1, 10, Duration.ZERO);
+        final String truncated = this.storeTruncated();
+
+        this.attachmentVariants.generate(truncated);
+        this.generated(this.store("Not an image".getBytes(StandardCharsets.UTF_8)));
+        this.attachmentVariants.generate(truncated);
+        this.generated(this.store("Still not an image".getBytes(StandardCharsets.UTF_8)));
+
+        assertEquals(2, this.failedCount());
+    }
+
+    private String storeTruncated() throws Exception {
+        final byte[] image = png(200, 100);
+        return this.store(Arrays.copyOf(image, image.length / 2));
+    }
+
+    private double failedCount() {
+        final Counter failed = this.registry.find(AttachmentVariants.VARIANTS_COUNTER)
+            .tag("outcome", "failed")
+            .counter();
+        return failed == null ? 0 : failed.count();
+    }
+
+    private String store(byte[] bytes) throws Exception {
+        try (AttachmentStore.Upload upload = this.attachmentStore.begin()) {
+            upload.write(new ByteArrayInputStream(bytes));
+            return upload.commit().id();
+        }
+    }
+
+    private AttachmentVariants.Manifest generated(String id) throws Exception {
+        this.attachmentVariants.generate(id);
+        final long deadline = System.nanoTime() + 10_000_000_000L;
+        while (System.nanoTime() < deadline) {
+            // The worker forgets the absence cached meanwhile once it wrote the manifest
+            final AttachmentVariants.Manifest manifest = this.attachmentVariants.manifestOf(id);
+            if (manifest != null) {
+                return manifest;
+            }
+            Thread.sleep(10);
+        }
+        throw new AssertionError("No manifest was written for " + id);
+    }
+
+    /**
+     * Noise, so the copies are smaller than the original.
+     */
+    private static byte[] png(int width, int height) throws Exception {
+        final BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        final Random random = new Random(1);
+        for (int x = 0; x < width; x++) {
+            for (int y = 0; y < height; y++) {
+                image.setRGB(x, y, random.nextInt(0xffffff));
+            }
+        }
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", bytes);
+        return bytes.toByteArray();
+    }
+}
@@ -0,0 +1,128 @@
+package daos;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import org.bson.BsonDocument;
+import org.bson.BsonString;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.json.JSONObject;
+import org.junit.jupiter.api.Test;
+
+import com.mongodb.MongoWriteException;
+import com.mongodb.ServerAddress;
+import com.mongodb.WriteError;
+import com.mongodb.client.FindIterable;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoCursor;
+import com.mongodb.client.model.UpdateOptions;
+import com.mongodb.client.result.UpdateResult;
+
+class ContentStoreTest {
+    private static final int MIN_BYTES = 16;
+    private static final String LONG_BODY = "A body long enough to be stored by its hash";
+
+    @Test
+    void ShortBodyStaysInlineTest() {
+        final MongoCollection<Document> contents = contentsOf(List.of());
+        final ContentStore contentStore = new ContentStore(contents, MIN_BYTES, 10);
+
+        final Document post = contentStore.externalize(new Document("content_body", "Short"));
+
+        assertEquals("Short", post.getString("content_body"));
+        assertFalse(post.containsKey("content_hash"));
+        verify(contents, never()).updateOne(any(Bson.class), any(Bson.class), any(UpdateOptions.class));
+    }
+
+    @Test
+    void SameLongBodyIsStoredOnceTest() {
+        final MongoCollection<Document> contents = contentsOf(List.of());
+        when(contents.updateOne(any(Bson.class), any(Bson.class), any(UpdateOptions.class)))
+            .thenReturn(UpdateResult.acknowledged(0, 0L, new BsonString("inserted")));
+        final ContentStore contentStore = new ContentStore(contents, MIN_BYTES, 10);
+
+        final Document first = contentStore.externalize(new Document("content_body", LONG_BODY));
+        final Document second = contentStore.externalize(new Document("content_body", LONG_BODY));
+
+        assertFalse(first.containsKey("content_body"));
+        assertEquals(64, first.getString("content_hash").length());
+        assertEquals(first.getString("content_hash"), second.getString("content_hash"));
+        // The second time the hash is known to be stored already
+        verify(contents, times(1)).updateOne(any(Bson.class), any(Bson.class), any(UpdateOptions.class));
+    }
+
+    @Test
+    void BodyStoredByAnotherWriterMeanwhileIsDeduplicatedTest() {
+        final MongoCollection<Document> contents = contentsOf(List.of());
+        when(contents.updateOne(any(Bson.class), any(Bson.class), any(UpdateOptions.class)))
+            .thenThrow(new MongoWriteException(new WriteError(11000, "duplicate key", new BsonDocument()),
+                                               new ServerAddress()));
+        final ContentStore contentStore = new ContentStore(contents, MIN_BYTES, 10);
+
+        assertNotNull(contentStore.store(LONG_BODY));
+    }
+
+    @Test
+    void ResolveAllReadsUncachedBodiesInOneQueryTest() throws Exception {
+        final MongoCollection<Document> contents = contentsOf(List.of(
+            new Document("_id", "h1").append("body", "First body"),
+            new Document("_id", "h2").append("body", "Second body")));
+        final ContentStore contentStore = new ContentStore(contents, MIN_BYTES, 10);
+        final List<JSONObject> posts = List.of(
+            new JSONObject().put("post_id", "p1").put("content_hash", "h1"),
+            new JSONObject().put("post_id", "p2").put("content_hash", "h2"),
+            new JSONObject().put("post_id", "p3").put("content_hash", "h1"),
+            new JSONObject().put("post_id", "p4").put("content_body", "Inline"));
+
+        contentStore.resolveAll(posts);
+
+        assertEquals("First body", posts.get(0).getString("content_body"));
+        assertEquals("Second body", posts.get(1).getString("content_body"));
+        assertEquals("First body", posts.get(2).getString("content_body"));
+        assertEquals("Inline", posts.get(3).getString("content_body"));
+        assertFalse(posts.get(0).has("content_hash"));
+        verify(contents, times(1)).find(any(Bson.class));
+
+        // Cached since
+        final JSONObject again = contentStore.resolve(new JSONObject().put("content_hash", "h2"));
+        assertEquals("Second body", again.getString("content_body"));
+        verify(contents, times(1)).find(any(Bson.class));
+    }
+
+    @Test
+    void MissingBodyFailsAndLeavesTheDocumentsTest() throws Exception {
+        final MongoCollection<Document> contents = contentsOf(List.of(
+            new Document("_id", "h1").append("body", "First body")));
+        final ContentStore contentStore = new ContentStore(contents, MIN_BYTES, 10);
+        final List<JSONObject> posts = List.of(
+            new JSONObject().put("post_id", "p1").put("content_hash", "h1"),
+            new JSONObject().put("post_id", "p2").put("content_hash", "missing"));
+
+        assertThrows(IllegalStateException.class, () -> contentStore.resolveAll(posts));
+
+        // Never an empty body that could be shown, or edited and written back
+        for (JSONObject post : posts) {
+            assertTrue(ContentStore.needsResolving(post));
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static MongoCollection<Document> contentsOf(List<Document> documents) {
+        final MongoCollection<Document> collection = mock(MongoCollection.class);
+        when(collection.find(any(Bson.class))).thenAnswer(invocation -> {
+            final FindIterable<Document> found = mock(FindIterable.class, RETURNS_SELF);
+            final MongoCursor<Document> cursor = mock(MongoCursor.class);
+            final Iterator<Document> iterator = new ArrayList<>(documents).iterator();
+            when(cursor.hasNext()).thenAnswer(next -> iterator.hasNext());
+            when(cursor.next()).thenAnswer(next -> iterator.next());
+            when(found.iterator()).thenReturn(cursor);
+            return found;
+        });
+        return collection;
+    }
+}
@@ -0,0 +1,105 @@
+package daos;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.json.JSONObject;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+
+import com.mongodb.client.FindIterable;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoCursor;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Sorts;
+
+import entity.Post;
+import entity.PostContent;
+
+class DBPostDataAccessObjectTest {
+    private static final LocalDateTime NOON = LocalDateTime.of(2024, 5, 1, 12, 0);
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void FirstPageReadsTheNewestPostsTest() {
+        final MongoCollection<Document> postRepository = collectionOf(List.of(document("p2", NOON)));
+        final DBPostDataAccessObject postDAO = new DBPostDataAccessObject(postRepository);
+
+        final List<JSONObject> page = postDAO.getPostsPage(null, null, 10);
+
+        assertEquals(1, page.size());
+        final FindIterable<Document> found = postRepository.find(new Document());
+        verify(found).sort(Sorts.descending("posted_date", "post_id"));
+        verify(found).limit(10);
+    }
+
+    @Test
+    void NextPageReadsAfterTheLastPostShownTest() {
+        final MongoCollection<Document> postRepository = collectionOf(List.of());
+        final DBPostDataAccessObject postDAO = new DBPostDataAccessObject(postRepository);
+
+        postDAO.getPostsPage("News", post("p5", NOON), 10);
+
+        final ArgumentCaptor<Bson> filter = ArgumentCaptor.forClass(Bson.class);
+        verify(postRepository).find(filter.capture());
+        // A post created since the last page is newer than the cursor, and doesn't shift this page
+        final Bson expected = Filters.and(
+            Filters.eq("category", "News"),
+            Filters.or(Filters.lt("posted_date", NOON.toString()),
+                       Filters.and(Filters.eq("posted_date", NOON.toString()), Filters.lt("post_id", "p5"))));
+        assertEquals(expected.toBsonDocument(), filter.getValue().toBsonDocument());
+    }
+
+    @Test
+    void PendingPostsAfterTheCursorAreMergedInTest() throws Exception {
+        final MongoCollection<Document> postRepository = collectionOf(List.of(
+            document("p3", NOON.minusHours(1)), document("p1", NOON.minusHours(3))));
+        final DBPostDataAccessObject postDAO = new DBPostDataAccessObject(postRepository);
+        postDAO.enableWriteBehind(PostJournal.open(this.directory), authors -> {}, Duration.ofHours(1), 10);
+        // Newer than the cursor, it was on an earlier page
+        postDAO.createPost(post("p9", NOON.plusHours(1)));
+        postDAO.createPost(post("p2", NOON.minusHours(2)));
+
+        final List<JSONObject> page = postDAO.getPostsPage("News", post("p5", NOON), 2);
+
+        assertEquals(List.of("p3", "p2"), PostJournalTest.idsOf(page));
+        postDAO.close();
+    }
+
+    private static Post post(String postID, LocalDateTime postedDate) {
+        return new Post(postID, "author@example.com", new PostContent("Body", null, null), postedDate, postedDate,
+                        0, 0, "Title " + postID, List.of(), "News");
+    }
+
+    private static Document document(String postID, LocalDateTime postedDate) {
+        return new Document("post_id", postID)
+            .append("title", "Title " + postID)
+            .append("category", "News")
+            .append("posted_date", postedDate.toString());
+    }
+
+    @SuppressWarnings("unchecked")
+    private static MongoCollection<Document> collectionOf(List<Document> documents) {
+        final MongoCollection<Document> collection = mock(MongoCollection.class);
+        final FindIterable<Document> found = mock(FindIterable.class, RETURNS_SELF);
+        final MongoCursor<Document> cursor = mock(MongoCursor.class);
+        final Iterator<Document> iterator = new ArrayList<>(documents).iterator();
+        when(cursor.hasNext()).thenAnswer(invocation -> iterator.hasNext());
+        when(cursor.next()).thenAnswer(invocation -> iterator.next());
+        when(found.iterator()).thenReturn(cursor);
+        when(collection.find(any(Bson.class))).thenReturn(found);
+        return collection;
+    }
+}
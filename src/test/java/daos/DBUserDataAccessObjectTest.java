@@ -0,0 +1,57 @@
+package daos;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Consumer;
+
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.json.JSONObject;
+import org.junit.jupiter.api.Test;
+
+import com.mongodb.client.FindIterable;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoCursor;
+
+class DBUserDataAccessObjectTest {
+
+    @Test
+    void ChangingAReturnedProfileLeavesTheCachedOneTest() throws Exception {
+        final MongoCollection<Document> userRepository = collectionOf(List.of(
+            new Document("userId", "u1").append("username", "first").append("post_count", 2)));
+        final DBUserDataAccessObject userDAO = new DBUserDataAccessObject(userRepository);
+
+        final JSONObject listed = userDAO.getUsersByIds(List.of("u1")).get(0);
+        listed.put("username", "changed");
+        final JSONObject single = userDAO.getUserProfileById("u1");
+        single.put("post_count", 0);
+
+        assertEquals("first", userDAO.getUsersByIds(List.of("u1")).get(0).getString("username"));
+        assertEquals(2, userDAO.getUserProfileById("u1").getInt("post_count"));
+        // Every read after the first came from the cache
+        verify(userRepository, times(1)).find(any(Bson.class));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static MongoCollection<Document> collectionOf(List<Document> documents) {
+        final MongoCollection<Document> collection = mock(MongoCollection.class);
+        when(collection.find(any(Bson.class))).thenAnswer(invocation -> {
+            final FindIterable<Document> found = mock(FindIterable.class, RETURNS_SELF);
+            final MongoCursor<Document> cursor = mock(MongoCursor.class);
+            final Iterator<Document> iterator = new ArrayList<>(documents).iterator();
+            when(cursor.hasNext()).thenAnswer(next -> iterator.hasNext());
+            when(cursor.next()).thenAnswer(next -> iterator.next());
+            when(found.iterator()).thenReturn(cursor);
+            doAnswer(forEach -> {
+                documents.forEach(forEach.<Consumer<Document>>getArgument(0));
+                return null;
+            }).when(found).forEach(any());
+            return found;
+        });
+        return collection;
+    }
+}
@@ -0,0 +1,137 @@
+package daos;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+class ExpiringCacheTest {
+    private static final Duration LONG_TTL = Duration.ofHours(1);
+    private static final Duration SHORT_TTL = Duration.ofMillis(50);
+
+    private final AtomicInteger loads = new AtomicInteger();
+
+    private String load(String key) {
+        this.loads.incrementAndGet();
+        return key.startsWith("missing") ? null : key + "-value";
+    }
+
+    @Test
+    void ValueIsLoadedOnceUntilItExpiresTest() throws Exception {
+        final ExpiringCache<String, String> cache = new ExpiringCache<>(10, SHORT_TTL, LONG_TTL);
+
+        assertEquals("a-value", cache.getOrLoad("a", this::load));
+        assertEquals("a-value", cache.getOrLoad("a", this::load));
+        assertEquals(1, this.loads.get());
+
+        Thread.sleep(SHORT_TTL.multipliedBy(2).toMillis());
+
+        assertEquals("a-value", cache.getOrLoad("a", this::load));
+        assertEquals(2, this.loads.get());
+    }
+
+    @Test
+    void AbsentKeyIsKeptForItsOwnTimeToLiveTest() throws Exception {
+        final ExpiringCache<String, String> cache = new ExpiringCache<>(10, LONG_TTL, SHORT_TTL);
+
+        assertNull(cache.getOrLoad("missing", this::load));
+        assertNull(cache.getOrLoad("missing", this::load));
+        assertEquals(1, this.loads.get());
+
+        // Forgotten sooner than a value would be
+        Thread.sleep(SHORT_TTL.multipliedBy(2).toMillis());
+
+        assertNull(cache.getOrLoad("missing", this::load));
+        assertEquals(2, this.loads.get());
+    }
+
+    @Test
+    void PutValueIsServedUntilItExpiresTest() throws Exception {
+        final ExpiringCache<String, String> cache = new ExpiringCache<>(10, SHORT_TTL, LONG_TTL);
+
+        assertNull(cache.getIfPresent("a"));
+        cache.put("a", "put");
+
+        assertEquals("put", cache.getIfPresent("a"));
+        assertEquals("put", cache.getOrLoad("a", this::load));
+        assertEquals(0, this.loads.get());
+
+        Thread.sleep(SHORT_TTL.multipliedBy(2).toMillis());
+
+        assertNull(cache.getIfPresent("a"));
+    }
+
+    @Test
+    void GetAllLoadsOnlyTheKeysNotCachedTest() {
+        final ExpiringCache<String, String> cache = new ExpiringCache<>(10, LONG_TTL, LONG_TTL);
+        cache.getOrLoad("a", this::load);
+        cache.getOrLoad("missing", this::load);
+        final List<String> loaded = new ArrayList<>();
+
+        final Map<String, String> values = cache.getAllOrLoad(List.of("a", "b", "missing", "missing-too"), keys -> {
+            loaded.addAll(keys);
+            final Map<String, String> res = new HashMap<>();
+            keys.forEach(key -> {
+                if (!key.startsWith("missing")) {
+                    res.put(key, key + "-value");
+                }
+            });
+            return res;
+        });
+
+        assertEquals(Map.of("a", "a-value", "b", "b-value"), values);
+        assertEquals(List.of("b", "missing-too"), loaded);
+    }
+
+    @Test
+    void LoadThatRacedAnInvalidationIsNotKeptTest() {
+        final ExpiringCache<String, String> cache = new ExpiringCache<>(10, LONG_TTL, LONG_TTL);
+
+        // The write lands after the value was read, before it was put
+        final String stale = cache.getOrLoad("a", key -> {
+            final String value = this.load(key);
+            cache.invalidate(key);
+            return value;
+        });
+
+        assertEquals("a-value", stale);
+        cache.getOrLoad("a", this::load);
+        assertEquals(2, this.loads.get());
+    }
+
+    @Test
+    void LeastRecentlyUsedKeyIsEvictedTest() {
+        final ExpiringCache<String, String> cache = new ExpiringCache<>(2, LONG_TTL, LONG_TTL);
+        cache.getOrLoad("a", this::load);
+        cache.getOrLoad("b", this::load);
+        // Read since b, so b is the one to go
+        cache.getOrLoad("a", this::load);
+
+        cache.getOrLoad("c", this::load);
+
+        assertEquals(3, this.loads.get());
+        cache.getOrLoad("a", this::load);
+        assertEquals(3, this.loads.get());
+        cache.getOrLoad("b", this::load);
+        assertEquals(4, this.loads.get());
+    }
+
+    @Test
+    void InvalidateAllForgetsEveryKeyTest() {
+        final ExpiringCache<String, String> cache = new ExpiringCache<>(10, LONG_TTL, LONG_TTL);
+        cache.getOrLoad("a", this::load);
+        cache.getOrLoad("missing", this::load);
+
+        cache.invalidateAll();
+        cache.getOrLoad("a", this::load);
+        cache.getOrLoad("missing", this::load);
+
+        assertEquals(4, this.loads.get());
+    }
+}
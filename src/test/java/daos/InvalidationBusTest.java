@@ -0,0 +1,74 @@
+package daos;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Map;
+
+import org.bson.BsonDocument;
+import org.bson.BsonObjectId;
+import org.bson.BsonValue;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.Test;
+
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+
+class InvalidationBusTest {
+    private static final String POST_ID = "post_id";
+
+    private final Map<BsonValue, String> knownIds = InvalidationBus.knownIds();
+
+    @Test
+    void WriteIsMappedByItsDocumentTest() {
+        final BsonObjectId key = new BsonObjectId(new ObjectId());
+
+        assertEquals("p1", this.idOf(change("insert", key, new Document(POST_ID, "p1"), null)));
+        assertEquals("p1", this.idOf(change("update", key, new Document(POST_ID, "p1"), null)));
+    }
+
+    @Test
+    void DeleteIsMappedByTheDocumentBeforeItTest() {
+        final BsonObjectId key = new BsonObjectId(new ObjectId());
+
+        assertEquals("p1", this.idOf(change("delete", key, null, new Document(POST_ID, "p1"))));
+    }
+
+    @Test
+    void DeleteWithoutPreImageIsMappedByEarlierChangesTest() {
+        final BsonObjectId key = new BsonObjectId(new ObjectId());
+        this.idOf(change("update", key, new Document(POST_ID, "p1"), null));
+
+        assertEquals("p1", this.idOf(change("delete", key, null, null)));
+        // Forgotten once deleted
+        assertNull(this.idOf(change("delete", key, null, null)));
+    }
+
+    @Test
+    void UpdateOfADocumentDeletedSinceIsMappedByEarlierChangesTest() {
+        final BsonObjectId key = new BsonObjectId(new ObjectId());
+        this.idOf(change("insert", key, new Document(POST_ID, "p1"), null));
+
+        // The lookup of the full document found nothing
+        assertEquals("p1", this.idOf(change("update", key, null, null)));
+    }
+
+    @Test
+    void UnknownDeleteOrDropIsNotMappedTest() {
+        this.idOf(change("insert", new BsonObjectId(new ObjectId()), new Document(POST_ID, "p1"), null));
+
+        // Left to invalidate everything
+        assertNull(this.idOf(change("delete", new BsonObjectId(new ObjectId()), null, null)));
+        assertNull(this.idOf(change("drop", null, null, null)));
+    }
+
+    private String idOf(ChangeStreamDocument<Document> change) {
+        return InvalidationBus.idOf(change, POST_ID, this.knownIds);
+    }
+
+    private static ChangeStreamDocument<Document> change(String operationType, BsonValue key,
+                                                         Document fullDocument, Document fullDocumentBeforeChange) {
+        final BsonDocument documentKey = key == null ? null : new BsonDocument("_id", key);
+        return new ChangeStreamDocument<>(operationType, new BsonDocument(), null, null, fullDocument,
+                                          fullDocumentBeforeChange, documentKey, null, null, null, null, null, null);
+    }
+}
@@ -0,0 +1,140 @@
+package daos;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.json.JSONObject;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class PostJournalTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void AppendedPostsAreRecoveredTest() throws Exception {
+        final PostJournal journal = PostJournal.open(this.directory);
+        journal.append(post("p1"));
+        journal.append(post("p2"));
+        journal.close();
+
+        final PostJournal reopened = PostJournal.open(this.directory);
+        assertEquals(1, reopened.recovered().size());
+        assertEquals(List.of("p1", "p2"), idsOf(reopened.recovered().get(0).getEntries()));
+        reopened.close();
+    }
+
+    @Test
+    void ConcurrentAppendsAreAllOnDiskTest() throws Exception {
+        final PostJournal journal = PostJournal.open(this.directory);
+        final ExecutorService appenders = Executors.newFixedThreadPool(8);
+        final List<Future<?>> appends = new ArrayList<>();
+        for (int thread = 0; thread < 8; thread++) {
+            final int offset = thread * 50;
+            appends.add(appenders.submit(() -> {
+                for (int i = 0; i < 50; i++) {
+                    journal.append(post("p" + (offset + i)));
+                }
+                return null;
+            }));
+        }
+        for (Future<?> append : appends) {
+            append.get();
+        }
+        appenders.shutdown();
+        journal.close();
+
+        final PostJournal reopened = PostJournal.open(this.directory);
+        final Set<String> ids = new HashSet<>(idsOf(reopened.recovered().get(0).getEntries()));
+        assertEquals(400, ids.size());
+        reopened.close();
+    }
+
+    @Test
+    void TornLastEntryIsSkippedTest() throws Exception {
+        Files.writeString(this.directory.resolve("posts-00000000000000000003.journal"),
+                          "{\"post_id\":\"p1\"}\n{\"post_id\":\"p2\"}\n{\"post_id\":\"p3\",\"ti");
+
+        final PostJournal journal = PostJournal.open(this.directory);
+
+        assertEquals(List.of("p1", "p2"), idsOf(journal.recovered().get(0).getEntries()));
+        // New segments continue after the recovered one
+        journal.append(post("p4"));
+        journal.close();
+        assertTrue(Files.exists(this.directory.resolve("posts-00000000000000000004.journal")));
+    }
+
+    @Test
+    void CorruptEntryBeforeTheLastFailsTest() throws Exception {
+        Files.writeString(this.directory.resolve("posts-00000000000000000000.journal"),
+                          "{\"post_id\":\"p1\"}\nnot json\n{\"post_id\":\"p3\"}\n");
+
+        assertThrows(IOException.class, () -> PostJournal.open(this.directory));
+    }
+
+    @Test
+    void SealRollsOverToANewSegmentTest() throws Exception {
+        final PostJournal journal = PostJournal.open(this.directory);
+        journal.append(post("p1"));
+        journal.seal();
+        journal.append(post("p2"));
+        journal.close();
+
+        PostJournal reopened = PostJournal.open(this.directory);
+        assertEquals(2, reopened.recovered().size());
+        assertEquals(List.of("p1"), idsOf(reopened.recovered().get(0).getEntries()));
+        assertEquals(List.of("p2"), idsOf(reopened.recovered().get(1).getEntries()));
+        reopened.close();
+
+        // Once its posts are written the sealed segment is deleted, and isn't replayed
+        reopened = PostJournal.open(this.directory);
+        reopened.delete(reopened.recovered().get(0));
+        reopened.close();
+        final PostJournal afterDelete = PostJournal.open(this.directory);
+        assertEquals(1, afterDelete.recovered().size());
+        assertEquals(List.of("p2"), idsOf(afterDelete.recovered().get(0).getEntries()));
+        afterDelete.close();
+    }
+
+    @Test
+    void EmptyOpenSegmentIsRemovedOnCloseTest() throws Exception {
+        final PostJournal journal = PostJournal.open(this.directory);
+        journal.close();
+
+        assertEquals(0, segmentCount(this.directory));
+    }
+
+    static JSONObject post(String postID) throws Exception {
+        return new JSONObject().put("post_id", postID).put("author", "a1").put("title", "Title " + postID);
+    }
+
+    static List<String> idsOf(List<JSONObject> posts) throws Exception {
+        final List<String> ids = new ArrayList<>();
+        for (JSONObject post : posts) {
+            ids.add(post.getString("post_id"));
+        }
+        return ids;
+    }
+
+    static int segmentCount(Path directory) throws IOException {
+        int count = 0;
+        try (DirectoryStream<Path> segments = Files.newDirectoryStream(directory, "posts-*.journal")) {
+            for (Path ignored : segments) {
+                count++;
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,127 @@
+package daos;
+
+import static daos.PostJournalTest.idsOf;
+import static daos.PostJournalTest.post;
+import static daos.PostJournalTest.segmentCount;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.json.JSONObject;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.mongodb.MongoException;
+
+class PostWriteBehindTest {
+    // Long enough that the background flush never runs unless a test starts it
+    private static final Duration FLUSH_INTERVAL = Duration.ofHours(1);
+
+    @TempDir
+    Path directory;
+
+    private final List<List<String>> batches = new CopyOnWriteArrayList<>();
+    private final AtomicBoolean mongoDown = new AtomicBoolean();
+
+    private void write(List<JSONObject> posts) {
+        if (this.mongoDown.get()) {
+            throw new MongoException("MongoDB is down");
+        }
+        try {
+            this.batches.add(idsOf(posts));
+        } catch (Exception ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    @Test
+    void FlushWritesPendingPostsInBatchesTest() throws Exception {
+        final PostWriteBehind writeBehind = new PostWriteBehind(PostJournal.open(this.directory), this::write,
+                                                                FLUSH_INTERVAL, 2);
+        for (int i = 1; i <= 5; i++) {
+            writeBehind.submit(post("p" + i));
+        }
+        assertNotNull(writeBehind.getPending("p3"));
+        assertEquals(List.of("p1", "p2", "p3", "p4", "p5"), idsOf(writeBehind.getPending()));
+
+        writeBehind.flush();
+
+        assertEquals(List.of(List.of("p1", "p2"), List.of("p3", "p4"), List.of("p5")), this.batches);
+        assertNull(writeBehind.getPending("p3"));
+        assertTrue(writeBehind.getPending().isEmpty());
+        writeBehind.close();
+        // The written segment was deleted, the empty open one on close
+        assertEquals(0, segmentCount(this.directory));
+    }
+
+    @Test
+    void FailedBatchStaysPendingUntilWrittenTest() throws Exception {
+        final PostWriteBehind writeBehind = new PostWriteBehind(PostJournal.open(this.directory), this::write,
+                                                                FLUSH_INTERVAL, 10);
+        writeBehind.submit(post("p1"));
+        this.mongoDown.set(true);
+
+        assertThrows(MongoException.class, writeBehind::flush);
+        assertNotNull(writeBehind.getPending("p1"));
+
+        // Posts submitted after the failed batch are written after it
+        writeBehind.submit(post("p2"));
+        this.mongoDown.set(false);
+        writeBehind.flush();
+
+        assertEquals(List.of(List.of("p1"), List.of("p2")), this.batches);
+        assertTrue(writeBehind.getPending().isEmpty());
+        writeBehind.close();
+    }
+
+    @Test
+    void PendingPostsAreReplayedAfterRestartTest() throws Exception {
+        this.mongoDown.set(true);
+        final PostWriteBehind beforeCrash = new PostWriteBehind(PostJournal.open(this.directory), this::write,
+                                                                FLUSH_INTERVAL, 10);
+        beforeCrash.submit(post("p1"));
+        beforeCrash.submit(post("p2"));
+        // Its last flush fails, the posts are left in the journal
+        beforeCrash.close();
+        assertTrue(this.batches.isEmpty());
+
+        this.mongoDown.set(false);
+        final PostWriteBehind afterRestart = new PostWriteBehind(PostJournal.open(this.directory), this::write,
+                                                                 FLUSH_INTERVAL, 10);
+        assertEquals(List.of("p1", "p2"), idsOf(afterRestart.getPending()));
+
+        afterRestart.flush();
+
+        assertEquals(List.of(List.of("p1", "p2")), this.batches);
+        afterRestart.close();
+        assertEquals(0, segmentCount(this.directory));
+    }
+
+    @Test
+    void BackgroundFlushWritesWithinTheIntervalTest() throws Exception {
+        final CountDownLatch written = new CountDownLatch(1);
+        final List<String> ids = new ArrayList<>();
+        final PostWriteBehind writeBehind = new PostWriteBehind(PostJournal.open(this.directory), posts -> {
+            try {
+                ids.addAll(idsOf(posts));
+            } catch (Exception ex) {
+                throw new IllegalStateException(ex);
+            }
+            written.countDown();
+        }, Duration.ofMillis(20), 10);
+        writeBehind.start();
+
+        writeBehind.submit(post("p1"));
+
+        assertTrue(written.await(5, TimeUnit.SECONDS));
+        assertEquals(List.of("p1"), ids);
+        writeBehind.close();
+    }
+}
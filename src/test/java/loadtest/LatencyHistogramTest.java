@@ -0,0 +1,68 @@
+package loadtest;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+class LatencyHistogramTest {
+    private static final double BUCKET_ERROR = 0.02;
+
+    @Test
+    void PercentilesAreOffByAtMostTheBucketErrorTest() {
+        final LatencyHistogram histogram = new LatencyHistogram();
+        // 1ms to 10s, one each
+        for (int millis = 1; millis <= 10_000; millis++) {
+            histogram.record(TimeUnit.MILLISECONDS.toNanos(millis));
+        }
+
+        assertEquals(10_000, histogram.getCount());
+        assertWithinBucketError(5_000, histogram.percentileMillis(50));
+        assertWithinBucketError(9_900, histogram.percentileMillis(99));
+        assertWithinBucketError(9_990, histogram.percentileMillis(99.9));
+        assertWithinBucketError(1, histogram.percentileMillis(0));
+        // Never more than the slowest one recorded
+        assertEquals(10_000, histogram.percentileMillis(100));
+        assertEquals(10_000, histogram.maxMillis());
+        assertEquals(5_000.5, histogram.meanMillis(), 1e-9);
+    }
+
+    @Test
+    void TailIsNotHiddenByTheMedianTest() {
+        final LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 0; i < 990; i++) {
+            histogram.record(TimeUnit.MILLISECONDS.toNanos(2));
+        }
+        for (int i = 0; i < 10; i++) {
+            histogram.record(TimeUnit.SECONDS.toNanos(3));
+        }
+
+        assertWithinBucketError(2, histogram.percentileMillis(50));
+        assertWithinBucketError(2, histogram.percentileMillis(99));
+        assertWithinBucketError(3_000, histogram.percentileMillis(99.9));
+    }
+
+    @Test
+    void LatencyPastTheLastBucketIsStillCountedTest() {
+        final LatencyHistogram histogram = new LatencyHistogram();
+
+        histogram.record(TimeUnit.HOURS.toNanos(10));
+
+        assertEquals(TimeUnit.HOURS.toMillis(10), histogram.percentileMillis(50));
+    }
+
+    @Test
+    void EmptyHistogramReportsZeroTest() {
+        final LatencyHistogram histogram = new LatencyHistogram();
+
+        assertEquals(0, histogram.percentileMillis(99));
+        assertEquals(0, histogram.meanMillis());
+    }
+
+    private static void assertWithinBucketError(double expectedMillis, double actualMillis) {
+        // A latency is reported as the upper bound of its bucket, never below it
+        assertTrue(actualMillis >= expectedMillis && actualMillis <= expectedMillis * (1 + BUCKET_ERROR),
+                   "Expected " + expectedMillis + "ms within " + BUCKET_ERROR + " but was " + actualMillis + "ms");
+    }
+}
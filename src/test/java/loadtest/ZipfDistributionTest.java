@@ -0,0 +1,55 @@
+package loadtest;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class ZipfDistributionTest {
+    private static final int SAMPLES = 200_000;
+
+    @Test
+    void RanksComeUpInProportionToTheirWeightTest() {
+        final double[] frequencies = frequencies(new ZipfDistribution(5, 1), 5);
+
+        // 1, 1/2, 1/3, 1/4 and 1/5, over their sum
+        final double harmonic = 1 + 1 / 2.0 + 1 / 3.0 + 1 / 4.0 + 1 / 5.0;
+        for (int rank = 0; rank < 5; rank++) {
+            assertEquals(1 / (rank + 1.0) / harmonic, frequencies[rank], 0.005);
+        }
+    }
+
+    @Test
+    void SteeperExponentHasALongerTailTest() {
+        final double[] frequencies = frequencies(new ZipfDistribution(1000, 2), 1000);
+
+        // About 6 / pi^2 and a quarter of it, the first thousand terms sum to nearly zeta(2)
+        assertEquals(0.608, frequencies[0], 0.005);
+        assertEquals(0.152, frequencies[1], 0.005);
+        double tail = 0;
+        for (int rank = 100; rank < 1000; rank++) {
+            tail += frequencies[rank];
+        }
+        assertTrue(tail < 0.01);
+    }
+
+    @Test
+    void ExponentZeroIsUniformTest() {
+        final double[] frequencies = frequencies(new ZipfDistribution(4, 0), 4);
+
+        for (double frequency : frequencies) {
+            assertEquals(0.25, frequency, 0.005);
+        }
+    }
+
+    private static double[] frequencies(ZipfDistribution distribution, int n) {
+        final Random random = new Random(42);
+        final double[] frequencies = new double[n];
+        for (int i = 0; i < SAMPLES; i++) {
+            // Out of range ranks fail here
+            frequencies[distribution.sample(random)] += 1.0 / SAMPLES;
+        }
+        return frequencies;
+    }
+}
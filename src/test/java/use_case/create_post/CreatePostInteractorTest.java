@@ -0,0 +1,82 @@
+package use_case.create_post;
+
+import static org.mockito.Mockito.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import daos.DBUserDataAccessObject;
+import entity.Post;
+import entity.PostFactory;
+import entity.User;
+import use_case.post_events.PostEventListener;
+
+class CreatePostInteractorTest {
+
+    private CreatePostDataAccessInterface mockDataAccess;
+    private DBUserDataAccessObject mockUserRepo;
+    private CreatePostOutputBoundary mockPresenter;
+    private PostFactory mockPostFactory;
+    private User mockUser;
+    private CreatePostInteractor interactor;
+
+    @BeforeEach
+    void setUp() {
+        mockDataAccess = mock(CreatePostDataAccessInterface.class);
+        mockUserRepo = mock(DBUserDataAccessObject.class);
+        mockPresenter = mock(CreatePostOutputBoundary.class);
+        mockPostFactory = mock(PostFactory.class);
+        mockUser = mock(User.class);
+        when(mockUser.getPosts()).thenReturn(new ArrayList<>());
+        when(mockUserRepo.getCurrentUser()).thenReturn(mockUser);
+        interactor = new CreatePostInteractor(mockDataAccess, mockUserRepo, mockPresenter, mockPostFactory);
+    }
+
+    private static CreatePostInputData inputData() {
+        return new CreatePostInputData(
+                "author@example.com", "This is a post content", "path/to/attachment", "jpg", 0, 0,
+                "Post Title", List.of(), List.of(), "General"
+        );
+    }
+
+    @Test
+    void CreatePostUpdatesAuthorPostsTest() {
+        when(mockPostFactory.createPost(anyString(), eq(mockUser), anyString(), anyString(), anyString(),
+                anyString(), anyString())).thenReturn(mock(Post.class));
+
+        interactor.createPost(inputData());
+
+        verify(mockUserRepo).updateUserPosts(mockUser);
+    }
+
+    @Test
+    void CreatePostDataAccessAddsPostToAuthorTest() {
+        // Posts written behind are added to their author when they are written
+        when(mockDataAccess.addsPostToAuthor()).thenReturn(true);
+        when(mockPostFactory.createPost(anyString(), eq(mockUser), anyString(), anyString(), anyString(),
+                anyString(), anyString())).thenReturn(mock(Post.class));
+
+        interactor.createPost(inputData());
+
+        verify(mockDataAccess).createPost(any(Post.class));
+        verify(mockUserRepo, never()).updateUserPosts(any(User.class));
+        verify(mockPresenter).prepareSuccessView(any(CreatePostOutputData.class));
+    }
+
+    @Test
+    void CreatePostPublishesPostCreatedTest() {
+        final PostEventListener mockPostEvents = mock(PostEventListener.class);
+        interactor = new CreatePostInteractor(mockDataAccess, mockUserRepo, mockPresenter, mockPostFactory,
+                                              mockPostEvents);
+        final Post mockPost = mock(Post.class);
+        when(mockPostFactory.createPost(anyString(), eq(mockUser), anyString(), anyString(), anyString(),
+                anyString(), anyString())).thenReturn(mockPost);
+
+        interactor.createPost(inputData());
+
+        verify(mockPostEvents).postCreated(mockPost);
+    }
+}
@@ -0,0 +1,108 @@
+package use_case.get_user;
+
+import entity.CommonUserFactory;
+import entity.User;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class GetUserInteractorTest {
+
+    private GetUserDataAccessInterface mockUserDB;
+    private GetUserInteractor interactor;
+
+    @BeforeEach
+    void setUp() {
+        mockUserDB = Mockito.mock(GetUserDataAccessInterface.class);
+        interactor = new GetUserInteractor(mockUserDB, new CommonUserFactory());
+    }
+
+    private JSONObject profileJSON(String userID, String username) throws JSONException {
+        JSONObject profileJSON = new JSONObject();
+        profileJSON.put("userId", userID);
+        profileJSON.put("username", username);
+        profileJSON.put("full_name", username + " Smith");
+        profileJSON.put("post_count", 3);
+        return profileJSON;
+    }
+
+    @Test
+    void getUserProfileReturnsOnlyPublicFieldsTest() throws JSONException {
+        when(mockUserDB.getUserProfileById("user1")).thenReturn(profileJSON("user1", "Sam"));
+
+        PublicUserProfile profile = interactor.getUserProfile(new GetUserInputData("user1"));
+
+        assertEquals("user1", profile.getUserID());
+        assertEquals("Sam", profile.getUsername());
+        assertEquals("Sam Smith", profile.getFullName());
+        assertEquals(3, profile.getPostCount());
+        verify(mockUserDB, never()).getUserById(any());
+    }
+
+    @Test
+    void getUserProfileOfUnknownUserTest() {
+        when(mockUserDB.getUserProfileById("ghost")).thenReturn(null);
+
+        assertThrows(UserDoesNotExistException.class,
+            () -> interactor.getUserProfile(new GetUserInputData("ghost")));
+    }
+
+    @Test
+    void getCurrentUserProfileTest() {
+        User currentUser = new CommonUserFactory().create(
+                "Sam", "sam123", "user1", "11/11/11",
+                "Sam Sam", "sam@gmail.com", new ArrayList<>(), new ArrayList<>(List.of("p1", "p2")));
+        when(mockUserDB.getCurrentUser()).thenReturn(currentUser);
+
+        PublicUserProfile profile = interactor.getCurrentUserProfile();
+
+        assertEquals("user1", profile.getUserID());
+        assertEquals("Sam", profile.getUsername());
+        assertEquals(2, profile.getPostCount());
+    }
+
+    @Test
+    void getCurrentUserProfileWhenLoggedOutTest() {
+        when(mockUserDB.getCurrentUser()).thenReturn(null);
+
+        assertNull(interactor.getCurrentUserProfile());
+    }
+
+    @Test
+    void getUserProfilesLooksUpEachIdOnceInOneQuery() throws JSONException {
+        when(mockUserDB.getUsersByIds(any())).thenReturn(List.of(
+            profileJSON("user1", "Sam"), profileJSON("user2", "Alex")));
+
+        List<PublicUserProfile> profiles = interactor.getUserProfiles(List.of("user1", "user2", "user1"));
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<Collection<String>> captor = ArgumentCaptor.forClass(Collection.class);
+        verify(mockUserDB, times(1)).getUsersByIds(captor.capture());
+        assertEquals(List.of("user1", "user2"), List.copyOf(captor.getValue()));
+
+        assertEquals(2, profiles.size());
+        assertEquals("user1", profiles.get(0).getUserID());
+        assertEquals("Sam", profiles.get(0).getUsername());
+        assertEquals("Alex Smith", profiles.get(1).getFullName());
+        verify(mockUserDB, never()).getUserById(any());
+    }
+
+    @Test
+    void getUserProfilesWithoutIdsSkipsTheQuery() {
+        List<PublicUserProfile> profiles = interactor.getUserProfiles(List.of());
+
+        assertTrue(profiles.isEmpty());
+        verify(mockUserDB, never()).getUsersByIds(any());
+    }
+}
@@ -11,6 +11,7 @@ import org.mockito.Mockito;
 
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.function.Consumer;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -294,6 +295,164 @@ class GetPostInteractorTest {
         verify(mockPresenter).switchToHomePageView();
     }
 
+    @Test
+    void GetPostsPageHasMorePostsTest() throws Exception {
+        JSONObject postJSON1 = new JSONObject();
+        postJSON1.put("post_id", "123");
+        postJSON1.put("author", "Author1");
+        postJSON1.put("content_body", "Content of post.");
+        postJSON1.put("attachment_path", "path/to/attachment");
+        postJSON1.put("file_type", "text/plain");
+        postJSON1.put("title", "Post 1");
+        postJSON1.put("category", "Java");
+        postJSON1.put("posted_date", LocalDateTime.now().withNano(0).toString());
+        postJSON1.put("last_modified", LocalDateTime.now().withNano(0).toString());
+        postJSON1.put("likes", 5);
+        postJSON1.put("dislikes", 2);
+        postJSON1.put("comments", new JSONArray());
+
+        JSONObject postJSON2 = new JSONObject(convertJsonToMap(postJSON1));
+        postJSON2.put("post_id", "456");
+        JSONObject postJSON3 = new JSONObject(convertJsonToMap(postJSON1));
+        postJSON3.put("post_id", "789");
+
+        Post after = mock(Post.class);
+
+        // The interactor asks for one more post than the page size
+        when(mockPostDB.getPostsPage("Java", after, 3)).thenReturn(List.of(postJSON1, postJSON2, postJSON3));
+
+        List<Post> result = interactor.getPostsPage("Java", after, 2);
+
+        ArgumentCaptor<GetPostOutputData> captor = ArgumentCaptor.forClass(GetPostOutputData.class);
+        verify(mockPresenter).prepareSuccessView(captor.capture());
+        assertEquals(2, result.size());
+        assertEquals("456", result.get(1).getEntryID());
+        assertEquals(result, captor.getValue().getAllPosts());
+        assertFalse(captor.getValue().isFirstPage());
+        assertTrue(captor.getValue().hasMorePosts());
+    }
+
+    @Test
+    void GetPostsPageLastPageTest() {
+        when(mockPostDB.getPostsPage(null, null, 11)).thenReturn(new ArrayList<>());
+
+        List<Post> result = interactor.getPostsPage(null, null, 10);
+
+        ArgumentCaptor<GetPostOutputData> captor = ArgumentCaptor.forClass(GetPostOutputData.class);
+        verify(mockPresenter).prepareSuccessView(captor.capture());
+        assertTrue(result.isEmpty());
+        assertTrue(captor.getValue().isFirstPage());
+        assertFalse(captor.getValue().hasMorePosts());
+    }
+
+    @Test
+    void ReadPostsPageLeavesThePresenterAloneTest() throws Exception {
+        JSONObject postJSON = new JSONObject();
+        postJSON.put("post_id", "123");
+        postJSON.put("author", "Author1");
+        postJSON.put("content_body", "Content of post.");
+        postJSON.put("attachment_path", "path/to/attachment");
+        postJSON.put("file_type", "text/plain");
+        postJSON.put("title", "Post 1");
+        postJSON.put("category", "Java");
+        postJSON.put("posted_date", LocalDateTime.now().withNano(0).toString());
+        postJSON.put("last_modified", LocalDateTime.now().withNano(0).toString());
+        postJSON.put("likes", 5);
+        postJSON.put("dislikes", 2);
+        postJSON.put("comments", new JSONArray());
+
+        // No next page to tell about, so no extra post is asked for
+        when(mockPostDB.getPostsPage(null, null, 1)).thenReturn(List.of(postJSON));
+
+        List<Post> result = interactor.readPostsPage(null, null, 1);
+
+        assertEquals(1, result.size());
+        assertEquals("123", result.get(0).getEntryID());
+        verifyNoInteractions(mockPresenter);
+    }
+
+    @Test
+    void ForEachPostTest() throws Exception {
+        JSONObject postJSON = new JSONObject();
+        postJSON.put("post_id", "123");
+        postJSON.put("author", "Author1");
+        postJSON.put("content_body", "Content of post.");
+        postJSON.put("attachment_path", "path/to/attachment");
+        postJSON.put("file_type", "text/plain");
+        postJSON.put("title", "Post 1");
+        postJSON.put("category", "Java");
+        postJSON.put("posted_date", LocalDateTime.now().withNano(0).toString());
+        postJSON.put("last_modified", LocalDateTime.now().withNano(0).toString());
+        postJSON.put("likes", 5);
+        postJSON.put("dislikes", 2);
+        postJSON.put("comments", new JSONArray());
+
+        doAnswer(invocation -> {
+            Consumer<JSONObject> action = invocation.getArgument(0);
+            action.accept(postJSON);
+            return null;
+        }).when(mockPostDB).forEachPost(any());
+
+        List<Post> streamed = new ArrayList<>();
+        interactor.forEachPost(streamed::add);
+
+        assertEquals(1, streamed.size());
+        assertEquals("123", streamed.get(0).getEntryID());
+        verifyNoInteractions(mockPresenter);
+    }
+
+    @Test
+    void GetAllPostVersionsTest() throws Exception {
+        LocalDateTime postedDate = LocalDateTime.of(2024, 11, 1, 10, 0);
+        LocalDateTime lastModified = LocalDateTime.of(2024, 11, 2, 10, 0);
+
+        JSONObject edited = new JSONObject();
+        edited.put("post_id", "123");
+        edited.put("posted_date", postedDate.toString());
+        edited.put("last_modified", lastModified.toString());
+        JSONObject neverEdited = new JSONObject();
+        neverEdited.put("post_id", "456");
+        neverEdited.put("posted_date", postedDate.toString());
+
+        when(mockPostDB.getAllPostVersions()).thenReturn(List.of(edited, neverEdited));
+
+        List<PostVersion> versions = interactor.getAllPostVersions();
+
+        assertEquals("123", versions.get(0).getEntryID());
+        assertEquals(lastModified, versions.get(0).getLastModified());
+        assertEquals(postedDate, versions.get(1).getLastModified());
+    }
+
+    @Test
+    void GetAllPostsSharesRepeatedStringsTest() throws Exception {
+        LocalDateTime postedDate = LocalDateTime.of(2024, 11, 1, 10, 0);
+        List<JSONObject> posts = new ArrayList<>();
+        for (String entryID : List.of("123", "456")) {
+            JSONObject postJSON = new JSONObject();
+            postJSON.put("post_id", entryID);
+            // Equal strings that aren't the same instance, like two documents decoded apart
+            postJSON.put("author", new String("Author1"));
+            postJSON.put("content_body", "This is the content.");
+            postJSON.put("attachment_path", "path/to/attachment");
+            postJSON.put("file_type", new String("image/png"));
+            postJSON.put("title", "Sample Post");
+            postJSON.put("category", new String("General"));
+            postJSON.put("posted_date", postedDate.toString());
+            postJSON.put("last_modified", postedDate.toString());
+            postJSON.put("likes", 0);
+            postJSON.put("dislikes", 0);
+            postJSON.put("comments", new JSONArray());
+            posts.add(postJSON);
+        }
+        when(mockPostDB.getAllPosts()).thenReturn(posts);
+
+        List<Post> result = interactor.getAllPosts();
+
+        assertSame(result.get(0).getAuthor(), result.get(1).getAuthor());
+        assertSame(result.get(0).getCategory(), result.get(1).getCategory());
+        assertSame(result.get(0).getContent().getFileType(), result.get(1).getContent().getFileType());
+    }
+
     // Utility method to convert JSONObject to Map
     private Map<String, Object> convertJsonToMap(JSONObject jsonObject) throws JSONException {
         Map<String, Object> map = new HashMap<>();
@@ -0,0 +1,114 @@
+package use_case.post_page;
+
+import entity.*;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import use_case.get_user.GetUserInputBoundary;
+import use_case.get_user.GetUserInputData;
+import use_case.get_user.PublicUserProfile;
+import use_case.get_user.UserDoesNotExistException;
+import use_case.getpost.GetPostDataAccessInterface;
+import use_case.getpost.PostNotFoundException;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class PostPageInteractorTest {
+
+    private GetPostDataAccessInterface mockPostDB;
+    private PostPageDataAccessInterface mockCommentDB;
+    private GetUserInputBoundary mockGetUserInteractor;
+    private ExecutorService executor;
+    private PostPageInteractor interactor;
+
+    @BeforeEach
+    void setUp() {
+        mockPostDB = Mockito.mock(GetPostDataAccessInterface.class);
+        mockCommentDB = Mockito.mock(PostPageDataAccessInterface.class);
+        mockGetUserInteractor = Mockito.mock(GetUserInputBoundary.class);
+        executor = Executors.newFixedThreadPool(3);
+        interactor = new PostPageInteractor(mockPostDB, mockCommentDB, mockGetUserInteractor, executor);
+    }
+
+    private JSONObject postJSON(String entryID, String author) throws JSONException {
+        JSONObject postJSON = new JSONObject();
+        postJSON.put("post_id", entryID);
+        postJSON.put("author", author);
+        postJSON.put("content_body", "This is the content.");
+        postJSON.put("attachment_path", "");
+        postJSON.put("file_type", "");
+        postJSON.put("title", "Sample Post");
+        postJSON.put("category", "Java");
+        postJSON.put("posted_date", LocalDateTime.now().withNano(0).toString());
+        postJSON.put("last_modified", LocalDateTime.now().withNano(0).toString());
+        postJSON.put("likes", 5);
+        postJSON.put("dislikes", 2);
+        postJSON.put("comments", new JSONArray());
+        return postJSON;
+    }
+
+    private JSONObject commentJSON(String commentID, String author) throws JSONException {
+        JSONObject commentJSON = new JSONObject();
+        commentJSON.put("comment_id", commentID);
+        commentJSON.put("post_id", "123");
+        commentJSON.put("author", author);
+        commentJSON.put("content_body", "Nice post");
+        commentJSON.put("posted_date", LocalDateTime.now().withNano(0).toString());
+        commentJSON.put("likes", 1);
+        commentJSON.put("dislikes", 0);
+        return commentJSON;
+    }
+
+    @Test
+    void GetPostPageSuccessTest() throws Exception {
+        PublicUserProfile author = new PublicUserProfile("Author1", "author", "Author One", 1);
+        when(mockPostDB.getPostByEntryID("123")).thenReturn(postJSON("123", "Author1"));
+        when(mockCommentDB.getCommentsByPostID("123", 20))
+            .thenReturn(List.of(commentJSON("c1", "Author2"), commentJSON("c2", "Author3")));
+        when(mockGetUserInteractor.getUserProfile(any(GetUserInputData.class))).thenReturn(author);
+
+        PostPageOutputData outputData = interactor.getPostPage(new PostPageInputData("123", 20));
+
+        assertEquals("123", outputData.getPost().getEntryID());
+        assertSame(author, outputData.getAuthor());
+        assertEquals(2, outputData.getComments().size());
+        assertEquals("c1", outputData.getComments().get(0).getEntryID());
+        assertEquals("Author3", outputData.getComments().get(1).getAuthor());
+        executor.shutdown();
+    }
+
+    @Test
+    void GetPostPageDeletedAuthorTest() throws Exception {
+        when(mockPostDB.getPostByEntryID("123")).thenReturn(postJSON("123", "Author1"));
+        when(mockCommentDB.getCommentsByPostID("123", 20)).thenReturn(List.of());
+        when(mockGetUserInteractor.getUserProfile(any(GetUserInputData.class)))
+            .thenThrow(new UserDoesNotExistException("Author1"));
+
+        PostPageOutputData outputData = interactor.getPostPage(new PostPageInputData("123", 20));
+
+        assertNull(outputData.getAuthor());
+        assertTrue(outputData.getComments().isEmpty());
+        executor.shutdown();
+    }
+
+    @Test
+    void GetPostPageNotFoundTest() throws Exception {
+        when(mockPostDB.getPostByEntryID("404")).thenReturn(null);
+        when(mockCommentDB.getCommentsByPostID("404", 20)).thenReturn(List.of());
+
+        assertThrows(PostNotFoundException.class,
+            () -> interactor.getPostPage(new PostPageInputData("404", 20)));
+        verify(mockGetUserInteractor, never()).getUserProfile(any(GetUserInputData.class));
+        executor.shutdown();
+    }
+}
@@ -1,5 +1,6 @@
 const path = require("path")
 const { merge } = require("webpack-merge")
+const MiniCssExtractPlugin = require("mini-css-extract-plugin")
 const common = require("./webpack.common.js")
 
 module.exports = merge(common, {
@@ -9,4 +10,10 @@ module.exports = merge(common, {
     path: path.resolve(__dirname, 'src/main/resources/static'),
     filename: "[name].js",
   },
+  plugins: [
+    new MiniCssExtractPlugin({
+      filename: "[name].css",
+      chunkFilename: "[id].css",
+    }),
+  ],
 })
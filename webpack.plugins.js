@@ -0,0 +1,57 @@
+const path = require("path")
+const zlib = require("zlib")
+const webpack = require("webpack")
+
+// Writes manifest.json, mapping each entry's logical path (e.g. "js/home_page/app.js")
+// to the file it was emitted as, which the server's AssetManifest reads
+class AssetManifestPlugin {
+  apply(compiler) {
+    compiler.hooks.thisCompilation.tap("AssetManifestPlugin", (compilation) => {
+      compilation.hooks.processAssets.tap(
+        { name: "AssetManifestPlugin", stage: webpack.Compilation.PROCESS_ASSETS_STAGE_REPORT },
+        () => {
+          const manifest = {}
+          for (const chunk of compilation.chunks) {
+            if (!chunk.name) continue
+            for (const file of chunk.files) {
+              if (file.endsWith(".map")) continue
+              manifest[chunk.name + path.extname(file)] = file
+            }
+          }
+          compilation.emitAsset("manifest.json", new webpack.sources.RawSource(JSON.stringify(manifest, null, 2)))
+        },
+      )
+    })
+  }
+}
+
+// Emits .gz and .br next to every text asset, so the server sends them as they are
+// instead of compressing the same bundle on every request
+class PrecompressPlugin {
+  static COMPRESSIBLE = /\.(js|css|svg|html)$/
+  static MIN_SIZE = 1024
+
+  apply(compiler) {
+    compiler.hooks.thisCompilation.tap("PrecompressPlugin", (compilation) => {
+      compilation.hooks.processAssets.tap(
+        { name: "PrecompressPlugin", stage: webpack.Compilation.PROCESS_ASSETS_STAGE_OPTIMIZE_TRANSFER },
+        (assets) => {
+          for (const name of Object.keys(assets)) {
+            if (!PrecompressPlugin.COMPRESSIBLE.test(name)) continue
+            const content = assets[name].buffer()
+            if (content.length < PrecompressPlugin.MIN_SIZE) continue
+
+            compilation.emitAsset(name + ".gz",
+              new webpack.sources.RawSource(zlib.gzipSync(content, { level: zlib.constants.Z_BEST_COMPRESSION })))
+            compilation.emitAsset(name + ".br",
+              new webpack.sources.RawSource(zlib.brotliCompressSync(content, {
+                params: { [zlib.constants.BROTLI_PARAM_QUALITY]: zlib.constants.BROTLI_MAX_QUALITY },
+              })))
+          }
+        },
+      )
+    })
+  }
+}
+
+module.exports = { AssetManifestPlugin, PrecompressPlugin }
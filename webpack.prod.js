@@ -1,12 +1,24 @@
 const path = require("path")
 const { merge } = require("webpack-merge")
+const MiniCssExtractPlugin = require("mini-css-extract-plugin")
 const common = require("./webpack.common.js")
+const { PrecompressPlugin } = require("./webpack.plugins.js")
 
+// File names carry a hash of their content, so the server can let browsers cache
+// them forever and a new build is picked up through manifest.json
 module.exports = merge(common, {
   mode: "production",
   devtool: "source-map",
   output: {
     path: path.resolve(__dirname, 'static'),
-    filename: "[name].js",
+    filename: "[name].[contenthash:8].js",
+    clean: true,
   },
+  plugins: [
+    new MiniCssExtractPlugin({
+      filename: "[name].[contenthash:8].css",
+      chunkFilename: "[id].[contenthash:8].css",
+    }),
+    new PrecompressPlugin(),
+  ],
 })